@@ -17,13 +17,11 @@ import static com.hartwig.hmftools.common.utils.version.VersionInfo.fromAppName;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ListMultimap;
 
 import com.google.common.collect.Lists;
@@ -47,7 +45,7 @@ public class AmberApplication implements AutoCloseable
 
     private ResultsWriter mPersistence;
     private VersionInfo mVersionInfo;
-    private ImmutableListMultimap<Chromosome,AmberSite> mChromosomeSites;
+    private AmberSitePanel mSitePanel;
 
     public AmberApplication(final ConfigBuilder configBuilder)
     {
@@ -62,7 +60,7 @@ public class AmberApplication implements AutoCloseable
 
         mPersistence = new ResultsWriter(mConfig);
 
-        mChromosomeSites = loadAmberSites();
+        mSitePanel = loadAmberSites();
 
         if(!mConfig.isValid())
         {
@@ -88,12 +86,14 @@ public class AmberApplication implements AutoCloseable
         return 0;
     }
 
-    private ImmutableListMultimap<Chromosome,AmberSite> loadAmberSites() throws IOException
+    private AmberSitePanel loadAmberSites() throws IOException
     {
-        ListMultimap<Chromosome,AmberSite> amberSitesMap = AmberSitesFile.sites(mConfig.BafLociPath);
+        AmberSitePanel sitePanel = AmberSitePanel.isBinaryPanel(mConfig.BafLociPath)
+                ? AmberSitePanel.load(mConfig.BafLociPath)
+                : AmberSitePanel.fromSites(AmberSitesFile.sites(mConfig.BafLociPath));
 
         if(mConfig.TargetRegionsBed == null)
-            return ImmutableListMultimap.copyOf(amberSitesMap);
+            return sitePanel;
 
         ListMultimap<Chromosome,AmberSite> targetRegionSites = ArrayListMultimap.create();
 
@@ -106,7 +106,7 @@ public class AmberApplication implements AutoCloseable
                 Chromosome chromosome = entry.getKey();
                 List<BaseRegion> regions = entry.getValue();
 
-                Collection<AmberSite> amberSites = amberSitesMap.get(chromosome);
+                AmberSitePanel.ChromosomeSites amberSites = sitePanel.chromosomeSites(chromosome);
 
                 if(amberSites == null)
                     continue;
@@ -114,12 +114,14 @@ public class AmberApplication implements AutoCloseable
                 int regionIndex = 0;
                 BaseRegion currentRegion = regions.get(0);
 
-                for(AmberSite amberSite : amberSites)
+                for(int i = 0; i < amberSites.count(); ++i)
                 {
-                    if(amberSite.position() < currentRegion.start() - TARGET_REGION_SITE_BUFFER)
+                    int sitePosition = amberSites.position(i);
+
+                    if(sitePosition < currentRegion.start() - TARGET_REGION_SITE_BUFFER)
                         continue;
 
-                    while(amberSite.position() > currentRegion.end() + TARGET_REGION_SITE_BUFFER)
+                    while(sitePosition > currentRegion.end() + TARGET_REGION_SITE_BUFFER)
                     {
                         ++regionIndex;
 
@@ -132,15 +134,15 @@ public class AmberApplication implements AutoCloseable
                     if(regionIndex >= regions.size())
                         break;
 
-                    if(amberSite.position() >= currentRegion.start() - TARGET_REGION_SITE_BUFFER
-                    && amberSite.position() <= currentRegion.end() + TARGET_REGION_SITE_BUFFER)
+                    if(sitePosition >= currentRegion.start() - TARGET_REGION_SITE_BUFFER
+                    && sitePosition <= currentRegion.end() + TARGET_REGION_SITE_BUFFER)
                     {
-                        targetRegionSites.put(chromosome, amberSite);
+                        targetRegionSites.put(chromosome, amberSites.amberSite(i));
                     }
                 }
             }
 
-            return ImmutableListMultimap.copyOf(targetRegionSites);
+            return AmberSitePanel.fromSites(targetRegionSites);
         }
         catch(Exception e)
         {
@@ -148,12 +150,12 @@ public class AmberApplication implements AutoCloseable
             System.exit(1);
         }
 
-        return ImmutableListMultimap.copyOf(targetRegionSites);
+        return AmberSitePanel.fromSites(targetRegionSites);
     }
 
     private void runGermlineOnly() throws InterruptedException, IOException
     {
-        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory(mConfig), mChromosomeSites);
+        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory(mConfig), mSitePanel);
 
         List<AmberBAF> amberBAFList = Lists.newArrayList();
 
@@ -178,13 +180,13 @@ public class AmberApplication implements AutoCloseable
     {
         final SamReaderFactory readerFactory = readerFactory(mConfig);
 
-        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory, mChromosomeSites);
+        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory, mSitePanel);
 
         TumorAnalysis tumor = new TumorAnalysis(mConfig, readerFactory,
-                germline.getHeterozygousLoci(), germline.getHomozygousLoci());
+                germline.getHeterozygousLoci(), germline.getHomozygousLoci(), germline.getTumorEvidence());
 
         final List<TumorBAF> tumorBAFList = tumor.getBafs().values().stream()
-                .filter(x -> x.TumorEvidence.ReadDepth >= mConfig.TumorMinDepth)
+                .filter(x -> x.TumorEvidence.readDepth() >= mConfig.TumorMinDepth)
                 .sorted().collect(toList());
 
         final List<AmberBAF> amberBAFList = tumorBAFList.stream().map(x -> fromTumorBaf(x)).filter(AmberUtils::isValid).collect(toList());
@@ -210,9 +212,9 @@ public class AmberApplication implements AutoCloseable
 
         final List<TumorBAF> tumorBAFList = tumor.getBafs().values()
                 .stream()
-                .filter(x -> x.TumorEvidence.ReadDepth >= mConfig.TumorMinDepth)
-                .filter(x -> x.TumorEvidence.RefSupport >= mConfig.TumorOnlyMinSupport)
-                .filter(x -> x.TumorEvidence.AltSupport >= mConfig.TumorOnlyMinSupport)
+                .filter(x -> x.TumorEvidence.readDepth() >= mConfig.TumorMinDepth)
+                .filter(x -> x.TumorEvidence.refSupport() >= mConfig.TumorOnlyMinSupport)
+                .filter(x -> x.TumorEvidence.altSupport() >= mConfig.TumorOnlyMinSupport)
                 .filter(x -> isFinite(x.refFrequency()) && Doubles.greaterOrEqual(x.refFrequency(), mConfig.TumorOnlyMinVaf))
                 .filter(x -> isFinite(x.altFrequency()) && Doubles.greaterOrEqual(x.altFrequency(), mConfig.TumorOnlyMinVaf))
                 .sorted()
@@ -237,25 +239,32 @@ public class AmberApplication implements AutoCloseable
         int numBlackListed = 0;
 
         // filter out everything in loaded genome positions that are in these regions
-        for(Map.Entry<Chromosome,AmberSite> entry : mChromosomeSites.entries())
+        for(Chromosome chromosome : mSitePanel.chromosomes())
         {
-            // check against black list
-            boolean blacklisted = false;
-            for(GenomeRegion gr : excludedRegions)
+            ChromosomeEvidence evidence = new ChromosomeEvidence(mSitePanel.chromosomeSites(chromosome));
+
+            for(int i = 0; i < evidence.count(); ++i)
             {
-                if(gr.contains(entry.getValue()))
+                PositionEvidence posEvidence = evidence.view(i);
+
+                // check against black list
+                boolean blacklisted = false;
+                for(GenomeRegion gr : excludedRegions)
                 {
-                    blacklisted = true;
-                    break;
+                    if(gr.contains(posEvidence))
+                    {
+                        blacklisted = true;
+                        break;
+                    }
+                }
+                if(blacklisted)
+                {
+                    numBlackListed++;
+                }
+                else
+                {
+                    result.put(chromosome, posEvidence);
                 }
-            }
-            if(blacklisted)
-            {
-                numBlackListed++;
-            }
-            else
-            {
-                result.put(entry.getKey(), PositionEvidenceChecker.fromAmberSite(entry.getValue()));
             }
         }
 
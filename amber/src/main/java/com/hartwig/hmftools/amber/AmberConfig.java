@@ -63,6 +63,7 @@ public class AmberConfig
     public final double MinHetAfPercent;
     public final double MaxHetAfPercent;
     public final boolean WriteUnfilteredGermline;
+    public final boolean SinglePassScan;
     public final int PositionGap;
 
     public final String OutputDir;
@@ -89,6 +90,7 @@ public class AmberConfig
     private static final String WRITE_UNFILTERED_GERMLINE = "write_unfiltered_germline";
     private static final String POSITION_GAP = "position_gap";
     private static final String SKIP_BAF_SEGMENTATION = "skip_baf_segmentation";
+    private static final String SINGLE_PASS_SCAN = "single_pass_scan";
 
     public AmberConfig(final ConfigBuilder configBuilder)
     {
@@ -142,6 +144,7 @@ public class AmberConfig
         SkipBafSegmentation = configBuilder.hasFlag(SKIP_BAF_SEGMENTATION);
 
         WriteUnfilteredGermline = configBuilder.hasFlag(WRITE_UNFILTERED_GERMLINE);
+        SinglePassScan = configBuilder.hasFlag(SINGLE_PASS_SCAN);
 
         OutputDir = parseOutputDir(configBuilder);
         Threads = parseThreads(configBuilder);
@@ -193,6 +196,7 @@ public class AmberConfig
         configBuilder.addFlag(SKIP_BAF_SEGMENTATION, "Skip BAF segmentation");
 
         configBuilder.addFlag(WRITE_UNFILTERED_GERMLINE, "Write all (unfiltered) germline points");
+        configBuilder.addFlag(SINGLE_PASS_SCAN, "Read tumor and primary reference BAMs together in a single pass over the sites");
 
         addOutputDir(configBuilder);
         addThreadOptions(configBuilder);
@@ -213,6 +217,8 @@ public class AmberConfig
         return !ReferenceBams.isEmpty() && TumorBam == null;
     }
 
+    public boolean usePairedScan() { return SinglePassScan && TumorBam != null && !ReferenceBams.isEmpty(); }
+
     // use the tumor id if it is not null, otherwise primary reference Id
     public String getSampleId()
     {
@@ -0,0 +1,256 @@
+package com.hartwig.hmftools.amber;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+// the germline het-site panel held as sorted positions and packed ref/alt bases per chromosome, either memory-mapped
+// from a precompiled binary file or built in memory from the TSV or VCF sites file
+public class AmberSitePanel
+{
+    public static final String BINARY_PANEL_EXTENSION = ".sites.bin";
+
+    private static final int PANEL_MAGIC = 0x414D4253; // AMBS
+    private static final int PANEL_VERSION = 1;
+
+    private static final String BASES = "ACGT";
+    private static final String[] BASE_STRINGS = { "A", "C", "G", "T" };
+    private static final int SNP_CHECK_FLAG = 0x10;
+
+    private final Map<Chromosome,ChromosomeSites> mChromosomeSites;
+
+    public static class ChromosomeSites
+    {
+        public final String Chromosome;
+
+        private final IntBuffer mPositions;
+        private final ByteBuffer mBases; // ref in bits 0-1, alt in bits 2-3, SnpCheck flag in bit 4
+
+        private ChromosomeSites(final String chromosome, final IntBuffer positions, final ByteBuffer bases)
+        {
+            Chromosome = chromosome;
+            mPositions = positions;
+            mBases = bases;
+        }
+
+        static ChromosomeSites of(final String chromosome, final int[] positions, final byte[] bases)
+        {
+            return new ChromosomeSites(chromosome, IntBuffer.wrap(positions), ByteBuffer.wrap(bases));
+        }
+
+        public int count() { return mPositions.limit(); }
+        public int position(int index) { return mPositions.get(index); }
+        public String ref(int index) { return BASE_STRINGS[mBases.get(index) & 0x3]; }
+        public String alt(int index) { return BASE_STRINGS[(mBases.get(index) >> 2) & 0x3]; }
+        public char refBase(int index) { return BASES.charAt(mBases.get(index) & 0x3); }
+        public char altBase(int index) { return BASES.charAt((mBases.get(index) >> 2) & 0x3); }
+        public boolean snpCheck(int index) { return (mBases.get(index) & SNP_CHECK_FLAG) != 0; }
+
+        byte packedBases(int index) { return mBases.get(index); }
+
+        public AmberSite amberSite(int index)
+        {
+            return new AmberSite(Chromosome, position(index), ref(index), alt(index), snpCheck(index));
+        }
+
+        public String toString() { return format("chromosome(%s) sites(%d)", Chromosome, count()); }
+    }
+
+    private AmberSitePanel(final Map<Chromosome,ChromosomeSites> chromosomeSites)
+    {
+        mChromosomeSites = chromosomeSites;
+    }
+
+    public static boolean isBinaryPanel(final String filename) { return filename.endsWith(BINARY_PANEL_EXTENSION); }
+
+    public Collection<Chromosome> chromosomes() { return mChromosomeSites.keySet(); }
+
+    public ChromosomeSites chromosomeSites(final Chromosome chromosome) { return mChromosomeSites.get(chromosome); }
+
+    public int siteCount() { return mChromosomeSites.values().stream().mapToInt(ChromosomeSites::count).sum(); }
+
+    // only the sites used for SNP-check, a small subset of the panel
+    public ListMultimap<Chromosome,AmberSite> snpCheckSites()
+    {
+        ListMultimap<Chromosome,AmberSite> snpCheckSites = ArrayListMultimap.create();
+
+        for(Map.Entry<Chromosome,ChromosomeSites> entry : mChromosomeSites.entrySet())
+        {
+            ChromosomeSites sites = entry.getValue();
+
+            for(int i = 0; i < sites.count(); ++i)
+            {
+                if(sites.snpCheck(i))
+                    snpCheckSites.put(entry.getKey(), sites.amberSite(i));
+            }
+        }
+
+        return snpCheckSites;
+    }
+
+    public static AmberSitePanel fromSites(final ListMultimap<Chromosome,AmberSite> chrAmberSites)
+    {
+        Map<Chromosome,ChromosomeSites> chromosomeSites = new LinkedHashMap<>();
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            List<AmberSite> amberSites = chrAmberSites.get(chromosome);
+
+            if(amberSites.isEmpty())
+                continue;
+
+            List<AmberSite> sortedSites = Lists.newArrayList(amberSites);
+            Collections.sort(sortedSites);
+
+            IntBuffer positions = IntBuffer.allocate(sortedSites.size());
+            ByteBuffer bases = ByteBuffer.allocate(sortedSites.size());
+
+            for(AmberSite amberSite : sortedSites)
+            {
+                positions.put(amberSite.Position);
+                bases.put(packBases(amberSite));
+            }
+
+            positions.flip();
+            bases.flip();
+
+            chromosomeSites.put(chromosome, new ChromosomeSites(sortedSites.get(0).Chromosome, positions, bases));
+        }
+
+        return new AmberSitePanel(chromosomeSites);
+    }
+
+    private static byte packBases(final AmberSite amberSite)
+    {
+        return packBases(amberSite.Ref, amberSite.Alt, amberSite.snpCheck());
+    }
+
+    static byte packBases(final String ref, final String alt, boolean snpCheck)
+    {
+        int refIndex = BASES.indexOf(ref);
+        int altIndex = BASES.indexOf(alt);
+
+        if(ref.length() != 1 || alt.length() != 1 || refIndex < 0 || altIndex < 0)
+            throw new IllegalArgumentException(format("invalid Amber site bases(%s>%s)", ref, alt));
+
+        return (byte)(refIndex | (altIndex << 2) | (snpCheck ? SNP_CHECK_FLAG : 0));
+    }
+
+    // layout: magic, version, chromosome count, then per chromosome its name and site count,
+    // followed by each chromosome's positions as ints and its packed bases as bytes
+    public void write(final String filename) throws IOException
+    {
+        try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename))))
+        {
+            outputStream.writeInt(PANEL_MAGIC);
+            outputStream.writeInt(PANEL_VERSION);
+            outputStream.writeInt(mChromosomeSites.size());
+
+            for(ChromosomeSites sites : mChromosomeSites.values())
+            {
+                byte[] chrBytes = sites.Chromosome.getBytes(StandardCharsets.UTF_8);
+                outputStream.writeShort(chrBytes.length);
+                outputStream.write(chrBytes);
+                outputStream.writeInt(sites.count());
+            }
+
+            for(ChromosomeSites sites : mChromosomeSites.values())
+            {
+                for(int i = 0; i < sites.count(); ++i)
+                {
+                    outputStream.writeInt(sites.position(i));
+                }
+
+                for(int i = 0; i < sites.count(); ++i)
+                {
+                    outputStream.writeByte(sites.mBases.get(i));
+                }
+            }
+        }
+
+        AMB_LOGGER.info("wrote {} Amber sites to binary panel({})", siteCount(), filename);
+    }
+
+    public static AmberSitePanel load(final String filename) throws IOException
+    {
+        ByteBuffer buffer;
+
+        try(FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ))
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
+        }
+
+        if(buffer.getInt() != PANEL_MAGIC)
+            throw new IOException(format("invalid Amber binary site panel(%s)", filename));
+
+        int version = buffer.getInt();
+
+        if(version != PANEL_VERSION)
+            throw new IOException(format("unsupported Amber binary site panel(%s) version(%d)", filename, version));
+
+        int chromosomeCount = buffer.getInt();
+        List<String> chromosomes = Lists.newArrayListWithCapacity(chromosomeCount);
+        List<Integer> siteCounts = Lists.newArrayListWithCapacity(chromosomeCount);
+
+        for(int c = 0; c < chromosomeCount; ++c)
+        {
+            byte[] chrBytes = new byte[buffer.getShort()];
+            buffer.get(chrBytes);
+            chromosomes.add(new String(chrBytes, StandardCharsets.UTF_8));
+            siteCounts.add(buffer.getInt());
+        }
+
+        Map<Chromosome,ChromosomeSites> chromosomeSites = new LinkedHashMap<>();
+
+        for(int c = 0; c < chromosomeCount; ++c)
+        {
+            String chromosome = chromosomes.get(c);
+            int siteCount = siteCounts.get(c);
+
+            ByteBuffer positionsBuffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+            positionsBuffer.limit(siteCount * Integer.BYTES);
+            buffer.position(buffer.position() + siteCount * Integer.BYTES);
+
+            ByteBuffer basesBuffer = buffer.slice();
+            basesBuffer.limit(siteCount);
+            buffer.position(buffer.position() + siteCount);
+
+            if(!HumanChromosome.contains(chromosome))
+                continue;
+
+            chromosomeSites.put(
+                    HumanChromosome.fromString(chromosome),
+                    new ChromosomeSites(chromosome, positionsBuffer.asIntBuffer(), basesBuffer));
+        }
+
+        AmberSitePanel panel = new AmberSitePanel(chromosomeSites);
+
+        AMB_LOGGER.info("mapped {} Amber germline sites from binary panel({})", panel.siteCount(), filename);
+
+        return panel;
+    }
+}
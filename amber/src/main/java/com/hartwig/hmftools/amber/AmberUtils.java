@@ -46,20 +46,20 @@ public class AmberUtils
 
     public static AmberBAF fromTumorBaf(final TumorBAF tumor)
     {
-        int tumorAltCount = tumor.TumorEvidence.AltSupport;
-        double tumorBaf = tumorAltCount / (double) (tumorAltCount + tumor.TumorEvidence.RefSupport);
+        int tumorAltCount = tumor.TumorEvidence.altSupport();
+        double tumorBaf = tumorAltCount / (double) (tumorAltCount + tumor.TumorEvidence.refSupport());
         int normalAltCount = tumor.NormalAltSupport;
         double normalBaf = normalAltCount / (double) (normalAltCount + tumor.NormalRefSupport);
 
-        return new AmberBAF(tumor.chromosome(), tumor.position(), tumorBaf, tumor.TumorEvidence.ReadDepth, normalBaf, tumor.NormalReadDepth);
+        return new AmberBAF(tumor.chromosome(), tumor.position(), tumorBaf, tumor.TumorEvidence.readDepth(), normalBaf, tumor.NormalReadDepth);
     }
 
     public static AmberBAF fromBaseDepth(final PositionEvidence baseDepth)
     {
-        int normalAltCount = baseDepth.AltSupport;
-        double normalBaf = normalAltCount / (double) (normalAltCount + baseDepth.RefSupport);
+        int normalAltCount = baseDepth.altSupport();
+        double normalBaf = normalAltCount / (double) (normalAltCount + baseDepth.refSupport());
 
-        return new AmberBAF(baseDepth.Chromosome, baseDepth.Position, -1, -1, normalBaf, baseDepth.ReadDepth);
+        return new AmberBAF(baseDepth.chromosome(), baseDepth.position(), -1, -1, normalBaf, baseDepth.readDepth());
     }
 
     public static AmberSite depthAsSite(final PositionEvidence baseDepth)
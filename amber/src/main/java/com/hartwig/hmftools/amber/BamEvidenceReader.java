@@ -17,6 +17,8 @@ import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SamReaderFactory;
 
 public class BamEvidenceReader
@@ -31,23 +33,35 @@ public class BamEvidenceReader
     }
 
     public void processBam(
-            final String bamFile, final SamReaderFactory samReaderFactory, final Map<Chromosome,List<PositionEvidence>> chrPositionEvidence)
+            final String bamFile, final SamReaderFactory samReaderFactory, final Map<Chromosome,ChromosomeEvidence> chrEvidence)
             throws InterruptedException
     {
-        AMB_LOGGER.trace("processing bam({})", bamFile);
+        processBams(bamFile, null, samReaderFactory, chrEvidence, null);
+    }
+
+    // reads the tumor BAM alongside the primary BAM, region by region, filling the tumor evidence for the same sites in the same pass
+    public void processBams(
+            final String bamFile, @Nullable final String tumorBamFile, final SamReaderFactory samReaderFactory,
+            final Map<Chromosome,ChromosomeEvidence> chrEvidence, @Nullable final Map<Chromosome,ChromosomeEvidence> chrTumorEvidence)
+            throws InterruptedException
+    {
+        if(tumorBamFile != null)
+            AMB_LOGGER.trace("processing bam({}) with tumor bam({})", bamFile, tumorBamFile);
+        else
+            AMB_LOGGER.trace("processing bam({})", bamFile);
 
         final Queue<RegionTask> taskQueue = new ConcurrentLinkedQueue<>();
 
         // create genome regions from the loci
-        boolean limitRegions = bamFile.endsWith(".cram");
-        populateTaskQueue(chrPositionEvidence, taskQueue, limitRegions);
+        boolean limitRegions = bamFile.endsWith(".cram") || (tumorBamFile != null && tumorBamFile.endsWith(".cram"));
+        populateTaskQueue(chrEvidence, chrTumorEvidence, taskQueue, limitRegions);
 
         // we create the consumer and producer
         List<BamReaderThread> bamReaders = new ArrayList<BamReaderThread>();
 
         for(int i = 0; i < max(mConfig.Threads, 1); ++i)
         {
-            BamReaderThread thread = new BamReaderThread(bamFile, samReaderFactory, taskQueue, mConfig.MinMappingQuality);
+            BamReaderThread thread = new BamReaderThread(bamFile, tumorBamFile, samReaderFactory, taskQueue, mConfig.MinMappingQuality);
             thread.setName(format("worker-%d", i));
             thread.start();
             bamReaders.add(thread);
@@ -79,9 +93,10 @@ public class BamEvidenceReader
     }
 
     private void populateTaskQueue(
-            final Map<Chromosome,List<PositionEvidence>> chrBaseDepth, final Queue<RegionTask> taskQueue, boolean limitRegions)
+            final Map<Chromosome,ChromosomeEvidence> chrEvidence, @Nullable final Map<Chromosome,ChromosomeEvidence> chrTumorEvidence,
+            final Queue<RegionTask> taskQueue, boolean limitRegions)
     {
-        int positionCount = chrBaseDepth.values().stream().mapToInt(x -> x.size()).sum();
+        int positionCount = chrEvidence.values().stream().mapToInt(x -> x.count()).sum();
 
         int minGap = mConfig.PositionGap > 0 ? mConfig.PositionGap : (limitRegions ? CRAM_MIN_GAP_START : BAM_MIN_GAP_START);
 
@@ -90,34 +105,34 @@ public class BamEvidenceReader
 
         List<RegionTask> tasks = Lists.newArrayList();
 
-        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrBaseDepth.entrySet())
+        for(Map.Entry<Chromosome,ChromosomeEvidence> entry : chrEvidence.entrySet())
         {
             String chromosome = mConfig.RefGenVersion.versionedChromosome(entry.getKey().toString());
 
             if(!mConfig.SpecificChromosomes.isEmpty() && !mConfig.SpecificChromosomes.contains(chromosome))
                 continue;
 
-            List<PositionEvidence> positions = entry.getValue();
+            ChromosomeEvidence evidence = entry.getValue();
 
-            if(positions.isEmpty())
+            if(evidence.count() == 0)
                 continue;
 
-            RegionTask currentTask = new RegionTask(mEvidenceChecker, chromosome, positions.get(0));
+            ChromosomeEvidence tumorEvidence = chrTumorEvidence != null ? chrTumorEvidence.get(entry.getKey()) : null;
+
+            RegionTask currentTask = new RegionTask(mEvidenceChecker, chromosome, evidence, tumorEvidence, 0);
             tasks.add(currentTask);
 
-            for(int i = 1; i < positions.size(); ++i)
+            for(int i = 1; i < evidence.count(); ++i)
             {
-                PositionEvidence posEvidence = positions.get(i);
-
-                if(currentTask.Region.end() + minGap < posEvidence.Position) // or  || tasks.size() >= maxPositionsPerRegion
+                if(currentTask.Region.end() + minGap < evidence.position(i)) // or  || tasks.size() >= maxPositionsPerRegion
                 {
                     // start a new region
-                    currentTask = new RegionTask(mEvidenceChecker, chromosome, posEvidence);
+                    currentTask = new RegionTask(mEvidenceChecker, chromosome, evidence, tumorEvidence, i);
                     tasks.add(currentTask);
                 }
                 else
                 {
-                    currentTask.addPosition(posEvidence);
+                    currentTask.addPosition();
                 }
             }
         }
@@ -18,6 +18,7 @@ public class BamReaderThread extends Thread
 {
     private final Queue<RegionTask> mTaskQueue;
     private final SamReader mSamReader;
+    private final SamReader mTumorSamReader; // set for a paired scan
     private final BamSlicer mBamSlicer;
     private RegionTask mCurrentTask;
 
@@ -26,9 +27,17 @@ public class BamReaderThread extends Thread
     public BamReaderThread(
             final String bamFile, final SamReaderFactory samReaderFactory, final Queue<RegionTask> inTaskQueue,
             int minMappingQuality)
+    {
+        this(bamFile, null, samReaderFactory, inTaskQueue, minMappingQuality);
+    }
+
+    public BamReaderThread(
+            final String bamFile, final String tumorBamFile, final SamReaderFactory samReaderFactory,
+            final Queue<RegionTask> inTaskQueue, int minMappingQuality)
     {
         mTaskQueue = inTaskQueue;
         mSamReader = samReaderFactory.open(new File(bamFile));
+        mTumorSamReader = tumorBamFile != null ? samReaderFactory.open(new File(tumorBamFile)) : null;
         mBamSlicer = new BamSlicer(minMappingQuality, false, false, false);
         mCurrentTask = null;
         mPerfCounter = new PerformanceCounter("Reads");
@@ -55,12 +64,20 @@ public class BamReaderThread extends Thread
 
             mPerfCounter.start();
             mBamSlicer.slice(mSamReader, task.Region, this::processRecord);
+
+            // read the same region from the tumor while its sites are still at hand
+            if(mTumorSamReader != null && task.isPaired())
+                mBamSlicer.slice(mTumorSamReader, task.Region, this::processTumorRecord);
+
             mPerfCounter.stop();
         }
 
         try
         {
             mSamReader.close();
+
+            if(mTumorSamReader != null)
+                mTumorSamReader.close();
         }
         catch(IOException e)
         {
@@ -84,5 +101,13 @@ public class BamReaderThread extends Thread
             mBamSlicer.haltProcessing();
     }
 
+    private void processTumorRecord(final SAMRecord record)
+    {
+        mCurrentTask.processTumorRecord(record);
+
+        if(mCurrentTask.isTumorComplete())
+            mBamSlicer.haltProcessing();
+    }
+
     public PerformanceCounter perfCounter() { return mPerfCounter; }
 }
@@ -43,11 +43,11 @@ public class BaseDepthFilter implements Predicate<PositionEvidence>
         if(mMinDepth == 0 && mMaxDepth == 0)
             return true;
 
-        return bafEvidence.ReadDepth > 0 && bafEvidence.ReadDepth >= mMinDepth && bafEvidence.ReadDepth <= mMaxDepth;
+        return bafEvidence.readDepth() > 0 && bafEvidence.readDepth() >= mMinDepth && bafEvidence.readDepth() <= mMaxDepth;
     }
 
     private int medianDepth(final Collection<PositionEvidence> evidence)
     {
-        return Integers.medianPositiveValue(evidence.stream().map(x -> x.ReadDepth).collect(Collectors.toList()));
+        return Integers.medianPositiveValue(evidence.stream().map(x -> x.readDepth()).collect(Collectors.toList()));
     }
 }
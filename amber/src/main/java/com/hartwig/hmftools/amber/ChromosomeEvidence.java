@@ -0,0 +1,91 @@
+package com.hartwig.hmftools.amber;
+
+import static java.lang.String.format;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+// read evidence for a chromosome's Amber sites, held in primitive arrays indexed as the sites - a PositionEvidence
+// is a view of one site, so sites need no object of their own while a BAM is being read
+public class ChromosomeEvidence
+{
+    public final AmberSitePanel.ChromosomeSites Sites;
+
+    private final int[] mReadDepth;
+    private final int[] mIndelCount;
+    private final int[] mRefSupport;
+    private final int[] mAltSupport;
+    private final int[] mAltQuality;
+
+    public ChromosomeEvidence(final AmberSitePanel.ChromosomeSites sites)
+    {
+        Sites = sites;
+
+        int siteCount = sites.count();
+        mReadDepth = new int[siteCount];
+        mIndelCount = new int[siteCount];
+        mRefSupport = new int[siteCount];
+        mAltSupport = new int[siteCount];
+        mAltQuality = new int[siteCount];
+    }
+
+    // new evidence for the sites of existing evidence, which must be in position order
+    public static ChromosomeEvidence forSites(final List<PositionEvidence> sites)
+    {
+        int[] positions = new int[sites.size()];
+        byte[] bases = new byte[sites.size()];
+
+        for(int i = 0; i < sites.size(); ++i)
+        {
+            positions[i] = sites.get(i).position();
+            bases[i] = sites.get(i).packedBases();
+        }
+
+        String chromosome = sites.get(0).chromosome();
+        return new ChromosomeEvidence(AmberSitePanel.ChromosomeSites.of(chromosome, positions, bases));
+    }
+
+    public static ChromosomeEvidence singleSite(final String chromosome, int position, final String ref, final String alt)
+    {
+        return new ChromosomeEvidence(AmberSitePanel.ChromosomeSites.of(
+                chromosome, new int[] { position }, new byte[] { AmberSitePanel.packBases(ref, alt, false) }));
+    }
+
+    public String chromosome() { return Sites.Chromosome; }
+    public int count() { return Sites.count(); }
+    public int position(int index) { return Sites.position(index); }
+
+    public int readDepth(int index) { return mReadDepth[index]; }
+    public int indelCount(int index) { return mIndelCount[index]; }
+    public int refSupport(int index) { return mRefSupport[index]; }
+    public int altSupport(int index) { return mAltSupport[index]; }
+    public int altQuality(int index) { return mAltQuality[index]; }
+
+    public PositionEvidence view(int index) { return new PositionEvidence(this, index); }
+
+    public List<PositionEvidence> views()
+    {
+        List<PositionEvidence> views = Lists.newArrayListWithCapacity(count());
+
+        for(int i = 0; i < count(); ++i)
+        {
+            views.add(view(i));
+        }
+
+        return views;
+    }
+
+    // each site is only updated by the task covering its region
+    void addRead(int index) { ++mReadDepth[index]; }
+    void addIndel(int index) { ++mIndelCount[index]; }
+    void addRefSupport(int index) { ++mRefSupport[index]; }
+
+    void addAltSupport(int index, int baseQuality)
+    {
+        ++mAltSupport[index];
+        mAltQuality[index] += baseQuality;
+    }
+
+    public String toString() { return format("chromosome(%s) sites(%d)", chromosome(), count()); }
+}
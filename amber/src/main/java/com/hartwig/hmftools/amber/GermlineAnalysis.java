@@ -3,7 +3,6 @@ package com.hartwig.hmftools.amber;
 import static java.util.stream.Collectors.toList;
 
 import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
-import static com.hartwig.hmftools.amber.PositionEvidenceChecker.fromAmberSite;
 import static com.hartwig.hmftools.common.utils.collection.Multimaps.filterEntries;
 
 import java.io.IOException;
@@ -14,9 +13,7 @@ import java.util.function.Predicate;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.hartwig.hmftools.common.amber.AmberSite;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 
 import org.jetbrains.annotations.Nullable;
@@ -33,10 +30,13 @@ public class GermlineAnalysis
     private final List<RegionOfHomozygosity> mRegionsOfHomozygosity;
     private final double mConsanguinityProportion;
 
+    // tumor evidence over the same sites as the primary reference evidence, collected in a single-pass scan
+    private final Map<Chromosome,ChromosomeEvidence> mTumorEvidence;
+
     @Nullable private final Chromosome mUniparentalDisomy;
 
     public GermlineAnalysis(
-            final AmberConfig config, SamReaderFactory readerFactory, ListMultimap<Chromosome,AmberSite> chrAmberSites)
+            final AmberConfig config, SamReaderFactory readerFactory, final AmberSitePanel sitePanel)
             throws InterruptedException, IOException
     {
         mConfig = config;
@@ -44,12 +44,14 @@ public class GermlineAnalysis
         final Predicate<PositionEvidence> isValidFilter = PositionEvidence::isValid;
         Predicate<PositionEvidence> homozygousFilter = new NormalHomozygousFilter().and(isValidFilter);
         Predicate<PositionEvidence> heterozygousFilter = new NormalHeterozygousFilter(mConfig.MinHetAfPercent, mConfig.MaxHetAfPercent).and(isValidFilter);
-        Predicate<PositionEvidence> snpCheckFilter = new SnpCheckFilter(chrAmberSites);
+        Predicate<PositionEvidence> snpCheckFilter = new SnpCheckFilter(sitePanel.snpCheckSites());
 
         mHetNormalEvidence = new HetNormalEvidence();
+        mTumorEvidence = mConfig.usePairedScan() ? Maps.newHashMap() : null;
 
-        // Primary Reference Data
-        ListMultimap<Chromosome, PositionEvidence> unfilteredLoci = germlineDepth(readerFactory, mConfig.ReferenceBams.get(0), chrAmberSites);
+        // Primary Reference Data, along with the tumor if scanning both together
+        ListMultimap<Chromosome, PositionEvidence> unfilteredLoci = germlineDepth(
+                readerFactory, mConfig.ReferenceBams.get(0), siteEvidence(sitePanel), mTumorEvidence);
 
         final Predicate<PositionEvidence> depthFilter = new BaseDepthFilter(mConfig.MinDepthPercent, mConfig.MaxDepthPercent, unfilteredLoci);
         mSnpCheckedLoci = filterEntries(unfilteredLoci, snpCheckFilter);
@@ -62,7 +64,7 @@ public class GermlineAnalysis
         {
             final String sample = mConfig.ReferenceIds.get(i);
             final String sampleBam = mConfig.ReferenceBams.get(i);
-            final Collection<PositionEvidence> additional = germlineDepth(readerFactory, sampleBam, mHetNormalEvidence.intersection()).values();
+            final Collection<PositionEvidence> additional = germlineDepth(readerFactory, sampleBam, siteEvidence(AmberSitePanel.fromSites(mHetNormalEvidence.intersection())), null).values();
             final Predicate<PositionEvidence> filter = new BaseDepthFilter(mConfig.MinDepthPercent, mConfig.MaxDepthPercent, additional);
             final Collection<PositionEvidence> additionalHetNormal = additional.stream().filter(filter.and(heterozygousFilter)).collect(toList());
             mHetNormalEvidence.add(sample, additionalHetNormal);
@@ -89,43 +91,52 @@ public class GermlineAnalysis
     public List<RegionOfHomozygosity> getRegionsOfHomozygosity() { return mRegionsOfHomozygosity; }
     public double getConsanguinityProportion() { return mConsanguinityProportion; }
 
+    @Nullable
+    public Map<Chromosome,ChromosomeEvidence> getTumorEvidence() { return mTumorEvidence; }
+
     @Nullable
     Chromosome getUniparentalDisomy() { return mUniparentalDisomy; }
 
+    private static Map<Chromosome,ChromosomeEvidence> siteEvidence(final AmberSitePanel sitePanel)
+    {
+        Map<Chromosome,ChromosomeEvidence> chrEvidence = Maps.newHashMap();
+
+        for(Chromosome chromosome : sitePanel.chromosomes())
+        {
+            chrEvidence.put(chromosome, new ChromosomeEvidence(sitePanel.chromosomeSites(chromosome)));
+        }
+
+        return chrEvidence;
+    }
+
     private ListMultimap<Chromosome, PositionEvidence> germlineDepth(
-            final SamReaderFactory readerFactory, final String bamPath,
-            final ListMultimap<Chromosome,AmberSite> chrAmberSites) throws InterruptedException
+            final SamReaderFactory readerFactory, final String bamPath, final Map<Chromosome,ChromosomeEvidence> chrEvidence,
+            @Nullable final Map<Chromosome,ChromosomeEvidence> tumorEvidence) throws InterruptedException
     {
-        AMB_LOGGER.info("processing {} Amber sites in reference bam({})", chrAmberSites.values().size(), bamPath);
+        int siteCount = chrEvidence.values().stream().mapToInt(ChromosomeEvidence::count).sum();
 
-        Map<Chromosome,List<PositionEvidence>> chrPositionEvidence = Maps.newHashMap();
+        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
 
-        for(Map.Entry<Chromosome,AmberSite> entry : chrAmberSites.entries())
+        if(tumorEvidence != null)
         {
-            Chromosome chromosome = entry.getKey();
+            AMB_LOGGER.info("processing {} Amber sites in reference bam({}) and tumor bam({})", siteCount, bamPath, mConfig.TumorBam);
 
-            List<PositionEvidence> positions = chrPositionEvidence.get(chromosome);
+            chrEvidence.forEach((chromosome, evidence) -> tumorEvidence.put(chromosome, new ChromosomeEvidence(evidence.Sites)));
 
-            if(positions == null)
-            {
-                positions = Lists.newArrayList();
-                chrPositionEvidence.put(chromosome, positions);
-            }
-
-            positions.add(fromAmberSite(entry.getValue()));
+            bamEvidenceReader.processBams(bamPath, mConfig.TumorBam, readerFactory, chrEvidence, tumorEvidence);
         }
+        else
+        {
+            AMB_LOGGER.info("processing {} Amber sites in reference bam({})", siteCount, bamPath);
 
-        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
-        bamEvidenceReader.processBam(bamPath, readerFactory, chrPositionEvidence);
+            bamEvidenceReader.processBam(bamPath, readerFactory, chrEvidence);
+        }
 
         ListMultimap<Chromosome, PositionEvidence> normalEvidence = ArrayListMultimap.create();
 
-        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrPositionEvidence.entrySet())
+        for(Map.Entry<Chromosome,ChromosomeEvidence> entry : chrEvidence.entrySet())
         {
-            Chromosome chromosome = entry.getKey();
-            List<PositionEvidence> positions = entry.getValue();
-
-            positions.forEach(x -> normalEvidence.put(chromosome, x));
+            normalEvidence.putAll(entry.getKey(), entry.getValue().views());
         }
 
         return normalEvidence;
@@ -16,6 +16,6 @@ public class NormalHeterozygousFilter implements Predicate<PositionEvidence>
     @Override
     public boolean test(final PositionEvidence bafEvidence)
     {
-        return mCheck.test(bafEvidence.ReadDepth, bafEvidence.RefSupport, bafEvidence.AltSupport, bafEvidence.IndelCount);
+        return mCheck.test(bafEvidence.readDepth(), bafEvidence.refSupport(), bafEvidence.altSupport(), bafEvidence.indelCount());
     }
 }
@@ -7,6 +7,6 @@ public class NormalHomozygousFilter implements Predicate<PositionEvidence>
     @Override
     public boolean test(final PositionEvidence bafEvidence)
     {
-        return bafEvidence.isValid() && bafEvidence.AltSupport == 0;
+        return bafEvidence.isValid() && bafEvidence.altSupport() == 0;
     }
 }
@@ -2,77 +2,89 @@ package com.hartwig.hmftools.amber;
 
 import static java.lang.String.format;
 
-import com.hartwig.hmftools.common.amber.AmberSite;
 import com.hartwig.hmftools.common.amber.BaseDepthData;
 import com.hartwig.hmftools.common.amber.ImmutableBaseDepthData;
 import com.hartwig.hmftools.common.genome.position.GenomePosition;
 
+// a view of one site's evidence, whose counts are held by its chromosome's evidence arrays
 public class PositionEvidence implements GenomePosition
 {
-    enum Base {
-        G,
-        A,
-        T,
-        C,
-        N
-    }
-
-    public final String Chromosome;
-    public final int Position;
-    public final Base Ref;
-    public final Base Alt;
+    private final ChromosomeEvidence mEvidence;
+    private final int mIndex;
 
-    public int ReadDepth;
-    public int IndelCount;
-    public int RefSupport;
-    public int AltSupport;
-    public int AltQuality;
+    public PositionEvidence(final ChromosomeEvidence evidence, int index)
+    {
+        mEvidence = evidence;
+        mIndex = index;
+    }
 
     public PositionEvidence(final String chromosome, final int position, final String ref, final String alt)
     {
-        Chromosome = chromosome;
-        Position = position;
-        Ref = Base.valueOf(ref);
-        Alt = Base.valueOf(alt);
-        ReadDepth = 0;
-        IndelCount = 0;
-        RefSupport = 0;
-        AltSupport = 0;
-        AltQuality = 0;
+        this(ChromosomeEvidence.singleSite(chromosome, position, ref, alt), 0);
     }
 
-    public static PositionEvidence copy(final PositionEvidence other)
+    ChromosomeEvidence evidence() { return mEvidence; }
+    int index() { return mIndex; }
+    byte packedBases() { return mEvidence.Sites.packedBases(mIndex); }
+
+    // the same site in other evidence collected over the same sites, such as the tumor's alongside the reference
+    public PositionEvidence siteIn(final ChromosomeEvidence otherEvidence)
     {
-        return new PositionEvidence(other.Chromosome, other.Position, other.ref(), other.alt());
+        if(otherEvidence.Sites != mEvidence.Sites)
+            throw new IllegalArgumentException(format("evidence(%s) is not over the same sites as %s", otherEvidence, this));
+
+        return otherEvidence.view(mIndex);
     }
 
-    public boolean isValid() { return IndelCount == 0; }
+    public int readDepth() { return mEvidence.readDepth(mIndex); }
+    public int indelCount() { return mEvidence.indelCount(mIndex); }
+    public int refSupport() { return mEvidence.refSupport(mIndex); }
+    public int altSupport() { return mEvidence.altSupport(mIndex); }
+    public int altQuality() { return mEvidence.altQuality(mIndex); }
+
+    public boolean isValid() { return indelCount() == 0; }
 
     public String toString()
     {
         return format("%s:%d %s>%s depth(%d) indels(%d) support(%d/%d)",
-                Chromosome, Position, Ref, Alt, ReadDepth, IndelCount, RefSupport, AltSupport);
+                chromosome(), position(), ref(), alt(), readDepth(), indelCount(), refSupport(), altSupport());
     }
 
     @Override
-    public String chromosome() { return Chromosome; }
-    public int position() { return Position; }
+    public String chromosome() { return mEvidence.chromosome(); }
+    public int position() { return mEvidence.position(mIndex); }
+
+    public String ref() { return mEvidence.Sites.ref(mIndex); }
+    public String alt() { return mEvidence.Sites.alt(mIndex); }
 
-    public String ref() { return Ref.toString(); }
-    public String alt() { return Alt.toString(); }
+    public boolean equalsRef(final char base) { return base == mEvidence.Sites.refBase(mIndex); }
+    public boolean equalsAlt(final char base) { return base == mEvidence.Sites.altBase(mIndex); }
 
-    public boolean equalsRef(final char base) { return Base.valueOf(String.valueOf(base)) == Ref; }
-    public boolean equalsAlt(final char base) { return Base.valueOf(String.valueOf(base)) == Alt; }
+    @Override
+    public boolean equals(final Object other)
+    {
+        if(this == other)
+            return true;
+
+        if(!(other instanceof PositionEvidence))
+            return false;
+
+        PositionEvidence otherEvidence = (PositionEvidence)other;
+        return mEvidence == otherEvidence.mEvidence && mIndex == otherEvidence.mIndex;
+    }
+
+    @Override
+    public int hashCode() { return 31 * System.identityHashCode(mEvidence) + mIndex; }
 
     public BaseDepthData toBaseDepthData()
     {
         return ImmutableBaseDepthData.builder()
                 .ref(BaseDepthData.Base.valueOf(ref()))
                 .alt(BaseDepthData.Base.valueOf(alt()))
-                .readDepth(ReadDepth)
-                .refSupport(RefSupport)
-                .altSupport(AltSupport)
-                .indelCount(IndelCount)
+                .readDepth(readDepth())
+                .refSupport(refSupport())
+                .altSupport(altSupport())
+                .indelCount(indelCount())
                 .build();
     }
 }
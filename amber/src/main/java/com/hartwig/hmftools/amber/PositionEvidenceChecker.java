@@ -1,7 +1,5 @@
 package com.hartwig.hmftools.amber;
 
-import com.hartwig.hmftools.common.amber.AmberSite;
-
 import htsjdk.samtools.SAMRecord;
 
 public class PositionEvidenceChecker
@@ -15,14 +13,19 @@ public class PositionEvidenceChecker
 
     public void addEvidence(final PositionEvidence posEvidence, final SAMRecord samRecord)
     {
-        int baseQuality = getBaseQuality(posEvidence.Position, samRecord);
+        addEvidence(posEvidence.evidence(), posEvidence.index(), samRecord);
+    }
+
+    public void addEvidence(final ChromosomeEvidence evidence, int index, final SAMRecord samRecord)
+    {
+        int bafPosition = evidence.position(index);
+        int baseQuality = getBaseQuality(bafPosition, samRecord);
 
         if(baseQuality < mMinBaseQuality)
             return;
 
-        ++posEvidence.ReadDepth;
+        evidence.addRead(index);
 
-        int bafPosition = posEvidence.position();
         int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
         if(readPosition != 0)
         {
@@ -30,19 +33,18 @@ public class PositionEvidenceChecker
             {
                 char baseChar = samRecord.getReadString().charAt(readPosition - 1);
 
-                if(posEvidence.equalsRef(baseChar))
+                if(baseChar == evidence.Sites.refBase(index))
                 {
-                    ++posEvidence.RefSupport;
+                    evidence.addRefSupport(index);
                 }
-                else if(posEvidence.equalsAlt(baseChar))
+                else if(baseChar == evidence.Sites.altBase(index))
                 {
-                    ++posEvidence.AltSupport;
-                    posEvidence.AltQuality += baseQuality;
+                    evidence.addAltSupport(index, baseQuality);
                 }
             }
             else
             {
-                ++posEvidence.IndelCount;
+                evidence.addIndel(index);
             }
         }
     }
@@ -79,9 +81,4 @@ public class PositionEvidenceChecker
 
         return 0;
     }
-
-    public static PositionEvidence fromAmberSite(final AmberSite site)
-    {
-        return new PositionEvidence(site.chromosome(), site.position(), site.ref(), site.alt());
-    }
 }
@@ -317,7 +317,7 @@ public class RegionOfHomozygosityFinder
 
     static Zygosity calcZygosity(PositionEvidence baseDepth)
     {
-        if(isAlleleHomozygous(baseDepth.ReadDepth, baseDepth.RefSupport) || isAlleleHomozygous(baseDepth.ReadDepth, baseDepth.AltSupport))
+        if(isAlleleHomozygous(baseDepth.readDepth(), baseDepth.refSupport()) || isAlleleHomozygous(baseDepth.readDepth(), baseDepth.altSupport()))
         {
             return Zygosity.HOMOZYGOUS;
         }
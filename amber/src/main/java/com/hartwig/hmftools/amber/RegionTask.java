@@ -3,11 +3,10 @@ package com.hartwig.hmftools.amber;
 import static java.lang.Math.max;
 import static java.lang.String.format;
 
-import java.util.List;
-
-import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SAMRecord;
 
 public class RegionTask
@@ -15,49 +14,88 @@ public class RegionTask
     private final PositionEvidenceChecker mEvidenceChecker;
     public final ChrBaseRegion Region;
 
-    private final List<PositionEvidence> mPositions;
+    // a contiguous range of the chromosome's sites
+    private final ChromosomeEvidence mEvidence;
+    private final int mStartIndex;
+    private int mEndIndex;
     private int mCurrentIndex;
     private boolean mComplete;
 
-    public RegionTask(final PositionEvidenceChecker evidenceChecker, final String chromosome, final PositionEvidence baseDepth)
+    // in a paired scan the tumor evidence for the same sites
+    private final ChromosomeEvidence mTumorEvidence;
+    private int mTumorIndex;
+    private boolean mTumorComplete;
+
+    public RegionTask(final PositionEvidenceChecker evidenceChecker, final String chromosome, final ChromosomeEvidence evidence, int startIndex)
+    {
+        this(evidenceChecker, chromosome, evidence, null, startIndex);
+    }
+
+    public RegionTask(
+            final PositionEvidenceChecker evidenceChecker, final String chromosome, final ChromosomeEvidence evidence,
+            @Nullable final ChromosomeEvidence tumorEvidence, int startIndex)
     {
         mEvidenceChecker = evidenceChecker;
-        Region = new ChrBaseRegion(chromosome, baseDepth.Position, baseDepth.Position);
-        mPositions = Lists.newArrayList(baseDepth);
-        mCurrentIndex = 0;
+        Region = new ChrBaseRegion(chromosome, evidence.position(startIndex), evidence.position(startIndex));
+        mEvidence = evidence;
+        mStartIndex = startIndex;
+        mEndIndex = startIndex;
+        mCurrentIndex = startIndex;
         mComplete = false;
+
+        mTumorEvidence = tumorEvidence;
+        mTumorIndex = startIndex;
+        mTumorComplete = tumorEvidence == null;
     }
 
-    public void addPosition(final PositionEvidence posEvidence)
+    // extends the task to the next site
+    public void addPosition()
     {
-        mPositions.add(posEvidence);
-        Region.setEnd(max(Region.end(), posEvidence.Position));
+        ++mEndIndex;
+        Region.setEnd(max(Region.end(), mEvidence.position(mEndIndex)));
     }
 
+    public boolean isPaired() { return mTumorEvidence != null; }
+
     public void processRecord(final SAMRecord record)
+    {
+        mCurrentIndex = addEvidence(mEvidence, mCurrentIndex, record);
+
+        if(mCurrentIndex > mEndIndex)
+            mComplete = true;
+    }
+
+    public void processTumorRecord(final SAMRecord record)
+    {
+        mTumorIndex = addEvidence(mTumorEvidence, mTumorIndex, record);
+
+        if(mTumorIndex > mEndIndex)
+            mTumorComplete = true;
+    }
+
+    private int addEvidence(final ChromosomeEvidence evidence, int currentIndex, final SAMRecord record)
     {
         int alignmentStart = record.getAlignmentStart();
         int alignmentEnd = record.getAlignmentEnd();
 
-        int index = mCurrentIndex;
-        for(; index < mPositions.size(); ++index)
+        int index = currentIndex;
+        for(; index <= mEndIndex; ++index)
         {
-            PositionEvidence posEvidence = mPositions.get(index);
+            int position = evidence.position(index);
 
-            if(alignmentStart > posEvidence.Position)
+            if(alignmentStart > position)
             {
-                ++mCurrentIndex;
+                ++currentIndex;
                 continue;
             }
 
-            if(alignmentEnd < posEvidence.Position)
+            if(alignmentEnd < position)
                 break;
 
-            mEvidenceChecker.addEvidence(posEvidence, record);
+            mEvidenceChecker.addEvidence(evidence, index, record);
         }
 
-        if(mCurrentIndex >= mPositions.size())
-            mComplete = true;
+        return currentIndex;
     }
 
     public boolean isComplete()
@@ -65,13 +103,18 @@ public class RegionTask
         return mComplete;
     }
 
+    public boolean isTumorComplete()
+    {
+        return mTumorComplete;
+    }
+
     public int positionCount()
     {
-        return mPositions.size();
+        return mEndIndex - mStartIndex + 1;
     }
 
     public String toString()
     {
-        return format("region(%s) positions(%d) index(%d)", Region, mPositions.size(), mCurrentIndex);
+        return format("region(%s) positions(%d) index(%d)", Region, positionCount(), mCurrentIndex);
     }
 }
@@ -38,9 +38,9 @@ public class SnpCheckFilter implements Predicate<PositionEvidence>
     @Override
     public boolean test(final PositionEvidence baseDepth)
     {
-        List<AmberSite> chrSites = mSnpLoci.get(baseDepth.Chromosome);
+        List<AmberSite> chrSites = mSnpLoci.get(baseDepth.chromosome());
 
         return chrSites != null && chrSites.stream()
-                .anyMatch(x -> x.matches(baseDepth.Chromosome, baseDepth.Position, baseDepth.ref(), baseDepth.alt()));
+                .anyMatch(x -> x.matches(baseDepth.chromosome(), baseDepth.position(), baseDepth.ref(), baseDepth.alt()));
     }
 }
@@ -13,6 +13,8 @@ import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SamReaderFactory;
 
 public class TumorAnalysis
@@ -29,84 +31,117 @@ public class TumorAnalysis
             final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci,
             final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci)
             throws InterruptedException
+    {
+        this(config, readerFactory, germlineHetLoci, germlineHomLoci, null);
+    }
+
+    // tumor evidence over the normal sites may have been collected already alongside the germline, avoiding a second tumor BAM read
+    public TumorAnalysis(
+            final AmberConfig config, SamReaderFactory readerFactory,
+            final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci,
+            final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci,
+            @Nullable final Map<Chromosome, ChromosomeEvidence> tumorEvidence)
+            throws InterruptedException
     {
         mConfig = config;
 
-        tumorBAFAndContamination(readerFactory, germlineHetLoci, germlineHomLoci);
+        tumorBAFAndContamination(readerFactory, germlineHetLoci, germlineHomLoci, tumorEvidence);
     }
 
     // we process them together
     private void tumorBAFAndContamination(final SamReaderFactory readerFactory,
-            final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci, final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci) throws InterruptedException
+            final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci, final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci,
+            @Nullable final Map<Chromosome, ChromosomeEvidence> tumorEvidence) throws InterruptedException
     {
-        AMB_LOGGER.info("processing tumor germline heterozygous({}) and homozygous({}) sites",
-                germlineHetLoci.values().size(), germlineHomLoci.size());
+        Map<PositionEvidence, PositionEvidence> normalTumorSites;
 
-        Map<Chromosome,List<PositionEvidence>> chrPositionEvidence = Maps.newHashMap();
-        Map<PositionEvidence, PositionEvidence> contaminationBafMap = Maps.newHashMap();
-        List<TumorBAF> tumorBAFs = Lists.newArrayList();
+        if(tumorEvidence != null)
+        {
+            AMB_LOGGER.info("applying tumor evidence to germline heterozygous({}) and homozygous({}) sites",
+                    germlineHetLoci.values().size(), germlineHomLoci.size());
 
-        for(Map.Entry<Chromosome, PositionEvidence> entry : germlineHetLoci.entries())
+            normalTumorSites = null;
+        }
+        else
         {
-            List<PositionEvidence> positions = chrPositionEvidence.get(entry.getKey());
+            AMB_LOGGER.info("processing tumor germline heterozygous({}) and homozygous({}) sites",
+                    germlineHetLoci.values().size(), germlineHomLoci.size());
 
-            if(positions == null)
-            {
-                positions = Lists.newArrayList();
-                chrPositionEvidence.put(entry.getKey(), positions);
-            }
+            normalTumorSites = readTumorEvidence(readerFactory, germlineHetLoci, germlineHomLoci);
+        }
+
+        List<TumorBAF> tumorBAFs = Lists.newArrayList();
 
+        for(Map.Entry<Chromosome, PositionEvidence> entry : germlineHetLoci.entries())
+        {
             PositionEvidence normal = entry.getValue();
+            tumorBAFs.add(TumorBAF.fromNormal(normal, tumorSite(entry.getKey(), normal, tumorEvidence, normalTumorSites)));
+        }
 
-            TumorBAF tumorBAF = TumorBAF.fromNormal(normal);
-            tumorBAFs.add(tumorBAF);
+        mBafs = ArrayListMultimap.create();
 
-            positions.add(tumorBAF.TumorEvidence);
-        }
+        tumorBAFs.stream().filter(x -> x.TumorEvidence.indelCount() == 0).forEach(x -> mBafs.put(HumanChromosome.fromString(x.chromosome()), x));
+
+        mContamination = ArrayListMultimap.create();
 
         for(Map.Entry<Chromosome, PositionEvidence> entry : germlineHomLoci.entries())
         {
-            List<PositionEvidence> positions = chrPositionEvidence.get(entry.getKey());
+            PositionEvidence normal = entry.getValue();
+            PositionEvidence tumor = tumorSite(entry.getKey(), normal, tumorEvidence, normalTumorSites);
 
-            if(positions == null)
+            if(tumor.altSupport() > 0)
             {
-                positions = Lists.newArrayList();
-                chrPositionEvidence.put(entry.getKey(), positions);
+                mContamination.put(
+                        HumanChromosome.fromString(normal.chromosome()),
+                        new TumorContamination(normal.chromosome(), normal.position(), normal.toBaseDepthData(), tumor.toBaseDepthData()));
             }
+        }
+    }
 
-            PositionEvidence normal = entry.getValue();
-            PositionEvidence tumor = PositionEvidence.copy(normal);
+    private static PositionEvidence tumorSite(
+            final Chromosome chromosome, final PositionEvidence normal, @Nullable final Map<Chromosome, ChromosomeEvidence> tumorEvidence,
+            @Nullable final Map<PositionEvidence, PositionEvidence> normalTumorSites)
+    {
+        return tumorEvidence != null ? normal.siteIn(tumorEvidence.get(chromosome)) : normalTumorSites.get(normal);
+    }
 
-            positions.add(tumor);
-            contaminationBafMap.put(normal, tumor);
-        }
+    // reads the tumor BAM at the germline het and hom sites, returning each normal site's tumor evidence
+    private Map<PositionEvidence, PositionEvidence> readTumorEvidence(
+            final SamReaderFactory readerFactory,
+            final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci, final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci)
+            throws InterruptedException
+    {
+        Map<Chromosome,List<PositionEvidence>> chrNormalSites = Maps.newHashMap();
 
-        // ensure positions are sorted after the merge
-        for(List<PositionEvidence> positions : chrPositionEvidence.values())
+        for(ListMultimap<Chromosome, PositionEvidence> loci : List.of(germlineHetLoci, germlineHomLoci))
         {
-            Collections.sort(positions);
+            for(Map.Entry<Chromosome, PositionEvidence> entry : loci.entries())
+            {
+                chrNormalSites.computeIfAbsent(entry.getKey(), k -> Lists.newArrayList()).add(entry.getValue());
+            }
         }
 
-        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
-        bamEvidenceReader.processBam(mConfig.TumorBam, readerFactory, chrPositionEvidence);
-
-        mBafs = ArrayListMultimap.create();
-
-        tumorBAFs.stream().filter(x -> x.TumorEvidence.IndelCount == 0).forEach(x -> mBafs.put(HumanChromosome.fromString(x.chromosome()), x));
-
-        mContamination = ArrayListMultimap.create();
+        Map<Chromosome,ChromosomeEvidence> chrTumorEvidence = Maps.newHashMap();
+        Map<PositionEvidence, PositionEvidence> normalTumorSites = Maps.newHashMap();
 
-        for(Map.Entry<PositionEvidence, PositionEvidence> entry : contaminationBafMap.entrySet())
+        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrNormalSites.entrySet())
         {
-            PositionEvidence normal = entry.getKey();
-            PositionEvidence tumor = entry.getValue();
+            // ensure positions are sorted after the merge
+            List<PositionEvidence> normalSites = entry.getValue();
+            Collections.sort(normalSites);
 
-            if(tumor.AltSupport > 0)
+            ChromosomeEvidence tumorEvidence = ChromosomeEvidence.forSites(normalSites);
+            chrTumorEvidence.put(entry.getKey(), tumorEvidence);
+
+            for(int i = 0; i < normalSites.size(); ++i)
             {
-                mContamination.put(
-                        HumanChromosome.fromString(normal.chromosome()),
-                        new TumorContamination(normal.Chromosome, normal.Position, normal.toBaseDepthData(), tumor.toBaseDepthData()));
+                normalTumorSites.put(normalSites.get(i), tumorEvidence.view(i));
             }
         }
+
+        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
+        bamEvidenceReader.processBam(mConfig.TumorBam, readerFactory, chrTumorEvidence);
+
+        return normalTumorSites;
     }
 }
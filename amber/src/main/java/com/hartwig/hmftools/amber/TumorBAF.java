@@ -11,32 +11,38 @@ public class TumorBAF implements GenomePosition
     public final PositionEvidence TumorEvidence;
 
     public TumorBAF(final String chromosome, final int position, final String ref, final String alt)
+    {
+        this(new PositionEvidence(chromosome, position, ref, alt));
+    }
+
+    private TumorBAF(final PositionEvidence tumorEvidence)
     {
         NormalReadDepth = 0;
         NormalRefSupport = 0;
         NormalAltSupport = 0;
 
-        TumorEvidence = new PositionEvidence(chromosome, position, ref, alt);
+        TumorEvidence = tumorEvidence;
     }
 
     @Override
-    public String chromosome() { return TumorEvidence.Chromosome; }
-    public int position() { return TumorEvidence.Position; }
+    public String chromosome() { return TumorEvidence.chromosome(); }
+    public int position() { return TumorEvidence.position(); }
 
     public String ref() { return TumorEvidence.ref(); }
     public String alt() { return TumorEvidence.alt(); }
 
-    public double refFrequency() { return TumorEvidence.RefSupport / (double)TumorEvidence.ReadDepth; }
+    public double refFrequency() { return TumorEvidence.refSupport() / (double)TumorEvidence.readDepth(); }
     public double altFrequency() {
-        return TumorEvidence.AltSupport / (double)TumorEvidence.ReadDepth;
+        return TumorEvidence.altSupport() / (double)TumorEvidence.readDepth();
     }
 
-    public static TumorBAF fromNormal(final PositionEvidence normal)
+    // uses tumor evidence already collected for the site
+    public static TumorBAF fromNormal(final PositionEvidence normal, final PositionEvidence tumorEvidence)
     {
-        TumorBAF tumorBAF = new TumorBAF(normal.Chromosome, normal.Position, normal.ref(), normal.alt());
-        tumorBAF.NormalReadDepth = normal.ReadDepth;
-        tumorBAF.NormalRefSupport = normal.RefSupport;
-        tumorBAF.NormalAltSupport = normal.AltSupport;
+        TumorBAF tumorBAF = new TumorBAF(tumorEvidence);
+        tumorBAF.NormalReadDepth = normal.readDepth();
+        tumorBAF.NormalRefSupport = normal.refSupport();
+        tumorBAF.NormalAltSupport = normal.altSupport();
         return tumorBAF;
     }
 }
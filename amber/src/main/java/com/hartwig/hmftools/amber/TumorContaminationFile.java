@@ -56,25 +56,28 @@ public final class TumorContaminationFile
     {
         String[] values = line.split(TSV_DELIM);
 
-        PositionEvidence template = new PositionEvidence(values[0], Integer.parseInt(values[1]), values[2], values[3]);
+        String chromosome = values[0];
+        int position = Integer.parseInt(values[1]);
+        BaseDepthData.Base ref = BaseDepthData.Base.valueOf(values[2]);
+        BaseDepthData.Base alt = BaseDepthData.Base.valueOf(values[3]);
 
         BaseDepthData normalDepth = ImmutableBaseDepthData.builder()
-                .ref(BaseDepthData.Base.valueOf(template.ref()))
-                .alt(BaseDepthData.Base.valueOf(template.alt()))
+                .ref(ref)
+                .alt(alt)
                 .readDepth(Integer.parseInt(values[4]))
                 .refSupport(Integer.parseInt(values[5]))
                 .altSupport(Integer.parseInt(values[6]))
                 .build();
 
         BaseDepthData tumorDepth = ImmutableBaseDepthData.builder()
-                .ref(BaseDepthData.Base.valueOf(template.ref()))
-                .alt(BaseDepthData.Base.valueOf(template.alt()))
+                .ref(ref)
+                .alt(alt)
                 .readDepth(Integer.parseInt(values[7]))
                 .refSupport(Integer.parseInt(values[8]))
                 .altSupport(Integer.parseInt(values[9]))
                 .build();
 
-        return new TumorContamination(template.Chromosome, template.Position, normalDepth, tumorDepth);
+        return new TumorContamination(chromosome, position, normalDepth, tumorDepth);
     }
 
     @NotNull
@@ -97,11 +97,11 @@ public class VCFWriter
         alleles.add(Allele.create(snp.alt().toString(), false));
 
         final List<Integer> adField = Lists.newArrayList();
-        adField.add(snp.RefSupport);
-        adField.add(snp.AltSupport);
+        adField.add(snp.refSupport());
+        adField.add(snp.altSupport());
 
         final Genotype normal = new GenotypeBuilder(sampleName)
-                .DP(snp.ReadDepth)
+                .DP(snp.readDepth())
                 .AD(adField.stream().mapToInt(i -> i).toArray())
                 .alleles(alleles)
                 .make();
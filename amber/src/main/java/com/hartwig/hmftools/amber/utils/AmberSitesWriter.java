@@ -19,8 +19,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.amber.AmberSitePanel;
 import com.hartwig.hmftools.common.amber.AmberSite;
 import com.hartwig.hmftools.common.amber.AmberSitesFile;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
@@ -36,12 +38,14 @@ public class AmberSitesWriter
     private static final String INPUT_GERMLINE_HET_FILE = "input_sites_file";
     private static final String SNP_CHECKS_FILE = "snp_check_sites_file";
     private static final String SOURCE_REF_GEN_VERSION = "source_ref_genome_version";
+    private static final String WRITE_BINARY_PANEL = "write_binary_panel";
 
     private final String mInputFile;
     private final String mOutputDir;
     private final String mSnpCheckFile;
     private final GenomeLiftoverCache mGenomeLiftoverCache;
     private final RefGenomeVersion mSourceRefGenVersion;
+    private final boolean mWriteBinaryPanel;
 
     public AmberSitesWriter(final ConfigBuilder configBuilder)
     {
@@ -49,6 +53,7 @@ public class AmberSitesWriter
         mOutputDir = parseOutputDir(configBuilder);
         mSnpCheckFile = configBuilder.getValue(SNP_CHECKS_FILE);
         mSourceRefGenVersion = RefGenomeVersion.from(configBuilder.getValue(SOURCE_REF_GEN_VERSION));
+        mWriteBinaryPanel = configBuilder.hasFlag(WRITE_BINARY_PANEL);
 
         mGenomeLiftoverCache = new GenomeLiftoverCache(true);
     }
@@ -58,6 +63,11 @@ public class AmberSitesWriter
         return "AmberGermlineSites." + version.identifier() + TSV_EXTENSION + ".gz";
     }
 
+    public static String amberSitesBinaryFilename(final RefGenomeVersion version)
+    {
+        return "AmberGermlineSites." + version.identifier() + AmberSitePanel.BINARY_PANEL_EXTENSION;
+    }
+
     public void run()
     {
         AMB_LOGGER.info("generating Amber sites");
@@ -110,6 +120,8 @@ public class AmberSitesWriter
                 BufferedWriter writer = writers.get(version);
                 int writeCount = 0;
 
+                ListMultimap<Chromosome,AmberSite> panelSites = mWriteBinaryPanel ? ArrayListMultimap.create() : null;
+
                 for(HumanChromosome chromosome : HumanChromosome.values())
                 {
                     List<AmberSite> amberSites = amberSitesMap.get(chromosome);
@@ -122,7 +134,13 @@ public class AmberSitesWriter
 
                     for(AmberSite amberSite : amberSites)
                     {
-                        writeVariant(writer, version, amberSite);
+                        AmberSite writtenSite = writeVariant(writer, version, amberSite);
+
+                        if(writtenSite == null)
+                            continue;
+
+                        if(panelSites != null)
+                            panelSites.put(chromosome, writtenSite);
 
                         ++writeCount;
 
@@ -133,6 +151,9 @@ public class AmberSitesWriter
                         }
                     }
                 }
+
+                if(panelSites != null)
+                    AmberSitePanel.fromSites(panelSites).write(mOutputDir + amberSitesBinaryFilename(version));
             }
 
             writers.values().forEach(x -> closeBufferedWriter(x));
@@ -182,7 +203,7 @@ public class AmberSitesWriter
         return true;
     }
 
-    private void writeVariant(final BufferedWriter writer, final RefGenomeVersion version, final AmberSite site) throws IOException
+    private AmberSite writeVariant(final BufferedWriter writer, final RefGenomeVersion version, final AmberSite site) throws IOException
     {
         int position = site.Position;
 
@@ -193,7 +214,7 @@ public class AmberSitesWriter
             if(position == UNMAPPED_POSITION)
             {
                 AMB_LOGGER.warn("unmapped site({}:{} {}>{})", site.Chromosome, site.Position, site.Ref, site.Alt);
-                return;
+                return null;
             }
         }
 
@@ -201,6 +222,8 @@ public class AmberSitesWriter
 
         writer.write(format("%s\t%d\t%s\t%s\t%s", destChr, position, site.Ref, site.Alt, site.snpCheck()));
         writer.newLine();
+
+        return new AmberSite(destChr, position, site.Ref, site.Alt, site.snpCheck());
     }
 
     public static void main(@NotNull final String[] args)
@@ -210,6 +233,7 @@ public class AmberSitesWriter
         configBuilder.addPath(INPUT_GERMLINE_HET_FILE, true, "Input germline locations file");
         configBuilder.addPath(SNP_CHECKS_FILE, true, "Input germline locations file");
         configBuilder.addConfigItem(SOURCE_REF_GEN_VERSION, true, "Ref genome version to convert to V37 or 38)");
+        configBuilder.addFlag(WRITE_BINARY_PANEL, "Also write each version's sites as a binary panel for memory-mapped loading");
         addOutputDir(configBuilder);
         addLoggingOptions(configBuilder);
 
@@ -0,0 +1,76 @@
+package com.hartwig.hmftools.amber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.junit.Test;
+
+public class AmberSitePanelTest
+{
+    @Test
+    public void testBinaryPanelRoundTrip() throws IOException
+    {
+        ListMultimap<Chromosome,AmberSite> amberSites = ArrayListMultimap.create();
+        amberSites.put(HumanChromosome._1, new AmberSite("1", 2000, "G", "T", false));
+        amberSites.put(HumanChromosome._1, new AmberSite("1", 1000, "A", "C", true));
+        amberSites.put(HumanChromosome._X, new AmberSite("X", 500, "T", "A", false));
+
+        File panelFile = File.createTempFile("amber", AmberSitePanel.BINARY_PANEL_EXTENSION);
+        panelFile.deleteOnExit();
+
+        AmberSitePanel.fromSites(amberSites).write(panelFile.getAbsolutePath());
+
+        assertTrue(AmberSitePanel.isBinaryPanel(panelFile.getAbsolutePath()));
+
+        AmberSitePanel sitePanel = AmberSitePanel.load(panelFile.getAbsolutePath());
+        assertEquals(3, sitePanel.siteCount());
+        assertNull(sitePanel.chromosomeSites(HumanChromosome._2));
+
+        // sites are sorted by position
+        AmberSitePanel.ChromosomeSites chr1Sites = sitePanel.chromosomeSites(HumanChromosome._1);
+        assertEquals(2, chr1Sites.count());
+        assertEquals(1000, chr1Sites.position(0));
+        assertEquals("A", chr1Sites.ref(0));
+        assertEquals("C", chr1Sites.alt(0));
+        assertTrue(chr1Sites.snpCheck(0));
+        assertEquals(2000, chr1Sites.position(1));
+        assertEquals("G", chr1Sites.ref(1));
+        assertEquals("T", chr1Sites.alt(1));
+        assertFalse(chr1Sites.snpCheck(1));
+
+        // bases are shared single-base strings rather than allocated per call
+        assertSame(chr1Sites.ref(0), chr1Sites.ref(0));
+        assertSame(chr1Sites.alt(1), sitePanel.chromosomeSites(HumanChromosome._X).ref(0));
+
+        PositionEvidence posEvidence = new ChromosomeEvidence(sitePanel.chromosomeSites(HumanChromosome._X)).view(0);
+        assertEquals("X", posEvidence.chromosome());
+        assertEquals(500, posEvidence.position());
+        assertEquals("T", posEvidence.ref());
+        assertEquals("A", posEvidence.alt());
+
+        // evidence for a subset of sites keeps their positions and bases
+        ChromosomeEvidence chr1Evidence = new ChromosomeEvidence(chr1Sites);
+        ChromosomeEvidence subsetEvidence = ChromosomeEvidence.forSites(List.of(chr1Evidence.view(1)));
+        assertEquals(1, subsetEvidence.count());
+        assertEquals(2000, subsetEvidence.position(0));
+        assertEquals("G", subsetEvidence.view(0).ref());
+        assertEquals("T", subsetEvidence.view(0).alt());
+
+        ListMultimap<Chromosome,AmberSite> snpCheckSites = sitePanel.snpCheckSites();
+        assertEquals(1, snpCheckSites.size());
+        assertTrue(snpCheckSites.get(HumanChromosome._1).get(0).matches("1", 1000, "A", "C"));
+    }
+}
@@ -72,11 +72,7 @@ public class BaseDepthIntersectFilterTest
 
     private PositionEvidence createRandom(@NotNull final String chromosome, @NotNull final Random random)
     {
-        PositionEvidence baseDepth = new PositionEvidence(chromosome, random.nextInt(), "A", "T");
-        baseDepth.ReadDepth = random.nextInt();
-        baseDepth.RefSupport = random.nextInt();
-        baseDepth.AltSupport = random.nextInt();
-        return baseDepth;
+        return new PositionEvidence(chromosome, random.nextInt(), "A", "T");
     }
 
 }
@@ -0,0 +1,75 @@
+package com.hartwig.hmftools.amber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+
+public class RegionTaskTest
+{
+    @Test
+    public void testPairedEvidence()
+    {
+        PositionEvidenceChecker evidenceChecker = new PositionEvidenceChecker(0);
+
+        AmberSitePanel.ChromosomeSites sites = AmberSitePanel.ChromosomeSites.of(
+                "1", new int[] { 1001, 1011 },
+                new byte[] { AmberSitePanel.packBases("A", "T", false), AmberSitePanel.packBases("C", "G", false) });
+
+        ChromosomeEvidence refEvidence = new ChromosomeEvidence(sites);
+        ChromosomeEvidence tumorEvidence = new ChromosomeEvidence(sites);
+
+        RegionTask task = new RegionTask(evidenceChecker, "1", refEvidence, tumorEvidence, 0);
+        task.addPosition();
+
+        assertTrue(task.isPaired());
+        assertEquals(1011, task.Region.end());
+        assertEquals(2, task.positionCount());
+
+        // reference reads cover both sites, tumor reads only the first
+        task.processRecord(buildSamRecord(1001, "AAAAAAAAAAC"));
+        task.processRecord(buildSamRecord(1002, "AAAAAAAAAG"));
+        task.processRecord(buildSamRecord(1012, "A"));
+
+        assertTrue(task.isComplete());
+        assertEquals(1, refEvidence.readDepth(0));
+        assertEquals(1, refEvidence.refSupport(0));
+        assertEquals(2, refEvidence.readDepth(1));
+        assertEquals(1, refEvidence.altSupport(1));
+
+        task.processTumorRecord(buildSamRecord(1001, "T"));
+        task.processTumorRecord(buildSamRecord(1001, "T"));
+
+        assertFalse(task.isTumorComplete());
+        assertEquals(2, tumorEvidence.altSupport(0));
+        assertEquals(0, tumorEvidence.readDepth(1));
+
+        task.processTumorRecord(buildSamRecord(1012, "A"));
+        assertTrue(task.isTumorComplete());
+
+        // views of the reference sites read the same counts, and map to the tumor's evidence for the same site
+        PositionEvidence refSite1 = refEvidence.view(0);
+        assertEquals(1, refSite1.refSupport());
+        assertEquals(refEvidence.view(0), refSite1);
+        assertEquals(2, refSite1.siteIn(tumorEvidence).altSupport());
+
+        // unpaired tasks have no tumor sites to fill
+        RegionTask unpairedTask = new RegionTask(evidenceChecker, "1", ChromosomeEvidence.singleSite("1", 1001, "A", "T"), 0);
+        assertFalse(unpairedTask.isPaired());
+        assertTrue(unpairedTask.isTumorComplete());
+    }
+
+    private static SAMRecord buildSamRecord(final int alignmentStart, final String readString)
+    {
+        final SAMRecord record = new SAMRecord(null);
+        record.setAlignmentStart(alignmentStart);
+        record.setCigarString(readString.length() + "M");
+        record.setReadString(readString);
+        record.setBaseQualityString("J".repeat(readString.length()));
+        record.setMappingQuality(20);
+        return record;
+    }
+}
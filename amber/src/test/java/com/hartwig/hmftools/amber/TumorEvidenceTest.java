@@ -23,10 +23,10 @@ public class TumorEvidenceTest
         PositionEvidenceChecker evidenceChecker = new PositionEvidenceChecker(minQuality);
 
         evidenceChecker.addEvidence(baseDepth, lowQualDel);
-        assertEquals(0, baseDepth.ReadDepth);
+        assertEquals(0, baseDepth.readDepth());
 
         evidenceChecker.addEvidence(baseDepth, highQualDel);
-        assertEquals(1, baseDepth.ReadDepth);
+        assertEquals(1, baseDepth.readDepth());
     }
 
     private SAMRecord buildSamRecord(
@@ -95,13 +95,14 @@ public class BamMetrics
             partitions.add(new PartitionTask(allRegions.get(i), taskId++));
         }
 
-        CombinedStats combinedStats = new CombinedStats(mConfig.MaxCoverage);
-
         MetricsWriter metricsWriter = new MetricsWriter(mConfig);
 
+        List<PartitionThread> partitionThreads = Lists.newArrayList();
+
         if(allRegions.size() == 1 || mConfig.Threads <= 1)
         {
-            PartitionThread partitionThread = new PartitionThread(mConfig, partitions, combinedStats, metricsWriter);
+            PartitionThread partitionThread = new PartitionThread(mConfig, partitions, metricsWriter);
+            partitionThreads.add(partitionThread);
             partitionThread.run();
         }
         else
@@ -112,7 +113,8 @@ public class BamMetrics
 
             for(int i = 0; i < min(allRegions.size(), mConfig.Threads); ++i)
             {
-                PartitionThread partitionThread = new PartitionThread(mConfig, partitions, combinedStats, metricsWriter);
+                PartitionThread partitionThread = new PartitionThread(mConfig, partitions, metricsWriter);
+                partitionThreads.add(partitionThread);
                 partitionThread.start();
                 workers.add(partitionThread);
             }
@@ -125,6 +127,10 @@ public class BamMetrics
 
         metricsWriter.close();
 
+        // each thread accumulates its own stats, reduced to a single set here
+        CombinedStats combinedStats = new CombinedStats(mConfig.MaxCoverage);
+        partitionThreads.forEach(x -> combinedStats.merge(x.combinedStats()));
+
         combinedStats.coverageMetrics().finalise(mConfig.ExcludeZeroCoverage);
         MetricsWriter.writeResults(combinedStats, mConfig);
 
@@ -103,6 +103,9 @@ public class BamReader
     public OffTargetFragments offTargetFragments() { return mOffTargetFragments; }
     public PartitionStats partitionStats() { return mPartitionStats; }
 
+    @Nullable
+    public CoverageTrackFile.DepthRuns depthRuns() { return mBaseCoverage.depthRuns(); }
+
     public void run()
     {
         BT_LOGGER.debug("processing region({})", mRegion);
@@ -123,6 +126,7 @@ public class BamReader
     {
         mReadGroupMap.clear();
 
+        mBaseCoverage.flush();
         CoverageMetrics metrics = mBaseCoverage.createMetrics();
 
         mCombinedStats.addStats(
@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.bamtools.metrics;
 
+import static java.lang.Math.min;
+
 import static com.hartwig.hmftools.common.region.BaseRegion.positionWithin;
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
@@ -12,9 +14,13 @@ import java.util.List;
 import com.google.common.annotations.VisibleForTesting;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.CigarElement;
 import htsjdk.samtools.SAMRecord;
 
+// depth is only held for a rolling window of positions - since reads arrive in coordinate order, positions before the current
+// read's start are final and are flushed into the coverage histogram (and optionally the run-length depth track) to free the window
 public class BaseCoverage
 {
     private final MetricsConfig mConfig;
@@ -22,19 +28,34 @@ public class BaseCoverage
     private int mRegionStart;
     private final List<ChrBaseRegion> mUnmappableRegions;
 
-    private final int[] mBaseDepth;
+    private int[] mBaseDepth; // circular, indexed by position modulo the window size
+    private int mWindowStart; // first position not yet flushed
+    private final long[] mCoverageFrequency;
+    private long mCoverageBases;
+    private final CoverageTrackFile.DepthRuns mDepthRuns;
+
     private final long[] mFilterTypeCounts;
 
+    // comfortably covers a read's aligned span, and grows for any longer spliced alignments
+    protected static final int DEPTH_WINDOW_SIZE = 1 << 16;
+
     public BaseCoverage(final MetricsConfig config, int regionStart, int regionEnd, final List<ChrBaseRegion> unmappableRegions)
     {
         mConfig = config;
         mRegionSize = regionEnd - regionStart + 1;
         mRegionStart = regionStart;
-        mBaseDepth = new int[mRegionSize];
+        mBaseDepth = new int[min(mRegionSize, DEPTH_WINDOW_SIZE)];
+        mWindowStart = regionStart;
+        mCoverageFrequency = new long[mConfig.MaxCoverage + 1];
+        mCoverageBases = 0;
+        mDepthRuns = mConfig.WriteCoverageTrack ? new CoverageTrackFile.DepthRuns() : null;
         mFilterTypeCounts = new long[FilterType.values().length];
         mUnmappableRegions = unmappableRegions;
     }
 
+    @Nullable
+    public CoverageTrackFile.DepthRuns depthRuns() { return mDepthRuns; }
+
     public void processRead(final SAMRecord read, final List<int[]> mateBaseCoords, boolean isConsensusRead)
     {
         // some filters exclude all matched bases
@@ -68,6 +89,8 @@ public class BaseCoverage
             return;
         }
 
+        checkWindow(read.getAlignmentStart(), read.getAlignmentEnd());
+
         int position = read.getAlignmentStart();
         int readIndex = 0;
 
@@ -120,11 +143,14 @@ public class BaseCoverage
             if(position >= mRegionStart + mRegionSize)
                 break;
 
+            if(position < mWindowStart) // only possible if reads are out of coordinate order
+                continue;
+
             if(checkUnmappable && mUnmappableRegions.stream().anyMatch(x -> x.containsPosition(position)))
                 continue;
 
             int readIndex = readIndexStart + i;
-            int baseIndex = position - mRegionStart;
+            int baseIndex = position % mBaseDepth.length;
 
             boolean lowBaseQual = read.getBaseQualities()[readIndex] < mConfig.BaseQualityThreshold;
 
@@ -151,23 +177,103 @@ public class BaseCoverage
         }
     }
 
-    public CoverageMetrics createMetrics()
+    private void checkWindow(int readStart, int readEnd)
     {
-        CoverageMetrics metrics = new CoverageMetrics(mConfig.MaxCoverage);
+        int regionEnd = mRegionStart + mRegionSize - 1;
+        int requiredEnd = min(readEnd, regionEnd);
 
-        long coverageBases = 0;
+        if(requiredEnd < mWindowStart + mBaseDepth.length)
+            return;
 
-        for(int i = 0; i < mBaseDepth.length; ++i)
+        // positions before this read are final
+        flush(min(readStart - 1, regionEnd));
+
+        if(requiredEnd < mWindowStart + mBaseDepth.length)
+            return;
+
+        int newWindowSize = mBaseDepth.length;
+
+        while(requiredEnd >= mWindowStart + newWindowSize)
         {
-            int coverage = mBaseDepth[i];
+            newWindowSize *= 2;
+        }
 
-            if(!mUnmappableRegions.isEmpty())
-            {
-                int position = mRegionStart + i;
+        int[] newBaseDepth = new int[min(newWindowSize, mRegionSize)];
 
-                if(mUnmappableRegions.stream().anyMatch(x -> x.containsPosition(position)))
+        for(int position = mWindowStart; position < mWindowStart + mBaseDepth.length && position <= regionEnd; ++position)
+        {
+            newBaseDepth[position % newBaseDepth.length] = mBaseDepth[position % mBaseDepth.length];
+        }
+
+        mBaseDepth = newBaseDepth;
+    }
+
+    public void flush()
+    {
+        flush(mRegionStart + mRegionSize - 1);
+    }
+
+    private void flush(int flushEnd)
+    {
+        if(flushEnd < mWindowStart)
+            return;
+
+        boolean checkUnmappable = !mUnmappableRegions.isEmpty()
+                && mUnmappableRegions.stream().anyMatch(x -> positionsOverlap(x.start(), x.end(), mWindowStart, flushEnd));
+
+        for(int position = mWindowStart; position <= flushEnd; ++position)
+        {
+            int baseIndex = position % mBaseDepth.length;
+            int coverage = mBaseDepth[baseIndex];
+            mBaseDepth[baseIndex] = 0;
+
+            if(mDepthRuns != null)
+                mDepthRuns.add(coverage);
+
+            if(checkUnmappable && isUnmappable(position))
+                continue;
+
+            if(coverage == 0)
+            {
+                if(mConfig.ExcludeZeroCoverage)
                     continue;
             }
+            else
+            {
+                ++mCoverageBases;
+            }
+
+            ++mCoverageFrequency[coverage];
+        }
+
+        mWindowStart = flushEnd + 1;
+    }
+
+    private boolean isUnmappable(int position)
+    {
+        return mUnmappableRegions.stream().anyMatch(x -> x.containsPosition(position));
+    }
+
+    public CoverageMetrics createMetrics()
+    {
+        CoverageMetrics metrics = new CoverageMetrics(mConfig.MaxCoverage);
+
+        for(int i = 0; i < mCoverageFrequency.length; ++i)
+        {
+            metrics.CoverageFrequency[i] += mCoverageFrequency[i];
+        }
+
+        long coverageBases = mCoverageBases;
+
+        // include positions not yet flushed, leaving them in the window
+        int regionEnd = mRegionStart + mRegionSize - 1;
+
+        for(int position = mWindowStart; position <= regionEnd; ++position)
+        {
+            int coverage = mBaseDepth[position % mBaseDepth.length];
+
+            if(!mUnmappableRegions.isEmpty() && isUnmappable(position))
+                continue;
 
             if(coverage == 0)
             {
@@ -203,8 +309,30 @@ public class BaseCoverage
         {
             mFilterTypeCounts[i] = 0;
         }
+
+        for(int i = 0; i < mCoverageFrequency.length; ++i)
+        {
+            mCoverageFrequency[i] = 0;
+        }
+
+        mCoverageBases = 0;
+        mWindowStart = mRegionStart;
+
+        if(mDepthRuns != null)
+            mDepthRuns.clear();
     }
 
     @VisibleForTesting
-    public int[] baseDepth() { return mBaseDepth; }
+    public int[] baseDepth()
+    {
+        // depth by region position, with flushed positions no longer held and so reported as zero
+        int[] baseDepth = new int[mRegionSize];
+
+        for(int position = mWindowStart; position < mRegionStart + mRegionSize; ++position)
+        {
+            baseDepth[position - mRegionStart] = mBaseDepth[position % mBaseDepth.length];
+        }
+
+        return baseDepth;
+    }
 }
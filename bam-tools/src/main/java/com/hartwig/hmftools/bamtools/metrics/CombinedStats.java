@@ -38,6 +38,13 @@ public class CombinedStats
 
     public Map<Integer,Integer> offTargetOverlapCounts() { return mOffTargetOverlapCounts; }
 
+    public void merge(final CombinedStats other)
+    {
+        addStats(
+                other.coverageMetrics(), other.fragmentLengths(), other.readCounts(), other.flagStats(),
+                other.offTargetOverlapCounts(), other.perfCounter());
+    }
+
     public synchronized void addStats(
             final CoverageMetrics metrics, final FragmentLengths fragmentLengths, final ReadCounts readCounts,
             final FlagStats flagStats, final Map<Integer,Integer> offTargetOverlapCounts, final PerformanceCounter perfCounter)
@@ -0,0 +1,210 @@
+package com.hartwig.hmftools.bamtools.metrics;
+
+import static com.hartwig.hmftools.bamtools.common.CommonUtils.BT_LOGGER;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.utils.file.SectionedBinaryFile;
+
+// per-base depth as runs of equal depth, written a partition at a time in whatever order the partitions complete and
+// indexed at the end of the file, in the manner of a bedGraph but compact and memory-mappable - depth is capped at the
+// configured max coverage, as for the coverage statistics
+public class CoverageTrackFile
+{
+    public static final String COVERAGE_TRACK_FILE_ID = "coverage";
+    public static final String COVERAGE_TRACK_EXTENSION = ".bin";
+
+    private static final int FILE_MAGIC = 0x424d4354; // BMCT
+    private static final int FILE_VERSION = 2;
+
+    private static final int RUN_BYTES = 2 * Integer.BYTES; // start relative to the region's start, and depth
+
+    private final Map<String,List<RegionEntry>> mChrRegions;
+
+    private static class RegionEntry
+    {
+        public final int PosStart;
+        public final int PosEnd;
+        public final ByteBuffer Runs;
+
+        public RegionEntry(int posStart, int posEnd, final ByteBuffer runs)
+        {
+            PosStart = posStart;
+            PosEnd = posEnd;
+            Runs = runs;
+        }
+    }
+
+    // depth runs for a partition, in position order from its start
+    public static class DepthRuns
+    {
+        private int[] mLengths;
+        private int[] mDepths;
+        private int mCount;
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        public DepthRuns()
+        {
+            mLengths = new int[INITIAL_CAPACITY];
+            mDepths = new int[INITIAL_CAPACITY];
+            mCount = 0;
+        }
+
+        public int count() { return mCount; }
+        public int length(int index) { return mLengths[index]; }
+        public int depth(int index) { return mDepths[index]; }
+
+        public void add(int depth)
+        {
+            if(mCount > 0 && mDepths[mCount - 1] == depth)
+            {
+                ++mLengths[mCount - 1];
+                return;
+            }
+
+            if(mCount == mLengths.length)
+            {
+                mLengths = Arrays.copyOf(mLengths, mCount * 2);
+                mDepths = Arrays.copyOf(mDepths, mCount * 2);
+            }
+
+            mLengths[mCount] = 1;
+            mDepths[mCount] = depth;
+            ++mCount;
+        }
+
+        public void clear() { mCount = 0; }
+    }
+
+    private CoverageTrackFile(final Map<String,List<RegionEntry>> chrRegions)
+    {
+        mChrRegions = chrRegions;
+    }
+
+    // returns -1 for positions outside any written partition
+    public int getDepth(final String chromosome, int position)
+    {
+        List<RegionEntry> regions = mChrRegions.get(chromosome);
+
+        if(regions == null)
+            return -1;
+
+        // regions are sorted and non-overlapping, so take the last starting at or before the position
+        int low = 0;
+        int high = regions.size() - 1;
+        RegionEntry region = null;
+
+        while(low <= high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(regions.get(mid).PosStart <= position)
+            {
+                region = regions.get(mid);
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        if(region == null || position > region.PosEnd)
+            return -1;
+
+        // likewise the last run starting at or before the position
+        int regionOffset = position - region.PosStart;
+        low = 0;
+        high = region.Runs.capacity() / RUN_BYTES - 1;
+        int runIndex = 0;
+
+        while(low <= high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(region.Runs.getInt(mid * RUN_BYTES) <= regionOffset)
+            {
+                runIndex = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        return region.Runs.getInt(runIndex * RUN_BYTES + Integer.BYTES);
+    }
+
+    public static class Writer implements AutoCloseable
+    {
+        private final String mFilename;
+        private final SectionedBinaryFile.Writer mWriter;
+
+        public Writer(final String filename) throws IOException
+        {
+            mFilename = filename;
+            mWriter = new SectionedBinaryFile.Writer(filename, FILE_MAGIC, FILE_VERSION);
+        }
+
+        public synchronized void writeRegion(final String chromosome, int posStart, final DepthRuns depthRuns) throws IOException
+        {
+            if(depthRuns.count() == 0)
+                return;
+
+            long offset = mWriter.offset();
+            int runStart = 0;
+
+            for(int i = 0; i < depthRuns.count(); ++i)
+            {
+                mWriter.writeInt(runStart);
+                mWriter.writeInt(depthRuns.depth(i));
+                runStart += depthRuns.length(i);
+            }
+
+            // directory values: start, end, offset, run count
+            mWriter.addSection(chromosome, posStart, posStart + runStart - 1, offset, depthRuns.count());
+        }
+
+        @Override
+        public synchronized void close() throws IOException
+        {
+            mWriter.close();
+
+            BT_LOGGER.debug("wrote {} partition depth tracks to file({})", mWriter.sectionCount(), mFilename);
+        }
+    }
+
+    public static CoverageTrackFile load(final String filename) throws IOException
+    {
+        Map<String,List<RegionEntry>> chrRegions = Maps.newHashMap();
+
+        try(SectionedBinaryFile.Reader reader = new SectionedBinaryFile.Reader(filename, FILE_MAGIC, FILE_VERSION, "coverage track"))
+        {
+            for(SectionedBinaryFile.Section section : reader.sections())
+            {
+                int posStart = (int)section.Values[0];
+                int posEnd = (int)section.Values[1];
+                long offset = section.Values[2];
+                long runCount = section.Values[3];
+
+                ByteBuffer runs = reader.map(offset, runCount * RUN_BYTES);
+
+                chrRegions.computeIfAbsent(section.Name, k -> Lists.newArrayList()).add(new RegionEntry(posStart, posEnd, runs));
+            }
+        }
+
+        // partitions are written as they complete, so are ordered here for searching
+        chrRegions.values().forEach(x -> x.sort(Comparator.comparingInt(region -> region.PosStart)));
+
+        return new CoverageTrackFile(chrRegions);
+    }
+}
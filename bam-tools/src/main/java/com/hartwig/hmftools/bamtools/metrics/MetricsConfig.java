@@ -73,6 +73,7 @@ public class MetricsConfig
     // metrics capture config
     public final boolean ExcludeZeroCoverage;
     public final boolean WriteOffTarget;
+    public final boolean WriteCoverageTrack;
     public final int HighFragmentOverlapThreshold;
     public final int PartitionReadCountCheck;
 
@@ -97,6 +98,7 @@ public class MetricsConfig
 
     private static final String OFF_TARGET_FRAG_OVERLAP_THRESHOLD = "off_target_frag_overlap_threshold";
     private static final String WRITE_OFF_TARGET = "write_off_target";
+    private static final String WRITE_COVERAGE_TRACK = "write_coverage_track";
     private static final String PARTITION_READ_COUNT_CHECK = "partition_read_count_check";
 
     private static final int DEFAULT_MAP_QUAL_THRESHOLD = 20;
@@ -141,6 +143,7 @@ public class MetricsConfig
         MaxCoverage = configBuilder.getInteger(MAX_COVERAGE);
         ExcludeZeroCoverage = configBuilder.hasFlag(EXCLUDE_ZERO_COVERAGE);
         WriteOffTarget = configBuilder.hasFlag(WRITE_OFF_TARGET);
+        WriteCoverageTrack = configBuilder.hasFlag(WRITE_COVERAGE_TRACK);
         HighFragmentOverlapThreshold = configBuilder.getInteger(OFF_TARGET_FRAG_OVERLAP_THRESHOLD);
 
         TargetRegions = loadChrBaseRegions(configBuilder.getValue(REGIONS_FILE));
@@ -200,6 +203,16 @@ public class MetricsConfig
         return filename + TSV_EXTENSION;
     }
 
+    public String formCoverageTrackFilename()
+    {
+        String filename = OutputDir + SampleId + BamMetricsSummary.BAM_METRICS_FILE_ID + "." + CoverageTrackFile.COVERAGE_TRACK_FILE_ID;
+
+        if(OutputId != null)
+            filename += "." + OutputId;
+
+        return filename + CoverageTrackFile.COVERAGE_TRACK_EXTENSION;
+    }
+
     public static void addConfig(final ConfigBuilder configBuilder)
     {
         addRefGenomeFile(configBuilder, true);
@@ -227,6 +240,7 @@ public class MetricsConfig
 
         configBuilder.addFlag(EXCLUDE_ZERO_COVERAGE, "Exclude bases with zero coverage");
         configBuilder.addFlag(WRITE_OFF_TARGET, "Write off-target data");
+        configBuilder.addFlag(WRITE_COVERAGE_TRACK, "Write per-base depth as a run-length coverage track, with depth capped at max_coverage");
         configBuilder.addConfigItem(LOG_READ_IDS, LOG_READ_IDS_DESC);
         configBuilder.addFlag(PERF_DEBUG, PERF_DEBUG_DESC);
 
@@ -237,6 +251,12 @@ public class MetricsConfig
 
     @VisibleForTesting
     public MetricsConfig(int maxCoveage)
+    {
+        this(maxCoveage, false);
+    }
+
+    @VisibleForTesting
+    public MetricsConfig(int maxCoveage, boolean writeCoverageTrack)
     {
         mIsValid = true;
 
@@ -254,6 +274,7 @@ public class MetricsConfig
         MaxCoverage = maxCoveage;
         ExcludeZeroCoverage = false;
         WriteOffTarget = false;
+        WriteCoverageTrack = writeCoverageTrack;
 
         SpecificChrRegions = new SpecificRegions();
         LogReadIds = Collections.emptyList();
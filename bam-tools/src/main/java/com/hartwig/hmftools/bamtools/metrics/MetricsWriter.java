@@ -64,6 +64,7 @@ public class MetricsWriter
     private BufferedWriter mPartitionWriter;
     private BufferedWriter mTargetRegionsWriter;
     private BufferedWriter mOffTargetHighFragmentOverlapWriter;
+    private CoverageTrackFile.Writer mCoverageTrackWriter;
 
     public MetricsWriter(final MetricsConfig config)
     {
@@ -73,17 +74,47 @@ public class MetricsWriter
 
         mOffTargetHighFragmentOverlapWriter = !config.TargetRegions.isEmpty() && config.HighFragmentOverlapThreshold > 0 ?
                 OffTargetFragments.initialiseEnrichedRegionWriter(config) : null;
+
+        mCoverageTrackWriter = config.WriteCoverageTrack ? initialiseCoverageTrackWriter(config) : null;
     }
 
     public BufferedWriter targetRegionsWriter() { return mTargetRegionsWriter; }
     public BufferedWriter partitionWriter() { return mPartitionWriter; }
     public BufferedWriter offTargetHighFragmentOverlapWriter() { return mOffTargetHighFragmentOverlapWriter; }
+    public CoverageTrackFile.Writer coverageTrackWriter() { return mCoverageTrackWriter; }
 
     public void close()
     {
         closeBufferedWriter(mPartitionWriter);
         closeBufferedWriter(mTargetRegionsWriter);
         closeBufferedWriter(mOffTargetHighFragmentOverlapWriter);
+
+        if(mCoverageTrackWriter != null)
+        {
+            try
+            {
+                mCoverageTrackWriter.close();
+            }
+            catch(IOException e)
+            {
+                BT_LOGGER.error("failed to close coverage track file: {}", e.toString());
+                System.exit(1);
+            }
+        }
+    }
+
+    private static CoverageTrackFile.Writer initialiseCoverageTrackWriter(final MetricsConfig config)
+    {
+        try
+        {
+            return new CoverageTrackFile.Writer(config.formCoverageTrackFilename());
+        }
+        catch(IOException e)
+        {
+            BT_LOGGER.error("failed to initialise coverage track file: {}", e.toString());
+            System.exit(1);
+            return null;
+        }
     }
 
     public static void writeResults(final CombinedStats combinedStats, final MetricsConfig config)
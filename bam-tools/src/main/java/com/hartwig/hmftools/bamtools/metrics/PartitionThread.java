@@ -23,12 +23,10 @@ public class PartitionThread extends Thread
     private final Queue<PartitionTask> mPartitions;
     private final MetricsWriter mMetricsWriter;
 
-    public PartitionThread(
-            final MetricsConfig config, final Queue<PartitionTask> partitions, final CombinedStats combinedStats,
-            final MetricsWriter metricsWriter)
+    public PartitionThread(final MetricsConfig config, final Queue<PartitionTask> partitions, final MetricsWriter metricsWriter)
     {
         mConfig = config;
-        mCombinedStats = combinedStats;
+        mCombinedStats = new CombinedStats(mConfig.MaxCoverage); // merged with other threads' stats once all partitions complete
         mPartitions = partitions;
         mMetricsWriter = metricsWriter;
 
@@ -39,6 +37,8 @@ public class PartitionThread extends Thread
         mBamSlicer.setKeepUnmapped();
     }
 
+    public CombinedStats combinedStats() { return mCombinedStats; }
+
     @Override
     public void run()
     {
@@ -62,6 +62,12 @@ public class PartitionThread extends Thread
 
                 mMetricsWriter.writePartitionStats(partition.Region, bamReader.partitionStats());
 
+                if(mMetricsWriter.coverageTrackWriter() != null)
+                {
+                    mMetricsWriter.coverageTrackWriter().writeRegion(
+                            partition.Region.Chromosome, partition.Region.start(), bamReader.depthRuns());
+                }
+
                 TargetRegionStats.writeStatistics(mMetricsWriter.targetRegionsWriter(), bamReader.targetRegionStats());
 
                 if(mMetricsWriter.offTargetHighFragmentOverlapWriter() != null)
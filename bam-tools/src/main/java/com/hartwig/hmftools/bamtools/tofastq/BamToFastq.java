@@ -62,7 +62,11 @@ public class BamToFastq
         final ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("thread-%0" + numDigits + "d").build();
         ExecutorService executorService = Executors.newFixedThreadPool(mConfig.Threads, namedThreadFactory);
 
-        final ThreadData threadData = new ThreadData(mConfig, remoteReadHandler);
+        // FASTQ blocks are compressed on their own pool, since partition threads wait on it and so cannot also run its tasks
+        final ThreadFactory compressionThreadFactory = new ThreadFactoryBuilder().setNameFormat("bgzf-%0" + numDigits + "d").build();
+        ExecutorService compressionPool = Executors.newFixedThreadPool(mConfig.Threads, compressionThreadFactory);
+
+        final ThreadData threadData = new ThreadData(mConfig, remoteReadHandler, compressionPool);
 
         BT_LOGGER.debug("splitting {} partitions across {} threads", partitions.size(), mConfig.Threads);
 
@@ -87,6 +91,7 @@ public class BamToFastq
 
         threadData.closePartitionReaders();
         threadData.closeFastqWriters();
+        compressionPool.shutdown();
 
         // might need to combine the fastq files of all the threads
         mergeThreadFastqFiles(threadData.getAllThreadFastqWriterCaches(), executorService);
@@ -9,9 +9,15 @@ import static com.hartwig.hmftools.common.bam.SamRecordUtils.readToString;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.closeBufferedWriter;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
 
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE;
+
 import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
 
 import com.hartwig.hmftools.common.codon.Nucleotides;
 
@@ -31,6 +37,11 @@ public class FastqWriter
 
     @Nullable private BufferedWriter mWriterUnpaired;
 
+    @Nullable private final ExecutorService mCompressionPool;
+
+    // blocks each file can have awaiting compression, beyond which its writing thread waits
+    private static final int MAX_PENDING_BLOCKS = 8;
+
     public String getFastqR1() { return mFastqR1; }
 
     public String getFastqR2() { return mFastqR2; }
@@ -38,8 +49,10 @@ public class FastqWriter
     @Nullable
     public String getFastqUnpaired() { return mFastqUnpaired; }
 
-    public FastqWriter(final String filePrefix)
+    public FastqWriter(final String filePrefix, @Nullable final ExecutorService compressionPool)
     {
+        mCompressionPool = compressionPool;
+
         mFastqR1 = formFilename(filePrefix, R1);
         mWriterR1 = initialise(mFastqR1);
 
@@ -53,7 +66,12 @@ public class FastqWriter
     {
         try
         {
-            return createBufferedWriter(filename);
+            if(mCompressionPool == null)
+                return createBufferedWriter(filename);
+
+            return new BufferedWriter(new OutputStreamWriter(
+                    new ParallelBgzfOutputStream(new FileOutputStream(filename), mCompressionPool, MAX_PENDING_BLOCKS),
+                    StandardCharsets.US_ASCII), DEFAULT_UNCOMPRESSED_BLOCK_SIZE);
         }
         catch(IOException e)
         {
@@ -2,6 +2,7 @@ package com.hartwig.hmftools.bamtools.tofastq;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -12,6 +13,7 @@ public class FastqWriterCache implements AutoCloseable
 {
     private final ToFastqConfig mConfig;
     private final String mThreadId;
+    @Nullable private final ExecutorService mCompressionPool;
 
     private long mNumReadsWritten;
 
@@ -27,10 +29,11 @@ public class FastqWriterCache implements AutoCloseable
         return mReadGroupWriters.get(readGroupId);
     }
 
-    public FastqWriterCache(final ToFastqConfig config, String threadId)
+    public FastqWriterCache(final ToFastqConfig config, String threadId, @Nullable final ExecutorService compressionPool)
     {
         mConfig = config;
         mThreadId = threadId;
+        mCompressionPool = compressionPool;
         mReadGroupWriters = new HashMap<>();
 
         if(mConfig.SplitMode == FileSplitMode.READ_GROUP)
@@ -40,7 +43,7 @@ public class FastqWriterCache implements AutoCloseable
         }
         else
         {
-            mSingleWriter = new FastqWriter(mConfig.formFilePrefix(threadId, "", true));
+            mSingleWriter = new FastqWriter(mConfig.formFilePrefix(threadId, "", true), mCompressionPool);
         }
     }
 
@@ -48,7 +51,7 @@ public class FastqWriterCache implements AutoCloseable
     {
         for(SAMReadGroupRecord readGroup : ToFastqUtils.getReadGroups(mConfig))
         {
-            FastqWriter fastqWriter = new FastqWriter(mConfig.formFilePrefix(mThreadId, readGroup.getId(), false));
+            FastqWriter fastqWriter = new FastqWriter(mConfig.formFilePrefix(mThreadId, readGroup.getId(), false), mCompressionPool);
             mReadGroupWriters.put(readGroup.getId(), fastqWriter);
         }
     }
@@ -0,0 +1,195 @@
+package com.hartwig.hmftools.bamtools.tofastq;
+
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BGZF_ID1;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BGZF_ID2;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BGZF_LEN;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.DEFAULT_COMPRESSION_LEVEL;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_CM_DEFLATE;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_FLG;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_ID1;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_ID2;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_OS_UNKNOWN;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_XFL;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_XLEN;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// writes BGZF, ie a series of gzip members of at most 64KB each, so any gzip reader can decompress it - each block is deflated
+// on the shared compression pool and written out in order once complete, so one writer's output is limited by the pool and not by
+// the thread producing its data
+public class ParallelBgzfOutputStream extends OutputStream
+{
+    private final OutputStream mOutputStream;
+    private final ExecutorService mCompressionPool;
+    private final int mMaxPendingBlocks;
+
+    private final Queue<Future<byte[]>> mPendingBlocks;
+    private byte[] mBuffer;
+    private int mBufferLength;
+    private boolean mClosed;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(DEFAULT_COMPRESSION_LEVEL, true));
+    private static final ThreadLocal<Deflater> NO_COMPRESSION_DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.NO_COMPRESSION, true));
+
+    public ParallelBgzfOutputStream(final OutputStream outputStream, final ExecutorService compressionPool, int maxPendingBlocks)
+    {
+        mOutputStream = outputStream;
+        mCompressionPool = compressionPool;
+        mMaxPendingBlocks = maxPendingBlocks;
+        mPendingBlocks = new ArrayDeque<>();
+        mBuffer = new byte[DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+        mBufferLength = 0;
+        mClosed = false;
+    }
+
+    @Override
+    public void write(int value) throws IOException
+    {
+        mBuffer[mBufferLength++] = (byte)value;
+
+        if(mBufferLength == mBuffer.length)
+            submitBlock();
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException
+    {
+        while(length > 0)
+        {
+            int copyLength = Math.min(length, mBuffer.length - mBufferLength);
+            System.arraycopy(bytes, offset, mBuffer, mBufferLength, copyLength);
+            mBufferLength += copyLength;
+            offset += copyLength;
+            length -= copyLength;
+
+            if(mBufferLength == mBuffer.length)
+                submitBlock();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        // completes any partial block, so frequent flushes would reduce the compression ratio
+        if(mBufferLength > 0)
+            submitBlock();
+
+        while(!mPendingBlocks.isEmpty())
+        {
+            writeNextBlock();
+        }
+
+        mOutputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if(mClosed)
+            return;
+
+        flush();
+        mOutputStream.write(EMPTY_GZIP_BLOCK);
+        mOutputStream.close();
+        mClosed = true;
+    }
+
+    private void submitBlock() throws IOException
+    {
+        final byte[] uncompressed = mBuffer;
+        final int length = mBufferLength;
+
+        mPendingBlocks.add(mCompressionPool.submit(() -> compressBlock(uncompressed, length)));
+
+        mBuffer = new byte[DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+        mBufferLength = 0;
+
+        // write out completed blocks in order, and wait on the oldest if too many are in flight
+        while(!mPendingBlocks.isEmpty() && (mPendingBlocks.peek().isDone() || mPendingBlocks.size() > mMaxPendingBlocks))
+        {
+            writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException
+    {
+        try
+        {
+            mOutputStream.write(mPendingBlocks.remove().get());
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for block compression");
+        }
+        catch(ExecutionException e)
+        {
+            throw new IOException("block compression failed", e.getCause());
+        }
+    }
+
+    public static byte[] compressBlock(final byte[] uncompressed, int length)
+    {
+        byte[] block = new byte[MAX_COMPRESSED_BLOCK_SIZE];
+        int maxDeflatedLength = MAX_COMPRESSED_BLOCK_SIZE - BLOCK_HEADER_LENGTH - BLOCK_FOOTER_LENGTH;
+
+        int deflatedLength = deflate(DEFLATER.get(), uncompressed, length, block, maxDeflatedLength);
+
+        // incompressible data can deflate to more than a block can hold, so is stored instead
+        if(deflatedLength < 0)
+            deflatedLength = deflate(NO_COMPRESSION_DEFLATER.get(), uncompressed, length, block, maxDeflatedLength);
+
+        int blockLength = BLOCK_HEADER_LENGTH + deflatedLength + BLOCK_FOOTER_LENGTH;
+
+        ByteBuffer buffer = ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(GZIP_ID1);
+        buffer.put((byte)GZIP_ID2);
+        buffer.put(GZIP_CM_DEFLATE);
+        buffer.put((byte)GZIP_FLG);
+        buffer.putInt(0); // modification time
+        buffer.put((byte)GZIP_XFL);
+        buffer.put((byte)GZIP_OS_UNKNOWN);
+        buffer.putShort(GZIP_XLEN);
+        buffer.put(BGZF_ID1);
+        buffer.put(BGZF_ID2);
+        buffer.putShort(BGZF_LEN);
+        buffer.putShort((short)(blockLength - 1));
+
+        CRC32 crc = new CRC32();
+        crc.update(uncompressed, 0, length);
+
+        buffer.position(BLOCK_HEADER_LENGTH + deflatedLength);
+        buffer.putInt((int)crc.getValue());
+        buffer.putInt(length);
+
+        return Arrays.copyOf(block, blockLength);
+    }
+
+    private static int deflate(final Deflater deflater, final byte[] uncompressed, int length, final byte[] block, int maxLength)
+    {
+        deflater.reset();
+        deflater.setInput(uncompressed, 0, length);
+        deflater.finish();
+
+        int deflatedLength = deflater.deflate(block, BLOCK_HEADER_LENGTH, maxLength);
+
+        return deflater.finished() ? deflatedLength : -1;
+    }
+}
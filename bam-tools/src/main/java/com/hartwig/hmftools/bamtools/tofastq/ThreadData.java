@@ -3,6 +3,7 @@ package com.hartwig.hmftools.bamtools.tofastq;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 // a simple class to manage thread local data
@@ -20,11 +21,11 @@ public class ThreadData
         return mPartitionReaderList;
     }
 
-    public ThreadData(final ToFastqConfig config, final RemoteReadHandler remoteReadHandler)
+    public ThreadData(final ToFastqConfig config, final RemoteReadHandler remoteReadHandler, final ExecutorService compressionPool)
     {
         mThreadFastqWriterCache = ThreadLocal.withInitial(() -> {
             // we need to assign a unique id
-            FastqWriterCache fastqWriterCache = new FastqWriterCache(config, String.format("t%d", mNextId.incrementAndGet()));
+            FastqWriterCache fastqWriterCache = new FastqWriterCache(config, String.format("t%d", mNextId.incrementAndGet()), compressionPool);
             mFastqWriterCacheList.add(fastqWriterCache);
             return fastqWriterCache;
         });
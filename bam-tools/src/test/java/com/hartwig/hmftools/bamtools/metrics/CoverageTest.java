@@ -7,6 +7,8 @@ import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 
 import com.hartwig.hmftools.common.bam.UmiReadType;
@@ -249,4 +251,137 @@ public class CoverageTest
 
         assertTrue(bamReader.readGroupMap().isEmpty());
     }
+
+    @Test
+    public void testRollingDepthWindow() throws IOException
+    {
+        // a region several times the depth window, with reads in coordinate order as from a BAM slice
+        MetricsConfig config = new MetricsConfig(10, true);
+        int regionStart = 1001;
+        int regionEnd = regionStart + BaseCoverage.DEPTH_WINDOW_SIZE * 3;
+
+        BaseCoverage baseCoverage = new BaseCoverage(config, regionStart, regionEnd, Collections.emptyList());
+
+        int[] expectedDepth = new int[regionEnd - regionStart + 1];
+        String readBases = MockRefGenome.generateRandomBases(100);
+
+        // includes a spliced read spanning beyond the window
+        int splicedReadStart = 500 + 37 * 1000;
+        SAMRecord splicedRead = SamRecordTestUtils.createSamRecord(
+                mReadIdGen.nextId(), CHR_1, splicedReadStart, readBases, "50M149900N50M", CHR_1, regionEnd,
+                false, false, null);
+
+        for(int readStart = 500; readStart < regionEnd + 50; readStart += 37)
+        {
+            if(readStart == splicedReadStart)
+            {
+                baseCoverage.processRead(splicedRead, null, false);
+
+                for(int pos = readStart; pos < readStart + 50; ++pos)
+                {
+                    if(expectedDepth[pos - regionStart] < config.MaxCoverage)
+                        ++expectedDepth[pos - regionStart];
+
+                    ++expectedDepth[pos + 149950 - regionStart];
+                }
+            }
+
+            int readCount = (readStart / 37) % 15; // some above the max coverage
+
+            for(int r = 0; r < readCount; ++r)
+            {
+                SAMRecord read = SamRecordTestUtils.createSamRecord(
+                        mReadIdGen.nextId(), CHR_1, readStart, readBases, "100M", CHR_1, readStart + 200,
+                        false, false, null);
+
+                baseCoverage.processRead(read, null, false);
+
+                for(int pos = readStart; pos < readStart + 100; ++pos)
+                {
+                    if(pos >= regionStart && pos <= regionEnd && expectedDepth[pos - regionStart] < config.MaxCoverage)
+                        ++expectedDepth[pos - regionStart];
+                }
+            }
+        }
+
+        baseCoverage.flush();
+        CoverageMetrics metrics = baseCoverage.createMetrics();
+
+        long[] expectedFrequency = new long[config.MaxCoverage + 1];
+
+        for(int depth : expectedDepth)
+        {
+            ++expectedFrequency[depth];
+        }
+
+        for(int i = 0; i < expectedFrequency.length; ++i)
+        {
+            assertEquals(expectedFrequency[i], metrics.CoverageFrequency[i]);
+        }
+
+        assertEquals(expectedDepth.length - expectedFrequency[0], metrics.coverageBases());
+
+        // the same depths are written to and read back from the coverage track
+        File trackFile = File.createTempFile("bam_metrics", CoverageTrackFile.COVERAGE_TRACK_EXTENSION);
+        trackFile.deleteOnExit();
+
+        try(CoverageTrackFile.Writer writer = new CoverageTrackFile.Writer(trackFile.getAbsolutePath()))
+        {
+            writer.writeRegion(CHR_1, regionStart, baseCoverage.depthRuns());
+        }
+
+        assertTrue(baseCoverage.depthRuns().count() < expectedDepth.length / 10);
+
+        CoverageTrackFile coverageTrack = CoverageTrackFile.load(trackFile.getAbsolutePath());
+
+        for(int pos = regionStart; pos <= regionEnd; ++pos)
+        {
+            assertEquals(expectedDepth[pos - regionStart], coverageTrack.getDepth(CHR_1, pos));
+        }
+
+        assertEquals(-1, coverageTrack.getDepth(CHR_1, regionEnd + 1));
+    }
+
+    @Test
+    public void testCoverageTrackRegionLookup() throws IOException
+    {
+        File trackFile = File.createTempFile("bam_metrics", CoverageTrackFile.COVERAGE_TRACK_EXTENSION);
+        trackFile.deleteOnExit();
+
+        // partitions written out of order with a gap between them, each with runs of increasing depth every 10 bases
+        int[] regionStarts = { 2001, 1, 1001 };
+
+        try(CoverageTrackFile.Writer writer = new CoverageTrackFile.Writer(trackFile.getAbsolutePath()))
+        {
+            for(int regionStart : regionStarts)
+            {
+                CoverageTrackFile.DepthRuns depthRuns = new CoverageTrackFile.DepthRuns();
+                int regionLength = regionStart == 1 ? 500 : 1000;
+
+                for(int i = 0; i < regionLength; ++i)
+                {
+                    depthRuns.add(regionStart / 1000 + i / 10);
+                }
+
+                writer.writeRegion(CHR_1, regionStart, depthRuns);
+            }
+        }
+
+        CoverageTrackFile coverageTrack = CoverageTrackFile.load(trackFile.getAbsolutePath());
+
+        for(int regionStart : regionStarts)
+        {
+            int regionLength = regionStart == 1 ? 500 : 1000;
+
+            for(int i = 0; i < regionLength; ++i)
+            {
+                assertEquals(regionStart / 1000 + i / 10, coverageTrack.getDepth(CHR_1, regionStart + i));
+            }
+        }
+
+        assertEquals(-1, coverageTrack.getDepth(CHR_1, 501));
+        assertEquals(-1, coverageTrack.getDepth(CHR_1, 1000));
+        assertEquals(-1, coverageTrack.getDepth(CHR_1, 3001));
+        assertEquals(-1, coverageTrack.getDepth("2", 100));
+    }
 }
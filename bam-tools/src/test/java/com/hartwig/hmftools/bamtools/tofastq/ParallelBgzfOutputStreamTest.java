@@ -0,0 +1,84 @@
+package com.hartwig.hmftools.bamtools.tofastq;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+
+public class ParallelBgzfOutputStreamTest
+{
+    @Test
+    public void testBlockOrderAndCompatibility() throws IOException
+    {
+        // FASTQ-like text across many blocks, with a stretch of random bytes which deflate to more than a block can hold
+        Random random = new Random(1);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        for(int i = 0; i < 20000; ++i)
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append("@READ_").append(i).append('\n');
+
+            for(int j = 0; j < 100; ++j)
+            {
+                sb.append("ACGT".charAt(random.nextInt(4)));
+            }
+
+            sb.append("\n+\n");
+
+            for(int j = 0; j < 100; ++j)
+            {
+                sb.append((char)('#' + random.nextInt(40)));
+            }
+
+            sb.append('\n');
+            expected.write(sb.toString().getBytes());
+        }
+
+        byte[] randomBytes = new byte[200000];
+        random.nextBytes(randomBytes);
+        expected.write(randomBytes);
+
+        byte[] data = expected.toByteArray();
+
+        ExecutorService compressionPool = Executors.newFixedThreadPool(4);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try(ParallelBgzfOutputStream outputStream = new ParallelBgzfOutputStream(compressed, compressionPool, 3))
+        {
+            // mixed write sizes to cross block boundaries at different points
+            int offset = 0;
+
+            while(offset < data.length)
+            {
+                int length = Math.min(1 + random.nextInt(10000), data.length - offset);
+
+                if(length == 1)
+                    outputStream.write(data[offset]);
+                else
+                    outputStream.write(data, offset, length);
+
+                offset += length;
+            }
+        }
+
+        compressionPool.shutdown();
+
+        byte[] compressedBytes = compressed.toByteArray();
+        assertTrue(compressedBytes.length < data.length);
+
+        // readable as BGZF and as plain multi-member gzip
+        assertArrayEquals(data, new BlockCompressedInputStream(new ByteArrayInputStream(compressedBytes)).readAllBytes());
+        assertArrayEquals(data, new GZIPInputStream(new ByteArrayInputStream(compressedBytes)).readAllBytes());
+    }
+}
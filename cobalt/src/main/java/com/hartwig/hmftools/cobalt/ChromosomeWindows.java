@@ -0,0 +1,79 @@
+package com.hartwig.hmftools.cobalt;
+
+import java.util.Arrays;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+// the windows of a single chromosome held as parallel primitive columns, ordered by position
+// the value column is the read depth or ratio depending on the pipeline stage, and the GC content is either
+// the read GC content (for depths) or the GC profile's content (for ratios)
+public class ChromosomeWindows
+{
+    public final String Chromosome;
+    public final boolean IsAutosome;
+
+    private int[] mPositions;
+    private double[] mValues;
+    private double[] mGcContent;
+    private int mCount;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    public ChromosomeWindows(final String chromosome)
+    {
+        this(chromosome, DEFAULT_CAPACITY);
+    }
+
+    public ChromosomeWindows(final String chromosome, int capacity)
+    {
+        Chromosome = chromosome;
+        IsAutosome = HumanChromosome.contains(chromosome) && HumanChromosome.fromString(chromosome).isAutosome();
+
+        capacity = Math.max(capacity, 1);
+        mPositions = new int[capacity];
+        mValues = new double[capacity];
+        mGcContent = new double[capacity];
+        mCount = 0;
+    }
+
+    public int count() { return mCount; }
+    public boolean isEmpty() { return mCount == 0; }
+
+    public int position(int index) { return mPositions[index]; }
+    public double value(int index) { return mValues[index]; }
+    public double gcContent(int index) { return mGcContent[index]; }
+
+    public void setValue(int index, double value) { mValues[index] = value; }
+
+    public void add(int position, double value, double gcContent)
+    {
+        if(mCount > 0 && position <= mPositions[mCount - 1])
+        {
+            throw new IllegalArgumentException(String.format("chromosome(%s) window position(%d) added out of order after(%d)",
+                    Chromosome, position, mPositions[mCount - 1]));
+        }
+
+        if(mCount == mPositions.length)
+        {
+            int newCapacity = mCount * 2;
+            mPositions = Arrays.copyOf(mPositions, newCapacity);
+            mValues = Arrays.copyOf(mValues, newCapacity);
+            mGcContent = Arrays.copyOf(mGcContent, newCapacity);
+        }
+
+        mPositions[mCount] = position;
+        mValues[mCount] = value;
+        mGcContent[mCount] = gcContent;
+        ++mCount;
+    }
+
+    // returns the index of the window at this position, or a negative value if not present
+    public int indexOf(int position)
+    {
+        return Arrays.binarySearch(mPositions, 0, mCount, position);
+    }
+
+    public double[] values() { return Arrays.copyOf(mValues, mCount); }
+
+    public String toString() { return String.format("chromosome(%s) windows(%d)", Chromosome, mCount); }
+}
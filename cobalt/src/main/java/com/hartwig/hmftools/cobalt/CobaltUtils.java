@@ -1,43 +1,37 @@
 package com.hartwig.hmftools.cobalt;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.common.cobalt.CobaltRatio;
-import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
 import com.hartwig.hmftools.common.cobalt.ImmutableReadRatio;
 import com.hartwig.hmftools.common.cobalt.ReadRatio;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
-import tech.tablesaw.api.*;
-import tech.tablesaw.columns.Column;
-
 public class CobaltUtils
 {
-    // helper function to set the correct column name
-    public static Table replaceColumn(Table table, String columnName, Column<?> newColumn)
-    {
-        return table.replaceColumn(columnName, newColumn.setName(columnName));
-    }
-
     public static Multimap<com.hartwig.hmftools.common.genome.chromosome.Chromosome, ReadRatio> toCommonChromosomeMap(
-            Table input)
+            final Map<String,ChromosomeWindows> input)
     {
         Multimap<com.hartwig.hmftools.common.genome.chromosome.Chromosome, ReadRatio> output = ArrayListMultimap.create();
-        for (String c : input.stringColumn(CobaltColumns.CHROMOSOME).unique())
+
+        for(ChromosomeWindows windows : input.values())
         {
+            String c = windows.Chromosome;
+
             if(HumanChromosome.contains(c))
             {
-                Table inputFiltered = input.where(input.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(c));
+                List<ReadRatio> ratios = Lists.newArrayListWithCapacity(windows.count());
 
-                List<ReadRatio> ratios = inputFiltered.stream().map(
-                        r -> ImmutableReadRatio.builder()
-                            .chromosome(c)
-                            .position(r.getInt(CobaltColumns.POSITION))
-                            .ratio(r.getDouble(CobaltColumns.RATIO))
-                            .build()).collect(Collectors.toList());
+                for(int i = 0; i < windows.count(); ++i)
+                {
+                    ratios.add(ImmutableReadRatio.builder().chromosome(c).position(windows.position(i)).ratio(windows.value(i)).build());
+                }
 
                 output.putAll(HumanChromosome.fromString(c), ratios);
             }
@@ -45,34 +39,35 @@ public class CobaltUtils
         return output;
     }
 
-    public static CobaltRatio rowToCobaltRatio(Row row, ChromosomePositionCodec chromosomePosCodec)
+    // orders chromosomes by their number, ie 1-22 then X and Y
+    public static List<String> sortedChromosomes(final Iterable<String> chromosomes)
     {
-        return ImmutableCobaltRatio.builder()
-                .chromosome(chromosomePosCodec.decodeChromosome(row.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS)))
-                .position(chromosomePosCodec.decodePosition(row.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS)))
-                .referenceReadDepth(row.getDouble(CobaltColumns.REFERENCE_READ_DEPTH))
-                .tumorReadDepth(row.getDouble(CobaltColumns.TUMOR_READ_DEPTH))
-                .referenceGCRatio(row.getDouble("referenceGCRatio"))
-                .tumorGCRatio(row.getDouble("tumorGCRatio"))
-                .referenceGCDiploidRatio(row.getDouble("referenceGCDiploidRatio"))
-                .referenceGcContent(row.getDouble(CobaltColumns.REFERENCE_GC_CONTENT))
-                .tumorGcContent(row.getDouble(CobaltColumns.TUMOR_GC_CONTENT))
-                .build();
+        List<String> sorted = Lists.newArrayList(chromosomes);
+        sorted.sort(Comparator.comparingInt(x -> HumanChromosome.fromString(x).intValue()));
+        return sorted;
     }
 
-    public static Table createReadCountTable()
+    public static Map<String,ChromosomeWindows> sortedByChromosome(final Map<String,ChromosomeWindows> windowsMap)
     {
-        return Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH));
+        Map<String,ChromosomeWindows> sortedMap = new LinkedHashMap<>();
+        sortedChromosomes(windowsMap.keySet()).forEach(x -> sortedMap.put(x, windowsMap.get(x)));
+        return sortedMap;
+    }
+
+    // median of the values ignoring NaNs, or NaN if there are none
+    public static double median(final double[] values)
+    {
+        double[] sorted = Arrays.stream(values).filter(x -> !Double.isNaN(x)).sorted().toArray();
+        int count = sorted.length;
+
+        if(count == 0)
+            return Double.NaN;
+
+        return count % 2 == 0 ? (sorted[count / 2] + sorted[count / 2 - 1]) / 2 : sorted[count / 2];
     }
 
-    public static Table createRatioTable()
+    public static int windowCount(final Map<String,ChromosomeWindows> windowsMap)
     {
-        return Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO));
+        return windowsMap.values().stream().mapToInt(ChromosomeWindows::count).sum();
     }
 }
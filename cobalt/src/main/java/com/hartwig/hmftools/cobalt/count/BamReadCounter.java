@@ -2,6 +2,7 @@ package com.hartwig.hmftools.cobalt.count;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.PARTITION_SIZE;
+import static com.hartwig.hmftools.cobalt.CobaltUtils.sortedByChromosome;
 import static com.hartwig.hmftools.common.bam.SamRecordUtils.CONSENSUS_READ_ATTRIBUTE;
 
 import java.io.File;
@@ -9,15 +10,15 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import com.hartwig.hmftools.cobalt.Chromosome;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 import com.hartwig.hmftools.cobalt.CobaltConfig;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
@@ -32,15 +33,14 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
-import tech.tablesaw.api.*;
 
 public class BamReadCounter
 {
     private final int mMinMappingQuality;
     private final boolean mIncludeDuplicates;
 
-    private Table mReferenceDepths = null;
-    private Table mTumorDepths = null;
+    private Map<String,ChromosomeWindows> mReferenceDepths = null;
+    private Map<String,ChromosomeWindows> mTumorDepths = null;
 
     private final ExecutorService mExecutorService;
     private final SamReaderFactory mReaderFactory;
@@ -50,21 +50,17 @@ public class BamReadCounter
     private final ReadDepthAccumulator mRefReadDepthAccumulator;
     private final ReadDepthAccumulator mTumorReadDepthAccumulator;
 
-    private final ChromosomePositionCodec mChromosomePosCodec;
-
-    public Table getReferenceDepths() { return mReferenceDepths; }
-    public Table getTumorDepths() { return mTumorDepths; }
+    public Map<String,ChromosomeWindows> getReferenceDepths() { return mReferenceDepths; }
+    public Map<String,ChromosomeWindows> getTumorDepths() { return mTumorDepths; }
 
     public BamReadCounter(
             final int windowSize, final CobaltConfig config,
-            final ExecutorService executorService, final SamReaderFactory readerFactory,
-            final ChromosomePositionCodec chromosomePosCodec)
+            final ExecutorService executorService, final SamReaderFactory readerFactory)
     {
         mMinMappingQuality = config.MinMappingQuality;
         mIncludeDuplicates = config.IncludeDuplicates;
         mExecutorService = executorService;
         mReaderFactory = readerFactory;
-        mChromosomePosCodec = chromosomePosCodec;
         mRefReadDepthAccumulator = new ReadDepthAccumulator(windowSize);
         mTumorReadDepthAccumulator = new ReadDepthAccumulator(windowSize);
     }
@@ -157,7 +153,12 @@ public class BamReadCounter
 
         BamSlicer bamSlicer = new BamSlicer(mMinMappingQuality, mIncludeDuplicates, false, false);
 
-        bamSlicer.slice(reader, region, samRecord -> processRead(samRecord, region, readDepthAccumulator));
+        // counts are accumulated locally for the region, then merged once the region is complete
+        ReadDepthAccumulator regionAccumulator = readDepthAccumulator.createRegionAccumulator(region);
+
+        bamSlicer.slice(reader, region, samRecord -> processRead(samRecord, region, regionAccumulator));
+
+        readDepthAccumulator.merge(regionAccumulator);
 
         CB_LOGGER.debug("region({}) complete", region);
     }
@@ -206,31 +207,16 @@ public class BamReadCounter
         readDepthAccumulator.addReadAlignmentToCounts(region.Chromosome, genomeStart, length, readBases, readStartIndex);
     }
 
-    private Table generateDepths(ReadDepthAccumulator readDepthAccumulator)
+    private Map<String,ChromosomeWindows> generateDepths(ReadDepthAccumulator readDepthAccumulator)
     {
-        final Table readDepthTable = Table.create("readDepths",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
+        Map<String,ChromosomeWindows> readDepths = new HashMap<>();
 
-        for (Chromosome chromosome : mChromosomes)
+        for(Chromosome chromosome : mChromosomes)
         {
-            List<ReadDepth> readDepths = readDepthAccumulator.getChromosomeReadDepths(chromosome.contig);
-            Objects.requireNonNull(readDepths);
-            for (ReadDepth readDepth : readDepths)
-            {
-                Row row = readDepthTable.appendRow();
-                row.setString(CobaltColumns.CHROMOSOME, chromosome.contig);
-                row.setInt(CobaltColumns.POSITION, readDepth.StartPosition);
-                row.setDouble(CobaltColumns.READ_DEPTH, readDepth.ReadDepth);
-                row.setDouble(CobaltColumns.READ_GC_CONTENT, readDepth.ReadGcContent);
-            }
+            readDepths.put(chromosome.contig, readDepthAccumulator.getChromosomeDepthWindows(chromosome.contig));
         }
 
-        mChromosomePosCodec.addEncodedChrPosColumn(readDepthTable, false);
-
-        return readDepthTable;
+        return sortedByChromosome(readDepths);
     }
 
     private Collection<Chromosome> loadChromosomes(final SamReaderFactory readerFactory,
@@ -3,11 +3,11 @@ package com.hartwig.hmftools.cobalt.count;
 import static htsjdk.samtools.util.SequenceUtil.C;
 import static htsjdk.samtools.util.SequenceUtil.G;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
@@ -15,40 +15,46 @@ import org.jetbrains.annotations.NotNull;
 // ReadDepthAccumulator accumulate read alignment blocks and calculate read depth per
 // 1000 base windows.
 //
-// This class must be thread safe, maybe we should change it to non thread safe but put
-// all updating of counts in one thread.
+// Counting is not thread safe: each region task accumulates into its own region accumulator without contention,
+// and these are then merged into the genome-wide accumulator once the region is complete.
 public class ReadDepthAccumulator
 {
-    // raw counts of read bases
+    // raw counts of read bases, for a chromosome or a range of its windows starting from the first window index
     private static class ChromosomeWindowCounts
     {
         final String chromosome;
-        final AtomicIntegerArray windowReadBaseCounts;
-        final AtomicIntegerArray windowGcCounts;
+        final int firstWindowIndex;
+        final int[] windowReadBaseCounts;
+        final int[] windowGcCounts;
 
-        public ChromosomeWindowCounts(final String chromosome, final int numWindows)
+        public ChromosomeWindowCounts(final String chromosome, final int firstWindowIndex, final int numWindows)
         {
             this.chromosome = chromosome;
-            this.windowReadBaseCounts = new AtomicIntegerArray(numWindows);
-            this.windowGcCounts = new AtomicIntegerArray(numWindows);
+            this.firstWindowIndex = firstWindowIndex;
+            this.windowReadBaseCounts = new int[numWindows];
+            this.windowGcCounts = new int[numWindows];
         }
 
+        public int endWindowIndex() { return firstWindowIndex + windowReadBaseCounts.length; }
+
+        public boolean contains(int windowIndex) { return windowIndex >= firstWindowIndex && windowIndex < endWindowIndex(); }
+
         public void addCount(int windowIndex, int count)
         {
-            windowReadBaseCounts.getAndAdd(windowIndex, count);
+            windowReadBaseCounts[windowIndex - firstWindowIndex] += count;
         }
         public void addGcCount(int windowIndex, int count)
         {
-            windowGcCounts.getAndAdd(windowIndex, count);
+            windowGcCounts[windowIndex - firstWindowIndex] += count;
         }
 
         public int getCount(int windowIndex)
         {
-            return windowReadBaseCounts.get(windowIndex);
+            return windowReadBaseCounts[windowIndex - firstWindowIndex];
         }
         public int getGcCount(int windowIndex)
         {
-            return windowGcCounts.get(windowIndex);
+            return windowGcCounts[windowIndex - firstWindowIndex];
         }
     }
 
@@ -64,35 +70,71 @@ public class ReadDepthAccumulator
     {
         Validate.isTrue(!mChromosomeWindowCounts.containsKey(chromosome));
         int numWindows = chromosomeLength / mWindowSize;
-        mChromosomeWindowCounts.put(chromosome, new ChromosomeWindowCounts(chromosome, numWindows));
+        mChromosomeWindowCounts.put(chromosome, new ChromosomeWindowCounts(chromosome, 0, numWindows));
     }
 
-    @NotNull
-    public List<ReadDepth> getChromosomeReadDepths(String chromosome)
+    // creates an accumulator for the windows overlapping this region, for use by a single thread
+    public ReadDepthAccumulator createRegionAccumulator(final ChrBaseRegion region)
     {
-        ChromosomeWindowCounts windowCounts = mChromosomeWindowCounts.get(chromosome);
+        ReadDepthAccumulator regionAccumulator = new ReadDepthAccumulator(mWindowSize);
+        ChromosomeWindowCounts windowCounts = mChromosomeWindowCounts.get(region.Chromosome);
 
         if(windowCounts == null)
+            return regionAccumulator;
+
+        int firstWindowIndex = getWindowIndex(region.start());
+        int endWindowIndex = Math.min(getWindowIndex(region.end()) + 1, windowCounts.endWindowIndex());
+
+        if(endWindowIndex > firstWindowIndex)
         {
-            // not a chromosome we keep track of
-            return List.of();
+            regionAccumulator.mChromosomeWindowCounts.put(
+                    region.Chromosome, new ChromosomeWindowCounts(region.Chromosome, firstWindowIndex, endWindowIndex - firstWindowIndex));
+        }
+
+        return regionAccumulator;
+    }
+
+    // adds a completed region accumulator's counts, regions sharing a boundary window are serialised per chromosome
+    public void merge(final ReadDepthAccumulator regionAccumulator)
+    {
+        for(ChromosomeWindowCounts regionCounts : regionAccumulator.mChromosomeWindowCounts.values())
+        {
+            ChromosomeWindowCounts windowCounts = mChromosomeWindowCounts.get(regionCounts.chromosome);
+
+            synchronized(windowCounts)
+            {
+                for(int windowIndex = regionCounts.firstWindowIndex; windowIndex < regionCounts.endWindowIndex(); ++windowIndex)
+                {
+                    windowCounts.addCount(windowIndex, regionCounts.getCount(windowIndex));
+                    windowCounts.addGcCount(windowIndex, regionCounts.getGcCount(windowIndex));
+                }
+            }
         }
+    }
+
+    // the windows' depth and read GC content as columns, with NaN GC content where a window has no bases
+    @NotNull
+    public ChromosomeWindows getChromosomeDepthWindows(String chromosome)
+    {
+        ChromosomeWindowCounts windowCounts = mChromosomeWindowCounts.get(chromosome);
+
+        if(windowCounts == null)
+            return new ChromosomeWindows(chromosome, 1);
 
-        List<ReadDepth> readDepths = new ArrayList<>();
+        int windowCount = windowCounts.windowReadBaseCounts.length;
+        ChromosomeWindows depthWindows = new ChromosomeWindows(chromosome, windowCount);
 
-        for(int windowIndex = 0; windowIndex < windowCounts.windowReadBaseCounts.length(); ++windowIndex)
+        for(int windowIndex = 0; windowIndex < windowCount; ++windowIndex)
         {
             double basesCount = windowCounts.getCount(windowIndex);
-            double depth = basesCount / mWindowSize;
-            double gcContent = windowCounts.getGcCount(windowIndex) / basesCount;
-            readDepths.add(new ReadDepth(chromosome, getGenomePosition(windowIndex), depth, gcContent));
+            depthWindows.add(getGenomePosition(windowIndex), basesCount / mWindowSize, windowCounts.getGcCount(windowIndex) / basesCount);
         }
 
-        return readDepths;
+        return depthWindows;
     }
 
     // Add a read alignment to the base counts
-    // this function is thread safe
+    // this function is not thread safe, so concurrent tasks must each use their own region accumulator
     // genomeStart is 1 based and genomeEnd is inclusive
     // readStartIndex is 0 based
     public void addReadAlignmentToCounts(String chromosome, int genomeStart, int alignmentLength, byte[] readBases, int readStartIndex)
@@ -114,7 +156,7 @@ public class ReadDepthAccumulator
                 break;
             }
 
-            if(windowIndex >= windowCounts.windowReadBaseCounts.length())
+            if(windowIndex >= windowCounts.endWindowIndex())
             {
                 // this is possible as we omit the partial window at the end of chromosome
                 break;
@@ -159,7 +201,7 @@ public class ReadDepthAccumulator
             // not a chromosome we keep track of
             return 0;
         }
-        if(windowIndex >= windowCounts.windowReadBaseCounts.length())
+        if(!windowCounts.contains(windowIndex))
         {
             // over the end
             return 0;
@@ -176,7 +218,7 @@ public class ReadDepthAccumulator
             // not a chromosome we keep track of
             return 0;
         }
-        if(windowIndex >= windowCounts.windowReadBaseCounts.length())
+        if(!windowCounts.contains(windowIndex))
         {
             // over the end
             return 0;
@@ -7,12 +7,12 @@ import static htsjdk.tribble.AbstractFeatureReader.getFeatureReader;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -22,28 +22,18 @@ import htsjdk.tribble.bed.BEDCodec;
 import htsjdk.tribble.bed.BEDFeature;
 import htsjdk.tribble.readers.LineIterator;
 
-import tech.tablesaw.api.*;
-
 public class DiploidRegionLoader implements Consumer<Locatable>
 {
-    private final Table mResult = Table.create(
-            StringColumn.create(CobaltColumns.CHROMOSOME), IntColumn.create(CobaltColumns.POSITION));
-    private final Table mContigResult = mResult.emptyCopy();
-
-    private final ChromosomePositionCodec mChromosomePosCodec;
+    // diploid window positions per chromosome, held without values
+    private final Map<String,ChromosomeWindows> mResult = new LinkedHashMap<>();
 
-    private String mChromosome = null;
-    private int mStart = 0;
-
-    public DiploidRegionLoader(ChromosomePositionCodec chromosomePosCodec)
+    public DiploidRegionLoader()
     {
-        mChromosomePosCodec = chromosomePosCodec;
     }
 
-    public DiploidRegionLoader(final String diploidBedPath,
-            ChromosomePositionCodec chromosomePosCodec) throws IOException
+    public DiploidRegionLoader(final String diploidBedPath) throws IOException
     {
-        this(chromosomePosCodec);
+        this();
         List<BEDFeature> bedFeatures = new ArrayList<>();
 
         CB_LOGGER.info("Reading diploid regions from {}", diploidBedPath);
@@ -63,44 +53,19 @@ public class DiploidRegionLoader implements Consumer<Locatable>
     @Override
     public void accept(@NotNull Locatable bed)
     {
-        if(mChromosome == null || !bed.getContig().equals(mChromosome))
-        {
-            finaliseCurrent();
-            mChromosome = bed.getContig();
-            mStart = 1;
-        }
-
-        createRatio(bed.getContig(), bed.getStart(), bed.getEnd());
-        mStart = bed.getEnd() + 1;
-    }
+        ChromosomeWindows contigWindows = mResult.computeIfAbsent(bed.getContig(), k -> new ChromosomeWindows(k));
 
-    private void createRatio(String contig, int start, int end)
-    {
-        int position = start;
-        while(position < end)
+        int position = bed.getStart();
+        while(position < bed.getEnd())
         {
-            Row row = mContigResult.appendRow();
-            row.setString(CobaltColumns.CHROMOSOME, contig);
-            row.setInt(CobaltColumns.POSITION, position);
+            contigWindows.add(position, Double.NaN, Double.NaN);
             position += WINDOW_SIZE;
         }
     }
 
-    private void finaliseCurrent()
-    {
-        if(mChromosome != null && mStart > 0)
-        {
-            mResult.append(mContigResult);
-        }
-
-        mContigResult.clear();
-    }
-
     @NotNull
-    public Table build()
+    public Map<String,ChromosomeWindows> build()
     {
-        finaliseCurrent();
-        mChromosomePosCodec.addEncodedChrPosColumn(mResult, false);
         return mResult;
     }
 }
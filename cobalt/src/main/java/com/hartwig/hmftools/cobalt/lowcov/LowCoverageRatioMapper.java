@@ -1,19 +1,20 @@
 package com.hartwig.hmftools.cobalt.lowcov;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.CobaltUtils.windowCount;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Comparators;
 import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 import com.hartwig.hmftools.cobalt.CobaltConstants;
 import com.hartwig.hmftools.cobalt.ratio.RatioMapper;
 
@@ -21,36 +22,24 @@ import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.api.*;
-
 public class LowCoverageRatioMapper implements RatioMapper
 {
-    private static final String BUCKET_ID_COLUMN = "lowCovBucketId";
-
     private int mConsolidationCount = 0;
     private @Nullable Multimap<String, LowCovBucket> mConsolidateBoundaries;
 
-    private final ChromosomePositionCodec mChromosomePositionCodec;
-
-
-    public LowCoverageRatioMapper(int consolidationCount, final ChromosomePositionCodec chromosomePosCodec)
+    public LowCoverageRatioMapper(int consolidationCount)
     {
         mConsolidationCount = consolidationCount;
-        mChromosomePositionCodec = chromosomePosCodec;
     }
 
-    public LowCoverageRatioMapper(
-            final @NotNull Multimap<String, LowCovBucket> consolidateBoundaries,
-            final @NotNull ChromosomePositionCodec chromosomePosCodec)
+    public LowCoverageRatioMapper(final @NotNull Multimap<String, LowCovBucket> consolidateBoundaries)
     {
         mConsolidateBoundaries = consolidateBoundaries;
-        mChromosomePositionCodec = chromosomePosCodec;
     }
 
     // we use on target ratios only for now
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public Map<String,ChromosomeWindows> mapRatios(final Map<String,ChromosomeWindows> inputRatios)
     {
         if(mConsolidateBoundaries == null)
         {
@@ -60,141 +49,91 @@ public class LowCoverageRatioMapper implements RatioMapper
 
         Objects.requireNonNull(mConsolidateBoundaries);
         CB_LOGGER.info("using {} sparse consolidated buckets, from {} input ratios",
-                mConsolidateBoundaries.size(), inputRatios.rowCount());
+                mConsolidateBoundaries.size(), windowCount(inputRatios));
 
         return populateLowCoverageRatio(inputRatios, mConsolidateBoundaries);
     }
 
     // we create a pan window ratio by taking the mean count of super windows that combine multiple windows
-    @SuppressWarnings("UnstableApiUsage")
-    private Table populateLowCoverageRatio(final Table rawRatios, Multimap<String, LowCovBucket> consolidateBoundaries)
+    private static Map<String,ChromosomeWindows> populateLowCoverageRatio(
+            final Map<String,ChromosomeWindows> rawRatios, final Multimap<String, LowCovBucket> consolidateBoundaries)
     {
-        // make sure the ratios chromosome code are sorted
-        Validate.isTrue(Comparators.isInStrictOrder(rawRatios.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).asList(),
-                Comparator.naturalOrder()));
-
-        String chromosome = "";
-        Iterator<LowCovBucket> bucketItr = null;
-        LowCovBucket bucket = null;
-        int bucketId = 0;
-
-        IntColumn bucketIdCol = IntColumn.create(BUCKET_ID_COLUMN, rawRatios.rowCount());
-
-        // also create a table of the bucket themselves
-        Table bucketTable = Table.create(
-                IntColumn.create(BUCKET_ID_COLUMN),
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                BooleanColumn.create("isAutosome"));
-
-        // first step we give each row a lowCovBucketId
-        for (int i = 0; i < rawRatios.rowCount(); ++i)
-        {
-            Row row = rawRatios.row(i);
-            long encodedChrPos = row.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS);
-            String rowChr = mChromosomePositionCodec.decodeChromosome(encodedChrPos);
-            int pos = mChromosomePositionCodec.decodePosition(encodedChrPos);
-
-            if(rowChr.isEmpty())
-            {
-                CB_LOGGER.error("chr is empty, row: {}", row);
-                throw new RuntimeException();
-            }
+        Map<String,ChromosomeWindows> lowCovRatios = new LinkedHashMap<>();
 
-            if(!chromosome.equals(rowChr))
-            {
-                // move to next chromosome
-                chromosome = rowChr;
-                bucketItr = consolidateBoundaries.get(chromosome).iterator();
+        for(ChromosomeWindows windows : rawRatios.values())
+        {
+            String chromosome = windows.Chromosome;
 
-                if(!bucketItr.hasNext())
-                {
-                    CB_LOGGER.error("low cov bucket for chromosome {} not found", chromosome);
-                    bucket = null;
-                    assert false;
-                    continue;
-                }
+            if(windows.isEmpty())
+                continue;
 
-                bucket = bucketItr.next();
-                ++bucketId;
-                Row bucketRow = bucketTable.appendRow();
-                bucketRow.setInt(BUCKET_ID_COLUMN, bucketId);
-                bucketRow.setString(CobaltColumns.CHROMOSOME, chromosome);
-                bucketRow.setInt(CobaltColumns.POSITION, bucket.BucketPosition);
-                bucketRow.setBoolean("isAutosome", row.getBoolean("isAutosome"));
-            }
+            Iterator<LowCovBucket> bucketItr = consolidateBoundaries.get(chromosome).iterator();
 
-            if(bucket == null)
+            if(!bucketItr.hasNext())
             {
-                // no bucket for whole chromosome, or we already finished last bucket
+                CB_LOGGER.error("low cov bucket for chromosome {} not found", chromosome);
                 continue;
             }
 
-            if(row.getDouble(CobaltColumns.RATIO) >= 0)
+            ChromosomeWindows bucketWindows = new ChromosomeWindows(chromosome, consolidateBoundaries.get(chromosome).size());
+
+            LowCovBucket bucket = bucketItr.next();
+            double ratioTotal = 0;
+            double gcContentTotal = 0;
+            int bucketWindowCount = 0;
+
+            for(int i = 0; i < windows.count(); ++i)
             {
-                if(pos > bucket.EndPosition)
+                // windows with negative ratios are not assigned to a bucket, so are excluded from its means
+                if(!(windows.value(i) >= 0))
+                    continue;
+
+                if(windows.position(i) > bucket.EndPosition)
                 {
-                    if(bucketItr.hasNext())
-                    {
-                        // move to next bucket
-                        bucket = bucketItr.next();
-                        ++bucketId;
-                        Row bucketRow = bucketTable.appendRow();
-                        bucketRow.setInt(BUCKET_ID_COLUMN, bucketId);
-                        bucketRow.setString(CobaltColumns.CHROMOSOME, chromosome);
-                        bucketRow.setInt(CobaltColumns.POSITION, bucket.BucketPosition);
-                        bucketRow.setBoolean("isAutosome", row.getBoolean("isAutosome"));
-                    }
-                    else
+                    addBucketWindow(bucketWindows, bucket, ratioTotal, gcContentTotal, bucketWindowCount);
+
+                    if(!bucketItr.hasNext())
                     {
-                        // no more bucket for this chromosome. Setting bucket to null will let us skip through
-                        // the rest of the chromosome
+                        // no more bucket for this chromosome, so skip through the rest of the chromosome
                         bucket = null;
-                        continue;
+                        break;
                     }
+
+                    // move to next bucket
+                    bucket = bucketItr.next();
+                    ratioTotal = 0;
+                    gcContentTotal = 0;
+                    bucketWindowCount = 0;
                 }
 
-                // we do not assign bucket id for rows that have negative ratio, we do not want them
-                // to be in the summarize call
-                bucketIdCol.set(i, bucketId);
+                ratioTotal += windows.value(i);
+                gcContentTotal += windows.gcContent(i);
+                ++bucketWindowCount;
             }
-        }
-
-        // now we assign a bucket id per row, we can do with it
-        rawRatios.addColumns(bucketIdCol);
 
-        //
-        Table lowCovRatio = rawRatios.summarize(
-                CobaltColumns.RATIO,
-                CobaltColumns.GC_CONTENT,
-                AggregateFunctions.mean).by(BUCKET_ID_COLUMN);
+            if(bucket != null)
+                addBucketWindow(bucketWindows, bucket, ratioTotal, gcContentTotal, bucketWindowCount);
 
-        CB_LOGGER.debug("low cov table: {}", lowCovRatio);
-
-        //
-        // lowCovBucketId  |   Mean [gcContent]    |  Mean [bucketEncodedChrPos]  |      Mean [ratio]
-        // fix up the column names
-        lowCovRatio.column("Mean [gcContent]").setName(CobaltColumns.GC_CONTENT);
-        lowCovRatio.column("Mean [ratio]").setName(CobaltColumns.RATIO);
-
-        // add is mappable column, we are not sure if this is needed yet. But if we want to pass
-        // consolidated ratios to gc normalisation this is needed.
-        lowCovRatio.addColumns(BooleanColumn.create(CobaltColumns.IS_MAPPABLE,
-                Collections.nCopies(lowCovRatio.rowCount(), true)));
+            lowCovRatios.put(chromosome, bucketWindows);
+        }
 
-        // merge in the bucket, this is required to get the bucket position
-        lowCovRatio = lowCovRatio.joinOn(BUCKET_ID_COLUMN).inner(bucketTable);
+        CB_LOGGER.debug("low cov windows: {}", windowCount(lowCovRatios));
 
-        // add the encoded chromosome pos columns
-        mChromosomePositionCodec.addEncodedChrPosColumn(lowCovRatio, false);
+        return lowCovRatios;
+    }
 
-        CB_LOGGER.debug("low cov table: {}", lowCovRatio);
+    private static void addBucketWindow(
+            final ChromosomeWindows bucketWindows, final LowCovBucket bucket, double ratioTotal, double gcContentTotal, int windowCount)
+    {
+        if(windowCount == 0)
+            return;
 
-        return lowCovRatio;
+        bucketWindows.add(bucket.BucketPosition, ratioTotal / windowCount, gcContentTotal / windowCount);
     }
 
     @Nullable
-    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(final Table rawRatios, final double medianReadDepth)
+    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(
+            final Map<String,ChromosomeWindows> rawRatios, final double medianReadDepth)
     {
         int consolidationCount = calcConsolidationCount(medianReadDepth);
 
@@ -213,19 +152,24 @@ public class LowCoverageRatioMapper implements RatioMapper
     // given the consolidation count, which is the number of 1k window we want in each bucket, we go through the windows and
     // and find the ranges of the consolidated buckets. We do this to skip through windows with invalid ratios.
     @Nullable
-    static ArrayListMultimap<String, LowCovBucket> consolidateIntoBuckets(final Table rawRatios, final int consolidationCount)
+    static ArrayListMultimap<String, LowCovBucket> consolidateIntoBuckets(
+            final Map<String,ChromosomeWindows> rawRatios, final int consolidationCount)
     {
         if(consolidationCount == 1)
             return null;
 
         ArrayListMultimap<String, LowCovBucket> boundaries = ArrayListMultimap.create();
 
-        for (String chromosome : rawRatios.stringColumn(CobaltColumns.CHROMOSOME).unique())
+        for(ChromosomeWindows windows : rawRatios.values())
         {
-            List<Integer> nonMaskedPositions = rawRatios.where(
-                    rawRatios.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(chromosome)
-                    .and(rawRatios.doubleColumn(CobaltColumns.RATIO).isNonNegative()))
-                    .intColumn(CobaltColumns.POSITION).asList();
+            String chromosome = windows.Chromosome;
+            List<Integer> nonMaskedPositions = new ArrayList<>(windows.count());
+
+            for(int i = 0; i < windows.count(); ++i)
+            {
+                if(windows.value(i) >= 0)
+                    nonMaskedPositions.add(windows.position(i));
+            }
 
             List<LowCovBucket> consolidatedBuckets = consolidateIntoBuckets(nonMaskedPositions, consolidationCount);
 
@@ -1,8 +1,5 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.hartwig.hmftools.common.utils.Doubles;
 
 import org.jetbrains.annotations.NotNull;
@@ -13,56 +10,56 @@ class DiploidRatioNormalization
     private int mEndIndex;
 
     private final long mMaxWindowDistance;
-    private final List<Double> mRatios;
-    private final List<Double> mResults;
+    private final double[] mRatios;
+    private final double[] mResults;
     private final RollingMedian mRollingMedian;
 
-    DiploidRatioNormalization(final double expectedRatio, int maxWindowDistance, int minWindowCoverage, final List<Double> ratios)
+    DiploidRatioNormalization(final double expectedRatio, int maxWindowDistance, int minWindowCoverage, final double[] ratios)
     {
         mStartIndex = 0;
         mEndIndex = -1;
 
-        mResults = new ArrayList<>();
+        mResults = new double[ratios.length];
         mRollingMedian = new RollingMedian();
 
         mMaxWindowDistance = maxWindowDistance;
         mRatios = ratios;
 
-        for(int currentIndex = 0; currentIndex < ratios.size(); currentIndex++)
+        for(int currentIndex = 0; currentIndex < ratios.length; currentIndex++)
         {
-            final Double current = ratios.get(currentIndex);
+            double current = ratios[currentIndex];
 
             removeExpiredRatios(currentIndex);
             addNewRatios(currentIndex);
 
             double medianRatio = mRollingMedian.median();
-            Double correctedRatio = current;
+            double correctedRatio = current;
 
             if (isValid(current) && mRollingMedian.size() >= minWindowCoverage)
             {
                 correctedRatio = expectedRatio * current / medianRatio;
             }
 
-            mResults.add(correctedRatio);
+            mResults[currentIndex] = correctedRatio;
         }
     }
 
     @NotNull
-    List<Double> get()
+    double[] get()
     {
         return mResults;
     }
 
-    private boolean isValid(final Double ratio)
+    private boolean isValid(double ratio)
     {
-        return ratio != null && Doubles.greaterThan(ratio, 0);
+        return Doubles.greaterThan(ratio, 0);
     }
 
     private void addNewRatios(int currentIndex)
     {
-        for(int laterIndex = mEndIndex + 1; laterIndex < mRatios.size(); laterIndex++)
+        for(int laterIndex = mEndIndex + 1; laterIndex < mRatios.length; laterIndex++)
         {
-            final Double later = mRatios.get(laterIndex);
+            double later = mRatios[laterIndex];
 
             if(distance(currentIndex, laterIndex) <= mMaxWindowDistance)
             {
@@ -75,7 +72,7 @@ class DiploidRatioNormalization
         }
     }
 
-    private void addToMedian(final Double current)
+    private void addToMedian(double current)
     {
         mEndIndex++;
         if(isValid(current))
@@ -88,7 +85,7 @@ class DiploidRatioNormalization
     {
         for(int earlierIndex = mStartIndex; earlierIndex < currentIndex; earlierIndex++)
         {
-            final Double earlier = mRatios.get(earlierIndex);
+            double earlier = mRatios[earlierIndex];
             final boolean isValid = isValid(earlier);
 
             if(!isValid || distance(currentIndex, earlierIndex) > mMaxWindowDistance)
@@ -3,31 +3,32 @@ package com.hartwig.hmftools.cobalt.ratio;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MAX_DISTANCE;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MIN_COVERAGE;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
-import tech.tablesaw.api.*;
-
 public final class DiploidRatioSupplier
 {
-    public static Table calcDiploidRatioResults(final Table normalRatios, final List<MedianRatio> medianRatios)
+    public static Map<String,ChromosomeWindows> calcDiploidRatioResults(
+            final Map<String,ChromosomeWindows> normalRatios, final List<MedianRatio> medianRatios)
     {
-        Table results = normalRatios.emptyCopy();
+        Map<String,ChromosomeWindows> results = new LinkedHashMap<>();
 
         for (CobaltChromosome cobaltChromosome : new CobaltChromosomes(medianRatios).chromosomes())
         {
             String chr = cobaltChromosome.contig();
-            if(HumanChromosome.contains(chr))
-            {
-                Table chrTable = normalRatios.where(normalRatios.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(chr));
+            ChromosomeWindows chrWindows = normalRatios.get(chr);
 
-                final List<Double> ratios = chrTable.doubleColumn(CobaltColumns.RATIO).asList();
-                final List<Double> adjustedRatios;
+            if(HumanChromosome.contains(chr) && chrWindows != null)
+            {
+                final double[] ratios = chrWindows.values();
+                final double[] adjustedRatios;
                 if (HumanChromosome.fromString(chr).equals(HumanChromosome._Y))
                 {
                     adjustedRatios = ratios;
@@ -41,8 +42,14 @@ public final class DiploidRatioSupplier
                             ratios).get();
                 }
 
-                chrTable.replaceColumn(DoubleColumn.create(CobaltColumns.RATIO, adjustedRatios));
-                results.append(chrTable);
+                ChromosomeWindows adjustedWindows = new ChromosomeWindows(chr, chrWindows.count());
+
+                for(int i = 0; i < chrWindows.count(); ++i)
+                {
+                    adjustedWindows.add(chrWindows.position(i), adjustedRatios[i], chrWindows.gcContent(i));
+                }
+
+                results.put(chr, adjustedWindows);
             }
         }
 
@@ -1,95 +1,137 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.CobaltUtils.median;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 import com.hartwig.hmftools.common.genome.gc.GCBucket;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepth;
 import com.hartwig.hmftools.common.genome.gc.ImmutableGCBucket;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.aggregate.NumericAggregateFunction;
-import tech.tablesaw.api.*;
-
 public class GcNormalizedRatioMapper implements RatioMapper
 {
     private static final int MIN_BUCKET = 20;
     private static final int MAX_BUCKET = 60;
+    private static final int BUCKET_COUNT = 101;
 
-    private Table mGCMedianReadDepth;
+    private final double[] mBucketMedians;
     private double mSampleMedianReadDepth;
     private double mSampleMeanReadDepth;
 
-    // apply gc normalisation, the input ratios must have chromosome, position, ratio, gcBucket, isMappable
+    // apply gc normalisation, the input ratios must be mappable windows with the GC profile's content
     public GcNormalizedRatioMapper()
     {
+        mBucketMedians = new double[BUCKET_COUNT];
+        Arrays.fill(mBucketMedians, Double.NaN);
     }
 
+    private static int gcBucket(double gcContent) { return (int)Math.round(gcContent * 100); }
+
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public Map<String,ChromosomeWindows> mapRatios(final Map<String,ChromosomeWindows> inputRatios)
     {
         CB_LOGGER.info("applying ratio GC normalization");
 
-        // add a gc bucket column if not already have one
-        if (!inputRatios.containsColumn(CobaltColumns.GC_BUCKET))
+        // gather the ratios of unmasked autosome windows per GC bucket
+        int[] bucketCounts = new int[BUCKET_COUNT];
+
+        for(ChromosomeWindows windows : inputRatios.values())
         {
-            inputRatios.addColumns(inputRatios.doubleColumn(CobaltColumns.GC_CONTENT)
-                    .multiply(100).round().asIntColumn().setName(CobaltColumns.GC_BUCKET));
+            if(!windows.IsAutosome)
+                continue;
+
+            for(int i = 0; i < windows.count(); ++i)
+            {
+                if(useForMedian(windows.value(i), windows.gcContent(i)))
+                    ++bucketCounts[gcBucket(windows.gcContent(i))];
+            }
         }
 
-        // create a gc normalisation df
+        double[][] bucketRatios = new double[BUCKET_COUNT][];
+        double[] sampleRatios = new double[Arrays.stream(bucketCounts).sum()];
 
-        // skipped masked regions
-        Table gcMedianCalcDf = inputRatios.where(
-                inputRatios.doubleColumn(CobaltColumns.RATIO).isGreaterThan(0.0) // TODO: change to >= 0.0
-                        .and(inputRatios.intColumn(CobaltColumns.GC_BUCKET).isBetweenInclusive(MIN_BUCKET, MAX_BUCKET))
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_AUTOSOME).asSelection()));
+        for(int bucket = MIN_BUCKET; bucket <= MAX_BUCKET; ++bucket)
+        {
+            bucketRatios[bucket] = new double[bucketCounts[bucket]];
+            bucketCounts[bucket] = 0;
+        }
 
-        NumericAggregateFunction aggFunc = AggregateFunctions.median;
+        int sampleIndex = 0;
+        double sampleTotal = 0;
 
-        // get the sample median and mean
-        mSampleMedianReadDepth = aggFunc.summarize(gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO));
-        mSampleMeanReadDepth = gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO).mean();
+        for(ChromosomeWindows windows : inputRatios.values())
+        {
+            if(!windows.IsAutosome)
+                continue;
+
+            for(int i = 0; i < windows.count(); ++i)
+            {
+                double ratio = windows.value(i);
 
-        // groupby gcBucket and apply median, to create a table with columns
-        // gcBucket, gcMedianCount, windowCount
-        gcMedianCalcDf = gcMedianCalcDf.retainColumns(CobaltColumns.GC_BUCKET, CobaltColumns.RATIO)
-                .summarize(CobaltColumns.RATIO, aggFunc, AggregateFunctions.count)
-                .by(CobaltColumns.GC_BUCKET);
+                if(!useForMedian(ratio, windows.gcContent(i)))
+                    continue;
 
-        CB_LOGGER.trace("sample median: {}, mean: {}, gc median calc: {}", mSampleMedianReadDepth, mSampleMeanReadDepth, gcMedianCalcDf);
+                int bucket = gcBucket(windows.gcContent(i));
+                bucketRatios[bucket][bucketCounts[bucket]++] = ratio;
+                sampleRatios[sampleIndex++] = ratio;
+                sampleTotal += ratio;
+            }
+        }
+
+        // get the sample median and mean
+        mSampleMedianReadDepth = median(sampleRatios);
+        mSampleMeanReadDepth = sampleRatios.length > 0 ? sampleTotal / sampleRatios.length : Double.NaN;
 
-        gcMedianCalcDf.column(String.format("Median [%s]", CobaltColumns.RATIO)).setName("gcMedianCount");
-        gcMedianCalcDf.column(String.format("Count [%s]", CobaltColumns.RATIO)).setName("windowCount");
+        for(int bucket = MIN_BUCKET; bucket <= MAX_BUCKET; ++bucket)
+        {
+            if(bucketCounts[bucket] > 0)
+                mBucketMedians[bucket] = median(bucketRatios[bucket]);
+        }
 
-        // merge in the gc median count
-        Table ratiosWithMedianCount = inputRatios
-                .where(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                .joinOn(CobaltColumns.GC_BUCKET).inner(gcMedianCalcDf);
+        CB_LOGGER.trace("sample median: {}, mean: {}", mSampleMedianReadDepth, mSampleMeanReadDepth);
 
         double medianNormalisation = mSampleMedianReadDepth / mSampleMeanReadDepth;
 
-        DoubleColumn gcNormalisedRatio = ratiosWithMedianCount.doubleColumn(CobaltColumns.RATIO)
-                .multiply(medianNormalisation)
-                .divide(ratiosWithMedianCount.doubleColumn("gcMedianCount"))
-                .map(d -> Double.isFinite(d) ? d : Double.NaN); // protect against division by 0
+        // windows in buckets without a median are dropped
+        Map<String,ChromosomeWindows> outputRatios = new LinkedHashMap<>();
+
+        for(ChromosomeWindows windows : inputRatios.values())
+        {
+            ChromosomeWindows normalisedWindows = new ChromosomeWindows(windows.Chromosome, windows.count());
+
+            for(int i = 0; i < windows.count(); ++i)
+            {
+                double gcMedian = mBucketMedians[gcBucket(windows.gcContent(i))];
+
+                if(Double.isNaN(gcMedian))
+                    continue;
 
-        ratiosWithMedianCount.replaceColumn(gcNormalisedRatio.setName(CobaltColumns.RATIO));
+                double normalisedRatio = windows.value(i) * medianNormalisation / gcMedian;
 
-        // resort it, the join messes up with the ordering
-        ratiosWithMedianCount = ratiosWithMedianCount.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+                // protect against division by 0
+                normalisedWindows.add(windows.position(i), Double.isFinite(normalisedRatio) ? normalisedRatio : Double.NaN,
+                        windows.gcContent(i));
+            }
 
-        mGCMedianReadDepth = gcMedianCalcDf;
-        return ratiosWithMedianCount;
+            outputRatios.put(windows.Chromosome, normalisedWindows);
+        }
+
+        return outputRatios;
     }
 
-    public Table gcMedianReadDepthTable()
+    private static boolean useForMedian(double ratio, double gcContent)
     {
-        return mGCMedianReadDepth;
+        // skip masked regions
+        if(!(ratio > 0)) // TODO: change to >= 0.0
+            return false;
+
+        int bucket = gcBucket(gcContent);
+        return bucket >= MIN_BUCKET && bucket <= MAX_BUCKET;
     }
 
     public double getSampleMedianReadDepth()
@@ -102,14 +144,17 @@ public class GcNormalizedRatioMapper implements RatioMapper
         return mSampleMeanReadDepth;
     }
 
-    // convert the gc median read count table to the object representation
+    // convert the gc bucket medians to the object representation
     public GCMedianReadDepth gcMedianReadDepth()
     {
         final Map<GCBucket, Double> medianPerBucket = new HashMap<>();
-        for (Row row : mGCMedianReadDepth)
+
+        for(int bucket = 0; bucket < BUCKET_COUNT; ++bucket)
         {
-            medianPerBucket.put(new ImmutableGCBucket(row.getInt(CobaltColumns.GC_BUCKET)), row.getDouble("gcMedianCount"));
+            if(!Double.isNaN(mBucketMedians[bucket]))
+                medianPerBucket.put(new ImmutableGCBucket(bucket), mBucketMedians[bucket]);
         }
+
         return new GCMedianReadDepth(mSampleMeanReadDepth, mSampleMedianReadDepth, medianPerBucket);
     }
 }
@@ -0,0 +1,53 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.gc.GCProfile;
+
+public class GcProfiles
+{
+    // GC content of the mappable windows only, since unmappable windows are excluded from all ratios
+    // keyed by human chromosome so that 1 vs chr1 naming in the profile need not match the BAMs
+    private final Map<HumanChromosome,ChromosomeWindows> mChromosomeProfiles;
+
+    public GcProfiles()
+    {
+        mChromosomeProfiles = new EnumMap<>(HumanChromosome.class);
+    }
+
+    public static GcProfiles fromProfiles(final Collection<GCProfile> gcProfiles)
+    {
+        GcProfiles profiles = new GcProfiles();
+        gcProfiles.forEach(x -> profiles.add(x.chromosome(), x.start(), x.gcContent(), x.isMappable()));
+        return profiles;
+    }
+
+    public void add(final String chromosome, int position, double gcContent, boolean isMappable)
+    {
+        if(!isMappable)
+            return;
+
+        HumanChromosome humanChromosome = HumanChromosome.fromString(chromosome);
+        ChromosomeWindows windows = mChromosomeProfiles.computeIfAbsent(humanChromosome, k -> new ChromosomeWindows(chromosome));
+        windows.add(position, gcContent, gcContent);
+    }
+
+    // returns NaN if the window has no profile or is unmappable
+    public double mappableGcContent(final String chromosome, int position)
+    {
+        if(!HumanChromosome.contains(chromosome))
+            return Double.NaN;
+
+        ChromosomeWindows windows = mChromosomeProfiles.get(HumanChromosome.fromString(chromosome));
+
+        if(windows == null)
+            return Double.NaN;
+
+        int index = windows.indexOf(position);
+        return index >= 0 ? windows.gcContent(index) : Double.NaN;
+    }
+}
@@ -1,9 +1,11 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
-import tech.tablesaw.api.Table;
+import java.util.Map;
+
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 
 public interface RatioMapper
 {
-    // ratio mapper maps input ratio to output
-    Table mapRatios(final Table inputRatios);
+    // ratio mapper maps input ratios, keyed by chromosome, to output
+    Map<String,ChromosomeWindows> mapRatios(final Map<String,ChromosomeWindows> inputRatios);
 }
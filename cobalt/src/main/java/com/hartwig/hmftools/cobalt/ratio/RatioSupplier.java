@@ -1,28 +1,32 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.CobaltConstants.INVALID_VALUE_INDICATOR;
+import static com.hartwig.hmftools.cobalt.CobaltUtils.sortedChromosomes;
 import static com.hartwig.hmftools.cobalt.CobaltUtils.toCommonChromosomeMap;
 import static com.hartwig.hmftools.cobalt.ratio.DiploidRatioSupplier.calcDiploidRatioResults;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-
-import tech.tablesaw.api.*;
-import tech.tablesaw.columns.Column;
+import java.util.Map;
+import java.util.Set;
 
 import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
-import com.hartwig.hmftools.cobalt.CobaltConstants;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 import com.hartwig.hmftools.cobalt.lowcov.LowCovBucket;
 import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
 import com.hartwig.hmftools.cobalt.targeted.TargetedRatioMapper;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
 import com.hartwig.hmftools.common.cobalt.MedianRatioFactory;
 import com.hartwig.hmftools.common.cobalt.MedianRatioFile;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepthFile;
 
-import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -32,14 +36,12 @@ public class RatioSupplier
     private final String mReferenceId;
     @Nullable private final String mOutputDir;
 
-    private final Table mGcProfiles;
-    @Nullable private final Table mReferenceDepths;
-    @Nullable private final Table mTumorDepths;
-
-    // a table with chromosome, position, relativeEnrichment
-    private Table mTargetRegionEnrichment = null;
+    private final GcProfiles mGcProfiles;
+    @Nullable private final Map<String,ChromosomeWindows> mReferenceDepths;
+    @Nullable private final Map<String,ChromosomeWindows> mTumorDepths;
 
-    private final ChromosomePositionCodec mChromosomePosCodec;
+    // relative enrichment per targeted window
+    private Map<String,ChromosomeWindows> mTargetRegionEnrichment = null;
 
     enum SparseBucketPolicy
     {
@@ -55,50 +57,47 @@ public class RatioSupplier
 
         @Nullable Multimap<String, LowCovBucket> consolidatedBuckets;
 
-        // chromosomePositionIndex, ratio
-        Table readRatios;
+        // ratio and GC profile content per window
+        Map<String,ChromosomeWindows> readRatios;
 
-        Table getRatios() { return readRatios; }
+        Map<String,ChromosomeWindows> getRatios() { return readRatios; }
 
         SampleRatios(
                 final String sampleId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final Map<String,ChromosomeWindows> readDepths,
+                final GcProfiles gcProfiles,
+                @Nullable Map<String,ChromosomeWindows> targetRegionEnrichment,
                 SparseBucketPolicy sparseBucketPolicy,
                 @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
-                @Nullable final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                @Nullable final String outputDir) throws IOException
         {
             CB_LOGGER.info("calculating sample ratios for {}", sampleId);
 
-            readRatios = readDepths.copy().setName("readRatios");
-
             CB_LOGGER.info("merging in GC profile");
 
-            // merge in the gc profile
-            readRatios = readRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).leftOuter(gcProfiles);
+            // merge in the gc profile, dropping unmappable windows and those without a profile since GC normalisation excludes them
+            readRatios = new LinkedHashMap<>();
 
-            // set column as ratio, but filter out unmappable regions
-            DoubleColumn ratioColumn = DoubleColumn.create(CobaltColumns.RATIO);
-            for (Row row : readRatios)
+            for(ChromosomeWindows depthWindows : readDepths.values())
             {
-                if(!row.isMissing(CobaltColumns.IS_MAPPABLE) && row.getBoolean(CobaltColumns.IS_MAPPABLE))
-                {
-                    ratioColumn.append(row.getDouble(CobaltColumns.READ_DEPTH));
-                }
-                else
+                ChromosomeWindows ratioWindows = new ChromosomeWindows(depthWindows.Chromosome, depthWindows.count());
+
+                for(int i = 0; i < depthWindows.count(); ++i)
                 {
-                    ratioColumn.appendMissing();
+                    double gcContent = gcProfiles.mappableGcContent(depthWindows.Chromosome, depthWindows.position(i));
+
+                    if(!Double.isNaN(gcContent))
+                        ratioWindows.add(depthWindows.position(i), depthWindows.value(i), gcContent);
                 }
+
+                readRatios.put(depthWindows.Chromosome, ratioWindows);
             }
-            readRatios.addColumns(ratioColumn);
 
             // on target ratios
             if(targetRegionEnrichment != null)
             {
                 CB_LOGGER.info("using targeted ratio");
-                readRatios = new TargetedRatioMapper(targetRegionEnrichment, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new TargetedRatioMapper(targetRegionEnrichment).mapRatios(readRatios);
             }
 
             gcNormalizedRatioMapper = new GcNormalizedRatioMapper();
@@ -125,7 +124,7 @@ public class RatioSupplier
             if(this.consolidatedBuckets != null)
             {
                 CB_LOGGER.info("using low coverage ratio");
-                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets).mapRatios(readRatios);
             }
 
             if(outputDir != null)
@@ -140,19 +139,18 @@ public class RatioSupplier
     static class GermlineRatios extends SampleRatios
     {
         // processing states
-        private final Table gcDiploidRatios;
+        private final Map<String,ChromosomeWindows> gcDiploidRatios;
 
         GermlineRatios(final String referenceId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final Map<String,ChromosomeWindows> readDepths,
+                final GcProfiles gcProfiles,
+                @Nullable Map<String,ChromosomeWindows> targetRegionEnrichment,
                 SparseBucketPolicy sparseBucketPolicy,
                 @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
-                final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                final String outputDir) throws IOException
         {
             super(referenceId, readDepths, gcProfiles, targetRegionEnrichment, sparseBucketPolicy,
-                    consolidatedBuckets, outputDir, chromosomePosCodec);
+                    consolidatedBuckets, outputDir);
 
             // TODO: check this
             final List<MedianRatio> medianRatios = MedianRatioFactory.createFromReadRatio(toCommonChromosomeMap(getRatios()));
@@ -168,10 +166,9 @@ public class RatioSupplier
 
     public RatioSupplier(final String reference, final String tumor,
             @Nullable final String outputDirectory,
-            final Table gcProfiles,
-            @Nullable final Table referenceDepths,
-            @Nullable final Table tumorDepths,
-            ChromosomePositionCodec chromosomePosCodec)
+            final GcProfiles gcProfiles,
+            @Nullable final Map<String,ChromosomeWindows> referenceDepths,
+            @Nullable final Map<String,ChromosomeWindows> tumorDepths)
     {
         mTumorId = tumor;
         mReferenceId = reference;
@@ -179,16 +176,15 @@ public class RatioSupplier
         mGcProfiles = gcProfiles;
         mReferenceDepths = referenceDepths;
         mTumorDepths = tumorDepths;
-        mChromosomePosCodec = chromosomePosCodec;
     }
     
-    public void setTargetRegionEnrichment(Table targetRegionEnrichment)
+    public void setTargetRegionEnrichment(final Map<String,ChromosomeWindows> targetRegionEnrichment)
     {
         mTargetRegionEnrichment = targetRegionEnrichment;
     }
 
     @NotNull
-    public Table tumorOnly(final Table diploidRegions) throws IOException
+    public List<CobaltRatio> tumorOnly(final Map<String,ChromosomeWindows> diploidRegions) throws IOException
     {
         if(mTumorDepths == null)
         {
@@ -196,21 +192,38 @@ public class RatioSupplier
             throw new RuntimeException("tumor count is null");
         }
         SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
-        Table tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment, sparseBucketPolicy,
-                null, mOutputDir, mChromosomePosCodec).getRatios();
+        Map<String,ChromosomeWindows> tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment,
+                sparseBucketPolicy, null, mOutputDir).getRatios();
+
+        // filter tumor ratios by the diploid regions, removing any tumor ratios that are not in the diploid regions
+        Map<String,ChromosomeWindows> diploidTumorRatios = new LinkedHashMap<>();
+
+        for(ChromosomeWindows windows : tumorRatios.values())
+        {
+            ChromosomeWindows diploidWindows = diploidRegions.get(windows.Chromosome);
+
+            if(diploidWindows == null)
+                continue;
 
-        // filter tumor ratios by the diploid regions
-        // we use inner join to remove any tumor ratios that are not in the diploid regions
-        tumorRatios = tumorRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS)
-                .inner(diploidRegions.selectColumns(CobaltColumns.ENCODED_CHROMOSOME_POS))
-                .sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+            ChromosomeWindows filteredWindows = new ChromosomeWindows(windows.Chromosome, diploidWindows.count());
+
+            for(int i = 0; i < windows.count(); ++i)
+            {
+                if(diploidWindows.indexOf(windows.position(i)) >= 0)
+                    filteredWindows.add(windows.position(i), windows.value(i), windows.gcContent(i));
+            }
+
+            diploidTumorRatios.put(windows.Chromosome, filteredWindows);
+        }
+
+        tumorRatios = diploidTumorRatios;
 
         // merge this ratios together into one cobalt ratio
         return mergeRatios(null, mTumorDepths, null, tumorRatios, null);
     }
 
     @NotNull
-    public Table germlineOnly() throws IOException
+    public List<CobaltRatio> germlineOnly() throws IOException
     {
         if(mReferenceDepths == null)
         {
@@ -219,14 +232,14 @@ public class RatioSupplier
         }
         SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
         var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                sparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+                sparseBucketPolicy, null, mOutputDir);
         return mergeRatios(
                 mReferenceDepths, null,
                 germlineRatios.getRatios(), null, germlineRatios.gcDiploidRatios);
     }
 
     @NotNull
-    public Table tumorNormalPair() throws IOException
+    public List<CobaltRatio> tumorNormalPair() throws IOException
     {
         if(mReferenceDepths == null)
         {
@@ -242,124 +255,99 @@ public class RatioSupplier
                 SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
 
         var tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment,
-                tumorSparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+                tumorSparseBucketPolicy, null, mOutputDir);
 
         SparseBucketPolicy germlineSparseBucketPolicy = tumorRatios.consolidatedBuckets == null ?
                 SparseBucketPolicy.DO_NOT_CONSOLIDATE : SparseBucketPolicy.USE_PROVIDED_BUCKETS;
 
         var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir, mChromosomePosCodec);
+                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir);
 
         return mergeRatios(
                 mReferenceDepths, mTumorDepths,
                 germlineRatios.getRatios(), tumorRatios.getRatios(), germlineRatios.gcDiploidRatios);
     }
 
-    // merge everything together
+    // merge everything together, taking the union of all windows and setting any missing value to -1
     @NotNull
-    private static Table mergeRatios(
-            @Nullable Table referenceDepths,
-            @Nullable Table tumorDepths,
-            @Nullable Table referenceRatios,
-            @Nullable Table tumorRatios,
-            @Nullable Table referenceDiploidRatios)
+    private static List<CobaltRatio> mergeRatios(
+            @Nullable Map<String,ChromosomeWindows> referenceDepths,
+            @Nullable Map<String,ChromosomeWindows> tumorDepths,
+            @Nullable Map<String,ChromosomeWindows> referenceRatios,
+            @Nullable Map<String,ChromosomeWindows> tumorRatios,
+            @Nullable Map<String,ChromosomeWindows> referenceDiploidRatios)
     {
         CB_LOGGER.info("start merging ratios");
 
-        // get all the chromosome positions from the counts
-        Table result = Table.create(LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        List<Map<String,ChromosomeWindows>> sources = new ArrayList<>();
+        Arrays.asList(referenceDepths, tumorDepths, referenceRatios, tumorRatios, referenceDiploidRatios).forEach(x -> sources.add(
+                x != null ? x : Map.of()));
 
-        // now we make sure all tables are valid, by setting missing tables to empty
-        if(referenceDepths == null)
-        {
-            referenceDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+        Set<String> chromosomes = new LinkedHashSet<>();
+        sources.forEach(x -> chromosomes.addAll(x.keySet()));
 
-        if(tumorDepths == null)
-        {
-            tumorDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+        List<CobaltRatio> results = new ArrayList<>();
 
-        if(referenceRatios == null)
+        for(String chromosome : sortedChromosomes(chromosomes))
         {
-            referenceRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
+            ChromosomeWindows[] chrSources = sources.stream().map(x -> x.get(chromosome)).toArray(ChromosomeWindows[]::new);
+            int[] indices = new int[chrSources.length];
 
-        if(tumorRatios == null)
-        {
-            tumorRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
-
-        if(referenceDiploidRatios == null)
-        {
-            referenceDiploidRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
-
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.REFERENCE_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.REFERENCE_GC_CONTENT);
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
-
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.TUMOR_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.TUMOR_GC_CONTENT);
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
-
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCRatio");
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
-
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("tumorGCRatio");
+            // merge the position-ordered windows of each source
+            while(true)
+            {
+                int position = Integer.MAX_VALUE;
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDiploidRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+                for(int s = 0; s < chrSources.length; ++s)
+                {
+                    if(chrSources[s] != null && indices[s] < chrSources[s].count())
+                        position = Math.min(position, chrSources[s].position(indices[s]));
+                }
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCDiploidRatio");
+                if(position == Integer.MAX_VALUE)
+                    break;
 
-        Validate.isTrue(result.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
+                double[] values = new double[chrSources.length];
+                double[] gcContents = new double[chrSources.length];
 
-        // sort by the encoded chromosome pos
-        result = result.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+                for(int s = 0; s < chrSources.length; ++s)
+                {
+                    ChromosomeWindows windows = chrSources[s];
+
+                    if(windows != null && indices[s] < windows.count() && windows.position(indices[s]) == position)
+                    {
+                        values[s] = validOrInvalid(windows.value(indices[s]));
+                        gcContents[s] = validOrInvalid(windows.gcContent(indices[s]));
+                        ++indices[s];
+                    }
+                    else
+                    {
+                        values[s] = INVALID_VALUE_INDICATOR;
+                        gcContents[s] = INVALID_VALUE_INDICATOR;
+                    }
+                }
 
-        // set any missing value to -1
-        for (Column<?> c: result.columns())
-        {
-            if(c instanceof IntColumn)
-            {
-                ((IntColumn)c).setMissingTo(CobaltConstants.INVALID_VALUE_INDICATOR);
-            }
-            else if(c instanceof DoubleColumn)
-            {
-                ((DoubleColumn)c).setMissingTo((double)CobaltConstants.INVALID_VALUE_INDICATOR);
-                // ((DoubleColumn)c).map(d -> Double.isFinite(d) ? d : -1.0);
+                results.add(ImmutableCobaltRatio.builder()
+                        .chromosome(chromosome)
+                        .position(position)
+                        .referenceReadDepth(values[0])
+                        .tumorReadDepth(values[1])
+                        .referenceGCRatio(values[2])
+                        .tumorGCRatio(values[3])
+                        .referenceGCDiploidRatio(values[4])
+                        .referenceGcContent(gcContents[0])
+                        .tumorGcContent(gcContents[1])
+                        .build());
             }
         }
 
         CB_LOGGER.info("finish merging ratios");
 
-        return result;
+        return results;
+    }
+
+    private static double validOrInvalid(double value)
+    {
+        return Double.isNaN(value) ? INVALID_VALUE_INDICATOR : value;
     }
-}
\ No newline at end of file
+}
@@ -1,234 +1,106 @@
 package com.hartwig.hmftools.cobalt.targeted;
 
-import static java.lang.Math.round;
-import static java.lang.String.format;
-
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
-import static com.hartwig.hmftools.cobalt.CobaltUtils.replaceColumn;
+import static com.hartwig.hmftools.cobalt.CobaltUtils.median;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
-import com.hartwig.hmftools.cobalt.CobaltConstants;
-import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
-import com.hartwig.hmftools.cobalt.ratio.GcNormalizedRatioMapper;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 import com.hartwig.hmftools.cobalt.ratio.RatioMapper;
-import com.hartwig.hmftools.common.cobalt.ImmutableReadRatio;
-import com.hartwig.hmftools.common.cobalt.ReadRatio;
 import com.hartwig.hmftools.common.genome.position.GenomePosition;
-import com.hartwig.hmftools.common.utils.Doubles;
 
-import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.Level;
-import org.jetbrains.annotations.Nullable;
-
-import tech.tablesaw.api.DoubleColumn;
-import tech.tablesaw.api.Table;
-import tech.tablesaw.columns.numbers.NumberPredicates;
 
 public class TargetedRatioMapper implements RatioMapper
 {
-    private final Table mTargetRegionEnrichment;
-    private final ChromosomePositionCodec mChromosomePosCodec;
+    // relative enrichment per targeted window, NaN where not known
+    private final Map<String,ChromosomeWindows> mTargetRegionEnrichment;
 
-    public TargetedRatioMapper(final Table targetRegionEnrichment,
-            ChromosomePositionCodec chromosomePosCodec)
+    public TargetedRatioMapper(final Map<String,ChromosomeWindows> targetRegionEnrichment)
     {
         mTargetRegionEnrichment = targetRegionEnrichment;
-        mChromosomePosCodec = chromosomePosCodec;
-    }
-
-    // we use on target ratios only for now
-    @Override
-    public Table mapRatios(final Table inputRatios)
-    {
-        return onTargetRatios(inputRatios);
     }
 
-    private void populateCombinedRatios(final Table ratios1, final Table ratios2)
+    public static Map<String,ChromosomeWindows> toChromosomeWindows(final TargetRegionEnrichment targetRegionEnrichment)
     {
-        // mCombinedRatios = ratios1.append(ratios2);
-    }
-
-    Table onTargetRatios(final Table inputRatios)
-    {
-        // find all the ratios that are inside the target enriched regions
-        // we filter out all the regions with 0 gc normalised ratios, as they do not actually
-        // correctly reflect the amount of enrichment, and also very rare
-
-        Validate.isTrue(inputRatios.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
-        Validate.isTrue(mTargetRegionEnrichment.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
-
-        // merge in the targeted region columns
-        Table onTargetRatios = inputRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).inner(mTargetRegionEnrichment);
+        List<GenomePosition> targetedRegions = Lists.newArrayList(targetRegionEnrichment.getTargetedRegions());
+        targetedRegions.sort(GenomePosition::compare);
 
-        // resort it, the join messes up with the ordering
-        onTargetRatios = onTargetRatios.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        Map<String,ChromosomeWindows> enrichmentWindows = new LinkedHashMap<>();
 
-        double targetRegionGcRatioMedian = onTargetRatios.doubleColumn(CobaltColumns.RATIO).filter(NumberPredicates.isNonNegative).median();
-
-        CB_LOGGER.printf(Level.INFO, "targeted mode GC ratio median: %.3f", targetRegionGcRatioMedian);
+        for(GenomePosition targetedRegion : targetedRegions)
+        {
+            ChromosomeWindows windows = enrichmentWindows.computeIfAbsent(targetedRegion.chromosome(), k -> new ChromosomeWindows(k));
 
-        // normalise the ratio by relative enrichment and targeted region median
-        DoubleColumn onTargetRatioColumn = onTargetRatios.doubleColumn(CobaltColumns.RATIO)
-                .divide(onTargetRatios.doubleColumn("relativeEnrichment"))
-                .divide(targetRegionGcRatioMedian)
-                .map(d -> Double.isFinite(d) ? d : Double.NaN) // protect against division by 0
-                .setName(CobaltColumns.RATIO);
+            if(!windows.isEmpty() && windows.position(windows.count() - 1) == targetedRegion.position())
+                continue;
 
-        onTargetRatios.replaceColumn(onTargetRatioColumn);
+            double relativeEnrichment = targetRegionEnrichment.getTargetRelativeEnrichment().getOrDefault(targetedRegion, Double.NaN);
+            windows.add(targetedRegion.position(), relativeEnrichment, Double.NaN);
+        }
 
-        return onTargetRatios;
+        return enrichmentWindows;
     }
 
-    // we create a pan window ratio by taking the median count of super windows that combine multiple windows
-    Table offTargetRatios(final Table inputRatios)
+    // we use on target ratios only for now
+    @Override
+    public Map<String,ChromosomeWindows> mapRatios(final Map<String,ChromosomeWindows> inputRatios)
     {
-        // merge in the targeted region columns
-        Table offTargetRatios = inputRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).inner(mTargetRegionEnrichment);
-
-        // resort it, the join messes up with the ordering
-        offTargetRatios = offTargetRatios.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
-
-        offTargetRatios = offTargetRatios.where(
-                        offTargetRatios.booleanColumn("offTarget").asSelection()
-                        .and(offTargetRatios.doubleColumn("ratio").isNonNegative())
-                        .and(offTargetRatios.doubleColumn("relativeEnrichment").isNotMissing()));
-
-        // double median = offTargetRatios.doubleColumn("ratio").median();
-
-        // normalise the ratio by relative enrichment
-        replaceColumn(offTargetRatios, "ratio",
-                offTargetRatios.doubleColumn("ratio")
-                        .divide(offTargetRatios.doubleColumn("relativeEnrichment")));
-
-        CB_LOGGER.info("off target after enrichment normalisation: \n{}", offTargetRatios);
-
-        // next we do low coverage
-        offTargetRatios = new LowCoverageRatioMapper(1000, mChromosomePosCodec).mapRatios(offTargetRatios);
-
-        CB_LOGGER.info("off target after consolidation: \n{}", offTargetRatios);
-
-        // apply gc normalisation
-        GcNormalizedRatioMapper gcNormalizedRatioMapper = new GcNormalizedRatioMapper();
-        offTargetRatios = gcNormalizedRatioMapper.mapRatios(offTargetRatios);
-
-        CB_LOGGER.info("off target gc normalisation: \n{}", gcNormalizedRatioMapper.gcMedianReadDepthTable());
-        CB_LOGGER.info("off target after gc normalisation: \n{}", offTargetRatios);
-
-        return offTargetRatios;
-
-        // remove any with invalid ratios
-        // mOffTargetRatios = offTargetRatios.where(offTargetRatios.doubleColumn(CobaltColumns.RATIO).)
+        return onTargetRatios(inputRatios);
+    }
 
-        /*
-        Window window = new Window(offTargetWindowSize);
+    Map<String,ChromosomeWindows> onTargetRatios(final Map<String,ChromosomeWindows> inputRatios)
+    {
+        // find all the ratios that are inside the target enriched regions
+        // we filter out all the regions with 0 gc normalised ratios, as they do not actually
+        // correctly reflect the amount of enrichment, and also very rare
+        Map<String,ChromosomeWindows> onTargetRatios = new LinkedHashMap<>();
 
-        for(String chromosome : rawRatios.stringColumn("chromosome").unique())
+        for(ChromosomeWindows windows : inputRatios.values())
         {
-            int currentWindowStart = 1;
-
-            List<ReadRatio> windowGcRatios = new ArrayList<>();
+            ChromosomeWindows enrichmentWindows = mTargetRegionEnrichment.get(windows.Chromosome);
 
-            // we need this to make sure we get consistent chromosome name (1 vs chr1)
+            if(enrichmentWindows == null)
+                continue;
 
+            // the ratio column temporarily holds the unnormalised ratio, divided by its enrichment below
+            ChromosomeWindows targetWindows = new ChromosomeWindows(windows.Chromosome, enrichmentWindows.count());
 
-            for(ReadRatio readRatio : rawRatios.get(chromosome))
+            for(int i = 0; i < windows.count(); ++i)
             {
-                // todo: make sure this is sorted
-
-                int windowStart = window.start(readRatio.position());
-
-                if(windowStart != currentWindowStart)
-                {
-                    if(currentWindowStart != -1)
-                    {
-                        ReadRatio unnormalizedRatio = unnormalizedOffTargetRatio(
-                            offTargetWindowSize, chromosomeStr, currentWindowStart, windowGcRatios, targetRegions);
+                if(enrichmentWindows.indexOf(windows.position(i)) < 0)
+                    continue;
 
-                        if(unnormalizedRatio != null)
-                        {
-                            unnormalizedRatios.put(chromosome, unnormalizedRatio);
-                        }
-                    }
-
-                    currentWindowStart = windowStart;
-                    windowGcRatios.clear();
-                }
-
-                if(readRatio.ratio() >= 0)
-                    windowGcRatios.add(readRatio);
+                targetWindows.add(windows.position(i), windows.value(i), windows.gcContent(i));
             }
 
-            ReadRatio unnormalizedRatio = unnormalizedOffTargetRatio(
-                offTargetWindowSize, chromosomeStr, currentWindowStart, windowGcRatios, targetRegions);
-
-            if(unnormalizedRatio != null)
-                unnormalizedRatios.put(chromosome, unnormalizedRatio);
+            onTargetRatios.put(windows.Chromosome, targetWindows);
         }
 
-        // now we want to normalise all of those off target gc ratios by the median
-        List<Double> values = new ArrayList<>();
-        unnormalizedRatios.values().forEach(x -> values.add(x.ratio()));
-        double median = Doubles.median(values);
-
-        CB_LOGGER.debug("normalizing {} off target windows ratio by median: {}", unnormalizedRatios.size(), median);
+        double targetRegionGcRatioMedian = median(onTargetRatios.values().stream()
+                .flatMapToDouble(x -> Arrays.stream(x.values())).filter(x -> x >= 0).toArray());
 
-        mOffTargetRatios.clear();
+        CB_LOGGER.printf(Level.INFO, "targeted mode GC ratio median: %.3f", targetRegionGcRatioMedian);
 
-        //for ((key, value) in unnormalizedRatios.entries())
-        for(Map.Entry<Chromosome,ReadRatio> entry : unnormalizedRatios.entries())
+        // normalise the ratio by relative enrichment and targeted region median
+        for(ChromosomeWindows targetWindows : onTargetRatios.values())
         {
-            ReadRatio readRatio = entry.getValue();
-            double normalizedRatio = readRatio.ratio() / median;
-
-            mOffTargetRatios.put(entry.getKey(), ImmutableReadRatio.builder().from(readRatio).ratio(normalizedRatio).build());
-        }
-         */
-    }
-
-    @Nullable
-    private static ReadRatio unnormalizedOffTargetRatio(
-            int offTargetWindowSize, final String chromosome, int windowStart, final List<ReadRatio> windowGcRatios,
-            final List<GenomePosition> targetRegions)
-    {
-        int minNumGcRatios = (int)round((double)offTargetWindowSize / CobaltConstants.WINDOW_SIZE * CobaltConstants.MIN_OFF_TARGET_WINDOW_RATIO);
-
-        int windowEnd = windowStart + offTargetWindowSize - 1;
+            ChromosomeWindows enrichmentWindows = mTargetRegionEnrichment.get(targetWindows.Chromosome);
 
-        // the window position is the middle
-        int windowMid = windowStart + offTargetWindowSize / 2;
-
-        // check for targeted regions, we want to remove them
-        for (GenomePosition targetRegion : targetRegions)
-        {
-            if (targetRegion.chromosome().equals(chromosome) && windowStart <= targetRegion.position() && windowEnd > targetRegion.position())
+            for(int i = 0; i < targetWindows.count(); ++i)
             {
-                // this window contains a target region
-                int removeStart = targetRegion.position() - 2 * CobaltConstants.WINDOW_SIZE;
-                int removeEnd = targetRegion.position() + 2 * CobaltConstants.WINDOW_SIZE;
-                CB_LOGGER.trace("off target window: {}:{} ({} - {}), contains target region",
-                    chromosome, windowMid, windowStart, windowEnd);
+                double relativeEnrichment = enrichmentWindows.value(enrichmentWindows.indexOf(targetWindows.position(i)));
+                double ratio = targetWindows.value(i) / relativeEnrichment / targetRegionGcRatioMedian;
 
-                windowGcRatios.removeIf(o -> o.position() >= removeStart && o.position() <= removeEnd);
+                // protect against division by 0
+                targetWindows.setValue(i, Double.isFinite(ratio) ? ratio : Double.NaN);
             }
         }
 
-        if (windowGcRatios.size() < minNumGcRatios)
-        {
-            // if we don't have enough sub windows with valid values then we skip this
-            CB_LOGGER.trace( "off target window: {}:{} ({} - {}), not enough sub window",
-                    chromosome, windowMid, windowStart, windowEnd);
-            return null;
-        }
-
-        double median = Doubles.median(windowGcRatios.stream().map(ReadRatio::ratio).collect(Collectors.toList()));
-
-        CB_LOGGER.debug("off target window: {}:{} ({} - {}), num sub windows: {}, median: {}",
-                chromosome, windowMid, windowStart, windowEnd, windowGcRatios.size(), format("%.4f", median));
-
-        return !Double.isNaN(median) ? ImmutableReadRatio.builder().chromosome(chromosome).position(windowMid).ratio(median).build() : null;
+        return onTargetRatios;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package com.hartwig.hmftools.cobalt;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Map;
+
 public class CobaltTestUtils
 {
     public static final double EPSILON = 1e-7;
@@ -10,4 +12,10 @@ public class CobaltTestUtils
     {
         assertEquals(expected, actual, EPSILON);
     }
+
+    public static void addWindow(
+            final Map<String,ChromosomeWindows> windowsMap, final String chromosome, int position, double value, double gcContent)
+    {
+        windowsMap.computeIfAbsent(chromosome, k -> new ChromosomeWindows(k)).add(position, value, gcContent);
+    }
 }
@@ -10,7 +10,8 @@ import static htsjdk.samtools.util.SequenceUtil.C;
 import static htsjdk.samtools.util.SequenceUtil.G;
 import static htsjdk.samtools.util.SequenceUtil.T;
 
-import java.util.List;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
 import org.junit.Test;
 
@@ -25,10 +26,10 @@ public class ReadDepthAccumulatorTest
         readDepthCounter.addChromosome(CHROMOSOME, 2000);
 
         // test that it gets the correct windows
-        List<ReadDepth> readDepths = readDepthCounter.getChromosomeReadDepths(CHROMOSOME);
+        ChromosomeWindows readDepths = readDepthCounter.getChromosomeDepthWindows(CHROMOSOME);
 
         assertNotNull(readDepths);
-        assertEquals(2, readDepths.size());
+        assertEquals(2, readDepths.count());
 
         byte[] bases = new byte[1000];
 
@@ -51,19 +52,19 @@ public class ReadDepthAccumulatorTest
         // add some read data
         readDepthCounter.addReadAlignmentToCounts(CHROMOSOME, 501, 1000, bases, 0);
 
-        readDepths = readDepthCounter.getChromosomeReadDepths(CHROMOSOME);
+        readDepths = readDepthCounter.getChromosomeDepthWindows(CHROMOSOME);
         assertNotNull(readDepths);
-        assertEquals(2, readDepths.size());
-        ReadDepth readDepth = readDepths.get(0);
-        assertEquals(1, readDepth.StartPosition);
-        assertEquals(0.5, readDepth.ReadDepth, EPSILON);
+        assertEquals(2, readDepths.count());
+        int index = 0;
+        assertEquals(1, readDepths.position(index));
+        assertEquals(0.5, readDepths.value(index), EPSILON);
         // gc percent should be 0.8 as first 400 bases were GC, and next 100 bases were AT
-        assertEquals(0.8, readDepth.ReadGcContent, EPSILON);
-        readDepth = readDepths.get(1);
-        assertEquals(1001, readDepth.StartPosition);
-        assertEquals(0.5, readDepth.ReadDepth, EPSILON);
+        assertEquals(0.8, readDepths.gcContent(index), EPSILON);
+        index = 1;
+        assertEquals(1001, readDepths.position(index));
+        assertEquals(0.5, readDepths.value(index), EPSILON);
         // gc percent should be 0.4 as first 300 bases were AT, and next 200 bases were GC
-        assertEquals(0.4, readDepth.ReadGcContent, EPSILON);
+        assertEquals(0.4, readDepths.gcContent(index), EPSILON);
 
         // add one more read that only covers the first window
 
@@ -77,21 +78,61 @@ public class ReadDepthAccumulatorTest
         }
 
         readDepthCounter.addReadAlignmentToCounts(CHROMOSOME, 1, 1000, bases, 0);
-        readDepths = readDepthCounter.getChromosomeReadDepths(CHROMOSOME);
+        readDepths = readDepthCounter.getChromosomeDepthWindows(CHROMOSOME);
         assertNotNull(readDepths);
-        assertEquals(2, readDepths.size());
-        readDepth = readDepths.get(0);
-        assertEquals(1, readDepth.StartPosition);
-        assertEquals(1.5, readDepth.ReadDepth, EPSILON);
+        assertEquals(2, readDepths.count());
+        index = 0;
+        assertEquals(1, readDepths.position(index));
+        assertEquals(1.5, readDepths.value(index), EPSILON);
 
         // first read has 0.8 gc with 500 bases covered, second read has 0.5 gc with 1000 bases
         // together it becomes 0.6
-        assertEquals(0.6, readDepth.ReadGcContent, EPSILON);
+        assertEquals(0.6, readDepths.gcContent(index), EPSILON);
 
         // second read should have no change
-        readDepth = readDepths.get(1);
-        assertEquals(1001, readDepth.StartPosition);
-        assertEquals(0.5, readDepth.ReadDepth, EPSILON);
-        assertEquals(0.4, readDepth.ReadGcContent, EPSILON);
+        index = 1;
+        assertEquals(1001, readDepths.position(index));
+        assertEquals(0.5, readDepths.value(index), EPSILON);
+        assertEquals(0.4, readDepths.gcContent(index), EPSILON);
+    }
+
+    @Test
+    public void testRegionAccumulatorMerge()
+    {
+        String CHROMOSOME = "chr1";
+
+        ReadDepthAccumulator readDepthCounter = new ReadDepthAccumulator(1000);
+        readDepthCounter.addChromosome(CHROMOSOME, 4500);
+
+        byte[] bases = new byte[1000];
+
+        for(int i = 0; i < bases.length; ++i)
+        {
+            bases[i] = i < 500 ? G : A;
+        }
+
+        // two regions sharing the window at 2001, with the last region truncated at the partial final window
+        ReadDepthAccumulator region1 = readDepthCounter.createRegionAccumulator(new ChrBaseRegion(CHROMOSOME, 1, 2500));
+        ReadDepthAccumulator region2 = readDepthCounter.createRegionAccumulator(new ChrBaseRegion(CHROMOSOME, 2501, 4500));
+
+        region1.addReadAlignmentToCounts(CHROMOSOME, 1501, 1000, bases, 0);
+        region2.addReadAlignmentToCounts(CHROMOSOME, 2501, 1000, bases, 0);
+        region2.addReadAlignmentToCounts(CHROMOSOME, 3501, 1000, bases, 0);
+
+        readDepthCounter.merge(region1);
+        readDepthCounter.merge(region2);
+
+        assertEquals(500, readDepthCounter.getWindowRawBaseCount(CHROMOSOME, 1001));
+        assertEquals(500, readDepthCounter.getWindowRawGcCount(CHROMOSOME, 1001));
+        assertEquals(1000, readDepthCounter.getWindowRawBaseCount(CHROMOSOME, 2001));
+        assertEquals(500, readDepthCounter.getWindowRawGcCount(CHROMOSOME, 2001));
+        assertEquals(1000, readDepthCounter.getWindowRawBaseCount(CHROMOSOME, 3001));
+        assertEquals(500, readDepthCounter.getWindowRawGcCount(CHROMOSOME, 3001));
+        assertEquals(0, readDepthCounter.getWindowRawBaseCount(CHROMOSOME, 4001));
+
+        ChromosomeWindows readDepths = readDepthCounter.getChromosomeDepthWindows(CHROMOSOME);
+        assertEquals(4, readDepths.count());
+        assertEquals(1.0, readDepths.value(2), EPSILON);
+        assertEquals(0.5, readDepths.gcContent(2), EPSILON);
     }
 }
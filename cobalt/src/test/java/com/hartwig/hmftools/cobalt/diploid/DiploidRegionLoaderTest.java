@@ -2,19 +2,15 @@ package com.hartwig.hmftools.cobalt.diploid;
 
 import static junit.framework.TestCase.assertEquals;
 
-import java.util.List;
+import java.util.Map;
 
-import com.hartwig.hmftools.cobalt.Chromosome;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
 import htsjdk.samtools.util.Locatable;
 
-import tech.tablesaw.api.*;
-
 public class DiploidRegionLoaderTest
 {
     @Test
@@ -22,26 +18,24 @@ public class DiploidRegionLoaderTest
     {
         String chr1 = "1";
         String chr2 = "2";
-        ChromosomePositionCodec chromosomePosCodec = new ChromosomePositionCodec();
-        DiploidRegionLoader victim = new DiploidRegionLoader(chromosomePosCodec);
+        DiploidRegionLoader victim = new DiploidRegionLoader();
         victim.accept(locatable("1", 1001, 3000));
         victim.accept(locatable("1", 5001, 6000));
         victim.accept(locatable("2", 1001, 3000));
 
-        Table result = victim.build();
-        assertEquals(5, result.rowCount());
-        StringColumn chrColumn = result.stringColumn(CobaltColumns.CHROMOSOME);
-        assertReadRatio("1", 1001, result.where(chrColumn.isEqualTo(chr1)).row(0));
-        assertReadRatio("1", 2001, result.where(chrColumn.isEqualTo(chr1)).row(1));
-        assertReadRatio("1", 5001, result.where(chrColumn.isEqualTo(chr1)).row(2));
-        assertReadRatio("2", 1001, result.where(chrColumn.isEqualTo(chr2)).row(0));
-        assertReadRatio("2", 2001, result.where(chrColumn.isEqualTo(chr2)).row(1));
+        Map<String,ChromosomeWindows> result = victim.build();
+        assertEquals(5, result.values().stream().mapToInt(ChromosomeWindows::count).sum());
+        assertReadRatio("1", 1001, result.get(chr1), 0);
+        assertReadRatio("1", 2001, result.get(chr1), 1);
+        assertReadRatio("1", 5001, result.get(chr1), 2);
+        assertReadRatio("2", 1001, result.get(chr2), 0);
+        assertReadRatio("2", 2001, result.get(chr2), 1);
     }
 
-    private void assertReadRatio(@NotNull String contig, long position, @NotNull Row victim)
+    private void assertReadRatio(@NotNull String contig, long position, @NotNull ChromosomeWindows victim, int index)
     {
-        assertEquals(contig, victim.getString(CobaltColumns.CHROMOSOME));
-        assertEquals(position, victim.getInt(CobaltColumns.POSITION));
+        assertEquals(contig, victim.Chromosome);
+        assertEquals(position, victim.position(index));
     }
 
     @NotNull
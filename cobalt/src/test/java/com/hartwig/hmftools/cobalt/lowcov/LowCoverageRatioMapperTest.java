@@ -1,17 +1,19 @@
 package com.hartwig.hmftools.cobalt.lowcov;
 
+import static com.hartwig.hmftools.cobalt.CobaltTestUtils.addWindow;
+
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomeWindows;
 
 import org.junit.Test;
 
-import tech.tablesaw.api.*;
-
 public class LowCoverageRatioMapperTest
 {
     @Test
@@ -80,12 +82,8 @@ public class LowCoverageRatioMapperTest
     @Test
     public void testCalcConsolidateBoundaryRatios()
     {
-        final Table rawRatios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO));
+        final Map<String,ChromosomeWindows> rawRatios = new LinkedHashMap<>();
 
-        Row row;
         // add in some chromosome read ratio
         appendReadRatio(rawRatios, "chr1", 1001, 1.0);
         appendReadRatio(rawRatios, "chr1", 2001, -1.0);
@@ -117,7 +115,7 @@ public class LowCoverageRatioMapperTest
         assertEquals(20001, buckets.get(2).EndPosition);
 
         // put a masked out ratio at the end, should also work
-        row = rawRatios.appendRow(); row.setString("chromosome", "chr1"); row.setInt("position", 20001); row.setDouble("ratio", -1.0);
+        appendReadRatio(rawRatios, "chr1", 20001, -1.0);
 
         buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(rawRatios, 4)).get("chr1");
 
@@ -133,11 +131,8 @@ public class LowCoverageRatioMapperTest
     }
 
     @SuppressWarnings("SameParameterValue")
-    private static void appendReadRatio(Table table, String chromosome, int position, double ratio)
+    private static void appendReadRatio(final Map<String,ChromosomeWindows> ratios, String chromosome, int position, double ratio)
     {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.RATIO, ratio);
+        addWindow(ratios, chromosome, position, ratio, 0.5);
     }
 }
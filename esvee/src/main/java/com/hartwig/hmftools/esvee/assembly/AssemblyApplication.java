@@ -19,6 +19,7 @@ import static com.hartwig.hmftools.esvee.assembly.output.WriteType.JUNC_ASSEMBLY
 import static com.hartwig.hmftools.esvee.assembly.output.WriteType.ASSEMBLY_BAM;
 import static com.hartwig.hmftools.esvee.assembly.output.WriteType.ASSEMBLY_READ;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -32,10 +33,12 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.esvee.assembly.alignment.Aligner;
 import com.hartwig.hmftools.esvee.assembly.alignment.Alignment;
 import com.hartwig.hmftools.esvee.assembly.alignment.AssemblyAlignment;
 import com.hartwig.hmftools.esvee.assembly.alignment.Breakend;
 import com.hartwig.hmftools.esvee.assembly.alignment.BwaAligner;
+import com.hartwig.hmftools.esvee.assembly.alignment.CachingAligner;
 import com.hartwig.hmftools.esvee.assembly.output.BreakendWriter;
 import com.hartwig.hmftools.esvee.assembly.types.PhaseSet;
 import com.hartwig.hmftools.esvee.common.FragmentLengthBounds;
@@ -323,9 +326,32 @@ public class AssemblyApplication
             return;
 
         boolean useCache = mConfig.AlignmentFile != null;
-        Alignment alignment = new Alignment(mConfig, !useCache ? new BwaAligner(mConfig.RefGenomeImageFile) : null);
+        BwaAligner bwaAligner = !useCache ? new BwaAligner(mConfig.RefGenomeImageFile) : null;
+        Aligner aligner = bwaAligner;
+        CachingAligner cachingAligner = null;
+
+        if(bwaAligner != null && mConfig.AlignmentCacheDir != null)
+        {
+            try
+            {
+                cachingAligner = new CachingAligner(
+                        bwaAligner, mConfig.AlignmentCacheDir, mConfig.RefGenVersion, mConfig.RefGenomeImageFile,
+                        bwaAligner.versionId(), mConfig.AlignmentCacheMaxAge);
+
+                aligner = cachingAligner;
+            }
+            catch(IOException e)
+            {
+                SV_LOGGER.warn("alignment cache({}) unavailable, aligning all assemblies: {}", mConfig.AlignmentCacheDir, e.toString());
+            }
+        }
+
+        Alignment alignment = new Alignment(mConfig, aligner);
         alignment.run(assemblyAlignments, mPerfCounters);
         alignment.close();
+
+        if(cachingAligner != null)
+            cachingAligner.close();
     }
 
     private void gatherAssemblies(final List<JunctionAssembly> allAssemblies, final List<AssemblyAlignment> assemblyAlignments)
@@ -29,8 +29,12 @@ import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.OUTPUT_ID;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
 import static com.hartwig.hmftools.esvee.assembly.AssemblyConstants.DEFAULT_ASSEMBLY_MAP_QUAL_THRESHOLD;
+import static com.hartwig.hmftools.esvee.assembly.AssemblyConstants.DEFAULT_ALIGNMENT_BATCH_SIZE;
 import static com.hartwig.hmftools.esvee.assembly.AssemblyConstants.DEFAULT_ASSEMBLY_REF_BASE_WRITE_MAX;
 import static com.hartwig.hmftools.esvee.assembly.alignment.BwaAligner.loadAlignerLibrary;
+import static com.hartwig.hmftools.esvee.assembly.alignment.CachingAligner.ALIGNMENT_CACHE_DIR;
+import static com.hartwig.hmftools.esvee.assembly.alignment.CachingAligner.ALIGNMENT_CACHE_MAX_AGE;
+import static com.hartwig.hmftools.esvee.assembly.alignment.CachingAligner.DEFAULT_MAX_AGE_DAYS;
 import static com.hartwig.hmftools.esvee.assembly.output.WriteType.fromConfig;
 import static com.hartwig.hmftools.esvee.common.FileCommon.REF_GENOME_IMAGE_EXTENSION;
 import static com.hartwig.hmftools.esvee.assembly.output.WriteType.ASSEMBLY_READ;
@@ -54,6 +58,7 @@ import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.region.SpecificRegions;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.esvee.assembly.alignment.AlignmentCache;
+import com.hartwig.hmftools.esvee.assembly.alignment.CachingAligner;
 import com.hartwig.hmftools.esvee.assembly.types.Junction;
 import com.hartwig.hmftools.esvee.assembly.output.WriteType;
 import com.hartwig.hmftools.esvee.common.ReadIdTrimmer;
@@ -98,6 +103,7 @@ public class AssemblyConfig
     private final boolean mCheckLogReadIds;
 
     public final int AssemblyRefBaseWriteMax;
+    public final int AlignmentBatchSize;
     public final int PhaseProcessingLimit;
     public final int AssemblyMapQualThreshold;
     public final boolean DiscordantOnlyDisabled;
@@ -106,6 +112,8 @@ public class AssemblyConfig
 
     public final String TruthsetFile;
     public final String AlignmentFile;
+    public final String AlignmentCacheDir;
+    public final int AlignmentCacheMaxAge;
 
     public static boolean WriteCandidateReads;
     public static boolean AssemblyBuildDebug = false;
@@ -130,6 +138,7 @@ public class AssemblyConfig
     private static final String SPECIFIC_JUNCTIONS = "specific_junctions";
     private static final String ASSEMBLY_MAP_QUAL_THRESHOLD = "asm_map_qual_threshold";
     private static final String ASSEMBLY_REF_BASE_WRITE_MAX = "asm_ref_base_write_max";
+    private static final String ALIGNMENT_BATCH_SIZE = "align_batch_size";
     private static final String ASSEMBLY_BUILD_DEBUG = "asm_build_debug";
     private static final String DISC_ONLY_DISABLED = "disc_only_disabled";
     private static final String WRITE_CANDIDATE_READS = "write_candidate_reads";
@@ -191,6 +200,8 @@ public class AssemblyConfig
         RefGenVersion = RefGenomeVersion.from(configBuilder);
 
         RefGenomeFile = configBuilder.getValue(REF_GENOME);
+        // ref_genome_image here is the BWA index image, and the BAM and VCF writers need the fasta's dictionary,
+        // so reference bases keep coming from the fasta rather than a shared 2-bit image
         RefGenome = loadRefGenome(RefGenomeFile);
 
         RefGenomeImageFile = configBuilder.hasValue(REF_GENOME_IMAGE) ?
@@ -201,6 +212,8 @@ public class AssemblyConfig
         WriteTypes = fromConfig(configBuilder.getValue(WRITE_TYPES));
 
         AlignmentFile = AlignmentCache.filename(configBuilder);
+        AlignmentCacheDir = configBuilder.getValue(ALIGNMENT_CACHE_DIR);
+        AlignmentCacheMaxAge = configBuilder.getInteger(ALIGNMENT_CACHE_MAX_AGE);
         RunAlignment = AlignmentFile != null || WriteType.requiresAlignment(WriteTypes);
 
         loadAlignerLibrary(configBuilder.getValue(BWA_LIB_PATH));
@@ -253,6 +266,8 @@ public class AssemblyConfig
         // limit the length of ref bases by config unless using filters
         AssemblyRefBaseWriteMax = hasFilters ? 0 : configBuilder.getInteger(ASSEMBLY_REF_BASE_WRITE_MAX);
 
+        AlignmentBatchSize = configBuilder.getInteger(ALIGNMENT_BATCH_SIZE);
+
         Threads = parseThreads(configBuilder);
 
         TruthsetFile = TruthsetAnnotation.filename(configBuilder);
@@ -334,6 +349,9 @@ public class AssemblyConfig
         configBuilder.addInteger(
                 PHASE_PROCESSING_LIMIT, "Exclude phase groups above this size from extension and phase sets", 0);
 
+        configBuilder.addInteger(
+                ALIGNMENT_BATCH_SIZE, "Number of assemblies passed to BWA in each alignment call", DEFAULT_ALIGNMENT_BATCH_SIZE);
+
         configBuilder.addFlag(DISC_ONLY_DISABLED, "Disable discordant only junctions");
 
         configBuilder.addInteger(
@@ -348,6 +366,7 @@ public class AssemblyConfig
 
         TruthsetAnnotation.registerConfig(configBuilder);
         AlignmentCache.registerConfig(configBuilder);
+        CachingAligner.registerConfig(configBuilder);
         BamToolName.addConfig(configBuilder);
 
         SpecificRegions.addSpecificChromosomesRegionsConfig(configBuilder);
@@ -393,11 +412,14 @@ public class AssemblyConfig
 
         AssemblyMapQualThreshold = -1;
         AssemblyRefBaseWriteMax = 0;
+        AlignmentBatchSize = DEFAULT_ALIGNMENT_BATCH_SIZE;
         PhaseProcessingLimit = 0;
         DiscordantOnlyDisabled = false;
         Threads = 0;
         TruthsetFile = null;
         AlignmentFile = null;
+        AlignmentCacheDir = null;
+        AlignmentCacheMaxAge = DEFAULT_MAX_AGE_DAYS;
 
         ApplyRemotePhasingReadCheckThreshold = false;
         AssemblyBuildDebug = false;
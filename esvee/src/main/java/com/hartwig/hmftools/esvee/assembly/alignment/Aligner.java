@@ -1,10 +1,17 @@
 package com.hartwig.hmftools.esvee.assembly.alignment;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
 
 public interface Aligner
 {
     List<BwaMemAlignment> alignSequence(final byte[] bases);
+
+    // aligns each sequence, returning results in the same order
+    default List<List<BwaMemAlignment>> alignSequences(final List<byte[]> sequences)
+    {
+        return sequences.stream().map(this::alignSequence).collect(Collectors.toList());
+    }
 }
@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.esvee.assembly.alignment;
 
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 
@@ -15,7 +16,9 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.esvee.assembly.AssemblyConfig;
 import com.hartwig.hmftools.esvee.assembly.output.AlignmentWriter;
@@ -103,6 +106,144 @@ public class Alignment
         mergePerfCounters(perfCounters, alignerTasks.stream().collect(Collectors.toList()));
     }
 
+    public static class BatchAlignment
+    {
+        public final List<AlignData> Alignments;
+        public final List<AlignData> RequeriedAlignments; // supplementaries replaced by their requeried alignments
+
+        public BatchAlignment(final List<AlignData> alignments, final List<AlignData> requeriedAlignments)
+        {
+            Alignments = alignments;
+            RequeriedAlignments = requeriedAlignments;
+        }
+    }
+
+    @VisibleForTesting
+    public static List<BatchAlignment> alignBatch(
+            final Aligner aligner, final RefGenomeVersion refGenVersion, final List<AssemblyAlignment> assemblyAlignments)
+    {
+        // align the batch's full sequences in a single call
+        List<List<BwaMemAlignment>> bwaAlignmentSets = aligner.alignSequences(
+                assemblyAlignments.stream().map(x -> x.fullSequence().getBytes()).collect(Collectors.toList()));
+
+        List<List<AlignData>> assemblyAlignData = Lists.newArrayListWithCapacity(assemblyAlignments.size());
+
+        for(List<BwaMemAlignment> bwaAlignments : bwaAlignmentSets)
+        {
+            assemblyAlignData.add(bwaAlignments.stream()
+                    .map(x -> AlignData.from(x, refGenVersion))
+                    .filter(x -> x != null).collect(Collectors.toList()));
+        }
+
+        // then re-align all supplementaries from the batch together, to get a more reliable map quality
+        List<String> requerySequences = Lists.newArrayList();
+
+        for(int i = 0; i < assemblyAlignments.size(); ++i)
+        {
+            AssemblyAlignment assemblyAlignment = assemblyAlignments.get(i);
+
+            for(AlignData alignData : assemblyAlignData.get(i))
+            {
+                if(alignData.isSupplementary())
+                    requerySequences.add(requerySequence(assemblyAlignment, alignData));
+            }
+        }
+
+        List<List<BwaMemAlignment>> requeryBwaAlignmentSets = !requerySequences.isEmpty()
+                ? aligner.alignSequences(requerySequences.stream().map(String::getBytes).collect(Collectors.toList()))
+                : Collections.emptyList();
+
+        // requery results are in the order their supplementaries were collected, so are mapped back to each assembly in turn
+        List<BatchAlignment> batchAlignments = Lists.newArrayListWithCapacity(assemblyAlignments.size());
+        int requeryIndex = 0;
+
+        for(int i = 0; i < assemblyAlignments.size(); ++i)
+        {
+            List<AlignData> alignments = assemblyAlignData.get(i);
+            List<AlignData> requeriedAlignments = Lists.newArrayList();
+
+            if(alignments.stream().anyMatch(x -> x.isSupplementary()))
+            {
+                List<AlignData> newAlignments = Lists.newArrayList();
+
+                for(AlignData alignData : alignments)
+                {
+                    if(!alignData.isSupplementary())
+                    {
+                        newAlignments.add(alignData);
+                        continue;
+                    }
+
+                    requeriedAlignments.add(alignData);
+
+                    newAlignments.addAll(convertRequeriedAlignments(
+                            alignData, requerySequences.get(requeryIndex), requeryBwaAlignmentSets.get(requeryIndex), refGenVersion));
+
+                    ++requeryIndex;
+                }
+
+                alignments = newAlignments;
+            }
+
+            batchAlignments.add(new BatchAlignment(alignments, requeriedAlignments));
+        }
+
+        return batchAlignments;
+    }
+
+    private static String requerySequence(final AssemblyAlignment assemblyAlignment, final AlignData alignData)
+    {
+        String fullSequence = assemblyAlignment.fullSequence();
+
+        alignData.setFullSequenceData(fullSequence, assemblyAlignment.fullSequenceLength());
+
+        return fullSequence.substring(alignData.sequenceStart(), alignData.sequenceEnd() + 1);
+    }
+
+    private static List<AlignData> convertRequeriedAlignments(
+            final AlignData alignData, final String alignmentSequence, final List<BwaMemAlignment> requeryBwaAlignments,
+            final RefGenomeVersion refGenVersion)
+    {
+        List<AlignData> requeryAlignments = requeryBwaAlignments.stream()
+                .map(x -> AlignData.from(x, refGenVersion))
+                .filter(x -> x != null).collect(Collectors.toList());
+
+        List<AlignData> convertedAlignments = Lists.newArrayList();
+
+        for(AlignData rqAlignment : requeryAlignments)
+        {
+            rqAlignment.setFullSequenceData(alignmentSequence, alignmentSequence.length());
+
+            // eg:
+            // alignData = {AlignData@3240} "10:2543491-2543563 72S73M fwd seq(72-145 adj=72-144) score(58) flags(2048) mapQual(55 align=73 adj=73)"
+            // rqAlignment = {AlignData@3246} "10:2543809-2543878 3S70M fwd seq(3-73 adj=3-72) score(65) flags(0) mapQual(17 align=70 adj=70)"
+
+            AlignData convertedAlignment = new AlignData(
+                    rqAlignment.refLocation(),
+                    rqAlignment.rawSequenceStart(),
+                    rqAlignment.rawSequenceEnd(),
+                    rqAlignment.mapQual(), rqAlignment.score(), rqAlignment.flags(), rqAlignment.cigar(), rqAlignment.nMatches(),
+                    rqAlignment.xaTag(), rqAlignment.mdTag());
+
+            // restore values to be in terms of the original sequence
+            int rqSeqOffsetStart = rqAlignment.sequenceStart();
+            int adjSequenceStart = alignData.sequenceStart() + rqSeqOffsetStart;
+            int rqSeqOffsetEnd = alignmentSequence.length() - 1 - rqAlignment.sequenceEnd();
+            int adjSequenceEnd = alignData.sequenceEnd() - rqSeqOffsetEnd;
+            convertedAlignment.setRequeriedSequenceCoords(adjSequenceStart, adjSequenceEnd);
+
+            convertedAlignment.setSoftClipLengths(
+                    convertedAlignment.leftSoftClipLength() + alignData.leftSoftClipLength(),
+                    convertedAlignment.rightSoftClipLength() + alignData.rightSoftClipLength());
+
+            convertedAlignments.add(convertedAlignment);
+
+            alignData.markDroppedOnRequery();
+        }
+
+        return convertedAlignments;
+    }
+
     private class AssemblerAlignerTask extends ThreadTask
     {
         private final TaskQueue mAssemblyAlignments;
@@ -120,25 +261,41 @@ public class Alignment
         @Override
         public void run()
         {
-            while(true)
+            int batchSize = max(mConfig.AlignmentBatchSize, 1);
+            List<AssemblyAlignment> batch = Lists.newArrayListWithCapacity(batchSize);
+            boolean queueEmpty = false;
+
+            while(!queueEmpty)
             {
                 try
                 {
                     mPerfCounter.start();
 
-                    AssemblyAlignment assemblyAlignment = (AssemblyAlignment)mAssemblyAlignments.removeItem();
+                    batch.clear();
+
+                    while(batch.size() < batchSize)
+                    {
+                        try
+                        {
+                            batch.add((AssemblyAlignment)mAssemblyAlignments.removeItem());
+                        }
+                        catch(NoSuchElementException e)
+                        {
+                            SV_LOGGER.trace("all alignment tasks complete");
+                            queueEmpty = true;
+                            break;
+                        }
+                    }
 
-                    processAssembly(assemblyAlignment);
+                    if(batch.isEmpty())
+                        break;
+
+                    processAssemblies(batch);
 
                     stopCheckLog(
-                            format("alignment count(%d) assemblies(%s)", assemblyAlignment.assemblies().size(), assemblyAlignment.info()),
+                            format("alignment batch(%d) first assemblies(%s)", batch.size(), batch.get(0).info()),
                             mConfig.PerfLogTime);
                 }
-                catch(NoSuchElementException e)
-                {
-                    SV_LOGGER.trace("all alignment tasks complete");
-                    break;
-                }
                 catch(Exception e)
                 {
                     e.printStackTrace();
@@ -147,122 +304,56 @@ public class Alignment
             }
         }
 
-        private void processAssembly(final AssemblyAlignment assemblyAlignment)
+        private void processAssemblies(final List<AssemblyAlignment> assemblyAlignments)
         {
-            if(!assemblyAlignment.isValid())
-            {
-                SV_LOGGER.warn("assembly alignment({}) invalid, skipping", assemblyAlignment);
-                return;
-            }
+            List<AssemblyAlignment> alignmentRequired = Lists.newArrayListWithCapacity(assemblyAlignments.size());
 
-            if(assemblyAlignment.isMerged())
+            for(AssemblyAlignment assemblyAlignment : assemblyAlignments)
             {
-                writeAssemblyData(assemblyAlignment, Collections.emptyList(), Collections.emptyList());
-                return;
-            }
-
-            List<AlignData> alignments;
-            List<AlignData> requeriedAlignments;
-
-            if(mAlignmentCache.enabled())
-            {
-                alignments = mAlignmentCache.findAssemblyAlignments(assemblyAlignment.info());
-                requeriedAlignments = Collections.emptyList();
-            }
-            else
-            {
-                List<BwaMemAlignment> bwaAlignments = mAligner.alignSequence(assemblyAlignment.fullSequence().getBytes());
-
-                alignments = bwaAlignments.stream()
-                        .map(x -> AlignData.from(x, mConfig.RefGenVersion))
-                        .filter(x -> x != null).collect(Collectors.toList());
-
-                requeriedAlignments = Lists.newArrayList();
-                alignments = requerySupplementaryAlignments(assemblyAlignment, alignments, requeriedAlignments);
-            }
-
-            processAlignmentResults(assemblyAlignment, alignments);
-
-            AlignmentFragments alignmentFragments = new AlignmentFragments(assemblyAlignment, mConfig.combinedSampleIds());
-            alignmentFragments.allocateBreakendSupport();
-
-            writeAssemblyData(assemblyAlignment, alignments, requeriedAlignments);
-        }
-
-        private List<AlignData> requerySupplementaryAlignments(
-                final AssemblyAlignment assemblyAlignment, final List<AlignData> alignments, final List<AlignData> requeriedAlignments)
-        {
-            // re-align supplementaries to get a more reliable map quality
-            if(alignments.stream().noneMatch(x -> x.isSupplementary()))
-                return alignments;
+                if(!assemblyAlignment.isValid())
+                {
+                    SV_LOGGER.warn("assembly alignment({}) invalid, skipping", assemblyAlignment);
+                    continue;
+                }
 
-            List<AlignData> newAlignments = Lists.newArrayList();
+                if(assemblyAlignment.isMerged())
+                {
+                    writeAssemblyData(assemblyAlignment, Collections.emptyList(), Collections.emptyList());
+                    continue;
+                }
 
-            for(AlignData alignData : alignments)
-            {
-                if(!alignData.isSupplementary())
+                if(mAlignmentCache.enabled())
                 {
-                    newAlignments.add(alignData);
+                    List<AlignData> alignments = mAlignmentCache.findAssemblyAlignments(assemblyAlignment.info());
+                    completeAssembly(assemblyAlignment, alignments, Collections.emptyList());
                     continue;
                 }
 
-                requeriedAlignments.add(alignData);
-                newAlignments.addAll(requeryAlignment(assemblyAlignment, alignData));
+                alignmentRequired.add(assemblyAlignment);
             }
 
-            return newAlignments;
-        }
-
-        private List<AlignData> requeryAlignment(final AssemblyAlignment assemblyAlignment, final AlignData alignData)
-        {
-            ++mRequeriedSuppCount;
-
-            String fullSequence = assemblyAlignment.fullSequence();
-
-            alignData.setFullSequenceData(fullSequence, assemblyAlignment.fullSequenceLength());
-
-            String alignmentSequence = fullSequence.substring(alignData.sequenceStart(), alignData.sequenceEnd() + 1);
-
-            List<BwaMemAlignment> requeryBwaAlignments = mAligner.alignSequence(alignmentSequence.getBytes());
-
-            List<AlignData> requeryAlignments = requeryBwaAlignments.stream()
-                    .map(x -> AlignData.from(x, mConfig.RefGenVersion))
-                    .filter(x -> x != null).collect(Collectors.toList());
+            if(alignmentRequired.isEmpty())
+                return;
 
-            List<AlignData> convertedAlignments = Lists.newArrayList();
+            List<BatchAlignment> batchAlignments = alignBatch(mAligner, mConfig.RefGenVersion, alignmentRequired);
 
-            for(AlignData rqAlignment : requeryAlignments)
+            for(int i = 0; i < alignmentRequired.size(); ++i)
             {
-                rqAlignment.setFullSequenceData(alignmentSequence, alignmentSequence.length());
-
-                // eg:
-                // alignData = {AlignData@3240} "10:2543491-2543563 72S73M fwd seq(72-145 adj=72-144) score(58) flags(2048) mapQual(55 align=73 adj=73)"
-                // rqAlignment = {AlignData@3246} "10:2543809-2543878 3S70M fwd seq(3-73 adj=3-72) score(65) flags(0) mapQual(17 align=70 adj=70)"
-
-                AlignData convertedAlignment = new AlignData(
-                        rqAlignment.refLocation(),
-                        rqAlignment.rawSequenceStart(),
-                        rqAlignment.rawSequenceEnd(),
-                        rqAlignment.mapQual(), rqAlignment.score(), rqAlignment.flags(), rqAlignment.cigar(), rqAlignment.nMatches(),
-                        rqAlignment.xaTag(), rqAlignment.mdTag());
-
-                // restore values to be in terms of the original sequence
-                int rqSeqOffsetStart = rqAlignment.sequenceStart();
-                int adjSequenceStart = alignData.sequenceStart() + rqSeqOffsetStart;
-                int rqSeqOffsetEnd = alignmentSequence.length() - 1 - rqAlignment.sequenceEnd();
-                int adjSequenceEnd = alignData.sequenceEnd() - rqSeqOffsetEnd;
-                convertedAlignment.setRequeriedSequenceCoords(adjSequenceStart, adjSequenceEnd);
-
-                convertedAlignment.setSoftClipLengths(
-                        convertedAlignment.leftSoftClipLength() + alignData.leftSoftClipLength(),
-                        convertedAlignment.rightSoftClipLength() + alignData.rightSoftClipLength());
+                BatchAlignment batchAlignment = batchAlignments.get(i);
+                mRequeriedSuppCount += batchAlignment.RequeriedAlignments.size();
+                completeAssembly(alignmentRequired.get(i), batchAlignment.Alignments, batchAlignment.RequeriedAlignments);
+            }
+        }
 
-                convertedAlignments.add(convertedAlignment);
+        private void completeAssembly(
+                final AssemblyAlignment assemblyAlignment, final List<AlignData> alignments, final List<AlignData> requeriedAlignments)
+        {
+            processAlignmentResults(assemblyAlignment, alignments);
 
-                alignData.markDroppedOnRequery();
-            }
+            AlignmentFragments alignmentFragments = new AlignmentFragments(assemblyAlignment, mConfig.combinedSampleIds());
+            alignmentFragments.allocateBreakendSupport();
 
-            return convertedAlignments;
+            writeAssemblyData(assemblyAlignment, alignments, requeriedAlignments);
         }
 
         private void processAlignmentResults(final AssemblyAlignment assemblyAlignment, final List<AlignData> alignments)
@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.esvee.assembly.alignment;
 
+import static java.lang.String.format;
+
 import static com.hartwig.hmftools.esvee.assembly.AssemblyConfig.SV_LOGGER;
 import static com.hartwig.hmftools.esvee.common.SvConstants.MIN_INDEL_LENGTH;
 
@@ -8,6 +10,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAligner;
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
@@ -16,7 +19,10 @@ import org.jetbrains.annotations.Nullable;
 
 public class BwaAligner implements Aligner
 {
-    private final BwaMemAligner mAligner;
+    private final BwaMemIndex mIndex;
+
+    // each thread keeps its own aligner over the shared index, created on first use
+    private final ThreadLocal<BwaMemAligner> mThreadAligners;
 
     public BwaAligner(final String refGenomeImageFile)
     {
@@ -33,20 +39,25 @@ public class BwaAligner implements Aligner
                 SV_LOGGER.error("failed to initialise BWA aligner: {}", e.toString());
             }
 
-            if(index != null)
-            {
-                mAligner = new BwaMemAligner(index);
-                mAligner.setBandwidthOption(MIN_INDEL_LENGTH - 1);
-            }
-            else
-            {
-                mAligner = null;
-            }
+            mIndex = index;
         }
         else
         {
-            mAligner = null;
+            mIndex = null;
         }
+
+        mThreadAligners = ThreadLocal.withInitial(() -> createAligner(mIndex));
+    }
+
+    @Nullable
+    private static BwaMemAligner createAligner(@Nullable final BwaMemIndex index)
+    {
+        if(index == null)
+            return null;
+
+        BwaMemAligner aligner = new BwaMemAligner(index);
+        aligner.setBandwidthOption(MIN_INDEL_LENGTH - 1);
+        return aligner;
     }
 
     private static final String LIBBWA_PATH = "LIBBWA_PATH"; // as expected by the BWA library
@@ -98,14 +109,51 @@ public class BwaAligner implements Aligner
             return ".so";
     }
 
+    public String versionId()
+    {
+        // identifies the BWA library and alignment settings, so cached results from a different aligner are not reused
+        String bwaVersion = "none";
+
+        if(mIndex != null)
+        {
+            try
+            {
+                bwaVersion = BwaMemIndex.getBWAVersion();
+            }
+            catch(Exception e)
+            {
+                bwaVersion = "unknown";
+            }
+        }
+
+        return format("bwa-%s:bw%d", bwaVersion, MIN_INDEL_LENGTH - 1);
+    }
+
     @Override
     public List<BwaMemAlignment> alignSequence(final byte[] bases)
     {
-        if(mAligner == null)
+        BwaMemAligner aligner = mThreadAligners.get();
+
+        if(aligner == null)
             return Collections.emptyList();
 
-        List<BwaMemAlignment> alignmentSet = mAligner.alignSeqs(List.of(bases)).get(0);
+        List<BwaMemAlignment> alignmentSet = aligner.alignSeqs(List.of(bases)).get(0);
 
         return alignmentSet;
     }
+
+    @Override
+    public List<List<BwaMemAlignment>> alignSequences(final List<byte[]> sequences)
+    {
+        BwaMemAligner aligner = mThreadAligners.get();
+
+        if(aligner == null)
+            return sequences.stream().map(x -> Collections.<BwaMemAlignment>emptyList()).collect(Collectors.toList());
+
+        if(sequences.isEmpty())
+            return Collections.emptyList();
+
+        // a single call aligns the whole batch
+        return aligner.alignSeqs(sequences);
+    }
 }
@@ -0,0 +1,617 @@
+package com.hartwig.hmftools.esvee.assembly.alignment;
+
+import static java.lang.Math.max;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.esvee.assembly.AssemblyConfig.SV_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
+
+// wraps an aligner with a persistent cache of alignment results, keyed by a hash of the sequence together with the reference
+// genome, index and aligner version, so identical assemblies seen in earlier runs (eg recurrent or germline SVs) skip BWA entirely
+public class CachingAligner implements Aligner
+{
+    private final Aligner mAligner;
+    private final String mReferenceId;
+    private final int mMaxAgeDays;
+
+    private final Path mIndexFile;
+    private final Path mDataFile;
+    private final Path mLockFile;
+    private final FileChannel mDataChannel;
+    private final Object mDataFileKey; // identifies the data file opened, to detect it being replaced by another run
+
+    private final Map<CacheKey,CacheEntry> mEntries;
+    private final Map<CacheKey,byte[]> mNewEntries;
+    private final int mToday;
+
+    private final AtomicInteger mHits;
+    private final AtomicInteger mMisses;
+
+    public static final String ALIGNMENT_CACHE_DIR = "alignment_cache_dir";
+    public static final String ALIGNMENT_CACHE_MAX_AGE = "alignment_cache_max_age";
+
+    public static final int DEFAULT_MAX_AGE_DAYS = 90;
+
+    private static final String INDEX_FILE = "esvee.align_cache.idx";
+    private static final String DATA_FILE = "esvee.align_cache.dat";
+    private static final String LOCK_FILE = "esvee.align_cache.lock";
+
+    private static final int CACHE_MAGIC = 0x45534143; // ESAC
+    private static final int CACHE_VERSION = 2;
+
+    private static final int RECORD_HEADER_SIZE = 8 + 8 + 4;
+
+    public static void registerConfig(final ConfigBuilder configBuilder)
+    {
+        configBuilder.addPath(ALIGNMENT_CACHE_DIR, false, "Directory of a persistent alignment cache, shared across runs");
+
+        configBuilder.addInteger(
+                ALIGNMENT_CACHE_MAX_AGE, "Evict alignment cache entries not used within this many days", DEFAULT_MAX_AGE_DAYS);
+    }
+
+    private static class CacheKey
+    {
+        public final long High;
+        public final long Low;
+
+        public CacheKey(final long high, final long low)
+        {
+            High = high;
+            Low = low;
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            if(this == other)
+                return true;
+
+            if(!(other instanceof CacheKey))
+                return false;
+
+            CacheKey otherKey = (CacheKey)other;
+            return High == otherKey.High && Low == otherKey.Low;
+        }
+
+        @Override
+        public int hashCode() { return Long.hashCode(High) * 31 + Long.hashCode(Low); }
+    }
+
+    private static class CacheEntry
+    {
+        public final long Offset;
+        public final int Length;
+        public volatile int LastUsedDay;
+
+        public CacheEntry(final long offset, final int length, final int lastUsedDay)
+        {
+            Offset = offset;
+            Length = length;
+            LastUsedDay = lastUsedDay;
+        }
+    }
+
+    public CachingAligner(
+            final Aligner aligner, final String cacheDir, final RefGenomeVersion refGenVersion, final String refGenomeImageFile,
+            final String alignerVersion, int maxAgeDays) throws IOException
+    {
+        mAligner = aligner;
+        mMaxAgeDays = maxAgeDays;
+
+        // results depend on the reference genome, its index image and the aligner, so all are part of every key
+        mReferenceId = format("%s:%s:%s", refGenVersion, indexImageId(refGenomeImageFile), alignerVersion);
+
+        Files.createDirectories(Paths.get(cacheDir));
+        mIndexFile = Paths.get(cacheDir, INDEX_FILE);
+        mDataFile = Paths.get(cacheDir, DATA_FILE);
+        mLockFile = Paths.get(cacheDir, LOCK_FILE);
+
+        mEntries = new ConcurrentHashMap<>();
+        mNewEntries = new ConcurrentHashMap<>();
+        mToday = (int)LocalDate.now().toEpochDay();
+        mHits = new AtomicInteger();
+        mMisses = new AtomicInteger();
+
+        // other runs may be rewriting the cache, so the index and data file are opened together under the directory's lock
+        try(FileChannel lockChannel = openLockChannel(); FileLock lock = lockChannel.lock())
+        {
+            loadIndex(mEntries);
+
+            mDataChannel = Files.exists(mDataFile) ? FileChannel.open(mDataFile, StandardOpenOption.READ) : null;
+            mDataFileKey = mDataChannel != null ? fileKey(mDataFile) : null;
+        }
+
+        SV_LOGGER.info("loaded {} cached alignments from {}", mEntries.size(), cacheDir);
+    }
+
+    public int hits() { return mHits.get(); }
+    public int misses() { return mMisses.get(); }
+
+    @Override
+    public List<BwaMemAlignment> alignSequence(final byte[] bases)
+    {
+        return alignSequences(List.of(bases)).get(0);
+    }
+
+    @Override
+    public List<List<BwaMemAlignment>> alignSequences(final List<byte[]> sequences)
+    {
+        List<List<BwaMemAlignment>> results = Lists.newArrayListWithCapacity(sequences.size());
+        List<byte[]> uncachedSequences = Lists.newArrayList();
+        List<Integer> uncachedIndices = Lists.newArrayList();
+
+        for(int i = 0; i < sequences.size(); ++i)
+        {
+            List<BwaMemAlignment> alignments = findAlignments(keyFor(sequences.get(i)));
+            results.add(alignments);
+
+            if(alignments == null)
+            {
+                uncachedSequences.add(sequences.get(i));
+                uncachedIndices.add(i);
+            }
+        }
+
+        mHits.addAndGet(sequences.size() - uncachedSequences.size());
+
+        if(uncachedSequences.isEmpty())
+            return results;
+
+        mMisses.addAndGet(uncachedSequences.size());
+
+        List<List<BwaMemAlignment>> newAlignmentSets = mAligner.alignSequences(uncachedSequences);
+
+        for(int i = 0; i < uncachedSequences.size(); ++i)
+        {
+            List<BwaMemAlignment> alignments = newAlignmentSets.get(i);
+            results.set(uncachedIndices.get(i), alignments);
+            mNewEntries.put(keyFor(uncachedSequences.get(i)), serialise(alignments));
+        }
+
+        return results;
+    }
+
+    private static String indexImageId(final String refGenomeImageFile)
+    {
+        if(refGenomeImageFile == null)
+            return "";
+
+        // a rebuilt image under the same name is distinguished by its size and modification time
+        File imageFile = new File(refGenomeImageFile);
+        return format("%s:%d:%d", imageFile.getName(), imageFile.length(), imageFile.lastModified());
+    }
+
+    private CacheKey keyFor(final byte[] bases)
+    {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putString(mReferenceId, StandardCharsets.UTF_8);
+        hasher.putBytes(bases);
+
+        ByteBuffer hashBytes = ByteBuffer.wrap(hasher.hash().asBytes());
+        return new CacheKey(hashBytes.getLong(), hashBytes.getLong());
+    }
+
+    private List<BwaMemAlignment> findAlignments(final CacheKey key)
+    {
+        byte[] newEntry = mNewEntries.get(key);
+
+        if(newEntry != null)
+            return deserialise(newEntry);
+
+        CacheEntry entry = mEntries.get(key);
+
+        if(entry == null || mDataChannel == null)
+            return null;
+
+        try
+        {
+            byte[] record = readRecord(mDataChannel, entry);
+
+            if(!isValidRecord(record, key))
+            {
+                // treated as a miss, and since the entry is dropped it is replaced by the new alignment on close
+                SV_LOGGER.debug("ignoring invalid cached alignment record at offset({})", entry.Offset);
+                mEntries.remove(key);
+                return null;
+            }
+
+            entry.LastUsedDay = mToday;
+            return deserialise(Arrays.copyOfRange(record, RECORD_HEADER_SIZE, record.length));
+        }
+        catch(IOException e)
+        {
+            SV_LOGGER.warn("failed to read cached alignment: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static byte[] readRecord(final FileChannel channel, final CacheEntry entry) throws IOException
+    {
+        // positional reads leave the channel's position untouched, so are safe across aligner threads
+        ByteBuffer buffer = ByteBuffer.allocate(entry.Length);
+
+        while(buffer.hasRemaining())
+        {
+            if(channel.read(buffer, entry.Offset + buffer.position()) < 0)
+                throw new IOException(format("alignment cache record truncated at offset(%d)", entry.Offset));
+        }
+
+        return buffer.array();
+    }
+
+    // record layout: the 128-bit key, a CRC32 of the serialised alignments, then the alignments themselves
+    private static boolean isValidRecord(final byte[] record, final CacheKey key)
+    {
+        if(record.length < RECORD_HEADER_SIZE)
+            return false;
+
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+
+        if(buffer.getLong() != key.High || buffer.getLong() != key.Low)
+            return false;
+
+        int checksum = buffer.getInt();
+        return checksum == payloadChecksum(record, RECORD_HEADER_SIZE, record.length - RECORD_HEADER_SIZE);
+    }
+
+    private static int writeRecord(final DataOutputStream outputStream, final CacheKey key, final byte[] data) throws IOException
+    {
+        outputStream.writeLong(key.High);
+        outputStream.writeLong(key.Low);
+        outputStream.writeInt(payloadChecksum(data, 0, data.length));
+        outputStream.write(data);
+        return RECORD_HEADER_SIZE + data.length;
+    }
+
+    private static int payloadChecksum(final byte[] data, int offset, int length)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int)crc.getValue();
+    }
+
+    // index layout: magic, version, entry count, then per entry the 128-bit key, record offset, record length and day last used
+    private boolean loadIndex(final Map<CacheKey,CacheEntry> entries) throws IOException
+    {
+        if(!Files.exists(mIndexFile) || !Files.exists(mDataFile))
+            return true;
+
+        try(DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(mIndexFile))))
+        {
+            if(inputStream.readInt() != CACHE_MAGIC || inputStream.readInt() != CACHE_VERSION)
+            {
+                SV_LOGGER.warn("ignoring invalid or outdated alignment cache index({})", mIndexFile);
+                return false;
+            }
+
+            int entryCount = inputStream.readInt();
+
+            for(int i = 0; i < entryCount; ++i)
+            {
+                CacheKey key = new CacheKey(inputStream.readLong(), inputStream.readLong());
+                long offset = inputStream.readLong();
+                int length = inputStream.readInt();
+                int lastUsedDay = inputStream.readInt();
+                entries.put(key, new CacheEntry(offset, length, lastUsedDay));
+            }
+        }
+
+        return true;
+    }
+
+    private FileChannel openLockChannel() throws IOException
+    {
+        return FileChannel.open(mLockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private static Object fileKey(final Path file) throws IOException
+    {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    private static class RecordSource
+    {
+        public final FileChannel Channel; // null for alignments added in this run
+        public final CacheEntry Entry;
+        public final byte[] NewData;
+        public int LastUsedDay;
+
+        public RecordSource(final FileChannel channel, final CacheEntry entry, final byte[] newData, int lastUsedDay)
+        {
+            Channel = channel;
+            Entry = entry;
+            NewData = newData;
+            LastUsedDay = lastUsedDay;
+        }
+
+        public boolean isNew() { return NewData != null; }
+    }
+
+    public void close()
+    {
+        SV_LOGGER.info("alignment cache hits({}) misses({})", mHits.get(), mMisses.get());
+
+        try(FileChannel lockChannel = openLockChannel(); FileLock lock = lockChannel.lock())
+        {
+            writeCache();
+        }
+        catch(IOException e)
+        {
+            SV_LOGGER.error("failed to write alignment cache: {}", e.toString());
+        }
+    }
+
+    private void writeCache() throws IOException
+    {
+        // merge with the cache as it is now on disk, since other runs may have added, evicted or compacted since this one loaded it
+        Map<CacheKey,CacheEntry> diskEntries = Maps.newHashMap();
+        boolean validIndex = loadIndex(diskEntries);
+
+        FileChannel diskChannel = Files.exists(mDataFile) ? FileChannel.open(mDataFile, StandardOpenOption.READ) : null;
+        boolean sameDataFile = diskChannel != null && mDataFileKey != null && mDataFileKey.equals(fileKey(mDataFile));
+
+        Map<CacheKey,RecordSource> merged = Maps.newLinkedHashMap();
+        diskEntries.forEach((key, entry) -> merged.put(key, new RecordSource(diskChannel, entry, null, entry.LastUsedDay)));
+
+        for(Map.Entry<CacheKey,CacheEntry> entry : mEntries.entrySet())
+        {
+            RecordSource existing = merged.get(entry.getKey());
+
+            if(existing != null)
+                existing.LastUsedDay = max(existing.LastUsedDay, entry.getValue().LastUsedDay);
+            else if(mDataChannel != null)
+                merged.put(entry.getKey(), new RecordSource(mDataChannel, entry.getValue(), null, entry.getValue().LastUsedDay));
+        }
+
+        // new alignments replace any existing record, which was either invalid or added by another run since this one loaded
+        for(Map.Entry<CacheKey,byte[]> entry : mNewEntries.entrySet())
+        {
+            merged.put(entry.getKey(), new RecordSource(null, null, entry.getValue(), mToday));
+        }
+
+        int minUsedDay = mToday - mMaxAgeDays;
+        int evicted = 0;
+
+        for(Iterator<RecordSource> iter = merged.values().iterator(); iter.hasNext();)
+        {
+            RecordSource source = iter.next();
+
+            if(!source.isNew() && source.LastUsedDay < minUsedDay)
+            {
+                iter.remove();
+                ++evicted;
+            }
+        }
+
+        // records can be appended in place only if every retained one already lies in the current data file
+        boolean canAppend = validIndex && sameDataFile && evicted == 0
+                && merged.values().stream().allMatch(x -> x.isNew() || x.Channel == diskChannel);
+
+        Map<CacheKey,CacheEntry> newIndex = Maps.newLinkedHashMap();
+
+        if(canAppend)
+        {
+            long offset = diskChannel.size();
+
+            try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(mDataFile.toFile(), true))))
+            {
+                for(Map.Entry<CacheKey,RecordSource> entry : merged.entrySet())
+                {
+                    RecordSource source = entry.getValue();
+
+                    if(source.isNew())
+                    {
+                        int length = writeRecord(outputStream, entry.getKey(), source.NewData);
+                        newIndex.put(entry.getKey(), new CacheEntry(offset, length, source.LastUsedDay));
+                        offset += length;
+                    }
+                    else
+                    {
+                        newIndex.put(entry.getKey(), new CacheEntry(source.Entry.Offset, source.Entry.Length, source.LastUsedDay));
+                    }
+                }
+            }
+        }
+        else
+        {
+            // compact by rewriting only the retained and valid records alongside the new ones
+            Path tempDataFile = Paths.get(mDataFile + ".tmp");
+
+            try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempDataFile.toFile()))))
+            {
+                long offset = 0;
+
+                for(Map.Entry<CacheKey,RecordSource> entry : merged.entrySet())
+                {
+                    RecordSource source = entry.getValue();
+                    int length;
+
+                    if(source.isNew())
+                    {
+                        length = writeRecord(outputStream, entry.getKey(), source.NewData);
+                    }
+                    else
+                    {
+                        byte[] record = readRecord(source.Channel, source.Entry);
+
+                        if(!isValidRecord(record, entry.getKey()))
+                            continue;
+
+                        outputStream.write(record);
+                        length = record.length;
+                    }
+
+                    newIndex.put(entry.getKey(), new CacheEntry(offset, length, source.LastUsedDay));
+                    offset += length;
+                }
+            }
+
+            Files.move(tempDataFile, mDataFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if(diskChannel != null)
+            diskChannel.close();
+
+        if(mDataChannel != null)
+            mDataChannel.close();
+
+        writeIndex(newIndex);
+
+        SV_LOGGER.debug("alignment cache entries({}) added({}) evicted({})", newIndex.size(), mNewEntries.size(), evicted);
+    }
+
+    private void writeIndex(final Map<CacheKey,CacheEntry> index) throws IOException
+    {
+        Path tempIndexFile = Paths.get(mIndexFile + ".tmp");
+
+        try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempIndexFile.toFile()))))
+        {
+            outputStream.writeInt(CACHE_MAGIC);
+            outputStream.writeInt(CACHE_VERSION);
+            outputStream.writeInt(index.size());
+
+            for(Map.Entry<CacheKey,CacheEntry> entry : index.entrySet())
+            {
+                outputStream.writeLong(entry.getKey().High);
+                outputStream.writeLong(entry.getKey().Low);
+                outputStream.writeLong(entry.getValue().Offset);
+                outputStream.writeInt(entry.getValue().Length);
+                outputStream.writeInt(entry.getValue().LastUsedDay);
+            }
+        }
+
+        Files.move(tempIndexFile, mIndexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] serialise(final List<BwaMemAlignment> alignments)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream outputStream = new DataOutputStream(bytes);
+
+            outputStream.writeInt(alignments.size());
+
+            for(BwaMemAlignment alignment : alignments)
+            {
+                outputStream.writeInt(alignment.getSamFlag());
+                outputStream.writeInt(alignment.getRefId());
+                outputStream.writeInt(alignment.getRefStart());
+                outputStream.writeInt(alignment.getRefEnd());
+                outputStream.writeInt(alignment.getSeqStart());
+                outputStream.writeInt(alignment.getSeqEnd());
+                outputStream.writeInt(alignment.getMapQual());
+                outputStream.writeInt(alignment.getNMismatches());
+                outputStream.writeInt(alignment.getAlignerScore());
+                outputStream.writeInt(alignment.getSuboptimalScore());
+                writeString(outputStream, alignment.getCigar());
+                writeString(outputStream, alignment.getMDTag());
+                writeString(outputStream, alignment.getXATag());
+                outputStream.writeInt(alignment.getMateRefId());
+                outputStream.writeInt(alignment.getMateRefStart());
+                outputStream.writeInt(alignment.getTemplateLen());
+            }
+
+            outputStream.flush();
+            return bytes.toByteArray();
+        }
+        catch(IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<BwaMemAlignment> deserialise(final byte[] data)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int count = buffer.getInt();
+        List<BwaMemAlignment> alignments = Lists.newArrayListWithCapacity(count);
+
+        for(int i = 0; i < count; ++i)
+        {
+            int samFlag = buffer.getInt();
+            int refId = buffer.getInt();
+            int refStart = buffer.getInt();
+            int refEnd = buffer.getInt();
+            int seqStart = buffer.getInt();
+            int seqEnd = buffer.getInt();
+            int mapQual = buffer.getInt();
+            int nMismatches = buffer.getInt();
+            int alignerScore = buffer.getInt();
+            int suboptimalScore = buffer.getInt();
+            String cigar = readString(buffer);
+            String mdTag = readString(buffer);
+            String xaTag = readString(buffer);
+            int mateRefId = buffer.getInt();
+            int mateRefStart = buffer.getInt();
+            int templateLen = buffer.getInt();
+
+            alignments.add(new BwaMemAlignment(
+                    samFlag, refId, refStart, refEnd, seqStart, seqEnd, mapQual, nMismatches, alignerScore, suboptimalScore,
+                    cigar, mdTag, xaTag, mateRefId, mateRefStart, templateLen));
+        }
+
+        return alignments;
+    }
+
+    private static void writeString(final DataOutputStream outputStream, final String value) throws IOException
+    {
+        if(value == null)
+        {
+            outputStream.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+
+        if(length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,16 +1,14 @@
 package com.hartwig.hmftools.esvee.prep;
 
+import static java.lang.Math.max;
+
 import static com.hartwig.hmftools.esvee.assembly.AssemblyConfig.SV_LOGGER;
-import static com.hartwig.hmftools.esvee.common.FileCommon.writeSortedBam;
 import static com.hartwig.hmftools.esvee.prep.PrepConstants.BAM_RECORD_SAMPLE_ID_TAG;
 import static com.hartwig.hmftools.esvee.prep.types.WriteType.BAM;
-import static com.hartwig.hmftools.esvee.prep.types.WriteType.UNSORTED_BAM;
 
 import java.io.File;
-import java.util.List;
 import java.util.Map;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import htsjdk.samtools.SAMFileHeader;
@@ -27,7 +25,6 @@ public class BamWriter
     private int mRecordWriteCount;
 
     private final Map<String,SAMFileWriter> mWriters;
-    private final List<String> mUnsortedBamFiles;
     private final SAMFileWriter mSingleWriter;
 
     public BamWriter(final PrepConfig config)
@@ -35,7 +32,6 @@ public class BamWriter
         mConfig = config;
         mRecordWriteCount = 0;
         mWriters = Maps.newHashMap();
-        mUnsortedBamFiles = Lists.newArrayList();
 
         initialiseWriters();
         mSingleWriter = mWriters.size() > 1 || mWriters.isEmpty() ? null : mWriters.get(mConfig.sampleId());
@@ -46,19 +42,28 @@ public class BamWriter
         if(!mConfig.WriteTypes.contains(BAM))
             return;
 
+        // partitions complete out of order and candidate reads are only assigned at the end, so records are sorted in-process:
+        // held in memory, spilled as sorted runs only if exceeding the limit, then merged into the indexed output BAM on close,
+        // with the configured limit divided between the samples' writers
+        int maxRecordsInRam = max(mConfig.BamSortMaxRecords / mConfig.SampleIds.size(), 1);
+
+        SAMFileWriterFactory writerFactory = new SAMFileWriterFactory()
+                .setCreateIndex(true)
+                .setMaxRecordsInRam(maxRecordsInRam)
+                .setTempDirectory(new File(mConfig.OutputDir));
+
         for(int i = 0; i < mConfig.SampleIds.size(); ++i)
         {
             String sampleId = mConfig.SampleIds.get(i);
             String bamFile = mConfig.BamFiles.get(i);
             SamReader samReader = SamReaderFactory.makeDefault().referenceSequence(new File(mConfig.RefGenomeFile)).open(new File(bamFile));
 
-            String unsortedBamFile = mConfig.formFilename(UNSORTED_BAM, sampleId);
-            mUnsortedBamFiles.add(unsortedBamFile);
+            String sortedBamFile = mConfig.formFilename(BAM, sampleId);
 
             SAMFileHeader fileHeader = samReader.getFileHeader().clone();
-            fileHeader.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+            fileHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
 
-            mWriters.put(sampleId, new SAMFileWriterFactory().makeBAMWriter(fileHeader, false, new File(unsortedBamFile)));
+            mWriters.put(sampleId, writerFactory.makeBAMWriter(fileHeader, false, new File(sortedBamFile)));
         }
     }
 
@@ -85,15 +90,10 @@ public class BamWriter
 
         SV_LOGGER.info("{} records written to BAM", mRecordWriteCount);
 
-        for(int i = 0; i < mConfig.SampleIds.size(); ++i)
+        for(String sampleId : mConfig.SampleIds)
         {
-            String sampleId = mConfig.SampleIds.get(i);
+            SV_LOGGER.info("writing sorted BAM: {}", mConfig.formFilename(BAM, sampleId));
             mWriters.get(sampleId).close();
-
-            String unsortedBam = mUnsortedBamFiles.get(i);
-            String sortedBam = mConfig.formFilename(BAM, sampleId);
-
-            writeSortedBam(unsortedBam, sortedBam, mConfig.BamToolPath, mConfig.Threads);
         }
     }
 }
@@ -4,6 +4,7 @@ import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsSt
 import static com.hartwig.hmftools.esvee.assembly.AssemblyConfig.SV_LOGGER;
 import static com.hartwig.hmftools.esvee.common.FileCommon.APP_NAME;
 import static com.hartwig.hmftools.esvee.prep.types.DiscordantStats.writeDiscordantStats;
+import static com.hartwig.hmftools.esvee.prep.types.WriteType.BAM;
 
 import java.util.stream.Collectors;
 
@@ -76,8 +77,8 @@ public class PrepApplication
             mSpanningReadCache.candidateBamWriter().assignCandidateReads(mWriter);
         }
 
-        if(mConfig.BamToolPath != null)
-            System.gc(); // call to free up prep memory before the BAM tools sort & index routines are run
+        if(mConfig.WriteTypes.contains(BAM))
+            System.gc(); // call to free up prep memory before the sorted BAM is merged and indexed
 
         mWriter.close();
 
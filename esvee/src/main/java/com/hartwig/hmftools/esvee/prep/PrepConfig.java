@@ -30,6 +30,7 @@ import static com.hartwig.hmftools.esvee.common.FileCommon.formOutputFile;
 import static com.hartwig.hmftools.esvee.common.SvConstants.LOW_BASE_QUAL_THRESHOLD;
 import static com.hartwig.hmftools.esvee.common.SvConstants.MIN_INDEL_LENGTH;
 import static com.hartwig.hmftools.esvee.common.SvConstants.MIN_MAP_QUALITY;
+import static com.hartwig.hmftools.esvee.prep.PrepConstants.DEFAULT_BAM_SORT_MAX_RECORDS;
 import static com.hartwig.hmftools.esvee.prep.PrepConstants.DEFAULT_CHR_PARTITION_SIZE;
 import static com.hartwig.hmftools.esvee.prep.PrepConstants.DEFAULT_MAX_FRAGMENT_LENGTH;
 import static com.hartwig.hmftools.esvee.prep.PrepConstants.DEFAULT_READ_LENGTH;
@@ -100,6 +101,7 @@ public class PrepConfig
     public final int MaxFragmentLengthOverride;
 
     public final boolean NoCleanUp;
+    public final int BamSortMaxRecords;
 
     private boolean mIsValid;
 
@@ -123,6 +125,7 @@ public class PrepConfig
     private static final String NO_TRIM_READ_ID = "no_trim_read_id";
     private static final String UNPAIRED_READS = "unpaired_reads";
     private static final String MAX_FRAG_LENGTH_OVERRIDE = "max_frag_length_override";
+    private static final String BAM_SORT_MAX_RECORDS = "bam_sort_max_records";
 
     public PrepConfig(final ConfigBuilder configBuilder)
     {
@@ -205,6 +208,7 @@ public class PrepConfig
         UseCacheBam = !configBuilder.hasFlag(NO_CACHE_BAM) && !SpecificChrRegions.hasFilters();
         TrackRemotes = configBuilder.hasFlag(TRACK_REMOTES);
         NoCleanUp = configBuilder.hasFlag(NO_CLEAN_UP);
+        BamSortMaxRecords = configBuilder.getInteger(BAM_SORT_MAX_RECORDS);
         PerfDebug = configBuilder.hasFlag(PERF_DEBUG);
     }
 
@@ -234,10 +238,6 @@ public class PrepConfig
                 fileExtension = "reads" + TSV_EXTENSION;
                 break;
 
-            case UNSORTED_BAM:
-                fileExtension = "unsorted.bam";
-                break;
-
             case BAM:
                 fileExtension = "bam";
                 break;
@@ -306,6 +306,7 @@ public class PrepConfig
         TrimReadId = false;
         UnpairedReads = false;
         NoCleanUp = false;
+        BamSortMaxRecords = DEFAULT_BAM_SORT_MAX_RECORDS;
         MaxFragmentLengthOverride = -1;
     }
 
@@ -330,6 +331,11 @@ public class PrepConfig
         configBuilder.addFlag(NO_CLEAN_UP, "Keep candidate cache BAM files");
         configBuilder.addFlag(PERF_DEBUG, PERF_DEBUG_DESC);
         configBuilder.addInteger(MAX_FRAG_LENGTH_OVERRIDE, "Set max fragment length instead of calculating", -1);
+
+        configBuilder.addInteger(
+                BAM_SORT_MAX_RECORDS, "Records held in memory while sorting the output BAMs, shared across samples",
+                DEFAULT_BAM_SORT_MAX_RECORDS);
+
         addValidationStringencyOption(configBuilder);
         ReadFilterConfig.addConfig(configBuilder);
         BamToolName.addConfig(configBuilder);
@@ -23,6 +23,10 @@ public final class PrepConstants
 
     public static final int DEFAULT_READ_LENGTH = 151;
 
+    // records held in memory by the sorting BAM writers before they spill sorted runs to disk, shared across all samples and
+    // matching htsjdk's default
+    public static final int DEFAULT_BAM_SORT_MAX_RECORDS = 500_000;
+
     // candidate junction fragments
     public static final int MIN_ALIGNMENT_BASES = 50;
     public static final int MIN_CALC_ALIGNMENT_SCORE = 40;
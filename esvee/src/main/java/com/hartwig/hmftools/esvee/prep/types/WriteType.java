@@ -5,7 +5,6 @@ public enum WriteType
     JUNCTIONS,
     READS,
     BAM,
-    UNSORTED_BAM,
     CACHE_BAM,
     FRAGMENT_LENGTH_DIST,
     DISCORDANT_STATS;
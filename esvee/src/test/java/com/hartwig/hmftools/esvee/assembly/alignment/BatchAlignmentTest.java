@@ -0,0 +1,139 @@
+package com.hartwig.hmftools.esvee.assembly.alignment;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.V37;
+import static com.hartwig.hmftools.common.genome.region.Orientation.FORWARD;
+import static com.hartwig.hmftools.common.genome.region.Orientation.REVERSE;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.esvee.TestUtils.REF_BASES_600;
+import static com.hartwig.hmftools.esvee.assembly.AssemblyTestUtils.createAssemblyAlignment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.test.MockRefGenome;
+
+import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
+import org.junit.Test;
+
+public class BatchAlignmentTest
+{
+    private static final int SUPP_LENGTH = 10;
+
+    // returns pre-registered alignments for each sequence, and records each call
+    private static class MockAligner implements Aligner
+    {
+        public final Map<String,List<BwaMemAlignment>> Alignments = Maps.newHashMap();
+        public int Calls = 0;
+
+        @Override
+        public List<BwaMemAlignment> alignSequence(final byte[] bases)
+        {
+            List<BwaMemAlignment> alignments = Alignments.get(new String(bases));
+            assertNotNull(alignments);
+            return alignments;
+        }
+
+        @Override
+        public List<List<BwaMemAlignment>> alignSequences(final List<byte[]> sequences)
+        {
+            ++Calls;
+            return Aligner.super.alignSequences(sequences);
+        }
+    }
+
+    private static int requeryRefStart(int assemblyIndex, int suppIndex) { return 100000 * (assemblyIndex + 1) + 1000 * suppIndex; }
+
+    @Test
+    public void testRequeryResultsMapToTheirAssembly()
+    {
+        MockRefGenome refGenome = new MockRefGenome();
+        refGenome.RefGenomeMap.put(CHR_1, REF_BASES_600);
+
+        // assemblies with differing numbers of supplementaries, including none, each in their own inserted bases
+        int[] suppCounts = { 2, 0, 1, 3 };
+
+        MockAligner aligner = new MockAligner();
+        List<AssemblyAlignment> assemblyAlignments = Lists.newArrayList();
+
+        for(int i = 0; i < suppCounts.length; ++i)
+        {
+            String insertedBases = REF_BASES_600.substring(400 + i * 40, 440 + i * 40);
+
+            AssemblyAlignment assemblyAlignment = createAssemblyAlignment(
+                    refGenome, CHR_1, 121 + i * 10, FORWARD, CHR_1, 202 + i * 10, REVERSE, insertedBases, "");
+
+            assemblyAlignments.add(assemblyAlignment);
+
+            String fullSequence = assemblyAlignment.fullSequence();
+            int insertIndex = fullSequence.indexOf(insertedBases);
+            assertTrue(insertIndex > 0);
+
+            List<BwaMemAlignment> alignments = Lists.newArrayList();
+
+            alignments.add(new BwaMemAlignment(
+                    0, 0, 1000 * (i + 1), 1000 * (i + 1) + insertIndex, 0, insertIndex, 60, 0, insertIndex, 0,
+                    insertIndex + "M", String.valueOf(insertIndex), null, -1, -1, 0));
+
+            for(int j = 0; j < suppCounts[i]; ++j)
+            {
+                int seqStart = insertIndex + j * SUPP_LENGTH;
+                int seqEnd = seqStart + SUPP_LENGTH;
+
+                alignments.add(new BwaMemAlignment(
+                        2048, 1, 5000, 5000 + SUPP_LENGTH, seqStart, seqEnd, 10, 0, SUPP_LENGTH, 0,
+                        SUPP_LENGTH + "M", String.valueOf(SUPP_LENGTH), null, -1, -1, 0));
+
+                // each requeried sequence aligns to a location identifying its assembly and supplementary
+                int refStart = requeryRefStart(i, j);
+
+                aligner.Alignments.put(fullSequence.substring(seqStart, seqEnd), List.of(new BwaMemAlignment(
+                        0, 1, refStart, refStart + SUPP_LENGTH, 0, SUPP_LENGTH, 60, 0, SUPP_LENGTH, 0,
+                        SUPP_LENGTH + "M", String.valueOf(SUPP_LENGTH), null, -1, -1, 0)));
+            }
+
+            aligner.Alignments.put(fullSequence, alignments);
+        }
+
+        List<Alignment.BatchAlignment> batchAlignments = Alignment.alignBatch(aligner, V37, assemblyAlignments);
+
+        // one call for the full sequences and another for all requeried supplementaries
+        assertEquals(2, aligner.Calls);
+        assertEquals(assemblyAlignments.size(), batchAlignments.size());
+
+        for(int i = 0; i < suppCounts.length; ++i)
+        {
+            Alignment.BatchAlignment batchAlignment = batchAlignments.get(i);
+
+            assertEquals(suppCounts[i], batchAlignment.RequeriedAlignments.size());
+            assertEquals(1 + suppCounts[i], batchAlignment.Alignments.size());
+
+            AlignData primary = batchAlignment.Alignments.get(0);
+            assertEquals(CHR_1, primary.refLocation().Chromosome);
+            assertEquals(1000 * (i + 1) + 1, primary.refLocation().start());
+
+            int insertIndex = assemblyAlignments.get(i).fullSequence().indexOf(REF_BASES_600.substring(400 + i * 40, 440 + i * 40));
+
+            for(int j = 0; j < suppCounts[i]; ++j)
+            {
+                AlignData requeried = batchAlignment.Alignments.get(1 + j);
+                assertFalse(requeried.isSupplementary());
+                assertEquals(CHR_2, requeried.refLocation().Chromosome);
+                assertEquals(requeryRefStart(i, j) + 1, requeried.refLocation().start());
+
+                // coordinates are restored to those of the assembly's full sequence
+                assertEquals(insertIndex + j * SUPP_LENGTH, requeried.sequenceStart());
+                assertEquals(insertIndex + (j + 1) * SUPP_LENGTH - 1, requeried.sequenceEnd());
+
+                assertEquals(insertIndex + j * SUPP_LENGTH, batchAlignment.RequeriedAlignments.get(j).rawSequenceStart());
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.hartwig.hmftools.esvee.assembly.alignment;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.V37;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.V38;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
+import org.junit.Test;
+
+public class CachingAlignerTest
+{
+    private static final String ALIGNER_VERSION = "bwa-test";
+
+    private static class CountingAligner implements Aligner
+    {
+        public int Calls = 0;
+
+        @Override
+        public List<BwaMemAlignment> alignSequence(final byte[] bases)
+        {
+            ++Calls;
+
+            return List.of(
+                    new BwaMemAlignment(0, 1, 100, 100 + bases.length, 0, bases.length, 60, 1, bases.length, 0,
+                            bases.length + "M", String.valueOf(bases.length), null, -1, -1, 0),
+                    new BwaMemAlignment(2048, 2, 500, 520, 0, 20, 5, 0, 20, 19,
+                            "20M", "20", "3,+100,20M,0;", -1, -1, 0));
+        }
+    }
+
+    @Test
+    public void testCacheReuseAcrossRuns() throws IOException
+    {
+        File cacheDir = Files.createTempDirectory("esvee_align_cache").toFile();
+        cacheDir.deleteOnExit();
+
+        List<byte[]> sequences = List.of("ACGTACGTAAGG".getBytes(), "TTTTGGGGCCCCAAAA".getBytes());
+
+        CountingAligner bwaAligner = new CountingAligner();
+        CachingAligner cachingAligner = new CachingAligner(bwaAligner, cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+
+        List<List<BwaMemAlignment>> alignments = cachingAligner.alignSequences(sequences);
+        assertEquals(2, bwaAligner.Calls);
+        assertEquals(2, cachingAligner.misses());
+
+        // repeated sequences within a run are served from the pending entries
+        cachingAligner.alignSequences(sequences);
+        assertEquals(2, bwaAligner.Calls);
+        assertEquals(2, cachingAligner.hits());
+
+        cachingAligner.close();
+
+        // a new run reads them back from disk
+        bwaAligner = new CountingAligner();
+        cachingAligner = new CachingAligner(bwaAligner, cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+
+        List<List<BwaMemAlignment>> cachedAlignments = cachingAligner.alignSequences(sequences);
+        assertEquals(0, bwaAligner.Calls);
+        assertEquals(2, cachingAligner.hits());
+
+        for(int i = 0; i < sequences.size(); ++i)
+        {
+            assertEquals(alignments.get(i).size(), cachedAlignments.get(i).size());
+
+            for(int j = 0; j < alignments.get(i).size(); ++j)
+            {
+                BwaMemAlignment expected = alignments.get(i).get(j);
+                BwaMemAlignment actual = cachedAlignments.get(i).get(j);
+
+                assertEquals(expected.getSamFlag(), actual.getSamFlag());
+                assertEquals(expected.getRefId(), actual.getRefId());
+                assertEquals(expected.getRefStart(), actual.getRefStart());
+                assertEquals(expected.getRefEnd(), actual.getRefEnd());
+                assertEquals(expected.getMapQual(), actual.getMapQual());
+                assertEquals(expected.getAlignerScore(), actual.getAlignerScore());
+                assertEquals(expected.getCigar(), actual.getCigar());
+                assertEquals(expected.getMDTag(), actual.getMDTag());
+                assertEquals(expected.getXATag(), actual.getXATag());
+            }
+        }
+
+        cachingAligner.close();
+
+        // a different reference genome does not share entries
+        bwaAligner = new CountingAligner();
+        cachingAligner = new CachingAligner(bwaAligner, cacheDir.getPath(), V37, "ref.img", ALIGNER_VERSION, 30);
+        cachingAligner.alignSequences(sequences);
+        assertEquals(2, bwaAligner.Calls);
+        cachingAligner.close();
+
+        // entries unused for longer than the max age are evicted on close
+        cachingAligner = new CachingAligner(new CountingAligner(), cacheDir.getPath(), V37, "ref.img", ALIGNER_VERSION, -1);
+        cachingAligner.close();
+
+        bwaAligner = new CountingAligner();
+        cachingAligner = new CachingAligner(bwaAligner, cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+        cachingAligner.alignSequences(sequences);
+        assertEquals(2, bwaAligner.Calls);
+        cachingAligner.close();
+
+        // a different aligner version does not share entries
+        bwaAligner = new CountingAligner();
+        cachingAligner = new CachingAligner(bwaAligner, cacheDir.getPath(), V38, "ref.img", "bwa-other", 30);
+        cachingAligner.alignSequences(sequences);
+        assertEquals(2, bwaAligner.Calls);
+        cachingAligner.close();
+
+        deleteCache(cacheDir);
+    }
+
+    @Test
+    public void testConcurrentRunsMergeEntries() throws IOException
+    {
+        File cacheDir = Files.createTempDirectory("esvee_align_cache").toFile();
+        cacheDir.deleteOnExit();
+
+        byte[] sequence1 = "ACGTACGTAAGG".getBytes();
+        byte[] sequence2 = "TTTTGGGGCCCCAAAA".getBytes();
+        byte[] sequence3 = "GGGGAAAACCCCTT".getBytes();
+
+        CachingAligner firstRun = new CachingAligner(new CountingAligner(), cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+        firstRun.alignSequences(List.of(sequence1));
+        firstRun.close();
+
+        // two runs load the same cache, then each adds its own alignments
+        CachingAligner secondRun = new CachingAligner(new CountingAligner(), cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+        CachingAligner thirdRun = new CachingAligner(new CountingAligner(), cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+
+        secondRun.alignSequences(List.of(sequence1, sequence2));
+        thirdRun.alignSequences(List.of(sequence1, sequence3));
+
+        secondRun.close();
+        thirdRun.close();
+
+        // a run which evicts and compacts the cache must not drop entries or leave stale offsets for one which loaded it earlier
+        CachingAligner evictingRun = new CachingAligner(new CountingAligner(), cacheDir.getPath(), V37, "ref.img", ALIGNER_VERSION, -1);
+        CachingAligner appendingRun = new CachingAligner(new CountingAligner(), cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+
+        evictingRun.alignSequences(List.of(sequence1));
+        evictingRun.close();
+
+        appendingRun.alignSequences(List.of(sequence3));
+        appendingRun.close();
+
+        CountingAligner bwaAligner = new CountingAligner();
+        CachingAligner finalRun = new CachingAligner(bwaAligner, cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+        List<List<BwaMemAlignment>> alignments = finalRun.alignSequences(List.of(sequence1, sequence2, sequence3));
+
+        assertEquals(0, bwaAligner.Calls);
+        assertEquals(3, finalRun.hits());
+
+        for(int i = 0; i < alignments.size(); ++i)
+        {
+            int seqLength = List.of(sequence1, sequence2, sequence3).get(i).length;
+            assertEquals(seqLength + "M", alignments.get(i).get(0).getCigar());
+        }
+
+        finalRun.close();
+
+        deleteCache(cacheDir);
+    }
+
+    @Test
+    public void testCorruptRecordIsMiss() throws IOException
+    {
+        File cacheDir = Files.createTempDirectory("esvee_align_cache").toFile();
+        cacheDir.deleteOnExit();
+
+        List<byte[]> sequences = List.of("ACGTACGTAAGG".getBytes());
+
+        CachingAligner cachingAligner = new CachingAligner(new CountingAligner(), cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+        cachingAligner.alignSequences(sequences);
+        cachingAligner.close();
+
+        // overwrite part of the stored alignments so the record no longer matches its checksum
+        File dataFile = new File(cacheDir, "esvee.align_cache.dat");
+
+        try(RandomAccessFile file = new RandomAccessFile(dataFile, "rw"))
+        {
+            file.seek(file.length() - 8);
+            file.writeLong(-1);
+        }
+
+        CountingAligner bwaAligner = new CountingAligner();
+        cachingAligner = new CachingAligner(bwaAligner, cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+        List<List<BwaMemAlignment>> alignments = cachingAligner.alignSequences(sequences);
+
+        assertEquals(1, bwaAligner.Calls);
+        assertEquals(0, cachingAligner.hits());
+        assertNotNull(alignments.get(0));
+        assertEquals(2, alignments.get(0).size());
+        cachingAligner.close();
+
+        // the record is replaced by the fresh alignment
+        bwaAligner = new CountingAligner();
+        cachingAligner = new CachingAligner(bwaAligner, cacheDir.getPath(), V38, "ref.img", ALIGNER_VERSION, 30);
+        cachingAligner.alignSequences(sequences);
+        assertEquals(0, bwaAligner.Calls);
+        cachingAligner.close();
+
+        deleteCache(cacheDir);
+    }
+
+    private static void deleteCache(final File cacheDir)
+    {
+        for(File file : cacheDir.listFiles())
+        {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.hartwig.hmftools.esvee.prep;
+
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.SAM_DICTIONARY_V37;
+import static com.hartwig.hmftools.esvee.prep.PrepConstants.BAM_RECORD_SAMPLE_ID_TAG;
+import static com.hartwig.hmftools.esvee.prep.types.WriteType.BAM;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.FileExtensions;
+
+public class BamWriterTest
+{
+    private static final String SAMPLE_1 = "SAMPLE_1";
+    private static final String SAMPLE_2 = "SAMPLE_2";
+    private static final int READ_COUNT = 500;
+
+    private File mTempDir;
+
+    @Before
+    public void setup() throws IOException
+    {
+        mTempDir = Files.createTempDirectory("esvee_prep_bam").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        File[] files = mTempDir.listFiles();
+
+        if(files != null)
+        {
+            for(File file : files)
+            {
+                file.delete();
+            }
+        }
+
+        mTempDir.delete();
+    }
+
+    @Test
+    public void testSortedIndexedBams() throws IOException
+    {
+        // a small in-memory limit forces sorted runs to be spilled to disk and merged
+        PrepConfig config = createConfig(40);
+        assertTrue(config.WriteTypes.contains(BAM));
+
+        BamWriter bamWriter = new BamWriter(config);
+
+        SAMFileHeader header = createHeader();
+        List<SAMRecord> records = Lists.newArrayList();
+
+        for(int i = 0; i < READ_COUNT; ++i)
+        {
+            String sampleId = (i % 2) == 0 ? SAMPLE_1 : SAMPLE_2;
+            records.add(createRecord(header, i, sampleId));
+        }
+
+        // partitions complete out of order, so records arrive unsorted
+        Collections.shuffle(records, new Random(1));
+        records.forEach(bamWriter::writeRecord);
+
+        bamWriter.close();
+
+        for(String sampleId : List.of(SAMPLE_1, SAMPLE_2))
+        {
+            File bamFile = new File(config.formFilename(BAM, sampleId));
+            assertTrue(bamFile.exists());
+
+            try(SamReader samReader = SamReaderFactory.makeDefault().open(bamFile))
+            {
+                assertEquals(SAMFileHeader.SortOrder.coordinate, samReader.getFileHeader().getSortOrder());
+                assertTrue(samReader.hasIndex());
+
+                int recordCount = 0;
+                int lastRefIndex = -1;
+                int lastPosition = 0;
+
+                try(SAMRecordIterator iter = samReader.iterator())
+                {
+                    while(iter.hasNext())
+                    {
+                        SAMRecord record = iter.next();
+                        ++recordCount;
+
+                        assertNull(record.getStringAttribute(BAM_RECORD_SAMPLE_ID_TAG));
+                        assertEquals(sampleId, sampleFromReadId(record.getReadName()));
+
+                        int refIndex = record.getReferenceIndex();
+                        assertTrue(refIndex > lastRefIndex || (refIndex == lastRefIndex && record.getAlignmentStart() >= lastPosition));
+
+                        lastRefIndex = refIndex;
+                        lastPosition = record.getAlignmentStart();
+                    }
+                }
+
+                assertEquals(READ_COUNT / 2, recordCount);
+
+                // the index resolves queries against each chromosome's records
+                for(String chromosome : List.of("1", "2", "3"))
+                {
+                    int queryCount = 0;
+
+                    try(SAMRecordIterator iter = samReader.queryOverlapping(chromosome, 1, 100000))
+                    {
+                        while(iter.hasNext())
+                        {
+                            SAMRecord record = iter.next();
+                            assertEquals(chromosome, record.getReferenceName());
+                            ++queryCount;
+                        }
+                    }
+
+                    assertTrue(queryCount > 0);
+                }
+
+                try(SAMRecordIterator iter = samReader.queryOverlapping("4", 1, 100000))
+                {
+                    assertFalse(iter.hasNext());
+                }
+            }
+        }
+    }
+
+    private PrepConfig createConfig(int maxRecordsInRam) throws IOException
+    {
+        String bamFile1 = writeInputBam(SAMPLE_1);
+        String bamFile2 = writeInputBam(SAMPLE_2);
+
+        File refGenomeFile = new File(mTempDir, "ref_genome.fasta");
+        Files.writeString(refGenomeFile.toPath(), ">1\nACGT\n");
+
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        PrepConfig.registerConfig(configBuilder);
+
+        String[] args = {
+                "-sample", SAMPLE_1 + "," + SAMPLE_2,
+                "-bam_file", bamFile1 + "," + bamFile2,
+                "-ref_genome", refGenomeFile.getAbsolutePath(),
+                "-ref_genome_version", "37",
+                "-output_dir", mTempDir.getAbsolutePath(),
+                "-write_types", BAM.toString(),
+                "-bam_sort_max_records", String.valueOf(maxRecordsInRam) };
+
+        assertTrue(configBuilder.parseCommandLine(args));
+
+        return new PrepConfig(configBuilder);
+    }
+
+    private String writeInputBam(final String sampleId)
+    {
+        File bamFile = new File(mTempDir, sampleId + ".input" + FileExtensions.BAM);
+
+        try(SAMFileWriter writer = new SAMFileWriterFactory().makeBAMWriter(createHeader(), false, bamFile))
+        {
+            // only the header is required
+        }
+
+        return bamFile.getAbsolutePath();
+    }
+
+    private static SAMFileHeader createHeader()
+    {
+        SAMFileHeader header = new SAMFileHeader(SAM_DICTIONARY_V37);
+        header.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+        return header;
+    }
+
+    private static SAMRecord createRecord(final SAMFileHeader header, int index, final String sampleId)
+    {
+        SAMRecord record = new SAMRecord(header);
+        record.setReadName(String.format("%s_READ_%03d", sampleId, index));
+        record.setReferenceName(String.valueOf(1 + index % 3));
+        record.setAlignmentStart(1000 + (index * 37) % 5000);
+        record.setCigarString("20M");
+        record.setReadString("ACGTACGTACGTACGTACGT");
+        record.setBaseQualityString("IIIIIIIIIIIIIIIIIIII");
+        record.setMappingQuality(60);
+        record.setAttribute(BAM_RECORD_SAMPLE_ID_TAG, sampleId);
+        return record;
+    }
+
+    private static String sampleFromReadId(final String readId)
+    {
+        return readId.substring(0, readId.indexOf("_READ_"));
+    }
+}
@@ -0,0 +1,322 @@
+package com.hartwig.hmftools.fastqtools;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.fastqtools.FastqCommon.FQ_LOGGER;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.fastq.FastqRecord;
+
+// reads a pair of FASTQs in batches of records - R1 and R2 are each decoded on their own thread, with the R1 thread filling a batch
+// and passing it on for the R2 thread to complete, so consumers take whole batches and only the queues are shared between threads
+public class BatchPairedFastqReader
+{
+    private final BufferedReader mFastq1Reader;
+    private final BufferedReader mFastq2Reader;
+    private final int mMaxPairedFastqRead;
+
+    private final BlockingQueue<FastqPairBatch> mFreeBatches;
+    private final BlockingQueue<FastqPairBatch> mFastq2Batches;
+    private final BlockingQueue<FastqPairBatch> mCompleteBatches;
+
+    private final Thread mFastq1Thread;
+    private final Thread mFastq2Thread;
+
+    private boolean mStopAtShorterFastq;
+
+    private volatile String mError;
+    private volatile boolean mFastq2Ended;
+
+    public static final int DEFAULT_BATCH_SIZE = 2000;
+
+    public static final int FASTQ_ITEM_ID = 0;
+    public static final int FASTQ_ITEM_BASES = 1;
+    public static final int FASTQ_ITEM_SPARE = 2;
+    public static final int FASTQ_ITEM_QUALS = 3;
+    public static final int FASTQ_LINE_COUNT = 4;
+
+    private static final FastqPairBatch END_OF_DATA = new FastqPairBatch(0);
+
+    public BatchPairedFastqReader(
+            final BufferedReader fastq1Reader, final BufferedReader fastq2Reader, int consumerCount, int batchSize, int maxPairedFastqRead)
+    {
+        mFastq1Reader = fastq1Reader;
+        mFastq2Reader = fastq2Reader;
+        mMaxPairedFastqRead = maxPairedFastqRead;
+        mStopAtShorterFastq = false;
+        mError = null;
+        mFastq2Ended = false;
+
+        // each consumer can hold a batch while another is queued for it and the decoders fill one each
+        int batchCount = 2 * consumerCount + 2;
+
+        mFreeBatches = new ArrayBlockingQueue<>(batchCount);
+        mFastq2Batches = new ArrayBlockingQueue<>(batchCount + 1);
+        mCompleteBatches = new ArrayBlockingQueue<>(batchCount + 1);
+
+        for(int i = 0; i < batchCount; ++i)
+        {
+            mFreeBatches.add(new FastqPairBatch(batchSize));
+        }
+
+        mFastq1Thread = new Thread(this::readFastq1, "fastq1-reader");
+        mFastq2Thread = new Thread(this::readFastq2, "fastq2-reader");
+        mFastq1Thread.setDaemon(true);
+        mFastq2Thread.setDaemon(true);
+    }
+
+    public BatchPairedFastqReader(final BufferedReader fastq1Reader, final BufferedReader fastq2Reader, int consumerCount)
+    {
+        this(fastq1Reader, fastq2Reader, consumerCount, DEFAULT_BATCH_SIZE, -1);
+    }
+
+    // by default differing record counts or a truncated record are errors, otherwise pairs end with the shorter file
+    public void setStopAtShorterFastq() { mStopAtShorterFastq = true; }
+
+    public void start()
+    {
+        mFastq1Thread.start();
+        mFastq2Thread.start();
+    }
+
+    // returns null once all pairs have been read, and must be given back via recycle() once its records have been used
+    @Nullable
+    public FastqPairBatch nextBatch()
+    {
+        FastqPairBatch batch = takeBatch(mCompleteBatches);
+
+        if(batch == END_OF_DATA)
+        {
+            // leave the marker for any other consumers
+            mCompleteBatches.add(END_OF_DATA);
+
+            if(mError != null)
+                throw new RuntimeException(mError);
+
+            return null;
+        }
+
+        return batch;
+    }
+
+    public void recycle(final FastqPairBatch batch)
+    {
+        batch.clear();
+        mFreeBatches.add(batch);
+    }
+
+    private void readFastq1()
+    {
+        long pairCount = 0;
+
+        try
+        {
+            while(true)
+            {
+                FastqPairBatch batch = takeBatch(mFreeBatches);
+
+                // stop reading as soon as fastq2 has ended or failed, rather than running on through the rest of fastq1
+                while(!batch.isFull() && (mMaxPairedFastqRead <= 0 || pairCount < mMaxPairedFastqRead) && !mFastq2Ended && mError == null)
+                {
+                    if(!readRecord(mFastq1Reader, batch.mFastq1Lines, batch.mSize))
+                        break;
+
+                    ++batch.mSize;
+                    ++pairCount;
+                }
+
+                if(batch.mSize == 0 || mError != null)
+                {
+                    // any records read after an error are dropped
+                    batch.clear();
+                    mFreeBatches.add(batch);
+                    break;
+                }
+
+                // the batch may be completed and recycled as soon as it is passed on
+                boolean moreRecords = batch.isFull();
+
+                mFastq2Batches.add(batch);
+
+                if(!moreRecords)
+                    break;
+            }
+        }
+        catch(Exception e)
+        {
+            mError = format("fastq1 read failed: %s", e);
+        }
+
+        mFastq2Batches.add(END_OF_DATA);
+    }
+
+    private void readFastq2()
+    {
+        try
+        {
+            while(true)
+            {
+                FastqPairBatch batch = takeBatch(mFastq2Batches);
+
+                if(batch == END_OF_DATA)
+                    break;
+
+                if(mFastq2Ended || mError != null)
+                {
+                    // keep draining so the fastq1 thread is never left waiting on a free batch
+                    recycle(batch);
+                    continue;
+                }
+
+                int pairCount = 0;
+
+                while(pairCount < batch.mSize && readRecord(mFastq2Reader, batch.mFastq2Lines, pairCount))
+                {
+                    ++pairCount;
+                }
+
+                if(pairCount < batch.mSize)
+                {
+                    if(!mStopAtShorterFastq)
+                    {
+                        mError = "fastq2 read failed: Fastq2 reader ran out of records before Fastq1";
+                        recycle(batch);
+                        continue;
+                    }
+
+                    mFastq2Ended = true;
+                    batch.truncate(pairCount);
+
+                    if(pairCount == 0)
+                    {
+                        recycle(batch);
+                        continue;
+                    }
+                }
+
+                mCompleteBatches.add(batch);
+            }
+
+            if(mError == null && !mStopAtShorterFastq && mMaxPairedFastqRead <= 0 && mFastq2Reader.readLine() != null)
+                throw new IOException("Fastq1 reader ran out of records before Fastq2");
+        }
+        catch(Exception e)
+        {
+            if(mError == null)
+                mError = format("fastq2 read failed: %s", e);
+        }
+
+        if(mError != null)
+            FQ_LOGGER.error(mError);
+
+        mCompleteBatches.add(END_OF_DATA);
+    }
+
+    private boolean readRecord(final BufferedReader reader, final String[] lines, int recordIndex) throws IOException
+    {
+        int lineIndex = recordIndex * FASTQ_LINE_COUNT;
+
+        lines[lineIndex] = reader.readLine();
+
+        if(lines[lineIndex] == null)
+            return false;
+
+        for(int i = 1; i < FASTQ_LINE_COUNT; ++i)
+        {
+            lines[lineIndex + i] = reader.readLine();
+
+            if(lines[lineIndex + i] == null)
+            {
+                if(!mStopAtShorterFastq)
+                    throw new IOException("Partial fastq record found.");
+
+                // a trailing partial record is dropped like the end of the file
+                for(int j = 0; j < i; ++j)
+                {
+                    lines[lineIndex + j] = null;
+                }
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static FastqPairBatch takeBatch(final BlockingQueue<FastqPairBatch> queue)
+    {
+        try
+        {
+            return queue.take();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static class FastqPairBatch
+    {
+        // the 4 lines of each record in order, held until the batch is recycled
+        private final String[] mFastq1Lines;
+        private final String[] mFastq2Lines;
+        private int mSize;
+
+        private FastqPairBatch(int capacity)
+        {
+            mFastq1Lines = new String[capacity * FASTQ_LINE_COUNT];
+            mFastq2Lines = new String[capacity * FASTQ_LINE_COUNT];
+            mSize = 0;
+        }
+
+        public int size() { return mSize; }
+        private boolean isFull() { return mSize * FASTQ_LINE_COUNT == mFastq1Lines.length; }
+
+        public String fastq1Line(int index, int item) { return mFastq1Lines[index * FASTQ_LINE_COUNT + item]; }
+        public String fastq2Line(int index, int item) { return mFastq2Lines[index * FASTQ_LINE_COUNT + item]; }
+
+        public FastqRecord fastq1Record(int index) { return toFastqRecord(mFastq1Lines, index); }
+        public FastqRecord fastq2Record(int index) { return toFastqRecord(mFastq2Lines, index); }
+
+        private static FastqRecord toFastqRecord(final String[] lines, int index)
+        {
+            int lineIndex = index * FASTQ_LINE_COUNT;
+
+            // ignore tags
+            String readName = lines[lineIndex + FASTQ_ITEM_ID].split("\\s+", 2)[0].substring(1);
+
+            return new FastqRecord(
+                    readName, lines[lineIndex + FASTQ_ITEM_BASES], lines[lineIndex + FASTQ_ITEM_SPARE], lines[lineIndex + FASTQ_ITEM_QUALS]);
+        }
+
+        private void truncate(int size)
+        {
+            // drop the fastq1 records which have no fastq2 mate
+            for(int i = size * FASTQ_LINE_COUNT; i < mSize * FASTQ_LINE_COUNT; ++i)
+            {
+                mFastq1Lines[i] = null;
+            }
+
+            mSize = size;
+        }
+
+        private void clear()
+        {
+            // release references to the lines
+            for(int i = 0; i < mSize * FASTQ_LINE_COUNT; ++i)
+            {
+                mFastq1Lines[i] = null;
+                mFastq2Lines[i] = null;
+            }
+
+            mSize = 0;
+        }
+    }
+}
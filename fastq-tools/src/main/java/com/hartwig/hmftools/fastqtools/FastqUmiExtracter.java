@@ -152,24 +152,27 @@ public class FastqUmiExtracter
             BufferedReader r1Reader = createBufferedReader(r1File);
             BufferedReader r2Reader = createBufferedReader(r2File);
 
+            // decoding of both files runs ahead on the reader's threads while UMIs are extracted here
+            BatchPairedFastqReader fastqPairReader = new BatchPairedFastqReader(r1Reader, r2Reader, 1);
+            fastqPairReader.setStopAtShorterFastq(); // as before, processing ends with whichever file runs out first
+            fastqPairReader.start();
+
             int lineCount = 0;
 
-            int readLineCount = 0;
-            String[] r1ReadBuffer = new String[READ_ITEM_QUALS+1];
-            String[] r2ReadBuffer = new String[READ_ITEM_QUALS+1];
+            String[] r1ReadBuffer = new String[READ_LINE_COUNT];
+            String[] r2ReadBuffer = new String[READ_LINE_COUNT];
 
-            while(true)
+            BatchPairedFastqReader.FastqPairBatch batch;
+            while((batch = fastqPairReader.nextBatch()) != null)
             {
-                r1ReadBuffer[readLineCount] = r1Reader.readLine();
-                r2ReadBuffer[readLineCount] = r2Reader.readLine();
-
-                if(r1ReadBuffer[readLineCount] == null || r2ReadBuffer[readLineCount] == null)
-                    break;
-
-                ++readLineCount;
-
-                if(readLineCount == READ_LINE_COUNT)
+                for(int r = 0; r < batch.size(); ++r)
                 {
+                    for(int i = 0; i < READ_LINE_COUNT; ++i)
+                    {
+                        r1ReadBuffer[i] = batch.fastq1Line(r, i);
+                        r2ReadBuffer[i] = batch.fastq2Line(r, i);
+                    }
+
                     if(!processReadBases(r1ReadBuffer, r2ReadBuffer))
                     {
                         FQ_LOGGER.error("invalid entries at line({})", lineCount);
@@ -183,17 +186,21 @@ public class FastqUmiExtracter
                         System.exit(1);
                     }
 
-                    readLineCount = 0;
-                }
-
-                ++lineCount;
+                    int priorLineCount = lineCount;
+                    lineCount += READ_LINE_COUNT;
 
-                if(lineCount > 0 && (lineCount % LINE_LOG_COUNT) == 0)
-                {
-                    FQ_LOGGER.info("processed {} lines", lineCount);
+                    if(lineCount / LINE_LOG_COUNT > priorLineCount / LINE_LOG_COUNT)
+                    {
+                        FQ_LOGGER.info("processed {} lines", lineCount);
+                    }
                 }
+
+                fastqPairReader.recycle(batch);
             }
 
+            r1Reader.close();
+            r2Reader.close();
+
             mWriterR1.close();
             mWriterR2.close();
         }
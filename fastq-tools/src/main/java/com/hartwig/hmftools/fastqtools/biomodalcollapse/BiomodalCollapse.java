@@ -21,6 +21,7 @@ import java.util.stream.Collectors;
 
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.fastqtools.BatchPairedFastqReader;
 
 import org.apache.commons.compress.utils.Lists;
 
@@ -87,8 +88,10 @@ public class BiomodalCollapse
                 debugStatsWriter.newLine();
             }
 
-            SynchronizedPairedFastqReader fastqPairReader =
-                    new SynchronizedPairedFastqReader(fastq1Reader, fastq2Reader, mConfig.MaxFastqPairsProcessed);
+            BatchPairedFastqReader fastqPairReader = new BatchPairedFastqReader(
+                    fastq1Reader, fastq2Reader, mConfig.Threads, BatchPairedFastqReader.DEFAULT_BATCH_SIZE, mConfig.MaxFastqPairsProcessed);
+
+            fastqPairReader.start();
 
             if(mConfig.Threads == 1)
             {
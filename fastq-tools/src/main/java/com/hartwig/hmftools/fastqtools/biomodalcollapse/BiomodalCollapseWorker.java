@@ -28,6 +28,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
 
+import com.hartwig.hmftools.fastqtools.BatchPairedFastqReader;
+import com.hartwig.hmftools.fastqtools.BatchPairedFastqReader.FastqPairBatch;
+
 import org.apache.commons.lang3.tuple.Pair;
 import org.jetbrains.annotations.Nullable;
 
@@ -39,7 +42,7 @@ public class BiomodalCollapseWorker extends Thread
 
     public final int ThreadId;
 
-    private final SynchronizedPairedFastqReader mFastqPairReader;
+    private final BatchPairedFastqReader mFastqPairReader;
     private final BufferedWriter mResolvedFastqWriter;
     private final BufferedWriter mDebugStatsWriter;
     private final Map<String, FastqRecord> mRefResolvesFastqMap;
@@ -47,7 +50,7 @@ public class BiomodalCollapseWorker extends Thread
 
     private final NeedlemanWunschAligner<BaseQualPair> mAligner;
 
-    public BiomodalCollapseWorker(int threadId, final SynchronizedPairedFastqReader fastqPairReader,
+    public BiomodalCollapseWorker(int threadId, final BatchPairedFastqReader fastqPairReader,
             final BufferedWriter resolvedFastqWriter, @Nullable final BufferedWriter debugStatsWriter,
             final Map<String, FastqRecord> refResolvesFastqMap, final BiomodalCollapseStats stats)
     {
@@ -64,22 +67,27 @@ public class BiomodalCollapseWorker extends Thread
     @Override
     public void run()
     {
-        Pair<FastqRecord, FastqRecord> fastqPair;
-        while((fastqPair = mFastqPairReader.getNext()) != null)
+        FastqPairBatch batch;
+        while((batch = mFastqPairReader.nextBatch()) != null)
         {
-            FastqRecord resolvedFastq = processFastqPair(fastqPair.getLeft(), fastqPair.getRight());
-
-            int processedFastqPairs = mStats.ProcessedFastqPairCount.incrementAndGet();
-            if(processedFastqPairs % 10_000 == 0)
+            for(int i = 0; i < batch.size(); ++i)
             {
-                FQ_LOGGER.info(format("%d fastq pairs have been processed", processedFastqPairs));
-            }
+                FastqRecord resolvedFastq = processFastqPair(batch.fastq1Record(i), batch.fastq2Record(i));
 
-            if(resolvedFastq != null)
-            {
-                mStats.WrittenConsensusFastqCount.getAndIncrement();
-                BiomodalCollapse.writeResolvedFastqRecord(mResolvedFastqWriter, resolvedFastq);
+                int processedFastqPairs = mStats.ProcessedFastqPairCount.incrementAndGet();
+                if(processedFastqPairs % 10_000 == 0)
+                {
+                    FQ_LOGGER.info(format("%d fastq pairs have been processed", processedFastqPairs));
+                }
+
+                if(resolvedFastq != null)
+                {
+                    mStats.WrittenConsensusFastqCount.getAndIncrement();
+                    BiomodalCollapse.writeResolvedFastqRecord(mResolvedFastqWriter, resolvedFastq);
+                }
             }
+
+            mFastqPairReader.recycle(batch);
         }
     }
 
@@ -0,0 +1,325 @@
+package com.hartwig.hmftools.fastqtools;
+
+import static com.hartwig.hmftools.fastqtools.BatchPairedFastqReader.FASTQ_ITEM_BASES;
+import static com.hartwig.hmftools.fastqtools.BatchPairedFastqReader.FASTQ_ITEM_ID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.fastqtools.BatchPairedFastqReader.FastqPairBatch;
+
+import org.junit.Test;
+
+public class BatchPairedFastqReaderTest
+{
+    private static final int BATCH_SIZE = 3;
+
+    @Test
+    public void testCountsAndOrderAcrossBatches()
+    {
+        for(int pairCount : new int[] { 0, 1, BATCH_SIZE - 1, BATCH_SIZE, BATCH_SIZE + 1, 5 * BATCH_SIZE, 5 * BATCH_SIZE + 2 })
+        {
+            BatchPairedFastqReader reader = createReader(pairCount, pairCount, -1);
+
+            List<Integer> pairIds = readAll(reader);
+            assertEquals(expectedIds(pairCount), pairIds);
+        }
+    }
+
+    @Test
+    public void testMaxPairs()
+    {
+        // the limit falling exactly on a batch boundary, and inside a batch
+        BatchPairedFastqReader reader = createReader(20, 20, 2 * BATCH_SIZE);
+        assertEquals(expectedIds(2 * BATCH_SIZE), readAll(reader));
+
+        reader = createReader(20, 20, 2 * BATCH_SIZE + 1);
+        assertEquals(expectedIds(2 * BATCH_SIZE + 1), readAll(reader));
+
+        // a limit above the record count
+        reader = createReader(5, 5, 10);
+        assertEquals(expectedIds(5), readAll(reader));
+    }
+
+    @Test
+    public void testUnequalRecordCounts()
+    {
+        // R1 shorter than R2, both on and off a batch boundary
+        assertReadFails(createReader(BATCH_SIZE, BATCH_SIZE + 1, -1), "Fastq1 reader ran out of records before Fastq2");
+        assertReadFails(createReader(4, 9, -1), "Fastq1 reader ran out of records before Fastq2");
+
+        // R2 shorter than R1
+        assertReadFails(createReader(BATCH_SIZE + 1, BATCH_SIZE, -1), "Fastq2 reader ran out of records before Fastq1");
+        assertReadFails(createReader(9, 4, -1), "Fastq2 reader ran out of records before Fastq1");
+        assertReadFails(createReader(9, 0, -1), "Fastq2 reader ran out of records before Fastq1");
+
+        // R2 may have more records once the max pair count is reached
+        assertEquals(expectedIds(4), readAll(createReader(4, 9, 4)));
+    }
+
+    @Test(timeout = 30000)
+    public void testFastq2EndsEarly()
+    {
+        // fastq1 stops being read soon after fastq2 runs out, rather than reading through all its remaining records
+        int fastq1Count = 10_000_000;
+        RecordSource fastq1Source = new RecordSource(fastq1Count);
+
+        BatchPairedFastqReader reader = new BatchPairedFastqReader(
+                new BufferedReader(fastq1Source), toReader(fastqLines(BATCH_SIZE, 0)), 1, BATCH_SIZE, -1);
+
+        assertReadFails(reader, "Fastq2 reader ran out of records before Fastq1");
+        assertTrue(fastq1Source.recordsRead() < 1000);
+    }
+
+    @Test
+    public void testStopAtShorterFastq()
+    {
+        BatchPairedFastqReader reader = createReader(4, 9, -1);
+        reader.setStopAtShorterFastq();
+        assertEquals(expectedIds(4), readAll(reader));
+
+        reader = createReader(9, 4, -1);
+        reader.setStopAtShorterFastq();
+        assertEquals(expectedIds(4), readAll(reader));
+
+        reader = createReader(20, BATCH_SIZE, -1);
+        reader.setStopAtShorterFastq();
+        assertEquals(expectedIds(BATCH_SIZE), readAll(reader));
+
+        // a trailing partial record is dropped
+        reader = new BatchPairedFastqReader(
+                toReader(fastqLines(5, 2)), toReader(fastqLines(6, 0)), 1, BATCH_SIZE, -1);
+        reader.setStopAtShorterFastq();
+        assertEquals(expectedIds(5), readAll(reader));
+    }
+
+    @Test
+    public void testTruncatedRecord()
+    {
+        BatchPairedFastqReader reader = new BatchPairedFastqReader(
+                toReader(fastqLines(5, 2)), toReader(fastqLines(6, 0)), 1, BATCH_SIZE, -1);
+        assertReadFails(reader, "Partial fastq record found.");
+
+        reader = new BatchPairedFastqReader(
+                toReader(fastqLines(5, 0)), toReader(fastqLines(4, 3)), 1, BATCH_SIZE, -1);
+        assertReadFails(reader, "Partial fastq record found.");
+    }
+
+    @Test
+    public void testMultipleConsumers() throws Exception
+    {
+        int consumerCount = 4;
+        int pairCount = 100;
+
+        BatchPairedFastqReader reader = new BatchPairedFastqReader(
+                toReader(fastqLines(pairCount, 0)), toReader(fastqLines(pairCount, 0)), consumerCount, BATCH_SIZE, -1);
+        reader.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(consumerCount);
+        List<Future<List<Integer>>> results = Lists.newArrayList();
+
+        for(int i = 0; i < consumerCount; ++i)
+        {
+            results.add(executor.submit(() -> consumeBatches(reader)));
+        }
+
+        List<Integer> pairIds = Lists.newArrayList();
+
+        for(Future<List<Integer>> result : results)
+        {
+            // each consumer must see the end of the data
+            pairIds.addAll(result.get(30, TimeUnit.SECONDS));
+        }
+
+        executor.shutdown();
+
+        Collections.sort(pairIds);
+        assertEquals(expectedIds(pairCount), pairIds);
+
+        // a consumer asking again after the end still gets no more batches
+        assertEquals(null, reader.nextBatch());
+    }
+
+    @Test
+    public void testMultipleConsumersOnError() throws Exception
+    {
+        int consumerCount = 3;
+
+        BatchPairedFastqReader reader = new BatchPairedFastqReader(
+                toReader(fastqLines(50, 0)), toReader(fastqLines(20, 0)), consumerCount, BATCH_SIZE, -1);
+        reader.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(consumerCount);
+        List<Future<List<Integer>>> results = Lists.newArrayList();
+
+        for(int i = 0; i < consumerCount; ++i)
+        {
+            results.add(executor.submit(() -> consumeBatches(reader)));
+        }
+
+        for(Future<List<Integer>> result : results)
+        {
+            try
+            {
+                result.get(30, TimeUnit.SECONDS);
+                fail("expected read error");
+            }
+            catch(ExecutionException e)
+            {
+                assertTrue(e.getCause().getMessage().contains("Fastq2 reader ran out of records before Fastq1"));
+            }
+        }
+
+        executor.shutdown();
+    }
+
+    private static BatchPairedFastqReader createReader(int fastq1Count, int fastq2Count, int maxPairs)
+    {
+        return new BatchPairedFastqReader(
+                toReader(fastqLines(fastq1Count, 0)), toReader(fastqLines(fastq2Count, 0)), 1, BATCH_SIZE, maxPairs);
+    }
+
+    private static List<Integer> readAll(final BatchPairedFastqReader reader)
+    {
+        reader.start();
+        return consumeBatches(reader);
+    }
+
+    private static List<Integer> consumeBatches(final BatchPairedFastqReader reader)
+    {
+        List<Integer> pairIds = Lists.newArrayList();
+
+        FastqPairBatch batch;
+        while((batch = reader.nextBatch()) != null)
+        {
+            assertTrue(batch.size() > 0);
+
+            for(int i = 0; i < batch.size(); ++i)
+            {
+                int pairId = readId(batch.fastq1Line(i, FASTQ_ITEM_ID));
+                assertEquals(pairId, readId(batch.fastq2Line(i, FASTQ_ITEM_ID)));
+                assertEquals(readBases(pairId), batch.fastq1Line(i, FASTQ_ITEM_BASES));
+
+                assertNotNull(batch.fastq1Record(i));
+                assertEquals("READ_" + pairId, batch.fastq2Record(i).getReadName());
+
+                pairIds.add(pairId);
+            }
+
+            reader.recycle(batch);
+        }
+
+        return pairIds;
+    }
+
+    private static void assertReadFails(final BatchPairedFastqReader reader, final String error)
+    {
+        try
+        {
+            readAll(reader);
+            fail("expected read error: " + error);
+        }
+        catch(RuntimeException e)
+        {
+            assertTrue(e.getMessage(), e.getMessage().contains(error));
+        }
+    }
+
+    private static List<Integer> expectedIds(int count)
+    {
+        List<Integer> pairIds = Lists.newArrayList();
+
+        for(int i = 0; i < count; ++i)
+        {
+            pairIds.add(i);
+        }
+
+        return pairIds;
+    }
+
+    private static String fastqLines(int recordCount, int partialLines)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for(int i = 0; i < recordCount; ++i)
+        {
+            sb.append(fastqRecord(i));
+        }
+
+        String[] partialRecord = { String.format("@READ_%d 1:N:0:ACGT", recordCount), readBases(recordCount), "+" };
+
+        for(int i = 0; i < partialLines; ++i)
+        {
+            sb.append(partialRecord[i]).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    private static String fastqRecord(int pairId)
+    {
+        String bases = readBases(pairId);
+        return String.format("@READ_%d 1:N:0:ACGT\n%s\n+\n%s\n", pairId, bases, "F".repeat(bases.length()));
+    }
+
+    private static class RecordSource extends Reader
+    {
+        // generates records on demand so a very large fastq needn't be held in memory
+        private final int mRecordCount;
+        private int mRecordIndex;
+        private String mRecord;
+        private int mRecordPosition;
+
+        public RecordSource(int recordCount)
+        {
+            mRecordCount = recordCount;
+            mRecordIndex = 0;
+            mRecord = "";
+            mRecordPosition = 0;
+        }
+
+        public int recordsRead() { return mRecordIndex; }
+
+        @Override
+        public int read(final char[] buffer, int offset, int length)
+        {
+            if(mRecordPosition == mRecord.length())
+            {
+                if(mRecordIndex == mRecordCount)
+                    return -1;
+
+                mRecord = fastqRecord(mRecordIndex);
+                mRecordPosition = 0;
+                ++mRecordIndex;
+            }
+
+            int count = Math.min(length, mRecord.length() - mRecordPosition);
+            mRecord.getChars(mRecordPosition, mRecordPosition + count, buffer, offset);
+            mRecordPosition += count;
+            return count;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static String readBases(int pairId) { return "ACGT".repeat(1 + pairId % 5); }
+
+    private static int readId(final String idLine) { return Integer.parseInt(idLine.split("\\s+")[0].substring("@READ_".length())); }
+
+    private static BufferedReader toReader(final String content) { return new BufferedReader(new StringReader(content)); }
+}
@@ -1,7 +1,7 @@
 package com.hartwig.hmftools.gripss;
 
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
-import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.loadRefGenome;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.loadSharedRefGenome;
 import static com.hartwig.hmftools.common.gripss.RepeatMaskAnnotations.REPEAT_MASK_FILE;
 import static com.hartwig.hmftools.common.sv.gridss.GridssVcfTags.BEALN;
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
@@ -98,7 +98,7 @@ public class GripssApplication
     {
         GripssConfig config = new GripssConfig(configBuilder);
         FilterConstants filterConstants = FilterConstants.from(configBuilder);
-        RefGenomeInterface refGenome = loadRefGenome(configBuilder.getValue(REF_GENOME));
+        RefGenomeInterface refGenome = loadSharedRefGenome(configBuilder.getValue(REF_GENOME));
 
         return new GripssApplication(config, filterConstants, refGenome, configBuilder);
     }
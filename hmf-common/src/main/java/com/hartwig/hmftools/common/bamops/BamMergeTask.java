@@ -26,15 +26,18 @@ public class BamMergeTask extends Thread
     private final List<BamSequenceReader> mActiveBamReaders;
     private final List<BamSequenceReader> mFinishedBamReaders;
     private final String mRefGenomeFile;
+    private final boolean mWriteParts;
     private SAMFileWriter mSamFileWriter;
 
     private int mReorderCount;
 
-    public BamMergeTask(final List<String> inputBams, final String refGenomeFile, final Queue<SequenceInfo> sequences)
+    public BamMergeTask(
+            final List<String> inputBams, final String refGenomeFile, final Queue<SequenceInfo> sequences, boolean writeParts)
     {
         mSAMSequences = sequences;
         mInputBams = inputBams;
         mRefGenomeFile = refGenomeFile;
+        mWriteParts = writeParts;
 
         mActiveBamReaders = Lists.newArrayListWithCapacity(inputBams.size());
         mFinishedBamReaders = Lists.newArrayListWithCapacity(inputBams.size());
@@ -181,6 +184,9 @@ public class BamMergeTask extends Thread
 
         fileHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
 
+        if(mWriteParts)
+            return new HeaderlessBamWriter(fileHeader, outputBam);
+
         return new SAMFileWriterFactory().makeBAMWriter(fileHeader, true, new File(outputBam));
     }
 }
@@ -38,6 +38,7 @@ public class BamMerger
     private final String mBamToolPath;
     private final int mThreads;
     private final boolean mKeepInterimBams;
+    private final boolean mNativeMerge; // merge, concatenate and index in-process, used when no BAM tool is provided
 
     protected static final String UNMAPPED_READS = "unmapped";
 
@@ -52,6 +53,7 @@ public class BamMerger
         mRefGenomeFile = refGenomeFile;
         mThreads = max(threads, 1);
         mKeepInterimBams = keepInterimBams;
+        mNativeMerge = bamToolPath == null;
     }
 
     public int inputBamCount() { return mInputBams.size(); }
@@ -81,11 +83,11 @@ public class BamMerger
 
         for(int i = 0; i < min(sequences.size(), mThreads); ++i)
         {
-            BamMergeTask bamMergeTask = new BamMergeTask(mInputBams, mRefGenomeFile, sequenceIntervalsQueue);
+            BamMergeTask bamMergeTask = new BamMergeTask(mInputBams, mRefGenomeFile, sequenceIntervalsQueue, mNativeMerge);
             workers.add(bamMergeTask);
         }
 
-        UnmappedMergeTask unmappedMergeTask = new UnmappedMergeTask(mInputBams, mRefGenomeFile, mOutputBamPrefix);
+        UnmappedMergeTask unmappedMergeTask = new UnmappedMergeTask(mInputBams, mRefGenomeFile, mOutputBamPrefix, mNativeMerge);
         workers.add(unmappedMergeTask);
 
         BOP_LOGGER.debug("splitting {} sequence merges across {} threads", sequences.size(), mThreads);
@@ -161,9 +163,6 @@ public class BamMerger
 
     private void buildIndexFiles()
     {
-        if(mBamToolPath == null)
-            return;
-
         List<String> bamMissingIndexFiles = Lists.newArrayList();
 
         for(String inputBam : mInputBams)
@@ -171,8 +170,13 @@ public class BamMerger
             String fileExtension = inputBam.endsWith(BAM_EXTENSION) ? BAM_INDEX_EXTENSION : CRAM_INDEX_EXTENSION;
             String indexFile = inputBam + fileExtension;
 
-            if(!Files.exists(Paths.get(indexFile)))
-                bamMissingIndexFiles.add(inputBam);
+            if(Files.exists(Paths.get(indexFile)))
+                continue;
+
+            if(mNativeMerge && Files.exists(Paths.get(NativeBamOperations.libraryIndexFilename(inputBam))))
+                continue;
+
+            bamMissingIndexFiles.add(inputBam);
         }
 
         if(bamMissingIndexFiles.isEmpty())
@@ -180,6 +184,17 @@ public class BamMerger
 
         BOP_LOGGER.debug("building index files for {} files", bamMissingIndexFiles.size());
 
+        if(mNativeMerge)
+        {
+            for(String inputBam : bamMissingIndexFiles)
+            {
+                if(!NativeBamOperations.indexBam(inputBam, mRefGenomeFile))
+                    System.exit(1);
+            }
+
+            return;
+        }
+
         BamToolName bamToolName = BamToolName.fromPath(mBamToolPath);
 
         for(String inputBam : bamMissingIndexFiles)
@@ -212,11 +227,23 @@ public class BamMerger
         String unmappedBam = formBamFilename(mOutputBamPrefix, UNMAPPED_READS);
         interimBams.add(unmappedBam);
 
-        BamToolName bamToolName = BamToolName.fromPath(mBamToolPath);
-        BamOperations.concatenateBams(bamToolName, mBamToolPath, finalBam, interimBams, mThreads);
+        if(mNativeMerge)
+        {
+            // interim BAMs are headerless parts with their own indices, so are concatenated without decompression
+            SAMFileHeader fileHeader = buildCombinedHeader(mInputBams, mRefGenomeFile);
+            fileHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
 
-        if(!BamOperations.indexBam(bamToolName, mBamToolPath, finalBam, mThreads))
-            System.exit(1);
+            if(!NativeBamOperations.concatenateBamParts(finalBam, fileHeader, interimBams))
+                System.exit(1);
+        }
+        else
+        {
+            BamToolName bamToolName = BamToolName.fromPath(mBamToolPath);
+            BamOperations.concatenateBams(bamToolName, mBamToolPath, finalBam, interimBams, mThreads);
+
+            if(!BamOperations.indexBam(bamToolName, mBamToolPath, finalBam, mThreads))
+                System.exit(1);
+        }
 
         if(!mKeepInterimBams)
         {
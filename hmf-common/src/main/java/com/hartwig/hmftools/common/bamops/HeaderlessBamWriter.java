@@ -0,0 +1,53 @@
+package com.hartwig.hmftools.common.bamops;
+
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_INDEX_EXTENSION;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+
+import htsjdk.samtools.BAMStreamWriter;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.ProgressLoggerInterface;
+
+public class HeaderlessBamWriter implements SAMFileWriter
+{
+    // writes coordinate-sorted records as a BGZF part with no header or terminator block, plus an index whose offsets are
+    // relative to the start of the part, so parts can be concatenated as raw bytes and their indices merged
+    private final SAMFileHeader mHeader;
+    private final BAMStreamWriter mWriter;
+
+    public HeaderlessBamWriter(final SAMFileHeader header, final String partFilename)
+    {
+        mHeader = header;
+
+        try
+        {
+            mWriter = new BAMStreamWriter(
+                    new BufferedOutputStream(new FileOutputStream(partFilename)),
+                    new BufferedOutputStream(new FileOutputStream(formPartIndexFilename(partFilename))),
+                    null, 0, header);
+        }
+        catch(FileNotFoundException e)
+        {
+            throw new SAMException("failed to create BAM part: " + partFilename, e);
+        }
+    }
+
+    public static String formPartIndexFilename(final String partFilename) { return partFilename + BAM_INDEX_EXTENSION; }
+
+    @Override
+    public void addAlignment(final SAMRecord record) { mWriter.writeAlignment(record); }
+
+    @Override
+    public SAMFileHeader getFileHeader() { return mHeader; }
+
+    @Override
+    public void setProgressLogger(final ProgressLoggerInterface progressLogger) {}
+
+    @Override
+    public void close() { mWriter.finish(false); }
+}
@@ -0,0 +1,207 @@
+package com.hartwig.hmftools.common.bamops;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import static com.hartwig.hmftools.common.bamops.BamOperations.BOP_LOGGER;
+import static com.hartwig.hmftools.common.bamops.HeaderlessBamWriter.formPartIndexFilename;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_EXTENSION;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_INDEX_EXTENSION;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import htsjdk.samtools.BAMFileWriter;
+import htsjdk.samtools.BAMIndexMerger;
+import htsjdk.samtools.BAMIndexer;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.seekablestream.SeekableFileStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+public final class NativeBamOperations
+{
+    // in-process equivalents of the sort, concatenate and index operations, requiring no external BAM tool
+
+    public static boolean concatenateBamParts(final String outputBam, final SAMFileHeader header, final List<String> partBams)
+    {
+        BOP_LOGGER.debug("concatenating {} BAM parts", partBams.size());
+
+        String indexFile = outputBam + BAM_INDEX_EXTENSION;
+        List<SeekableFileStream> partIndexStreams = Lists.newArrayListWithCapacity(partBams.size());
+
+        try(FileChannel outputChannel = FileChannel.open(Paths.get(outputBam), CREATE, WRITE, TRUNCATE_EXISTING);
+            OutputStream indexStream = new BufferedOutputStream(new FileOutputStream(indexFile)))
+        {
+            OutputStream outputStream = Channels.newOutputStream(outputChannel);
+
+            // the header is flushed to its own blocks, so the first part starts on a block boundary
+            BAMFileWriter.writeHeader(outputStream, header);
+            long headerLength = outputChannel.position();
+
+            BAMIndexMerger indexMerger = new BAMIndexMerger(indexStream, headerLength);
+
+            for(String partBam : partBams)
+            {
+                // copy the part's compressed blocks as-is, then shift its index by the part's offset in the final BAM
+                long partLength;
+
+                try(FileChannel partChannel = FileChannel.open(Paths.get(partBam), READ))
+                {
+                    partLength = partChannel.size();
+
+                    long transferred = 0;
+                    while(transferred < partLength)
+                    {
+                        transferred += partChannel.transferTo(transferred, partLength - transferred, outputChannel);
+                    }
+                }
+
+                // part indices are read lazily when the merged index is written, so are only closed after that
+                SeekableFileStream partIndexStream = new SeekableFileStream(new File(formPartIndexFilename(partBam)));
+                partIndexStreams.add(partIndexStream);
+
+                indexMerger.processIndex(BAMIndexMerger.openIndex(partIndexStream, header.getSequenceDictionary()), partLength);
+            }
+
+            outputStream.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+
+            indexMerger.finish(outputChannel.position());
+        }
+        catch(Exception e)
+        {
+            BOP_LOGGER.error("failed to concatenate BAM parts into {}: {}", outputBam, e.toString());
+
+            // remove the partial output so it cannot be mistaken for a complete BAM
+            new File(outputBam).delete();
+            new File(indexFile).delete();
+            return false;
+        }
+        finally
+        {
+            closePartIndexStreams(partIndexStreams);
+        }
+
+        BOP_LOGGER.debug("concatenation complete");
+        return true;
+    }
+
+    private static void closePartIndexStreams(final List<SeekableFileStream> partIndexStreams)
+    {
+        for(SeekableFileStream partIndexStream : partIndexStreams)
+        {
+            try
+            {
+                partIndexStream.close();
+            }
+            catch(IOException e)
+            {
+                BOP_LOGGER.warn("failed to close part index({}): {}", partIndexStream.getSource(), e.toString());
+            }
+        }
+    }
+
+    public static boolean sortBam(final String inputBam, final String outputBam, final String refGenomeFile, boolean writeIndex)
+    {
+        BOP_LOGGER.debug("sorting bam({})", inputBam);
+
+        File outputFile = new File(outputBam);
+
+        try(SamReader samReader = SamReaderFactory.makeDefault().referenceSequence(new File(refGenomeFile)).open(new File(inputBam)))
+        {
+            SAMFileHeader fileHeader = samReader.getFileHeader().clone();
+            fileHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+            // records beyond the in-memory limit are spilled to temporary files alongside the output BAM
+            SAMFileWriter bamWriter = new SAMFileWriterFactory()
+                    .setCreateIndex(writeIndex)
+                    .setUseAsyncIo(true)
+                    .setTempDirectory(outputFile.getAbsoluteFile().getParentFile())
+                    .makeBAMWriter(fileHeader, false, outputFile);
+
+            for(SAMRecord record : samReader)
+            {
+                bamWriter.addAlignment(record);
+            }
+
+            bamWriter.close();
+        }
+        catch(Exception e)
+        {
+            BOP_LOGGER.error("failed to sort bam({}): {}", inputBam, e.toString());
+            return false;
+        }
+
+        if(writeIndex && !renameLibraryIndex(outputBam))
+            return false;
+
+        BOP_LOGGER.debug("sort complete");
+        return true;
+    }
+
+    public static boolean indexBam(final String bamFilename, final String refGenomeFile)
+    {
+        BOP_LOGGER.debug("indexing bam({})", bamFilename);
+
+        // the indexer needs each record's file offset, which the reader only sets when asked to
+        SamReaderFactory readerFactory = SamReaderFactory.makeDefault()
+                .enable(SamReaderFactory.Option.INCLUDE_SOURCE_IN_RECORDS)
+                .referenceSequence(new File(refGenomeFile));
+
+        try(SamReader samReader = readerFactory.open(new File(bamFilename)))
+        {
+            BAMIndexer.createIndex(samReader, new File(bamFilename + BAM_INDEX_EXTENSION));
+        }
+        catch(Exception e)
+        {
+            BOP_LOGGER.error("failed to index bam({}): {}", bamFilename, e.toString());
+            return false;
+        }
+
+        BOP_LOGGER.debug("index complete");
+        return true;
+    }
+
+    public static String libraryIndexFilename(final String bamFilename)
+    {
+        // the library names indices by replacing the BAM extension, rather than appending to it as the BAM tools do
+        String filePrefix = bamFilename.endsWith(BAM_EXTENSION) ?
+                bamFilename.substring(0, bamFilename.length() - BAM_EXTENSION.length()) : bamFilename;
+
+        return filePrefix + BAM_INDEX_EXTENSION;
+    }
+
+    private static boolean renameLibraryIndex(final String bamFilename)
+    {
+        Path libraryIndex = Paths.get(libraryIndexFilename(bamFilename));
+
+        try
+        {
+            Files.move(libraryIndex, Paths.get(bamFilename + BAM_INDEX_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        }
+        catch(IOException e)
+        {
+            BOP_LOGGER.error("failed to rename index({}): {}", libraryIndex, e.toString());
+            return false;
+        }
+    }
+}
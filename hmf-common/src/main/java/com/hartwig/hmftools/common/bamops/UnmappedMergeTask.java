@@ -20,12 +20,15 @@ public class UnmappedMergeTask extends Thread
     private final String mOutputBamPrefix;
 
     private final String mRefGenomeFile;
+    private final boolean mWriteParts;
 
-    public UnmappedMergeTask(final List<String> inputBams, final String refGenomeFile, final String outputBamPrefix)
+    public UnmappedMergeTask(
+            final List<String> inputBams, final String refGenomeFile, final String outputBamPrefix, boolean writeParts)
     {
         mOutputBamPrefix = outputBamPrefix;
         mInputBams = inputBams;
         mRefGenomeFile = refGenomeFile;
+        mWriteParts = writeParts;
 
         start();
     }
@@ -36,7 +39,8 @@ public class UnmappedMergeTask extends Thread
 
         SAMFileHeader fileHeader = buildCombinedHeader(mInputBams, mRefGenomeFile);
 
-        SAMFileWriter bamWriter = new SAMFileWriterFactory().makeBAMWriter(fileHeader, true, new File(unmappedBam));
+        SAMFileWriter bamWriter = mWriteParts ?
+                new HeaderlessBamWriter(fileHeader, unmappedBam) : new SAMFileWriterFactory().makeBAMWriter(fileHeader, true, new File(unmappedBam));
 
         for(String inputBam : mInputBams)
         {
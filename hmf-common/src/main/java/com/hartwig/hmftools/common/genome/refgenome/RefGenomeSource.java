@@ -16,6 +16,7 @@ import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SamReader;
@@ -26,6 +27,10 @@ public class RefGenomeSource implements RefGenomeInterface
     public static final String REF_GENOME = "ref_genome";
     public static final String REF_GENOME_CFG_DESC = "Path to reference genome fasta files";
 
+    public static final String REF_GENOME_IMAGE = "ref_genome_image";
+    public static final String REF_GENOME_IMAGE_CFG_DESC = "Optional reference genome image (*" + TwoBitRefGenome.TWO_BIT_EXTENSION
+            + ") used in place of the fasta for reference base lookups";
+
     private final IndexedFastaSequenceFile mRefGenome;
 
     private static final Logger LOGGER = LogManager.getLogger(RefGenomeSource.class);
@@ -52,6 +57,11 @@ public class RefGenomeSource implements RefGenomeInterface
         configBuilder.addPath(REF_GENOME, required, REF_GENOME_CFG_DESC);
     }
 
+    public static void addRefGenomeImage(final ConfigBuilder configBuilder)
+    {
+        configBuilder.addPath(REF_GENOME_IMAGE, false, REF_GENOME_IMAGE_CFG_DESC);
+    }
+
     public RefGenomeSource(final IndexedFastaSequenceFile refGenome)
     {
         mRefGenome = refGenome;
@@ -102,6 +112,83 @@ public class RefGenomeSource implements RefGenomeInterface
         return firstChromosome.startsWith(CHR_PREFIX) ? V38 : V37;
     }
 
+    // a compiled ref genome image is mapped and shared across the JVM, otherwise the indexed FASTA is loaded
+    public static RefGenomeInterface loadSharedRefGenome(final String filename)
+    {
+        if(filename != null && TwoBitRefGenome.isTwoBitFile(filename))
+            return TwoBitRefGenome.load(filename);
+
+        return loadRefGenome(filename);
+    }
+
+    // for tools which still need the fasta to decode BAMs and CRAMs, but can take reference bases from a shared image,
+    // which must have been compiled from the same fasta
+    @Nullable
+    public static RefGenomeInterface loadSharedRefGenome(final String fastaFile, @Nullable final String imageFile)
+    {
+        if(imageFile == null)
+            return loadRefGenome(fastaFile);
+
+        if(!TwoBitRefGenome.isTwoBitFile(imageFile))
+        {
+            LOGGER.error("ref genome image({}) is not a compiled image (*{})", imageFile, TwoBitRefGenome.TWO_BIT_EXTENSION);
+            return null;
+        }
+
+        RefGenomeSource fastaRefGenome = loadRefGenome(fastaFile);
+        TwoBitRefGenome imageRefGenome = TwoBitRefGenome.load(imageFile);
+
+        if(fastaRefGenome == null || imageRefGenome == null)
+            return null;
+
+        if(!matchesChromosomeLengths(fastaChromosomeLengths(fastaRefGenome.refGenomeFile()), imageRefGenome.chromosomeLengths()))
+        {
+            LOGGER.error("ref genome image({}) chromosomes do not match fasta({})", imageFile, fastaFile);
+            return null;
+        }
+
+        return imageRefGenome;
+    }
+
+    private static Map<String,Integer> fastaChromosomeLengths(final IndexedFastaSequenceFile refGenome)
+    {
+        // taken from the sequence dictionary if the fasta has one, otherwise from its index
+        Map<String,Integer> chromosomeLengths = Maps.newHashMap();
+
+        if(refGenome.getSequenceDictionary() != null)
+        {
+            refGenome.getSequenceDictionary().getSequences().forEach(x -> chromosomeLengths.put(x.getSequenceName(), x.getSequenceLength()));
+        }
+        else
+        {
+            refGenome.getIndex().forEach(x -> chromosomeLengths.put(x.getContig(), (int)x.getSize()));
+        }
+
+        return chromosomeLengths;
+    }
+
+    private static boolean matchesChromosomeLengths(final Map<String,Integer> fastaLengths, final Map<String,Integer> imageLengths)
+    {
+        for(Map.Entry<String,Integer> entry : fastaLengths.entrySet())
+        {
+            Integer imageLength = imageLengths.get(entry.getKey());
+
+            if(!entry.getValue().equals(imageLength))
+            {
+                LOGGER.error("chromosome({}) fasta length({}) differs from image length({})", entry.getKey(), entry.getValue(), imageLength);
+                return false;
+            }
+        }
+
+        if(imageLengths.size() != fastaLengths.size())
+        {
+            LOGGER.error("fasta chromosome count({}) differs from image count({})", fastaLengths.size(), imageLengths.size());
+            return false;
+        }
+
+        return true;
+    }
+
     public static RefGenomeSource loadRefGenome(final String filename)
     {
         if(filename == null || filename.isEmpty())
@@ -0,0 +1,401 @@
+package com.hartwig.hmftools.common.genome.refgenome;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeFile;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.utils.file.SectionedBinaryFile;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequence;
+
+/* A reference genome compiled once from its FASTA into a memory-mapped image:
+    - bases are packed 4 to a byte, and each chromosome is mapped separately
+    - runs of any other base (N and IUPAC codes) and of soft-masked lower-case bases are held in memory and applied on decode
+    - reads only use absolute gets on the shared mappings, so one instance can serve all threads, and loaded images are cached
+*/
+public class TwoBitRefGenome implements RefGenomeInterface
+{
+    public static final String TWO_BIT_EXTENSION = ".2bit.bin";
+
+    private static final int FILE_MAGIC = 0x48324252; // H2BR
+    private static final int FILE_VERSION = 1;
+
+    private static final String OUTPUT_FILE = "output_file";
+
+    private static final byte[] BASES = { 'A', 'C', 'G', 'T' };
+    private static final int LOWER_CASE_OFFSET = 'a' - 'A';
+
+    private static final Map<String,TwoBitRefGenome> LOADED_IMAGES = Maps.newHashMap();
+
+    private static final Logger LOGGER = LogManager.getLogger(TwoBitRefGenome.class);
+
+    private final Map<String,ChromosomeImage> mChromosomes;
+
+    private static class ChromosomeImage
+    {
+        public final int Length;
+        public final ByteBuffer PackedBases;
+
+        // non-ACGT base runs, and lower-case runs, as 0-based start and exclusive end positions
+        public final int[] OtherStarts;
+        public final int[] OtherEnds;
+        public final byte[] OtherBases;
+        public final int[] LowerCaseStarts;
+        public final int[] LowerCaseEnds;
+
+        public ChromosomeImage(
+                int length, final ByteBuffer packedBases, final int[] otherStarts, final int[] otherEnds, final byte[] otherBases,
+                final int[] lowerCaseStarts, final int[] lowerCaseEnds)
+        {
+            Length = length;
+            PackedBases = packedBases;
+            OtherStarts = otherStarts;
+            OtherEnds = otherEnds;
+            OtherBases = otherBases;
+            LowerCaseStarts = lowerCaseStarts;
+            LowerCaseEnds = lowerCaseEnds;
+        }
+    }
+
+    private TwoBitRefGenome(final Map<String,ChromosomeImage> chromosomes)
+    {
+        mChromosomes = chromosomes;
+    }
+
+    public static boolean isTwoBitFile(final String filename) { return filename.endsWith(TWO_BIT_EXTENSION); }
+
+    @Override
+    public String getBaseString(final String chromosome, int posStart, int posEnd)
+    {
+        return new String(getBases(chromosome, posStart, posEnd), StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String getBaseString(final String chromosome, final List<int[]> baseRanges)
+    {
+        StringBuilder refBases = new StringBuilder();
+        baseRanges.forEach(x -> refBases.append(getBaseString(chromosome, x[0], x[1])));
+        return refBases.toString();
+    }
+
+    @Override
+    public int getChromosomeLength(final String chromosome)
+    {
+        return chromosomeImage(chromosome).Length;
+    }
+
+    @Override
+    public byte[] getBases(final String chromosome, int posStart, int posEnd)
+    {
+        byte[] bases = new byte[posEnd - posStart + 1];
+        getBases(chromosome, posStart, posEnd, bases, 0);
+        return bases;
+    }
+
+    @Override
+    public Map<String,Integer> chromosomeLengths()
+    {
+        Map<String,Integer> chromosomeLengthMap = Maps.newLinkedHashMap();
+        mChromosomes.forEach((key, value) -> chromosomeLengthMap.put(key, value.Length));
+        return chromosomeLengthMap;
+    }
+
+    public byte getBase(final String chromosome, int position)
+    {
+        byte[] base = new byte[1];
+        getBases(chromosome, position, position, base, 0);
+        return base[0];
+    }
+
+    // decodes the bases for the 1-based inclusive positions into the caller's buffer, avoiding an allocation per call
+    public void getBases(final String chromosome, int posStart, int posEnd, final byte[] bases, int offset)
+    {
+        ChromosomeImage image = chromosomeImage(chromosome);
+
+        if(posStart < 1 || posEnd > image.Length || posEnd < posStart - 1)
+        {
+            throw new IllegalArgumentException(format("invalid range(%s:%d-%d) for chromosome length(%d)",
+                    chromosome, posStart, posEnd, image.Length));
+        }
+
+        int start = posStart - 1;
+        int end = posEnd; // exclusive
+
+        for(int pos = start; pos < end; ++pos)
+        {
+            int packed = image.PackedBases.get(pos >> 2);
+            bases[offset + pos - start] = BASES[(packed >> (6 - 2 * (pos & 3))) & 3];
+        }
+
+        for(int i = firstRunIndex(image.OtherEnds, start); i < image.OtherStarts.length && image.OtherStarts[i] < end; ++i)
+        {
+            for(int pos = max(image.OtherStarts[i], start); pos < min(image.OtherEnds[i], end); ++pos)
+            {
+                bases[offset + pos - start] = image.OtherBases[i];
+            }
+        }
+
+        for(int i = firstRunIndex(image.LowerCaseEnds, start); i < image.LowerCaseStarts.length && image.LowerCaseStarts[i] < end; ++i)
+        {
+            for(int pos = max(image.LowerCaseStarts[i], start); pos < min(image.LowerCaseEnds[i], end); ++pos)
+            {
+                bases[offset + pos - start] += LOWER_CASE_OFFSET;
+            }
+        }
+    }
+
+    private ChromosomeImage chromosomeImage(final String chromosome)
+    {
+        ChromosomeImage image = mChromosomes.get(chromosome);
+
+        if(image == null)
+            throw new IllegalArgumentException(format("chromosome(%s) not in ref genome image", chromosome));
+
+        return image;
+    }
+
+    // the first run ending after the position, since runs are sorted and do not overlap
+    private static int firstRunIndex(final int[] runEnds, int position)
+    {
+        int low = 0;
+        int high = runEnds.length;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(runEnds[mid] <= position)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private static int baseCode(byte base)
+    {
+        switch(base)
+        {
+            case 'A': case 'a': return 0;
+            case 'C': case 'c': return 1;
+            case 'G': case 'g': return 2;
+            case 'T': case 't': return 3;
+            default: return -1;
+        }
+    }
+
+    public static class Writer implements AutoCloseable
+    {
+        private final String mFilename;
+        private final SectionedBinaryFile.Writer mWriter;
+
+        public Writer(final String filename) throws IOException
+        {
+            mFilename = filename;
+            mWriter = new SectionedBinaryFile.Writer(filename, FILE_MAGIC, FILE_VERSION);
+        }
+
+        public void writeChromosome(final String chromosome, final byte[] bases) throws IOException
+        {
+            int packedLength = (bases.length + 3) / 4;
+            byte[] packedBases = new byte[packedLength];
+
+            List<int[]> otherRuns = Lists.newArrayList(); // start, exclusive end, base
+            List<int[]> lowerCaseRuns = Lists.newArrayList();
+
+            for(int pos = 0; pos < bases.length; ++pos)
+            {
+                byte base = bases[pos];
+                int code = baseCode(base);
+
+                if(code >= 0)
+                {
+                    packedBases[pos >> 2] |= (byte)(code << (6 - 2 * (pos & 3)));
+
+                    if(Character.isLowerCase(base))
+                        extendRun(lowerCaseRuns, pos, 0);
+                }
+                else
+                {
+                    extendRun(otherRuns, pos, base);
+                }
+            }
+
+            long offset = mWriter.offset();
+
+            mWriter.write(packedBases);
+
+            for(int[] run : otherRuns)
+            {
+                mWriter.writeInt(run[0]);
+                mWriter.writeInt(run[1]);
+                mWriter.writeByte(run[2]);
+            }
+
+            for(int[] run : lowerCaseRuns)
+            {
+                mWriter.writeInt(run[0]);
+                mWriter.writeInt(run[1]);
+            }
+
+            // directory values: offset, length, packed length, other base runs, lower-case runs
+            mWriter.addSection(chromosome, offset, bases.length, packedLength, otherRuns.size(), lowerCaseRuns.size());
+        }
+
+        private static void extendRun(final List<int[]> runs, int position, int base)
+        {
+            int[] lastRun = !runs.isEmpty() ? runs.get(runs.size() - 1) : null;
+
+            if(lastRun != null && lastRun[1] == position && lastRun[2] == base)
+                lastRun[1] = position + 1;
+            else
+                runs.add(new int[] { position, position + 1, base });
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            mWriter.close();
+
+            LOGGER.info("wrote {} chromosomes to ref genome image({})", mWriter.sectionCount(), mFilename);
+        }
+    }
+
+    public static void compileFasta(final String fastaFile, final String outputFile) throws IOException
+    {
+        try(IndexedFastaSequenceFile refGenome = new IndexedFastaSequenceFile(new File(fastaFile));
+            Writer writer = new Writer(outputFile))
+        {
+            ReferenceSequence sequence;
+
+            // read in FASTA order, holding one chromosome's bases at a time
+            while((sequence = refGenome.nextSequence()) != null)
+            {
+                writer.writeChromosome(sequence.getName(), sequence.getBases());
+            }
+        }
+    }
+
+    // loads an image once per JVM, so every tool and thread asking for the same file shares its mappings
+    @Nullable
+    public static synchronized TwoBitRefGenome load(final String filename)
+    {
+        TwoBitRefGenome refGenome = LOADED_IMAGES.get(filename);
+
+        if(refGenome != null)
+            return refGenome;
+
+        try
+        {
+            refGenome = loadImage(filename);
+            LOADED_IMAGES.put(filename, refGenome);
+            return refGenome;
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("ref genome image({}) loading failed: {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    private static TwoBitRefGenome loadImage(final String filename) throws IOException
+    {
+        Map<String,ChromosomeImage> chromosomes = new LinkedHashMap<>();
+
+        try(SectionedBinaryFile.Reader reader = new SectionedBinaryFile.Reader(filename, FILE_MAGIC, FILE_VERSION, "ref genome image"))
+        {
+            for(SectionedBinaryFile.Section section : reader.sections())
+            {
+                String chromosome = section.Name;
+                long offset = section.Values[0];
+                int length = (int)section.Values[1];
+                int packedLength = (int)section.Values[2];
+                int otherRunCount = (int)section.Values[3];
+                int lowerCaseRunCount = (int)section.Values[4];
+
+                ByteBuffer packedBases = reader.map(offset, packedLength);
+
+                long runsLength = otherRunCount * (2L * Integer.BYTES + 1) + lowerCaseRunCount * 2L * Integer.BYTES;
+                ByteBuffer runs = reader.map(offset + packedLength, runsLength);
+
+                int[] otherStarts = new int[otherRunCount];
+                int[] otherEnds = new int[otherRunCount];
+                byte[] otherBases = new byte[otherRunCount];
+
+                for(int i = 0; i < otherRunCount; ++i)
+                {
+                    otherStarts[i] = runs.getInt();
+                    otherEnds[i] = runs.getInt();
+                    otherBases[i] = runs.get();
+                }
+
+                int[] lowerCaseStarts = new int[lowerCaseRunCount];
+                int[] lowerCaseEnds = new int[lowerCaseRunCount];
+
+                for(int i = 0; i < lowerCaseRunCount; ++i)
+                {
+                    lowerCaseStarts[i] = runs.getInt();
+                    lowerCaseEnds[i] = runs.getInt();
+                }
+
+                chromosomes.put(chromosome, new ChromosomeImage(
+                        length, packedBases, otherStarts, otherEnds, otherBases, lowerCaseStarts, lowerCaseEnds));
+            }
+        }
+
+        LOGGER.debug("mapped {} chromosomes from ref genome image({})", chromosomes.size(), filename);
+
+        return new TwoBitRefGenome(chromosomes);
+    }
+
+    public static void main(final String... args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder("TwoBitRefGenome");
+        addRefGenomeFile(configBuilder, true);
+        configBuilder.addConfigItem(OUTPUT_FILE, false, "Ref genome image file, default is the FASTA file plus " + TWO_BIT_EXTENSION);
+        addLoggingOptions(configBuilder);
+
+        if(!configBuilder.parseCommandLine(args))
+        {
+            configBuilder.logInvalidDetails();
+            System.exit(1);
+        }
+
+        setLogLevel(configBuilder);
+
+        String fastaFile = configBuilder.getValue(REF_GENOME);
+        String outputFile = configBuilder.hasValue(OUTPUT_FILE) ? configBuilder.getValue(OUTPUT_FILE) : fastaFile + TWO_BIT_EXTENSION;
+
+        try
+        {
+            compileFasta(fastaFile, outputFile);
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("failed to compile ref genome({}) to image({}): {}", fastaFile, outputFile, e.toString());
+            System.exit(1);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.hartwig.hmftools.common.purple;
 
+import static java.lang.String.format;
+
 import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
 import static com.hartwig.hmftools.common.utils.file.FileReaderUtils.createFieldsIndexMap;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.util.List;
@@ -13,6 +16,9 @@ import java.util.StringJoiner;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.file.DelimFileColumnReader;
+import com.hartwig.hmftools.common.utils.file.DelimFileColumnReader.ColumnType;
+import com.hartwig.hmftools.common.utils.file.DelimFileColumnReader.Columns;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -38,10 +44,90 @@ public final class PurpleCopyNumberFile
         return (new File(filename).exists()) ? filename : basePath + File.separator + sample + SOMATIC_EXTENSION_OLD;
     }
 
+    // decoded straight into columns since cohort tools load these files for many samples
     @NotNull
     public static List<PurpleCopyNumber> read(final String filePath) throws IOException
     {
-        return fromLines(Files.readAllLines(new File(filePath).toPath()));
+        Columns columns;
+
+        try
+        {
+            columns = new DelimFileColumnReader(filePath)
+                    .addColumn("chromosome", ColumnType.STRING)
+                    .addColumn("start", ColumnType.INT)
+                    .addColumn("end", ColumnType.INT)
+                    .addColumn("copyNumber", ColumnType.DOUBLE)
+                    .addColumn("bafCount", ColumnType.INT)
+                    .addColumn("observedBAF", ColumnType.DOUBLE)
+                    .addColumn("baf", ColumnType.DOUBLE)
+                    .addColumn("segmentStartSupport", ColumnType.STRING)
+                    .addColumn("segmentEndSupport", ColumnType.STRING)
+                    .addColumn("method", ColumnType.STRING)
+                    .addColumn("depthWindowCount", ColumnType.INT)
+                    .addColumn("gcContent", ColumnType.DOUBLE)
+                    .addColumn("minStart", ColumnType.INT)
+                    .addColumn("maxStart", ColumnType.INT)
+                    .read(1);
+        }
+        catch(UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+
+        // every column is required, and a null would otherwise read as zero or fail as an unknown enum name
+        for(String column : columns.columnNames())
+        {
+            if(!columns.hasNulls(column))
+                continue;
+
+            int row = 0;
+
+            while(!columns.isNull(column, row))
+            {
+                ++row;
+            }
+
+            throw new IOException(format("file(%s) row(%d) has no value for required column(%s)", filePath, row + 1, column));
+        }
+
+        String[] chromosomes = columns.strings("chromosome");
+        int[] starts = columns.ints("start");
+        int[] ends = columns.ints("end");
+        double[] copyNumbers = columns.doubles("copyNumber");
+        int[] bafCounts = columns.ints("bafCount");
+        double[] observedBafs = columns.doubles("observedBAF");
+        double[] bafs = columns.doubles("baf");
+        String[] segmentStartSupports = columns.strings("segmentStartSupport");
+        String[] segmentEndSupports = columns.strings("segmentEndSupport");
+        String[] methods = columns.strings("method");
+        int[] depthWindowCounts = columns.ints("depthWindowCount");
+        double[] gcContents = columns.doubles("gcContent");
+        int[] minStarts = columns.ints("minStart");
+        int[] maxStarts = columns.ints("maxStart");
+
+        List<PurpleCopyNumber> purpleCopyNumbers = Lists.newArrayListWithCapacity(columns.rowCount());
+
+        for(int i = 0; i < columns.rowCount(); ++i)
+        {
+            purpleCopyNumbers.add(ImmutablePurpleCopyNumber.builder()
+                    .chromosome(chromosomes[i])
+                    .start(starts[i])
+                    .end(ends[i])
+                    .bafCount(bafCounts[i])
+                    .averageTumorCopyNumber(copyNumbers[i])
+                    .averageObservedBAF(observedBafs[i])
+                    .averageActualBAF(bafs[i])
+                    .segmentStartSupport(SegmentSupport.valueOf(segmentStartSupports[i]))
+                    .segmentEndSupport(SegmentSupport.valueOf(segmentEndSupports[i]))
+                    .method(CopyNumberMethod.valueOf(methods[i]))
+                    .gcContent(gcContents[i])
+                    .depthWindowCount(depthWindowCounts[i])
+                    .minStart(minStarts[i])
+                    .maxStart(maxStarts[i])
+                    .build());
+        }
+
+        return purpleCopyNumbers;
     }
 
     public static void write(final String filename, List<PurpleCopyNumber> copyNumbers) throws IOException
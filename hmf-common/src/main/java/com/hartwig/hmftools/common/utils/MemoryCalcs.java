@@ -2,6 +2,8 @@ package com.hartwig.hmftools.common.utils;
 
 import static java.lang.Math.round;
 
+import java.lang.management.ManagementFactory;
+
 public final class MemoryCalcs
 {
     private static final long MEGABYTE = 1024L * 1024L;
@@ -12,4 +14,22 @@ public final class MemoryCalcs
         long memory = runtime.totalMemory() - runtime.freeMemory();
         return round(memory / MEGABYTE);
     }
+
+    public static long threadAllocatedBytes()
+    {
+        // cumulative heap bytes allocated by the current thread, or -1 if the JVM does not support this measurement
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        if(!(threadBean instanceof com.sun.management.ThreadMXBean))
+            return -1;
+
+        com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean)threadBean;
+
+        if(!sunThreadBean.isThreadAllocatedMemorySupported() || !sunThreadBean.isThreadAllocatedMemoryEnabled())
+            return -1;
+
+        return sunThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static double bytesToMb(long bytes) { return bytes / (double)MEGABYTE; }
 }
@@ -0,0 +1,916 @@
+package com.hartwig.hmftools.common.utils.file;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Read a CSV / TSV file into typed columns, for loading large files or many files where DelimFileReader's per-row strings
+ * and re-parsing dominate. The file is read in line-aligned segments of up to 256MB (decompressing BGZF blocks in parallel,
+ * other gzip serially), each split into chunks which are parsed in parallel straight into primitive arrays. Only the
+ * requested columns are decoded and kept, so file size is not limited, but a file can have at most 2^31 - 9 rows.
+ *
+ * Example usage:
+ *  DelimFileColumnReader.Columns columns = new DelimFileColumnReader(filename)
+ *          .addColumn(CHROMOSOME, ColumnType.STRING)
+ *          .addColumn(POSITION, ColumnType.INT)
+ *          .addColumn(RATIO, ColumnType.DOUBLE)
+ *          .read(threads);
+ *
+ *  int[] positions = columns.ints(POSITION);
+ *
+ * or iterate rows with a cursor, which allocates nothing per row:
+ *
+ *  DelimFileColumnReader.Cursor cursor = columns.cursor();
+ *  int positionIndex = columns.columnIndex(POSITION);
+ *
+ *  while(cursor.next())
+ *  {
+ *      int position = cursor.getInt(positionIndex);
+ *  }
+ */
+public class DelimFileColumnReader
+{
+    public enum ColumnType
+    {
+        STRING,
+        INT,
+        LONG,
+        DOUBLE;
+    }
+
+    private final String mFilename;
+    private byte mDelim;
+    private List<String> mColumnNames;
+    private final List<String> mRequestedColumns;
+    private final List<ColumnType> mRequestedTypes;
+
+    private int mSegmentSize;
+
+    // each task parses at least this many bytes, so small files are read by a single thread
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    private static final int DEFAULT_SEGMENT_SIZE = 1 << 28;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8; // the largest array the JVM allows
+    private static final int INITIAL_BUFFER_SIZE = 1 << 20;
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    public DelimFileColumnReader(final String filename)
+    {
+        mFilename = filename;
+        mDelim = (byte)TSV_DELIM.charAt(0);
+        mColumnNames = null;
+        mRequestedColumns = Lists.newArrayList();
+        mRequestedTypes = Lists.newArrayList();
+        mSegmentSize = DEFAULT_SEGMENT_SIZE;
+    }
+
+    public DelimFileColumnReader setDelimiter(final String delimiter)
+    {
+        if(delimiter.length() != 1)
+            throw new IllegalArgumentException(format("column reader requires a single-character delimiter, not '%s'", delimiter));
+
+        mDelim = (byte)delimiter.charAt(0);
+        return this;
+    }
+
+    // use the given column names instead of first line of the file
+    public DelimFileColumnReader setColumnNames(final List<String> columnNames)
+    {
+        mColumnNames = Collections.unmodifiableList(columnNames);
+        return this;
+    }
+
+    public DelimFileColumnReader addColumn(final String column, final ColumnType type)
+    {
+        if(mRequestedColumns.contains(column))
+            throw new IllegalArgumentException("duplicate column: " + column);
+
+        mRequestedColumns.add(column);
+        mRequestedTypes.add(type);
+        return this;
+    }
+
+    public DelimFileColumnReader addColumn(final Enum<?> column, final ColumnType type) { return addColumn(column.name(), type); }
+
+    // content is held at most one segment at a time, so only the decoded columns need to fit in memory
+    @VisibleForTesting
+    public DelimFileColumnReader setSegmentSize(int segmentSize)
+    {
+        mSegmentSize = segmentSize;
+        return this;
+    }
+
+    public Columns read(int threads)
+    {
+        try(ContentSource source = openContent(mFilename, threads))
+        {
+            List<Columns> segments = Lists.newArrayList();
+            int[] fieldColumns = null;
+            long rowCount = 0;
+            byte[] remainder = new byte[0];
+            boolean ended = false;
+
+            while(!ended)
+            {
+                if(remainder.length > MAX_ARRAY_LENGTH - mSegmentSize)
+                    throw new IOException(format("file(%s) has a line too long to read into columns", mFilename));
+
+                // read up to the segment size beyond any incomplete line carried over from the previous segment, growing the
+                // buffer as it fills so that small files do not allocate a whole segment
+                int segmentLimit = remainder.length + mSegmentSize;
+                byte[] content = Arrays.copyOf(remainder, remainder.length + min(mSegmentSize, INITIAL_BUFFER_SIZE));
+                int contentLength = remainder.length;
+
+                while(true)
+                {
+                    contentLength += source.fill(content, contentLength, content.length - contentLength);
+                    ended = contentLength < content.length;
+
+                    if(ended || content.length == segmentLimit)
+                        break;
+
+                    content = Arrays.copyOf(content, (int)min(2L * content.length, segmentLimit));
+                }
+
+                int segmentEnd = ended ? contentLength : lastLineEnd(content, contentLength) + 1;
+
+                if(!ended && segmentEnd == 0)
+                {
+                    // no complete line yet, so extend the next segment
+                    remainder = content;
+                    continue;
+                }
+
+                remainder = Arrays.copyOfRange(content, segmentEnd, contentLength);
+
+                int dataStart = 0;
+
+                if(fieldColumns == null)
+                {
+                    List<String> columnNames = mColumnNames;
+
+                    if(columnNames == null)
+                    {
+                        int headerEnd = lineEnd(content, 0, segmentEnd);
+                        String header = new String(content, 0, trimLineEnd(content, 0, headerEnd), StandardCharsets.UTF_8);
+                        columnNames = Arrays.asList(header.split(String.valueOf((char)mDelim), -1));
+                        dataStart = min(headerEnd + 1, segmentEnd);
+                    }
+
+                    fieldColumns = fieldColumns(columnNames);
+                }
+
+                Columns segment = parse(content, dataStart, segmentEnd, fieldColumns, rowCount, threads);
+                segments.add(segment);
+                rowCount += segment.mRowCount;
+            }
+
+            if(rowCount > MAX_ARRAY_LENGTH)
+                throw new IOException(format("file(%s) has too many rows(%d) to read into columns", mFilename, rowCount));
+
+            return segments.size() == 1 ? segments.get(0) : concatenate(segments, (int)rowCount);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // map each field in a line to the column it is decoded into, if any
+    private int[] fieldColumns(final List<String> columnNames)
+    {
+        int[] fieldColumns = new int[columnNames.size()];
+        Arrays.fill(fieldColumns, -1);
+
+        for(int c = 0; c < mRequestedColumns.size(); ++c)
+        {
+            int fieldIndex = columnNames.indexOf(mRequestedColumns.get(c));
+
+            if(fieldIndex < 0)
+                throw new NoSuchElementException(format("column: %s not found", mRequestedColumns.get(c)));
+
+            fieldColumns[fieldIndex] = c;
+        }
+
+        return fieldColumns;
+    }
+
+    private Columns parse(final byte[] content, int dataStart, int dataEnd, final int[] fieldColumns, long priorRows, int threads)
+    {
+        // split into line-aligned chunks, count their rows and then decode each into its range of the columns
+        int chunkCount = threads > 1 ? min(threads * 4, (dataEnd - dataStart) / MIN_CHUNK_SIZE + 1) : 1;
+        int[] chunkStarts = new int[chunkCount + 1];
+        chunkStarts[0] = dataStart;
+        chunkStarts[chunkCount] = dataEnd;
+
+        for(int i = 1; i < chunkCount; ++i)
+        {
+            int approxStart = dataStart + (int)((long)(dataEnd - dataStart) * i / chunkCount);
+            chunkStarts[i] = min(lineEnd(content, max(approxStart, chunkStarts[i - 1]), dataEnd) + 1, dataEnd);
+        }
+
+        int[] chunkRowCounts = new int[chunkCount];
+        List<Callable> countTasks = Lists.newArrayList();
+
+        for(int i = 0; i < chunkCount; ++i)
+        {
+            final int chunk = i;
+            countTasks.add(() -> chunkRowCounts[chunk] = countRows(content, chunkStarts[chunk], chunkStarts[chunk + 1]));
+        }
+
+        if(!TaskExecutor.executeTasks(countTasks, threads))
+            throw new IllegalStateException(format("failed to read file(%s)", mFilename));
+
+        int rowCount = Arrays.stream(chunkRowCounts).sum();
+
+        Columns columns = new Columns(mRequestedColumns, mRequestedTypes, rowCount);
+        ChunkParser[] parsers = new ChunkParser[chunkCount];
+        List<Callable> parseTasks = Lists.newArrayList();
+        int rowOffset = 0;
+
+        for(int i = 0; i < chunkCount; ++i)
+        {
+            parsers[i] = new ChunkParser(content, chunkStarts[i], chunkStarts[i + 1], rowOffset, priorRows, fieldColumns, columns);
+            parseTasks.add(parsers[i]);
+            rowOffset += chunkRowCounts[i];
+        }
+
+        if(!TaskExecutor.executeTasks(parseTasks, threads))
+            throw new IllegalStateException(format("failed to parse file(%s)", mFilename));
+
+        for(ChunkParser parser : parsers)
+        {
+            for(int c = 0; c < columns.mNulls.length; ++c)
+            {
+                columns.mNulls[c].or(parser.mNulls[c]);
+            }
+        }
+
+        return columns;
+    }
+
+    private Columns concatenate(final List<Columns> segments, int rowCount)
+    {
+        Columns columns = new Columns(mRequestedColumns, mRequestedTypes, rowCount);
+        int rowOffset = 0;
+
+        for(int i = 0; i < segments.size(); ++i)
+        {
+            Columns segment = segments.get(i);
+            int segmentRows = segment.mRowCount;
+
+            for(int c = 0; c < columns.mTypes.size(); ++c)
+            {
+                switch(columns.mTypes.get(c))
+                {
+                    case STRING: System.arraycopy(segment.mStrings[c], 0, columns.mStrings[c], rowOffset, segmentRows); break;
+                    case INT: System.arraycopy(segment.mInts[c], 0, columns.mInts[c], rowOffset, segmentRows); break;
+                    case LONG: System.arraycopy(segment.mLongs[c], 0, columns.mLongs[c], rowOffset, segmentRows); break;
+                    case DOUBLE: System.arraycopy(segment.mDoubles[c], 0, columns.mDoubles[c], rowOffset, segmentRows); break;
+                }
+
+                BitSet nulls = segment.mNulls[c];
+
+                for(int row = nulls.nextSetBit(0); row >= 0; row = nulls.nextSetBit(row + 1))
+                {
+                    columns.mNulls[c].set(rowOffset + row);
+                }
+            }
+
+            rowOffset += segmentRows;
+            segments.set(i, null); // release each segment's columns once copied
+        }
+
+        return columns;
+    }
+
+    private class ChunkParser implements Callable
+    {
+        private final byte[] mContent;
+        private final int mStart;
+        private final int mEnd;
+        private final int mRowOffset;
+        private final long mPriorRows; // rows in earlier segments, for reporting
+        private final int[] mFieldColumns;
+        private final Columns mColumns;
+        private final BitSet[] mNulls; // set per chunk since BitSet is not thread-safe, and merged once all chunks are parsed
+
+        public ChunkParser(
+                final byte[] content, int start, int end, int rowOffset, long priorRows, final int[] fieldColumns, final Columns columns)
+        {
+            mContent = content;
+            mStart = start;
+            mEnd = end;
+            mRowOffset = rowOffset;
+            mPriorRows = priorRows;
+            mFieldColumns = fieldColumns;
+            mColumns = columns;
+            mNulls = new BitSet[columns.mTypes.size()];
+
+            for(int c = 0; c < mNulls.length; ++c)
+            {
+                mNulls[c] = new BitSet();
+            }
+        }
+
+        @Override
+        public Long call()
+        {
+            int row = mRowOffset;
+            int lineStart = mStart;
+
+            while(lineStart < mEnd)
+            {
+                int lineEnd = lineEnd(mContent, lineStart, mEnd);
+                int contentEnd = trimLineEnd(mContent, lineStart, lineEnd);
+
+                if(contentEnd > lineStart)
+                {
+                    parseLine(lineStart, contentEnd, row);
+                    ++row;
+                }
+
+                lineStart = lineEnd + 1;
+            }
+
+            return (long)0;
+        }
+
+        private void parseLine(int lineStart, int lineEnd, int row)
+        {
+            int fieldIndex = 0;
+            int fieldStart = lineStart;
+
+            for(int i = lineStart; i <= lineEnd; ++i)
+            {
+                if(i < lineEnd && mContent[i] != mDelim)
+                    continue;
+
+                if(fieldIndex < mFieldColumns.length && mFieldColumns[fieldIndex] >= 0)
+                    parseField(mFieldColumns[fieldIndex], fieldStart, i, row);
+
+                ++fieldIndex;
+                fieldStart = i + 1;
+            }
+
+            if(fieldIndex < mFieldColumns.length)
+            {
+                throw new IllegalStateException(format("file(%s) row(%d) has %d fields, expected %d",
+                        mFilename, mPriorRows + row + 1, fieldIndex, mFieldColumns.length));
+            }
+        }
+
+        private void parseField(int column, int start, int end, int row)
+        {
+            ColumnType type = mColumns.mTypes.get(column);
+
+            if(isNullValue(mContent, start, end))
+            {
+                mNulls[column].set(row);
+                return;
+            }
+
+            switch(type)
+            {
+                case STRING:
+                    mColumns.mStrings[column][row] = new String(mContent, start, end - start, StandardCharsets.UTF_8);
+                    break;
+
+                case INT:
+                    mColumns.mInts[column][row] = (int)parseLong(mContent, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                    break;
+
+                case LONG:
+                    mColumns.mLongs[column][row] = parseLong(mContent, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+                    break;
+
+                case DOUBLE:
+                    mColumns.mDoubles[column][row] = parseDouble(mContent, start, end);
+                    break;
+            }
+        }
+    }
+
+    public static class Columns
+    {
+        private final List<String> mNames;
+        private final List<ColumnType> mTypes;
+        private final Map<String,Integer> mColumnIndexMap;
+        private final int mRowCount;
+
+        private final String[][] mStrings;
+        private final int[][] mInts;
+        private final long[][] mLongs;
+        private final double[][] mDoubles;
+        private final BitSet[] mNulls;
+
+        private Columns(final List<String> names, final List<ColumnType> types, int rowCount)
+        {
+            mNames = names;
+            mTypes = types;
+            mRowCount = rowCount;
+            mColumnIndexMap = new HashMap<>();
+
+            int columnCount = names.size();
+            mStrings = new String[columnCount][];
+            mInts = new int[columnCount][];
+            mLongs = new long[columnCount][];
+            mDoubles = new double[columnCount][];
+            mNulls = new BitSet[columnCount];
+
+            for(int c = 0; c < columnCount; ++c)
+            {
+                mColumnIndexMap.put(names.get(c), c);
+                mNulls[c] = new BitSet();
+
+                switch(types.get(c))
+                {
+                    case STRING: mStrings[c] = new String[rowCount]; break;
+                    case INT: mInts[c] = new int[rowCount]; break;
+                    case LONG: mLongs[c] = new long[rowCount]; break;
+                    case DOUBLE: mDoubles[c] = new double[rowCount]; break;
+                }
+            }
+        }
+
+        public int rowCount() { return mRowCount; }
+        public List<String> columnNames() { return mNames; }
+
+        public int columnIndex(final String column)
+        {
+            Integer index = mColumnIndexMap.get(column);
+
+            if(index == null)
+                throw new NoSuchElementException(format("column: %s not read", column));
+
+            return index;
+        }
+
+        public int columnIndex(final Enum<?> column) { return columnIndex(column.name()); }
+
+        // primitive values of null entries are left as zero, so check isNull for columns which allow them
+        public String[] strings(final String column) { return typedColumn(mStrings, column, ColumnType.STRING); }
+        public int[] ints(final String column) { return typedColumn(mInts, column, ColumnType.INT); }
+        public long[] longs(final String column) { return typedColumn(mLongs, column, ColumnType.LONG); }
+        public double[] doubles(final String column) { return typedColumn(mDoubles, column, ColumnType.DOUBLE); }
+
+        public String[] strings(final Enum<?> column) { return strings(column.name()); }
+        public int[] ints(final Enum<?> column) { return ints(column.name()); }
+        public long[] longs(final Enum<?> column) { return longs(column.name()); }
+        public double[] doubles(final Enum<?> column) { return doubles(column.name()); }
+
+        public boolean isNull(int columnIndex, int row) { return mNulls[columnIndex].get(row); }
+        public boolean isNull(final String column, int row) { return isNull(columnIndex(column), row); }
+        public boolean hasNulls(final String column) { return !mNulls[columnIndex(column)].isEmpty(); }
+
+        public Cursor cursor() { return new Cursor(this); }
+
+        private <T> T typedColumn(final T[] columns, final String column, final ColumnType type)
+        {
+            int index = columnIndex(column);
+
+            if(mTypes.get(index) != type)
+                throw new IllegalArgumentException(format("column: %s is type %s, not %s", column, mTypes.get(index), type));
+
+            return columns[index];
+        }
+    }
+
+    public static class Cursor
+    {
+        private final Columns mColumns;
+        private int mRow;
+
+        private Cursor(final Columns columns)
+        {
+            mColumns = columns;
+            mRow = -1;
+        }
+
+        public boolean next() { return ++mRow < mColumns.mRowCount; }
+        public int row() { return mRow; }
+
+        public boolean isNull(int columnIndex) { return mColumns.mNulls[columnIndex].get(mRow); }
+
+        @Nullable
+        public String getString(int columnIndex) { return mColumns.mStrings[columnIndex][mRow]; }
+        public int getInt(int columnIndex) { return mColumns.mInts[columnIndex][mRow]; }
+        public long getLong(int columnIndex) { return mColumns.mLongs[columnIndex][mRow]; }
+        public double getDouble(int columnIndex) { return mColumns.mDoubles[columnIndex][mRow]; }
+
+        // store boolean as 1 and 0
+        public boolean getBoolean(int columnIndex) { return getInt(columnIndex) != 0; }
+    }
+
+    private static int lineEnd(final byte[] content, int start, int end)
+    {
+        for(int i = start; i < end; ++i)
+        {
+            if(content[i] == '\n')
+                return i;
+        }
+
+        return end;
+    }
+
+    // returns -1 if there is no line end
+    private static int lastLineEnd(final byte[] content, int end)
+    {
+        for(int i = end - 1; i >= 0; --i)
+        {
+            if(content[i] == '\n')
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static int trimLineEnd(final byte[] content, int lineStart, int lineEnd)
+    {
+        return lineEnd > lineStart && content[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private static int countRows(final byte[] content, int start, int end)
+    {
+        int rows = 0;
+        int lineStart = start;
+
+        while(lineStart < end)
+        {
+            int lineEnd = lineEnd(content, lineStart, end);
+
+            if(trimLineEnd(content, lineStart, lineEnd) > lineStart)
+                ++rows;
+
+            lineStart = lineEnd + 1;
+        }
+
+        return rows;
+    }
+
+    private static boolean isNullValue(final byte[] content, int start, int end)
+    {
+        if(end - start != 4)
+            return false;
+
+        return (content[start] == 'n' && content[start + 1] == 'u' && content[start + 2] == 'l' && content[start + 3] == 'l')
+            || (content[start] == 'N' && content[start + 1] == 'U' && content[start + 2] == 'L' && content[start + 3] == 'L');
+    }
+
+    private static long parseLong(final byte[] content, int start, int end, long minValue, long maxValue)
+    {
+        int i = start;
+        boolean negative = false;
+
+        if(i < end && (content[i] == '-' || content[i] == '+'))
+        {
+            negative = content[i] == '-';
+            ++i;
+        }
+
+        if(i == end || end - i > 18)
+        {
+            // empty, or too long to accumulate without overflow, so left to the standard parser to handle or reject
+            return checkRange(Long.parseLong(new String(content, start, end - start, StandardCharsets.US_ASCII)), minValue, maxValue, content, start, end);
+        }
+
+        long value = 0;
+
+        for(; i < end; ++i)
+        {
+            int digit = content[i] - '0';
+
+            if(digit < 0 || digit > 9)
+                throw new NumberFormatException(format("invalid integer: %s", new String(content, start, end - start, StandardCharsets.UTF_8)));
+
+            value = value * 10 + digit;
+        }
+
+        return checkRange(negative ? -value : value, minValue, maxValue, content, start, end);
+    }
+
+    private static long checkRange(long value, long minValue, long maxValue, final byte[] content, int start, int end)
+    {
+        if(value < minValue || value > maxValue)
+            throw new NumberFormatException(format("out of range: %s", new String(content, start, end - start, StandardCharsets.UTF_8)));
+
+        return value;
+    }
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static
+    {
+        POWERS_OF_TEN[0] = 1;
+
+        for(int i = 1; i < POWERS_OF_TEN.length; ++i)
+        {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static double parseDouble(final byte[] content, int start, int end)
+    {
+        // plain decimals whose digits form an exactly representable integer, divided by an exactly representable power of ten,
+        // are correctly rounded by the one division - anything else (exponents, NaN, long values) uses the standard parser
+        int i = start;
+        boolean negative = false;
+
+        if(i < end && (content[i] == '-' || content[i] == '+'))
+        {
+            negative = content[i] == '-';
+            ++i;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+
+        for(; i < end; ++i)
+        {
+            byte b = content[i];
+
+            if(b == '.' && fractionDigits < 0)
+            {
+                fractionDigits = 0;
+                continue;
+            }
+
+            int digit = b - '0';
+
+            if(digit < 0 || digit > 9 || ++digits > 18)
+                return Double.parseDouble(new String(content, start, end - start, StandardCharsets.US_ASCII));
+
+            mantissa = mantissa * 10 + digit;
+
+            if(fractionDigits >= 0)
+                ++fractionDigits;
+        }
+
+        if(digits == 0 || mantissa > MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length)
+            return Double.parseDouble(new String(content, start, end - start, StandardCharsets.US_ASCII));
+
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private interface ContentSource extends AutoCloseable
+    {
+        // fills up to length bytes, returning fewer only once the content is exhausted
+        int fill(byte[] buffer, int offset, int length) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static ContentSource openContent(final String filename, int threads) throws IOException
+    {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(filename), STREAM_BUFFER_SIZE);
+
+        try
+        {
+            if(!filename.endsWith(".gz"))
+                return new StreamSource(inputStream);
+
+            if(threads > 1)
+            {
+                inputStream.mark(BGZF_HEADER_LENGTH);
+                byte[] header = inputStream.readNBytes(BGZF_HEADER_LENGTH);
+                inputStream.reset();
+
+                if(header.length == BGZF_HEADER_LENGTH && isBgzfHeader(header, 0))
+                    return new BgzfSource(inputStream, threads);
+            }
+
+            return new StreamSource(new GZIPInputStream(inputStream, STREAM_BUFFER_SIZE));
+        }
+        catch(IOException e)
+        {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    private static class StreamSource implements ContentSource
+    {
+        private final InputStream mInputStream;
+
+        public StreamSource(final InputStream inputStream) { mInputStream = inputStream; }
+
+        @Override
+        public int fill(final byte[] buffer, int offset, int length) throws IOException
+        {
+            return mInputStream.readNBytes(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException { mInputStream.close(); }
+    }
+
+    // BGZF header fields - gzip ID, deflate, FEXTRA flag, then an extra field of 6 bytes with the 'BC' sub-field holding the block size
+    private static final int BGZF_HEADER_LENGTH = 18;
+    private static final int BGZF_FOOTER_LENGTH = 8;
+    private static final int BGZF_MAX_BLOCK_SIZE = 1 << 16;
+
+    // reads the blocks which fit in each segment and decompresses them in parallel
+    private static class BgzfSource implements ContentSource
+    {
+        private final InputStream mInputStream;
+        private final int mThreads;
+
+        private byte[] mNextBlock; // read but not yet decompressed
+
+        // a block split across two segments
+        private final byte[] mSplitBlock;
+        private int mSplitBlockStart;
+        private int mSplitBlockEnd;
+
+        public BgzfSource(final InputStream inputStream, int threads)
+        {
+            mInputStream = inputStream;
+            mThreads = threads;
+            mNextBlock = null;
+            mSplitBlock = new byte[BGZF_MAX_BLOCK_SIZE];
+            mSplitBlockStart = 0;
+            mSplitBlockEnd = 0;
+        }
+
+        @Override
+        public int fill(final byte[] buffer, int offset, int length) throws IOException
+        {
+            int filled = min(length, mSplitBlockEnd - mSplitBlockStart);
+            System.arraycopy(mSplitBlock, mSplitBlockStart, buffer, offset, filled);
+            mSplitBlockStart += filled;
+
+            while(filled < length)
+            {
+                List<byte[]> blocks = Lists.newArrayList();
+                List<Integer> blockOffsets = Lists.newArrayList();
+                int blocksLength = 0;
+
+                while(true)
+                {
+                    if(mNextBlock == null)
+                        mNextBlock = readBlock();
+
+                    if(mNextBlock == null)
+                        break;
+
+                    int blockLength = uncompressedLength(mNextBlock);
+
+                    if(filled + blocksLength + blockLength > length)
+                        break;
+
+                    blocks.add(mNextBlock);
+                    blockOffsets.add(offset + filled + blocksLength);
+                    blocksLength += blockLength;
+                    mNextBlock = null;
+                }
+
+                if(!blocks.isEmpty())
+                {
+                    inflateBlocks(blocks, blockOffsets, buffer);
+                    filled += blocksLength;
+                    continue;
+                }
+
+                if(mNextBlock == null)
+                    break;
+
+                // the next block spans the end of the segment, so the rest of it is kept for the next
+                Inflater inflater = new Inflater(true);
+                mSplitBlockEnd = inflate(inflater, mNextBlock, mSplitBlock, 0);
+                inflater.end();
+                mNextBlock = null;
+
+                mSplitBlockStart = length - filled;
+                System.arraycopy(mSplitBlock, 0, buffer, offset + filled, mSplitBlockStart);
+                filled = length;
+            }
+
+            return filled;
+        }
+
+        @Nullable
+        private byte[] readBlock() throws IOException
+        {
+            byte[] header = mInputStream.readNBytes(BGZF_HEADER_LENGTH);
+
+            if(header.length == 0)
+                return null;
+
+            if(header.length < BGZF_HEADER_LENGTH || !isBgzfHeader(header, 0))
+                throw new IOException("invalid BGZF block");
+
+            int blockLength = readUnsignedShort(header, 16) + 1;
+
+            if(blockLength < BGZF_HEADER_LENGTH + BGZF_FOOTER_LENGTH)
+                throw new IOException("invalid BGZF block");
+
+            byte[] block = Arrays.copyOf(header, blockLength);
+
+            if(mInputStream.readNBytes(block, BGZF_HEADER_LENGTH, blockLength - BGZF_HEADER_LENGTH) < blockLength - BGZF_HEADER_LENGTH)
+                throw new IOException("truncated BGZF block");
+
+            return block;
+        }
+
+        private void inflateBlocks(final List<byte[]> blocks, final List<Integer> blockOffsets, final byte[] buffer) throws IOException
+        {
+            int blocksPerTask = (blocks.size() + mThreads * 4 - 1) / (mThreads * 4);
+            List<Callable> tasks = Lists.newArrayList();
+
+            for(int taskStart = 0; taskStart < blocks.size(); taskStart += blocksPerTask)
+            {
+                final int startIndex = taskStart;
+                final int endIndex = min(taskStart + blocksPerTask, blocks.size());
+
+                tasks.add(() ->
+                {
+                    Inflater inflater = new Inflater(true);
+
+                    for(int i = startIndex; i < endIndex; ++i)
+                    {
+                        inflate(inflater, blocks.get(i), buffer, blockOffsets.get(i));
+                    }
+
+                    inflater.end();
+                    return (long)0;
+                });
+            }
+
+            if(!TaskExecutor.executeTasks(tasks, mThreads))
+                throw new IOException("failed to decompress BGZF file");
+        }
+
+        @Override
+        public void close() throws IOException { mInputStream.close(); }
+    }
+
+    private static int uncompressedLength(final byte[] block) { return readInt(block, block.length - 4); }
+
+    private static int inflate(final Inflater inflater, final byte[] block, final byte[] buffer, int offset) throws IOException
+    {
+        int length = uncompressedLength(block);
+
+        inflater.reset();
+        inflater.setInput(block, BGZF_HEADER_LENGTH, block.length - BGZF_HEADER_LENGTH - BGZF_FOOTER_LENGTH);
+
+        try
+        {
+            if(inflater.inflate(buffer, offset, length) != length)
+                throw new IOException("truncated BGZF block");
+        }
+        catch(DataFormatException e)
+        {
+            throw new IOException("invalid BGZF block", e);
+        }
+
+        return length;
+    }
+
+    private static boolean isBgzfHeader(final byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xff) == 31 && (bytes[offset + 1] & 0xff) == 139 && bytes[offset + 2] == 8 && (bytes[offset + 3] & 4) != 0
+            && readUnsignedShort(bytes, offset + 10) == 6 && bytes[offset + 12] == 'B' && bytes[offset + 13] == 'C';
+    }
+
+    private static int readUnsignedShort(final byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    private static int readInt(final byte[] bytes, int offset)
+    {
+        return readUnsignedShort(bytes, offset) | (readUnsignedShort(bytes, offset + 2) << 16);
+    }
+}
@@ -63,6 +63,8 @@ import org.jetbrains.annotations.Nullable;
  *          Double rate = row.getDoubleOrNull(Column.rate);
  *      }
  *  }
+ *
+ * For large files where only some columns are needed, DelimFileColumnReader parses in parallel into typed columns.
  */
 public class DelimFileReader implements Iterable<DelimFileReader.Row>, AutoCloseable
 {
@@ -0,0 +1,214 @@
+package com.hartwig.hmftools.common.utils.file;
+
+import static java.lang.String.format;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+/* A binary file compiled once and memory-mapped by its reader:
+    - a magic number and version, followed by any fixed header values the file type needs
+    - sections written in sequence, each typically a chromosome or other unit which is mapped separately to stay within the
+      2GB limit of a buffer
+    - a trailing directory of each section's name, long values (such as its offset, length and counts) and optional strings,
+      with the directory's offset as the file's last long
+*/
+public final class SectionedBinaryFile
+{
+    public static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    public static class Section
+    {
+        public final String Name;
+        public final long[] Values;
+        public final List<String> Items;
+
+        public Section(final String name, final long[] values, final List<String> items)
+        {
+            Name = name;
+            Values = values;
+            Items = items;
+        }
+    }
+
+    public static class Writer implements AutoCloseable
+    {
+        private final DataOutputStream mOutputStream;
+        private final List<Section> mSections;
+        private long mOffset; // the output stream's own count of bytes written is an int, so offsets are tracked here
+
+        public Writer(final String filename, int magic, int version) throws IOException
+        {
+            mOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+            mSections = Lists.newArrayList();
+            mOffset = 0;
+
+            writeInt(magic);
+            writeInt(version);
+        }
+
+        public long offset() { return mOffset; }
+        public int sectionCount() { return mSections.size(); }
+
+        public void writeByte(int value) throws IOException
+        {
+            mOutputStream.writeByte(value);
+            ++mOffset;
+        }
+
+        public void writeInt(int value) throws IOException
+        {
+            mOutputStream.writeInt(value);
+            mOffset += Integer.BYTES;
+        }
+
+        public void writeLong(long value) throws IOException
+        {
+            mOutputStream.writeLong(value);
+            mOffset += Long.BYTES;
+        }
+
+        public void write(final byte[] bytes) throws IOException
+        {
+            mOutputStream.write(bytes);
+            mOffset += bytes.length;
+        }
+
+        public void writeString(final String value) throws IOException
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(bytes);
+        }
+
+        // registers a section in the directory, usually once its data has been written from a recorded start offset
+        public void addSection(final String name, final long... values)
+        {
+            addSection(name, values, Collections.emptyList());
+        }
+
+        public void addSection(final String name, final long[] values, final List<String> items)
+        {
+            mSections.add(new Section(name, values, items));
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            long directoryOffset = mOffset;
+
+            writeInt(mSections.size());
+
+            for(Section section : mSections)
+            {
+                writeString(section.Name);
+                writeInt(section.Values.length);
+
+                for(long value : section.Values)
+                {
+                    writeLong(value);
+                }
+
+                writeInt(section.Items.size());
+
+                for(String item : section.Items)
+                {
+                    writeString(item);
+                }
+            }
+
+            writeLong(directoryOffset);
+            mOutputStream.close();
+        }
+    }
+
+    public static class Reader implements AutoCloseable
+    {
+        private final FileChannel mChannel;
+        private final long mDirectoryOffset;
+        private final List<Section> mSections;
+
+        public Reader(final String filename, int magic, int version, final String fileType) throws IOException
+        {
+            mChannel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+
+            try
+            {
+                ByteBuffer header = mChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+
+                if(header.getInt() != magic)
+                    throw new IOException(format("invalid %s file(%s)", fileType, filename));
+
+                int fileVersion = header.getInt();
+
+                if(fileVersion != version)
+                    throw new IOException(format("unsupported %s file(%s) version(%d)", fileType, filename, fileVersion));
+
+                mDirectoryOffset = mChannel.map(FileChannel.MapMode.READ_ONLY, mChannel.size() - Long.BYTES, Long.BYTES).getLong();
+
+                ByteBuffer directory = map(mDirectoryOffset, mChannel.size() - Long.BYTES - mDirectoryOffset);
+
+                int sectionCount = directory.getInt();
+                mSections = Lists.newArrayListWithCapacity(sectionCount);
+
+                for(int s = 0; s < sectionCount; ++s)
+                {
+                    String name = readString(directory);
+
+                    long[] values = new long[directory.getInt()];
+
+                    for(int i = 0; i < values.length; ++i)
+                    {
+                        values[i] = directory.getLong();
+                    }
+
+                    int itemCount = directory.getInt();
+                    List<String> items = itemCount > 0 ? Lists.newArrayListWithCapacity(itemCount) : Collections.emptyList();
+
+                    for(int i = 0; i < itemCount; ++i)
+                    {
+                        items.add(readString(directory));
+                    }
+
+                    mSections.add(new Section(name, values, items));
+                }
+            }
+            catch(IOException | RuntimeException e)
+            {
+                mChannel.close();
+                throw e;
+            }
+        }
+
+        public List<Section> sections() { return mSections; }
+
+        // sections and any header values lie between the fixed header and the directory
+        public long directoryOffset() { return mDirectoryOffset; }
+
+        // mappings remain valid once the reader is closed
+        public ByteBuffer map(long offset, long length) throws IOException
+        {
+            return mChannel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException { mChannel.close(); }
+    }
+
+    public static String readString(final ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
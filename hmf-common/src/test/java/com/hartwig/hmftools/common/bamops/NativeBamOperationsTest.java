@@ -0,0 +1,257 @@
+package com.hartwig.hmftools.common.bamops;
+
+import static com.hartwig.hmftools.common.bamops.HeaderlessBamWriter.formPartIndexFilename;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.SAM_DICTIONARY_V37;
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.DEFAULT_MAP_QUAL;
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.buildDefaultBaseQuals;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_INDEX_EXTENSION;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+public class NativeBamOperationsTest
+{
+    private static final String READ_BASES = "ACGTACGTAACCGGTTACGTACGTAACCGGTT";
+    private static final String READ_CIGAR = READ_BASES.length() + "M";
+
+    private File mTempDir;
+    private SAMFileHeader mHeader;
+
+    @Before
+    public void setup() throws IOException
+    {
+        mTempDir = Files.createTempDirectory("native_bam_ops").toFile();
+
+        mHeader = new SAMFileHeader();
+        mHeader.setSequenceDictionary(SAM_DICTIONARY_V37);
+        mHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+    }
+
+    @After
+    public void tearDown()
+    {
+        for(File file : mTempDir.listFiles())
+        {
+            file.delete();
+        }
+
+        mTempDir.delete();
+    }
+
+    private SAMRecord createRecord(final String readId, final String chromosome, int position)
+    {
+        SAMRecord record = new SAMRecord(mHeader);
+        record.setReadName(readId);
+        record.setReferenceName(chromosome);
+        record.setAlignmentStart(position);
+        record.setCigarString(READ_CIGAR);
+        record.setReadBases(READ_BASES.getBytes());
+        record.setBaseQualities(buildDefaultBaseQuals(READ_BASES.length()));
+        record.setMappingQuality(DEFAULT_MAP_QUAL);
+        return record;
+    }
+
+    private String tempFile(final String filename) { return new File(mTempDir, filename).getAbsolutePath(); }
+
+    private void writePart(final String partBam, final List<SAMRecord> records)
+    {
+        HeaderlessBamWriter writer = new HeaderlessBamWriter(mHeader, partBam);
+        records.forEach(writer::addAlignment);
+        writer.close();
+    }
+
+    private static List<SAMRecord> readAll(final String bamFile) throws IOException
+    {
+        List<SAMRecord> records = Lists.newArrayList();
+
+        try(SamReader samReader = SamReaderFactory.makeDefault().open(new File(bamFile)))
+        {
+            samReader.forEach(records::add);
+        }
+
+        return records;
+    }
+
+    private static List<String> queryReadIds(final String bamFile, final String chromosome, int start, int end) throws IOException
+    {
+        List<String> readIds = Lists.newArrayList();
+
+        try(SamReader samReader = SamReaderFactory.makeDefault().open(new File(bamFile)))
+        {
+            assertTrue(samReader.hasIndex());
+
+            try(SAMRecordIterator iterator = samReader.queryOverlapping(chromosome, start, end))
+            {
+                iterator.forEachRemaining(x -> readIds.add(x.getReadName()));
+            }
+        }
+
+        return readIds;
+    }
+
+    private static void assertCoordinateSorted(final List<SAMRecord> records)
+    {
+        for(int i = 1; i < records.size(); ++i)
+        {
+            SAMRecord previous = records.get(i - 1);
+            SAMRecord next = records.get(i);
+
+            assertTrue(previous.getReferenceIndex() < next.getReferenceIndex()
+                    || (previous.getReferenceIndex().equals(next.getReferenceIndex())
+                        && previous.getAlignmentStart() <= next.getAlignmentStart()));
+        }
+    }
+
+    private static int countEofBlocks(final String bamFile) throws IOException
+    {
+        byte[] data = Files.readAllBytes(new File(bamFile).toPath());
+        byte[] eofBlock = BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+
+        assertArrayEquals(eofBlock, Arrays.copyOfRange(data, data.length - eofBlock.length, data.length));
+
+        int count = 0;
+
+        for(int i = 0; i <= data.length - eofBlock.length; ++i)
+        {
+            if(Arrays.equals(data, i, i + eofBlock.length, eofBlock, 0, eofBlock.length))
+                ++count;
+        }
+
+        return count;
+    }
+
+    @Test
+    public void testConcatenateParts() throws IOException
+    {
+        // enough records in each part to span several compressed blocks
+        List<SAMRecord> firstPartRecords = Lists.newArrayList();
+        List<SAMRecord> secondPartRecords = Lists.newArrayList();
+
+        for(int i = 0; i < 2000; ++i)
+        {
+            firstPartRecords.add(createRecord("READ_1_" + i, CHR_1, 1000 + i * 10));
+        }
+
+        for(int i = 0; i < 2000; ++i)
+        {
+            secondPartRecords.add(createRecord("READ_2_" + i, i < 1000 ? CHR_1 : CHR_2, 100000 + i * 10));
+        }
+
+        String firstPart = tempFile("part_01.bam");
+        String secondPart = tempFile("part_02.bam");
+        writePart(firstPart, firstPartRecords);
+        writePart(secondPart, secondPartRecords);
+
+        assertTrue(new File(formPartIndexFilename(firstPart)).exists());
+
+        String outputBam = tempFile("concatenated.bam");
+        assertTrue(NativeBamOperations.concatenateBamParts(outputBam, mHeader, List.of(firstPart, secondPart)));
+        assertTrue(new File(outputBam + BAM_INDEX_EXTENSION).exists());
+
+        List<SAMRecord> records = readAll(outputBam);
+        assertEquals(firstPartRecords.size() + secondPartRecords.size(), records.size());
+        assertCoordinateSorted(records);
+
+        assertEquals("READ_1_0", records.get(0).getReadName());
+        assertEquals("READ_2_0", records.get(firstPartRecords.size()).getReadName());
+        assertEquals("READ_2_1999", records.get(records.size() - 1).getReadName());
+
+        // only the terminator block written after the last part
+        assertEquals(1, countEofBlocks(outputBam));
+
+        // queries resolve through the merged index into each part
+        assertEquals(List.of("READ_1_0", "READ_1_1"), queryReadIds(outputBam, CHR_1, 1000, 1010));
+        assertEquals(List.of("READ_1_1999"), queryReadIds(outputBam, CHR_1, 21021, 21022));
+        assertEquals(List.of("READ_2_999"), queryReadIds(outputBam, CHR_1, 110012, 110021));
+        assertEquals(List.of("READ_2_1000", "READ_2_1001"), queryReadIds(outputBam, CHR_2, 110000, 110010));
+        assertTrue(queryReadIds(outputBam, CHR_2, 1, 1000).isEmpty());
+
+        // a failure part-way through leaves no partial output
+        new File(formPartIndexFilename(secondPart)).delete();
+
+        String failedBam = tempFile("failed.bam");
+        assertFalse(NativeBamOperations.concatenateBamParts(failedBam, mHeader, List.of(firstPart, secondPart)));
+        assertFalse(new File(failedBam).exists());
+        assertFalse(new File(failedBam + BAM_INDEX_EXTENSION).exists());
+    }
+
+    @Test
+    public void testSortAndIndex() throws IOException
+    {
+        List<SAMRecord> unsortedRecords = Lists.newArrayList();
+
+        for(int i = 0; i < 1000; ++i)
+        {
+            unsortedRecords.add(createRecord("READ_" + i, i % 2 == 0 ? CHR_1 : CHR_2, 1000 + i * 10));
+        }
+
+        Collections.shuffle(unsortedRecords, new Random(1));
+
+        SAMFileHeader unsortedHeader = mHeader.clone();
+        unsortedHeader.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+
+        String unsortedBam = tempFile("unsorted.bam");
+
+        try(SAMFileWriter writer = new SAMFileWriterFactory().makeBAMWriter(unsortedHeader, true, new File(unsortedBam)))
+        {
+            unsortedRecords.forEach(writer::addAlignment);
+        }
+
+        // the reference is only opened, not read, for BAM input
+        String refGenomeFile = tempFile("ref.fasta");
+        Files.writeString(new File(refGenomeFile).toPath(), ">1\nACGT\n");
+
+        String sortedBam = tempFile("sorted.bam");
+        assertTrue(NativeBamOperations.sortBam(unsortedBam, sortedBam, refGenomeFile, true));
+
+        assertTrue(new File(sortedBam + BAM_INDEX_EXTENSION).exists());
+        assertTrue(!new File(NativeBamOperations.libraryIndexFilename(sortedBam)).exists());
+
+        List<SAMRecord> records = readAll(sortedBam);
+        assertEquals(unsortedRecords.size(), records.size());
+        assertCoordinateSorted(records);
+        assertEquals(1, countEofBlocks(sortedBam));
+
+        assertEquals(List.of("READ_2", "READ_4"), queryReadIds(sortedBam, CHR_1, 1051, 1051));
+        assertEquals(List.of("READ_1"), queryReadIds(sortedBam, CHR_2, 1000, 1010));
+
+        // index a sorted BAM written without one
+        String unindexedBam = tempFile("unindexed.bam");
+
+        try(SAMFileWriter writer = new SAMFileWriterFactory().makeBAMWriter(mHeader, true, new File(unindexedBam)))
+        {
+            records.forEach(writer::addAlignment);
+        }
+
+        assertTrue(NativeBamOperations.indexBam(unindexedBam, refGenomeFile));
+        assertEquals(List.of("READ_1"), queryReadIds(unindexedBam, CHR_2, 1000, 1010));
+        assertEquals(List.of("READ_998"), queryReadIds(unindexedBam, CHR_1, 11011, 11011));
+    }
+}
@@ -0,0 +1,220 @@
+package com.hartwig.hmftools.common.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import com.hartwig.hmftools.common.utils.file.DelimFileColumnReader;
+import com.hartwig.hmftools.common.utils.file.DelimFileColumnReader.ColumnType;
+import com.hartwig.hmftools.common.utils.file.DelimFileColumnReader.Columns;
+import com.hartwig.hmftools.common.utils.file.DelimFileColumnReader.Cursor;
+import com.hartwig.hmftools.common.utils.file.DelimFileReader;
+
+import org.junit.Test;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+public class DelimFileColumnReaderTest
+{
+    @Test
+    public void testTypedColumns() throws IOException
+    {
+        String content = "chromosome\tposition\tlength\tratio\tunused\n"
+                + "1\t100\t5000000000\t0.25\tx\n"
+                + "2\t-5\tnull\t-1.5e-3\ty\r\n"
+                + "\n"
+                + "X\t2147483647\t0\tNULL\tz\n";
+
+        File file = writeFile(content, ".tsv");
+
+        Columns columns = new DelimFileColumnReader(file.getPath())
+                .addColumn("chromosome", ColumnType.STRING)
+                .addColumn("position", ColumnType.INT)
+                .addColumn("length", ColumnType.LONG)
+                .addColumn("ratio", ColumnType.DOUBLE)
+                .read(1);
+
+        assertEquals(3, columns.rowCount());
+
+        String[] chromosomes = columns.strings("chromosome");
+        assertEquals("1", chromosomes[0]);
+        assertEquals("X", chromosomes[2]);
+
+        int[] positions = columns.ints("position");
+        assertEquals(100, positions[0]);
+        assertEquals(-5, positions[1]);
+        assertEquals(Integer.MAX_VALUE, positions[2]);
+
+        assertEquals(5000000000L, columns.longs("length")[0]);
+        assertTrue(columns.isNull("length", 1));
+        assertFalse(columns.isNull("length", 2));
+
+        double[] ratios = columns.doubles("ratio");
+        assertEquals(0.25, ratios[0], 0);
+        assertEquals(-1.5e-3, ratios[1], 0);
+        assertTrue(columns.isNull("ratio", 2));
+
+        Cursor cursor = columns.cursor();
+        int positionIndex = columns.columnIndex("position");
+        int ratioIndex = columns.columnIndex("ratio");
+
+        assertTrue(cursor.next());
+        assertEquals(100, cursor.getInt(positionIndex));
+        assertTrue(cursor.next());
+        assertEquals(-1.5e-3, cursor.getDouble(ratioIndex), 0);
+        assertTrue(cursor.next());
+        assertTrue(cursor.isNull(ratioIndex));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testParallelMatchesRowReader() throws IOException
+    {
+        // large enough to be split into several chunks
+        String content = createContent(100000);
+
+        for(File file : List.of(writeFile(content, ".csv"), writeGzipFile(content), writeBgzfFile(content)))
+        {
+            Columns columns = new DelimFileColumnReader(file.getPath())
+                    .setDelimiter(",")
+                    .addColumn("rate", ColumnType.DOUBLE)
+                    .addColumn("name", ColumnType.STRING)
+                    .addColumn("count", ColumnType.INT)
+                    .read(4);
+
+            assertMatchesRowReader(file, columns, 100000);
+        }
+    }
+
+    @Test
+    public void testSegmentedRead() throws IOException
+    {
+        // segments smaller than a BGZF block and than a line, and ones spanning many lines and blocks
+        String content = createContent(20000);
+
+        for(File file : List.of(writeFile(content, ".csv"), writeGzipFile(content), writeBgzfFile(content)))
+        {
+            for(int segmentSize : new int[] { 7, 1000, 100000 })
+            {
+                for(int threads : new int[] { 1, 3 })
+                {
+                    Columns columns = new DelimFileColumnReader(file.getPath())
+                            .setDelimiter(",")
+                            .setSegmentSize(segmentSize)
+                            .addColumn("rate", ColumnType.DOUBLE)
+                            .addColumn("name", ColumnType.STRING)
+                            .addColumn("count", ColumnType.INT)
+                            .read(threads);
+
+                    assertMatchesRowReader(file, columns, 20000);
+                }
+            }
+        }
+    }
+
+    private static String createContent(int rowCount)
+    {
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder("name,count,rate\n");
+
+        for(int i = 0; i < rowCount; ++i)
+        {
+            String rate = i % 1000 == 0 ? "null" : String.valueOf(random.nextDouble() * 1000 - 500);
+            sb.append(String.format("name_%d,%d,%s\n", i, random.nextInt(), rate));
+        }
+
+        return sb.toString();
+    }
+
+    private static void assertMatchesRowReader(final File file, final Columns columns, int rowCount)
+    {
+        assertEquals(rowCount, columns.rowCount());
+
+        String[] names = columns.strings("name");
+        int[] counts = columns.ints("count");
+        double[] rates = columns.doubles("rate");
+
+        try(DelimFileReader reader = new DelimFileReader(file.getPath(), false))
+        {
+            reader.setDelimiter(",");
+            int row = 0;
+
+            for(DelimFileReader.Row expected : reader)
+            {
+                assertEquals(expected.get("name"), names[row]);
+                assertEquals(expected.getInt("count"), counts[row]);
+
+                Double rate = expected.getDoubleOrNull("rate");
+
+                if(rate == null)
+                    assertTrue(columns.isNull("rate", row));
+                else
+                    assertEquals(rate, rates[row], 0);
+
+                ++row;
+            }
+
+            assertEquals(rowCount, row);
+        }
+    }
+
+    @Test
+    public void testHeaderlessFile() throws IOException
+    {
+        File file = writeFile("a\t1\nb\tnull\n", ".tsv");
+
+        Columns columns = new DelimFileColumnReader(file.getPath())
+                .setColumnNames(List.of("id", "value"))
+                .addColumn("id", ColumnType.STRING)
+                .addColumn("value", ColumnType.INT)
+                .read(1);
+
+        assertEquals(2, columns.rowCount());
+        assertEquals("b", columns.strings("id")[1]);
+        assertTrue(columns.isNull("value", 1));
+    }
+
+    private static File writeFile(final String content, final String extension) throws IOException
+    {
+        File file = File.createTempFile("delim_columns", extension);
+        file.deleteOnExit();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static File writeGzipFile(final String content) throws IOException
+    {
+        File file = File.createTempFile("delim_columns", ".csv.gz");
+        file.deleteOnExit();
+
+        try(OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(file)))
+        {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return file;
+    }
+
+    private static File writeBgzfFile(final String content) throws IOException
+    {
+        File file = File.createTempFile("delim_columns", ".csv.gz");
+        file.deleteOnExit();
+
+        try(OutputStream outputStream = new BlockCompressedOutputStream(file))
+        {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,145 @@
+package com.hartwig.hmftools.common.genome.refgenome;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TwoBitRefGenomeTest
+{
+    @Test
+    public void testWriteAndDecode() throws IOException
+    {
+        Random random = new Random(1);
+
+        byte[] chr1Bases = randomBases(random, 1003);
+
+        // runs of Ns, other IUPAC codes and soft-masked bases, including at the chromosome ends
+        fill(chr1Bases, 0, 10, 'N');
+        fill(chr1Bases, 500, 520, 'N');
+        fill(chr1Bases, 995, 1003, 'N');
+        chr1Bases[600] = 'R';
+        chr1Bases[601] = 'M';
+        chr1Bases[700] = 'n';
+
+        for(int i = 300; i < 350; ++i)
+        {
+            chr1Bases[i] = (byte)Character.toLowerCase(chr1Bases[i]);
+        }
+
+        byte[] chr2Bases = randomBases(random, 17);
+
+        File imageFile = File.createTempFile("ref_genome", TwoBitRefGenome.TWO_BIT_EXTENSION);
+        imageFile.deleteOnExit();
+
+        try(TwoBitRefGenome.Writer writer = new TwoBitRefGenome.Writer(imageFile.getAbsolutePath()))
+        {
+            writer.writeChromosome("1", chr1Bases);
+            writer.writeChromosome("2", chr2Bases);
+        }
+
+        TwoBitRefGenome refGenome = TwoBitRefGenome.load(imageFile.getAbsolutePath());
+        assertNotNull(refGenome);
+
+        // loaded once and shared
+        assertSame(refGenome, TwoBitRefGenome.load(imageFile.getAbsolutePath()));
+
+        assertEquals(1003, refGenome.getChromosomeLength("1"));
+        assertEquals(17, refGenome.getChromosomeLength("2"));
+        assertEquals(2, refGenome.chromosomeLengths().size());
+
+        assertArrayEquals(chr1Bases, refGenome.getBases("1", 1, 1003));
+        assertArrayEquals(chr2Bases, refGenome.getBases("2", 1, 17));
+
+        for(int i = 0; i < 1000; ++i)
+        {
+            int posStart = 1 + random.nextInt(1003);
+            int posEnd = posStart + random.nextInt(1003 - posStart + 1);
+
+            String expected = new String(chr1Bases, posStart - 1, posEnd - posStart + 1, StandardCharsets.US_ASCII);
+            assertEquals(expected, refGenome.getBaseString("1", posStart, posEnd));
+        }
+
+        assertEquals('R', refGenome.getBase("1", 601));
+        assertEquals('n', refGenome.getBase("1", 701));
+
+        byte[] buffer = new byte[10];
+        refGenome.getBases("1", 497, 501, buffer, 5);
+        assertEquals(new String(chr1Bases, 496, 4, StandardCharsets.US_ASCII) + "N", new String(buffer, 5, 5, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testCompileFasta() throws IOException
+    {
+        File fastaFile = File.createTempFile("ref_genome", ".fasta");
+        File indexFile = new File(fastaFile.getAbsolutePath() + ".fai");
+        fastaFile.deleteOnExit();
+        indexFile.deleteOnExit();
+
+        String chr1 = "ACGTNNACGTacgtRY";
+        String chr2 = "GGGCCCAAAT";
+
+        Files.writeString(fastaFile.toPath(), ">1\n" + chr1 + "\n>2\n" + chr2 + "\n");
+
+        Files.writeString(indexFile.toPath(), String.format("1\t%d\t3\t%d\t%d\n2\t%d\t%d\t%d\t%d\n",
+                chr1.length(), chr1.length(), chr1.length() + 1,
+                chr2.length(), 3 + chr1.length() + 1 + 3, chr2.length(), chr2.length() + 1));
+
+        String imageFile = fastaFile.getAbsolutePath() + TwoBitRefGenome.TWO_BIT_EXTENSION;
+        new File(imageFile).deleteOnExit();
+
+        TwoBitRefGenome.compileFasta(fastaFile.getAbsolutePath(), imageFile);
+
+        RefGenomeInterface refGenome = RefGenomeSource.loadSharedRefGenome(imageFile);
+        RefGenomeInterface fastaRefGenome = RefGenomeSource.loadSharedRefGenome(fastaFile.getAbsolutePath());
+
+        assertEquals(chr1, refGenome.getBaseString("1", 1, chr1.length()));
+        assertEquals(fastaRefGenome.getBaseString("2", 2, 9), refGenome.getBaseString("2", 2, 9));
+        assertEquals(chr1.length(), refGenome.getChromosomeLength("1"));
+        assertEquals(chr2.length(), refGenome.getChromosomeLength("2"));
+
+        // an image paired with the fasta must have been compiled from it
+        assertSame(refGenome, RefGenomeSource.loadSharedRefGenome(fastaFile.getAbsolutePath(), imageFile));
+        assertNull(RefGenomeSource.loadSharedRefGenome(fastaFile.getAbsolutePath(), fastaFile.getAbsolutePath()));
+
+        String otherImageFile = fastaFile.getAbsolutePath() + ".other" + TwoBitRefGenome.TWO_BIT_EXTENSION;
+        new File(otherImageFile).deleteOnExit();
+
+        try(TwoBitRefGenome.Writer writer = new TwoBitRefGenome.Writer(otherImageFile))
+        {
+            writer.writeChromosome("1", chr1.getBytes(StandardCharsets.US_ASCII));
+            writer.writeChromosome("2", chr2.substring(1).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        assertNull(RefGenomeSource.loadSharedRefGenome(fastaFile.getAbsolutePath(), otherImageFile));
+    }
+
+    private static byte[] randomBases(final Random random, int length)
+    {
+        byte[] bases = new byte[length];
+
+        for(int i = 0; i < length; ++i)
+        {
+            bases[i] = (byte)"ACGT".charAt(random.nextInt(4));
+        }
+
+        return bases;
+    }
+
+    private static void fill(final byte[] bases, int start, int end, char base)
+    {
+        for(int i = start; i < end; ++i)
+        {
+            bases[i] = (byte)base;
+        }
+    }
+}
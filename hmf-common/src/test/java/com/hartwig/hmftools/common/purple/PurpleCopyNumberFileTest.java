@@ -6,7 +6,11 @@ import static com.hartwig.hmftools.common.purple.PurpleTestUtils.createCopyNumbe
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Random;
 
@@ -40,6 +44,53 @@ public class PurpleCopyNumberFileTest
         }
     }
 
+    @Test
+    public void testWriteAndRead() throws IOException
+    {
+        final List<PurpleCopyNumber> expected = create(50);
+
+        File file = File.createTempFile("purple_copy_number", ".tsv");
+        file.deleteOnExit();
+
+        PurpleCopyNumberFile.write(file.getPath(), expected);
+        assertEquals(expected, PurpleCopyNumberFile.read(file.getPath()));
+    }
+
+    @Test
+    public void testReadRejectsNulls() throws IOException
+    {
+        // a null copy number would otherwise read as zero, and a null support fail as an unknown enum name
+        assertNullRejected("copyNumber", 2);
+        assertNullRejected("segmentStartSupport", 3);
+    }
+
+    private static void assertNullRejected(final String column, int row) throws IOException
+    {
+        File file = File.createTempFile("purple_copy_number", ".tsv");
+        file.deleteOnExit();
+
+        PurpleCopyNumberFile.write(file.getPath(), create(5));
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        int columnIndex = Lists.newArrayList(lines.get(0).split("\t")).indexOf(column);
+
+        String[] fields = lines.get(row).split("\t", -1);
+        fields[columnIndex] = "null";
+        lines.set(row, String.join("\t", fields));
+        Files.write(file.toPath(), lines);
+
+        try
+        {
+            PurpleCopyNumberFile.read(file.getPath());
+            fail("expected null " + column + " to be rejected");
+        }
+        catch(IOException e)
+        {
+            assertTrue(e.getMessage().contains("row(" + row + ")"));
+            assertTrue(e.getMessage().contains(column));
+        }
+    }
+
     @NotNull
     private static List<PurpleCopyNumber> create(int count)
     {
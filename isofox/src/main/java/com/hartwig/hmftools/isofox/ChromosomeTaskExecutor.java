@@ -40,6 +40,7 @@ import com.hartwig.hmftools.isofox.common.RegionReadData;
 import com.hartwig.hmftools.isofox.expression.ExpectedCountsCache;
 import com.hartwig.hmftools.isofox.expression.ExpectedRatesData;
 import com.hartwig.hmftools.isofox.expression.TranscriptExpression;
+import com.hartwig.hmftools.isofox.expression.TranscriptFitter;
 import com.hartwig.hmftools.isofox.expression.GeneCollectionSummary;
 import com.hartwig.hmftools.isofox.adjusts.GcRatioCounts;
 import com.hartwig.hmftools.isofox.adjusts.GcTranscriptCalculator;
@@ -86,7 +87,8 @@ public class ChromosomeTaskExecutor implements Callable
     public ChromosomeTaskExecutor(
             final IsofoxConfig config, final String chromosome, final List<GeneData> geneDataList,
             final EnsemblDataCache geneTransCache, final ResultsWriter resultsWriter, final FusionTaskManager fusionManager,
-            final ExpectedCountsCache expectedCountsCache, final GcTranscriptCalculator transcriptGcCalcs)
+            final ExpectedCountsCache expectedCountsCache, final TranscriptFitter transcriptFitter,
+            final GcTranscriptCalculator transcriptGcCalcs)
     {
         mConfig = config;
         mChromosome = chromosome;
@@ -105,7 +107,8 @@ public class ChromosomeTaskExecutor implements Callable
         mBamFragmentAllocator.registerKnownFusionPairs(mGeneTransCache);
 
         mGcRatioCounts = mBamFragmentAllocator.getGcRatioCounts();
-        mExpTransRates = mConfig.ExpCountsFile != null ? new TranscriptExpression(mConfig, mExpectedCountsCache, resultsWriter) : null;
+        mExpTransRates = mConfig.ExpCountsFile != null ? new TranscriptExpression(
+                mConfig, mExpectedCountsCache, transcriptFitter, resultsWriter) : null;
         mTranscriptGcRatios = transcriptGcCalcs;
 
         mGeneCollectionSummaryData = Lists.newArrayList();
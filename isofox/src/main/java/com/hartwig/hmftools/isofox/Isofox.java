@@ -47,6 +47,7 @@ import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.isofox.common.FragmentTypeCounts;
 import com.hartwig.hmftools.isofox.common.PerformanceTracking;
 import com.hartwig.hmftools.isofox.expression.ExpectedCountsCache;
+import com.hartwig.hmftools.isofox.expression.TranscriptFitter;
 import com.hartwig.hmftools.isofox.expression.GeneCollectionSummary;
 import com.hartwig.hmftools.isofox.expression.PanelTpmNormaliser;
 import com.hartwig.hmftools.isofox.fusion.ChimericStats;
@@ -62,6 +63,7 @@ public class Isofox
     private final ResultsWriter mResultsWriter;
     private final EnsemblDataCache mGeneTransCache;
     private final ExpectedCountsCache mExpectedCountsCache;
+    private final TranscriptFitter mTranscriptFitter;
     private final GcTranscriptCalculator mGcTranscriptCalcs;
     private final FusionTaskManager mFusionTaskManager;
 
@@ -90,6 +92,8 @@ public class Isofox
 
         mExpectedCountsCache = mConfig.ExpCountsFile != null || mConfig.applyGcBiasAdjust() ? new ExpectedCountsCache(mConfig) : null;
 
+        mTranscriptFitter = mConfig.ExpCountsFile != null ? new TranscriptFitter(mConfig) : null;
+
         mGcTranscriptCalcs = mConfig.applyGcBiasAdjust() ? new GcTranscriptCalculator(mConfig) : null;
 
         mFusionTaskManager = mConfig.runFunction(FUSIONS) ? new FusionTaskManager(mConfig, mGeneTransCache) : null;
@@ -126,7 +130,12 @@ public class Isofox
         }
 
         // BAM processing for the key routines - novel junctions, fusions and gene expression
-        if(!allocateBamFragments(chrGeneMap))
+        boolean allocated = allocateBamFragments(chrGeneMap);
+
+        if(mTranscriptFitter != null)
+            mTranscriptFitter.close();
+
+        if(!allocated)
             return false;
 
         ISF_LOGGER.info("Isofox complete, mins({})", runTimeMinsStr(startTimeMs));
@@ -143,6 +152,12 @@ public class Isofox
             return false;
         }
 
+        if(mTranscriptFitter != null && !mTranscriptFitter.isValid())
+        {
+            ISF_LOGGER.warn("invalid transcript fit prior allocations");
+            return false;
+        }
+
         if(mConfig.requireFragmentLengthCalcs())
         {
             calcFragmentLengths(chrGeneMap);
@@ -175,7 +190,7 @@ public class Isofox
 
             ChromosomeTaskExecutor bamReaderTask = new ChromosomeTaskExecutor(
                     mConfig, chromosome, geneDataList, mGeneTransCache, mResultsWriter,
-                    mFusionTaskManager, mExpectedCountsCache, mGcTranscriptCalcs);
+                    mFusionTaskManager, mExpectedCountsCache, mTranscriptFitter, mGcTranscriptCalcs);
 
             chrTasks.add(bamReaderTask);
             callableList.add(bamReaderTask);
@@ -77,6 +77,8 @@ public class IsofoxConfig
     private static final String EXP_COUNTS_FILE = "exp_counts_file";
     private static final String EXP_GC_RATIOS_FILE = "exp_gc_ratios_file";
     private static final String PANEL_TPM_NORM_FILE = "panel_tpm_norm_file";
+    private static final String FIT_PRIOR_FILE = "fit_prior_file";
+    private static final String FIT_FAST_CONVERGE = "fit_fast_converge";
 
     private static final String DROP_DUPLICATES = "drop_dups";
     private static final String SINGLE_MAP_QUAL = "single_map_qual";
@@ -108,6 +110,8 @@ public class IsofoxConfig
     public final String ExpCountsFile;
     public final String ExpGcRatiosFile;
     public final String PanelTpmNormFile;
+    public final String FitPriorFile;
+    public final boolean FitFastConverge;
     public final String NeoDir;
     public final boolean ApplyFragmentLengthAdjust;
     public final List<FragmentSize> FragmentSizeData;
@@ -204,6 +208,8 @@ public class IsofoxConfig
 
         NeoDir = configBuilder.getValue(NEO_DIR_CFG);
         PanelTpmNormFile = configBuilder.getValue(PANEL_TPM_NORM_FILE);
+        FitPriorFile = configBuilder.getValue(FIT_PRIOR_FILE);
+        FitFastConverge = configBuilder.hasFlag(FIT_FAST_CONVERGE);
 
         ApplyFragmentLengthAdjust = ExpCountsFile != null;
 
@@ -317,6 +323,8 @@ public class IsofoxConfig
         ExpGcRatiosFile = null;
         NeoDir = null;
         PanelTpmNormFile = null;
+        FitPriorFile = null;
+        FitFastConverge = false;
 
         WriteExonData = false;
         WriteSpliceJunctions = false;
@@ -369,6 +377,13 @@ public class IsofoxConfig
         configBuilder.addPath(EXP_GC_RATIOS_FILE, false, "File with generated expected GC ratios per transcript");
         configBuilder.addPath(NEO_DIR_CFG, false, NEO_DIR_DESC);
         configBuilder.addPath(PANEL_TPM_NORM_FILE, false, "Panel TPM normalisation file");
+
+        configBuilder.addPath(
+                FIT_PRIOR_FILE, false,
+                "Transcript data file from an earlier run or cohort medians, whose fitted fragments start each expression fit");
+
+        configBuilder.addFlag(
+                FIT_FAST_CONVERGE, "Exit expression fits once allocations converge, and start GC-adjusted refits from the first fit");
         configBuilder.addInteger(READ_LENGTH, "Sample sequencing read length, if 0 then is inferred from reads", 0);
         configBuilder.addInteger(SINGLE_MAP_QUAL, "Map quality for reads mapped to a single location", DEFAULT_SINGLE_MAP_QUALITY);
 
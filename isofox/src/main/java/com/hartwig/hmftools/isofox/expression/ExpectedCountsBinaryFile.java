@@ -0,0 +1,219 @@
+package com.hartwig.hmftools.isofox.expression;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.SectionedBinaryFile.HEADER_SIZE;
+import static com.hartwig.hmftools.common.utils.file.SectionedBinaryFile.readString;
+import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.utils.file.SectionedBinaryFile;
+
+import org.jetbrains.annotations.Nullable;
+
+// expected category counts per gene collection, compiled once from the CSV cache and memory-mapped at runtime - only the
+// index of gene collections is held in memory, and each collection's counts are decoded when its chromosome task needs them
+public class ExpectedCountsBinaryFile
+{
+    public static final String BINARY_EXTENSION = ".bin";
+
+    private static final int FILE_MAGIC = 0x49534543; // ISEC
+    private static final int FILE_VERSION = 1;
+
+    // gene collections are grouped into mappings of at most this size, within the 2GB limit of a buffer
+    private static final long MAX_MAPPING_SIZE = 1L << 30;
+
+    private final List<Integer> mFragmentLengths;
+    private final Map<String,GeneSetEntry> mGeneSetEntries;
+
+    private static class GeneSetEntry
+    {
+        public final Set<String> GeneIds; // unspliced gene IDs across all categories, used to match a gene collection
+        public final ByteBuffer Mapping;
+        public final int Offset;
+        public final int CategoryCount;
+
+        public GeneSetEntry(final Set<String> geneIds, final ByteBuffer mapping, int offset, int categoryCount)
+        {
+            GeneIds = geneIds;
+            Mapping = mapping;
+            Offset = offset;
+            CategoryCount = categoryCount;
+        }
+
+        public boolean containsGenes(final List<String> geneIds) { return GeneIds.containsAll(geneIds); }
+    }
+
+    private ExpectedCountsBinaryFile(final List<Integer> fragmentLengths, final Map<String,GeneSetEntry> geneSetEntries)
+    {
+        mFragmentLengths = fragmentLengths;
+        mGeneSetEntries = geneSetEntries;
+    }
+
+    public static boolean isBinaryFile(final String filename) { return filename.endsWith(BINARY_EXTENSION); }
+
+    public List<Integer> fragmentLengths() { return mFragmentLengths; }
+    public int geneSetCount() { return mGeneSetEntries.size(); }
+
+    @Nullable
+    public List<CategoryCountsData> getGeneExpectedRatesData(final String chrId, final List<String> geneIds)
+    {
+        GeneSetEntry entry = mGeneSetEntries.get(chrId);
+
+        if(entry == null || !entry.containsGenes(geneIds))
+        {
+            entry = mGeneSetEntries.values().stream().filter(x -> x.containsGenes(geneIds)).findFirst().orElse(null);
+        }
+
+        return entry != null ? decodeGeneSet(entry) : null;
+    }
+
+    private List<CategoryCountsData> decodeGeneSet(final GeneSetEntry entry)
+    {
+        // a duplicate has its own position, so chromosome tasks can decode from the same mapping concurrently
+        ByteBuffer buffer = entry.Mapping.duplicate();
+        buffer.position(entry.Offset);
+
+        int fragLengths = mFragmentLengths.size();
+        List<CategoryCountsData> categoryCounts = Lists.newArrayListWithCapacity(entry.CategoryCount);
+
+        for(int c = 0; c < entry.CategoryCount; ++c)
+        {
+            CategoryCountsData catCounts = new CategoryCountsData(readString(buffer), fragLengths);
+
+            for(int i = 0; i < fragLengths; ++i)
+            {
+                catCounts.addFragLengthCounts(buffer.getInt(), i);
+            }
+
+            categoryCounts.add(catCounts);
+        }
+
+        return categoryCounts;
+    }
+
+    // the fragment lengths follow the file header, then each gene set's category counts form a section
+    public static class Writer implements AutoCloseable
+    {
+        private final String mFilename;
+        private final SectionedBinaryFile.Writer mWriter;
+        private final int mFragmentLengthCount;
+
+        public Writer(final String filename, final List<Integer> fragmentLengths) throws IOException
+        {
+            mFilename = filename;
+            mWriter = new SectionedBinaryFile.Writer(filename, FILE_MAGIC, FILE_VERSION);
+            mFragmentLengthCount = fragmentLengths.size();
+
+            mWriter.writeInt(mFragmentLengthCount);
+
+            for(Integer fragmentLength : fragmentLengths)
+            {
+                mWriter.writeInt(fragmentLength);
+            }
+        }
+
+        public void writeGeneSet(final String geneSetId, final List<CategoryCountsData> categoryCounts) throws IOException
+        {
+            Set<String> geneIds = Sets.newLinkedHashSet();
+            long offset = mWriter.offset();
+
+            for(CategoryCountsData catCounts : categoryCounts)
+            {
+                double[] lengthCounts = catCounts.fragmentCountsByLength();
+
+                if(lengthCounts == null || lengthCounts.length != mFragmentLengthCount)
+                    throw new IOException(format("gene set(%s) category(%s) has invalid fragment length counts", geneSetId, catCounts.combinedKey()));
+
+                geneIds.addAll(catCounts.unsplicedGeneIds());
+
+                mWriter.writeString(catCounts.combinedKey());
+
+                for(double count : lengthCounts)
+                {
+                    mWriter.writeInt((int)round(count));
+                }
+            }
+
+            // directory values: offset, length, category count, with the gene set's gene IDs
+            mWriter.addSection(
+                    geneSetId, new long[] { offset, mWriter.offset() - offset, categoryCounts.size() }, Lists.newArrayList(geneIds));
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            mWriter.close();
+
+            ISF_LOGGER.info("wrote {} gene set expected counts to binary file({})", mWriter.sectionCount(), mFilename);
+        }
+    }
+
+    public static void write(
+            final String filename, final List<Integer> fragmentLengths, final Map<String,List<CategoryCountsData>> geneSetCategoryData)
+            throws IOException
+    {
+        try(Writer writer = new Writer(filename, fragmentLengths))
+        {
+            for(Map.Entry<String,List<CategoryCountsData>> entry : geneSetCategoryData.entrySet())
+            {
+                writer.writeGeneSet(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public static ExpectedCountsBinaryFile load(final String filename) throws IOException
+    {
+        List<Integer> fragmentLengths = Lists.newArrayList();
+        Map<String,GeneSetEntry> geneSetEntries = new LinkedHashMap<>();
+
+        try(SectionedBinaryFile.Reader reader = new SectionedBinaryFile.Reader(
+                filename, FILE_MAGIC, FILE_VERSION, "expected counts binary"))
+        {
+            int fragmentLengthCount = reader.map(HEADER_SIZE, Integer.BYTES).getInt();
+
+            ByteBuffer lengths = reader.map(HEADER_SIZE + Integer.BYTES, (long)fragmentLengthCount * Integer.BYTES);
+
+            for(int i = 0; i < fragmentLengthCount; ++i)
+            {
+                fragmentLengths.add(lengths.getInt());
+            }
+
+            ByteBuffer mapping = null;
+            long mappingOffset = 0;
+
+            for(SectionedBinaryFile.Section section : reader.sections())
+            {
+                long offset = section.Values[0];
+                long sectionLength = section.Values[1];
+                int categoryCount = (int)section.Values[2];
+
+                // gene sets are written contiguously, so a new mapping is only started once the current one would be exceeded
+                if(mapping == null || offset + sectionLength > mappingOffset + mapping.capacity())
+                {
+                    mappingOffset = offset;
+                    long mappingSize = min(max(MAX_MAPPING_SIZE, sectionLength), reader.directoryOffset() - offset);
+                    mapping = reader.map(mappingOffset, mappingSize);
+                }
+
+                geneSetEntries.put(section.Name, new GeneSetEntry(
+                        Sets.newHashSet(section.Items), mapping, (int)(offset - mappingOffset), categoryCount));
+            }
+        }
+
+        ISF_LOGGER.info("mapped {} gene set expected counts from binary file({})", geneSetEntries.size(), filename);
+
+        return new ExpectedCountsBinaryFile(fragmentLengths, geneSetEntries);
+    }
+}
@@ -28,17 +28,24 @@ public class ExpectedCountsCache
     // map of chrGeneSetId to category counts data
     private final Map<String,List<CategoryCountsData>> mGeneSetCategoryDataMap;
 
+    // a compiled binary file is mapped instead, and each gene set's counts decoded when requested
+    private ExpectedCountsBinaryFile mBinaryFile;
+
     private boolean mValidData;
 
     public ExpectedCountsCache(final IsofoxConfig config)
     {
         mConfig = config;
         mGeneSetCategoryDataMap = Maps.newHashMap();
+        mBinaryFile = null;
         mValidData = true;
 
         if(config.ExpCountsFile != null && Files.exists(Paths.get(mConfig.ExpCountsFile)))
         {
-            mValidData = loadExpCountsFile();
+            if(ExpectedCountsBinaryFile.isBinaryFile(mConfig.ExpCountsFile))
+                mValidData = loadBinaryFile();
+            else
+                mValidData = loadExpCountsFile(mConfig.ExpCountsFile, mConfig.FragmentSizeData, mGeneSetCategoryDataMap);
         }
     }
 
@@ -46,6 +53,9 @@ public class ExpectedCountsCache
 
     public List<CategoryCountsData> getGeneExpectedRatesData(final String chrId, final List<String> geneIds)
     {
+        if(mBinaryFile != null)
+            return mBinaryFile.getGeneExpectedRatesData(chrId, geneIds);
+
         List<CategoryCountsData> geneSetCountsData = mGeneSetCategoryDataMap.get(chrId);
 
         if (geneSetCountsData == null || !geneSetCountsDataMatches(geneIds, geneSetCountsData))
@@ -77,55 +87,84 @@ public class ExpectedCountsCache
         return null;
     }
 
-    // GeneSetId,TransId,Category,Counts for each fragment length
-    private boolean loadExpCountsFile()
+    private boolean loadBinaryFile()
     {
-        if (!Files.exists(Paths.get(mConfig.ExpCountsFile)))
+        try
+        {
+            mBinaryFile = ExpectedCountsBinaryFile.load(mConfig.ExpCountsFile);
+        }
+        catch(IOException e)
         {
-            ISF_LOGGER.warn("invalid gene ID file({})", mConfig.ExpCountsFile);
+            ISF_LOGGER.warn("failed to load expected counts binary file({}): {}", mConfig.ExpCountsFile, e.toString());
+            return false;
+        }
+
+        return setFragmentLengths(mBinaryFile.fragmentLengths(), mConfig.FragmentSizeData);
+    }
+
+    private static boolean setFragmentLengths(final List<Integer> fileFragmentLengths, final List<FragmentSize> fragmentSizeData)
+    {
+        // take the fragment lengths from the file if not already populated, in which case they must match
+        if(fragmentSizeData.isEmpty())
+        {
+            StringJoiner sj = new StringJoiner(", ");
+
+            for(Integer fragmentLength : fileFragmentLengths)
+            {
+                // set default of 1 for frequency in case it is not sampled
+                fragmentSizeData.add(new FragmentSize(fragmentLength, 1));
+                sj.add(String.valueOf(fragmentLength));
+            }
+
+            ISF_LOGGER.info("fragment lengths({}) set from expected transcript counts file", sj.toString());
+        }
+        else if(fragmentSizeData.size() != fileFragmentLengths.size())
+        {
+            ISF_LOGGER.error("expected counts file has {} fragment lengths vs configuredCount({})",
+                    fileFragmentLengths.size(), fragmentSizeData.size());
+            return false;
+        }
+
+        return true;
+    }
+
+    // GeneSetId,Category,Counts for each fragment length
+    public static boolean loadExpCountsFile(
+            final String filename, final List<FragmentSize> fragmentSizeData, final Map<String,List<CategoryCountsData>> geneSetCategoryDataMap)
+    {
+        if (!Files.exists(Paths.get(filename)))
+        {
+            ISF_LOGGER.warn("invalid gene ID file({})", filename);
             return false;
         }
 
         try
         {
-            BufferedReader fileReader = new BufferedReader(new FileReader(mConfig.ExpCountsFile));
+            BufferedReader fileReader = new BufferedReader(new FileReader(filename));
 
             // skip field names
             String line = fileReader.readLine();
 
             if (line == null)
             {
-                ISF_LOGGER.error("empty calculated expected counts file({})", mConfig.ExpCountsFile);
+                ISF_LOGGER.error("empty calculated expected counts file({})", filename);
                 return false;
             }
 
             String[] headerItems = line.split(DELIMITER, -1);
 
-            // extract the fragment lengths from the header if not already populated (in which case they must match)
-            int fileFragmentLengthCount = headerItems.length - 2;
+            // extract the fragment lengths from the header
+            List<Integer> fileFragmentLengths = Lists.newArrayList();
 
-            if(mConfig.FragmentSizeData.size() == 0)
+            for(int i = 2; i < headerItems.length; ++i)
             {
-                StringJoiner sj = new StringJoiner(", ");
-                for(int i = 3; i < headerItems.length; ++i)
-                {
-                    int fragmentLength = Integer.parseInt(headerItems[i].replaceAll(EXP_COUNT_LENGTH_HEADER, ""));
-
-                    // set default of 1 for frequency in case it is not sampled
-                    mConfig.FragmentSizeData.add(new FragmentSize(fragmentLength, 1));
-                    sj.add(String.valueOf(fragmentLength));
-                }
-
-                ISF_LOGGER.info("fragment lengths({}) set from expected transcript counts file", sj.toString());
+                fileFragmentLengths.add(Integer.parseInt(headerItems[i].replaceAll(EXP_COUNT_LENGTH_HEADER, "")));
             }
-            else if(mConfig.FragmentSizeData.size() != fileFragmentLengthCount)
-            {
-                ISF_LOGGER.error("expected counts file has {} fragment lengths vs configuredCount({})",
-                        fileFragmentLengthCount, mConfig.FragmentSizeData.size());
+
+            if(!setFragmentLengths(fileFragmentLengths, fragmentSizeData))
                 return false;
-            }
 
-            int fragLengths = mConfig.FragmentSizeData.size();
+            int fragLengths = fragmentSizeData.size();
 
             final Map<String,Integer> fieldsIndexMap = createFieldsIndexMap(line, DELIMITER);
             int geneSetIdIndex = fieldsIndexMap.get("GeneSetId");
@@ -145,7 +184,7 @@ public class ExpectedCountsCache
                 {
                     currentGeneSetId = geneSetId;
                     categoryDataList = Lists.newArrayList();
-                    mGeneSetCategoryDataMap.put(geneSetId, categoryDataList);
+                    geneSetCategoryDataMap.put(geneSetId, categoryDataList);
                 }
 
                 CategoryCountsData catCounts = new CategoryCountsData(categoryStr, fragLengths);
@@ -159,11 +198,11 @@ public class ExpectedCountsCache
             }
 
             ISF_LOGGER.info("loaded {} gene expected counts from file({})",
-                    mGeneSetCategoryDataMap.size(), mConfig.ExpCountsFile);
+                    geneSetCategoryDataMap.size(), filename);
         }
         catch (IOException e)
         {
-            ISF_LOGGER.warn("failed to load expected counts file({}): {}", mConfig.ExpCountsFile, e.toString());
+            ISF_LOGGER.warn("failed to load expected counts file({}): {}", filename, e.toString());
             return false;
         }
 
@@ -0,0 +1,267 @@
+package com.hartwig.hmftools.isofox.expression;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.common.sigs.SigUtils.calcResiduals;
+import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
+import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.hartwig.hmftools.common.sigs.SigResiduals;
+import com.hartwig.hmftools.common.utils.Matrix;
+
+import org.jetbrains.annotations.Nullable;
+
+// expectation-maximisation fit of transcript abundances to category counts, as per the common ExpectationMaxFit but over
+// only the non-zero category-transcript rates, optionally starting from prior allocations and spread across threads
+public class SparseExpectationMaxFit
+{
+    private final int mCategoryCount;
+    private final int mTranscriptCount;
+
+    // non-zero rates by transcript, and the same rates by category
+    private final int[] mTransStarts;
+    private final int[] mTransCategoryIds;
+    private final double[] mTransRates;
+
+    private final int[] mCatStarts;
+    private final int[] mCatTranscriptIds;
+    private final double[] mCatRates;
+
+    private final boolean mAllocationChangeExit;
+    private final int mParallelMinRates;
+
+    private int mIterations;
+
+    private static final int MAX_ITERATIONS = 20;
+    private static final double RESIDUALS_EXIT_PERC = 0.001;
+
+    // optionally exit once allocations move by less than this proportion of the total counts in an iteration
+    private static final double ALLOCATION_CHANGE_EXIT_PERC = 0.0001;
+
+    // a prior allocation is blended with an even allocation, since a transcript allocated zero would otherwise stay at zero
+    private static final double PRIOR_EVEN_WEIGHT = 0.05;
+
+    // below this many non-zero rates a fit is quicker single-threaded
+    private static final int PARALLEL_MIN_RATES = 100000;
+    private static final int PARALLEL_CHUNKS = 64;
+
+    public SparseExpectationMaxFit(final Matrix transDefinitions)
+    {
+        this(transDefinitions, false);
+    }
+
+    public SparseExpectationMaxFit(final Matrix transDefinitions, boolean allocationChangeExit)
+    {
+        this(transDefinitions, allocationChangeExit, PARALLEL_MIN_RATES);
+    }
+
+    @VisibleForTesting
+    public SparseExpectationMaxFit(final Matrix transDefinitions, boolean allocationChangeExit, int parallelMinRates)
+    {
+        mAllocationChangeExit = allocationChangeExit;
+        mParallelMinRates = parallelMinRates;
+
+        mCategoryCount = transDefinitions.Rows;
+        mTranscriptCount = transDefinitions.Cols;
+
+        final double[][] data = transDefinitions.getData();
+
+        int rateCount = 0;
+        int[] catRateCounts = new int[mCategoryCount];
+
+        for(int catId = 0; catId < mCategoryCount; ++catId)
+        {
+            for(int transId = 0; transId < mTranscriptCount; ++transId)
+            {
+                if(data[catId][transId] != 0)
+                {
+                    ++rateCount;
+                    ++catRateCounts[catId];
+                }
+            }
+        }
+
+        mTransStarts = new int[mTranscriptCount + 1];
+        mTransCategoryIds = new int[rateCount];
+        mTransRates = new double[rateCount];
+
+        int index = 0;
+
+        for(int transId = 0; transId < mTranscriptCount; ++transId)
+        {
+            mTransStarts[transId] = index;
+
+            for(int catId = 0; catId < mCategoryCount; ++catId)
+            {
+                if(data[catId][transId] != 0)
+                {
+                    mTransCategoryIds[index] = catId;
+                    mTransRates[index] = data[catId][transId];
+                    ++index;
+                }
+            }
+        }
+
+        mTransStarts[mTranscriptCount] = index;
+
+        mCatStarts = new int[mCategoryCount + 1];
+        mCatTranscriptIds = new int[rateCount];
+        mCatRates = new double[rateCount];
+
+        index = 0;
+
+        for(int catId = 0; catId < mCategoryCount; ++catId)
+        {
+            mCatStarts[catId] = index;
+
+            for(int transId = 0; transId < mTranscriptCount; ++transId)
+            {
+                if(data[catId][transId] != 0)
+                {
+                    mCatTranscriptIds[index] = transId;
+                    mCatRates[index] = data[catId][transId];
+                    ++index;
+                }
+            }
+        }
+
+        mCatStarts[mCategoryCount] = index;
+        mIterations = 0;
+    }
+
+    public int rateCount() { return mTransRates.length; }
+    public int iterations() { return mIterations; }
+
+    public double[] performFit(final double[] categoryCounts)
+    {
+        return performFit(categoryCounts, null, null);
+    }
+
+    public double[] performFit(
+            final double[] categoryCounts, @Nullable final double[] priorAllocations, @Nullable final ForkJoinPool threadPool)
+    {
+        double totalCounts = sumVector(categoryCounts);
+
+        double[] allocations = initialAllocations(priorAllocations);
+        double[] newAllocations = new double[mTranscriptCount];
+        double[] allocFactors = new double[mCategoryCount];
+        double[] fittedCounts = new double[mCategoryCount];
+
+        ForkJoinPool fitPool = threadPool != null && rateCount() >= mParallelMinRates ? threadPool : null;
+
+        mIterations = 0;
+
+        while(mIterations < MAX_ITERATIONS)
+        {
+            final double[] currentAllocs = allocations;
+
+            // expected share of each category from the current allocations
+            runRange(fitPool, mCategoryCount, catId -> allocFactors[catId] = categorySum(catId, currentAllocs));
+
+            runRange(fitPool, mTranscriptCount, transId ->
+            {
+                double transAlloc = currentAllocs[transId];
+                double newAlloc = 0;
+
+                for(int i = mTransStarts[transId]; i < mTransStarts[transId + 1]; ++i)
+                {
+                    int catId = mTransCategoryIds[i];
+
+                    if(allocFactors[catId] == 0)
+                        continue;
+
+                    newAlloc += categoryCounts[catId] * mTransRates[i] * transAlloc / allocFactors[catId];
+                }
+
+                newAllocations[transId] = newAlloc;
+            });
+
+            runRange(fitPool, mCategoryCount, catId -> fittedCounts[catId] = categorySum(catId, newAllocations));
+
+            SigResiduals residuals = calcResiduals(categoryCounts, fittedCounts, totalCounts);
+
+            ISF_LOGGER.trace(String.format("totalCount(%.0f) residuals(%.0f perc=%.3f) iteration(%d)",
+                    totalCounts, residuals.Total, residuals.Percent, mIterations));
+
+            if(residuals.Percent < RESIDUALS_EXIT_PERC)
+                break;
+
+            double allocationChange = 0;
+
+            for(int transId = 0; transId < mTranscriptCount; ++transId)
+            {
+                double newAlloc = newAllocations[transId] / totalCounts;
+                allocationChange += abs(newAlloc - allocations[transId]);
+                allocations[transId] = newAlloc;
+            }
+
+            ++mIterations;
+
+            // allocations are proportions of the total counts
+            if(mAllocationChangeExit && allocationChange < ALLOCATION_CHANGE_EXIT_PERC)
+                break;
+        }
+
+        return newAllocations;
+    }
+
+    private double[] initialAllocations(@Nullable final double[] priorAllocations)
+    {
+        double[] allocations = new double[mTranscriptCount];
+        double evenAlloc = 1 / (double)mTranscriptCount;
+
+        double priorTotal = priorAllocations != null ? sumVector(priorAllocations) : 0;
+
+        for(int transId = 0; transId < mTranscriptCount; ++transId)
+        {
+            if(priorTotal > 0)
+                allocations[transId] = (1 - PRIOR_EVEN_WEIGHT) * priorAllocations[transId] / priorTotal + PRIOR_EVEN_WEIGHT * evenAlloc;
+            else
+                allocations[transId] = evenAlloc;
+        }
+
+        return allocations;
+    }
+
+    private double categorySum(int catId, final double[] allocations)
+    {
+        double total = 0;
+
+        for(int i = mCatStarts[catId]; i < mCatStarts[catId + 1]; ++i)
+        {
+            total += allocations[mCatTranscriptIds[i]] * mCatRates[i];
+        }
+
+        return total;
+    }
+
+    private static void runRange(@Nullable final ForkJoinPool threadPool, int count, final IntConsumer task)
+    {
+        if(threadPool == null)
+        {
+            for(int i = 0; i < count; ++i)
+            {
+                task.accept(i);
+            }
+
+            return;
+        }
+
+        // each index is only written by one task, so results match the single-threaded fit exactly
+        int chunkSize = (count + PARALLEL_CHUNKS - 1) / PARALLEL_CHUNKS;
+
+        threadPool.submit(() -> IntStream.range(0, PARALLEL_CHUNKS).parallel().forEach(chunk ->
+        {
+            for(int i = chunk * chunkSize; i < min((chunk + 1) * chunkSize, count); ++i)
+            {
+                task.accept(i);
+            }
+        })).join();
+    }
+}
@@ -21,7 +21,6 @@ import java.util.StringJoiner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.hartwig.hmftools.common.sigs.ExpectationMaxFit;
 import com.hartwig.hmftools.common.sigs.SigResiduals;
 import com.hartwig.hmftools.isofox.IsofoxConfig;
 import com.hartwig.hmftools.isofox.adjusts.FragmentSize;
@@ -35,18 +34,21 @@ public class TranscriptExpression
     private final IsofoxConfig mConfig;
     private final ResultsWriter mResultsWriter;
     private final ExpectedCountsCache mCache;
+    private final TranscriptFitter mFitter;
 
     private final Map<String,ExpectedRatesData> mExpectedRatesDataMap; // cached computed results for this chromosome
     private ExpectedRatesData mCurrentExpRatesData;
 
     private final List<Double> mFragmentFrequencyRates;
 
-    public TranscriptExpression(final IsofoxConfig config, final ExpectedCountsCache cache, final ResultsWriter resultsWriter)
+    public TranscriptExpression(
+            final IsofoxConfig config, final ExpectedCountsCache cache, final TranscriptFitter fitter, final ResultsWriter resultsWriter)
     {
         mConfig = config;
         mResultsWriter = resultsWriter;
 
         mCache = cache;
+        mFitter = fitter;
         mExpectedRatesDataMap = Maps.newHashMap();
         mCurrentExpRatesData = null;
 
@@ -65,7 +67,7 @@ public class TranscriptExpression
 
     public static TranscriptExpression from(final IsofoxConfig config)
     {
-        return new TranscriptExpression(config, null,null);
+        return new TranscriptExpression(config, null, new TranscriptFitter(config), null);
     }
 
     public boolean validData()
@@ -111,8 +113,17 @@ public class TranscriptExpression
             return;
 
         final List<String> transcriptIds = mCurrentExpRatesData.TranscriptIds;
+        final List<String> transNames = Lists.newArrayListWithCapacity(transcriptIds.size());
 
-        final double[] fitAllocations = ExpectationMaxFit.performFit(transComboCounts, mCurrentExpRatesData.getTranscriptDefinitions());
+        for(final String transGeneId : transcriptIds)
+        {
+            transNames.add(hasGeneIdentifier(transGeneId) ? transGeneId : transIdMap.get(Integer.parseInt(transGeneId)));
+        }
+
+        final Map<String,Double> transAllocations = geneSummaryData.getFitAllocations();
+
+        final double[] fitAllocations = mFitter.performFit(
+                transComboCounts, mCurrentExpRatesData.getTranscriptDefinitions(), transNames, transAllocations);
         final double[] fittedCounts = calculateFittedCounts(mCurrentExpRatesData.getTranscriptDefinitions(), fitAllocations);
         double fitTotal = sumVector(fitAllocations);
 
@@ -123,12 +134,9 @@ public class TranscriptExpression
 
         geneSummaryData.setFitResiduals(residuals.Total);
 
-        final Map<String,Double> transAllocations = geneSummaryData.getFitAllocations();
-
         for(int transIndex = 0; transIndex < transcriptIds.size(); ++transIndex)
         {
-            final String transGeneId = transcriptIds.get(transIndex);
-            final String transName = hasGeneIdentifier(transGeneId) ? transGeneId : transIdMap.get(Integer.parseInt(transGeneId));
+            final String transName = transNames.get(transIndex);
 
             double transAllocation = fitAllocations[transIndex];
 
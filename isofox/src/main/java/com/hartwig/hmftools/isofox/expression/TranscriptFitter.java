@@ -0,0 +1,121 @@
+package com.hartwig.hmftools.isofox.expression;
+
+import static com.hartwig.hmftools.common.utils.file.CommonFields.FLD_TRANS_NAME;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.inferFileDelimiter;
+import static com.hartwig.hmftools.common.utils.file.FileReaderUtils.createFieldsIndexMap;
+import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+import static com.hartwig.hmftools.isofox.results.TranscriptResult.FLD_FITTED_FRAGMENTS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.utils.Matrix;
+import com.hartwig.hmftools.isofox.IsofoxConfig;
+
+import org.jetbrains.annotations.Nullable;
+
+// shared by the chromosome tasks: prior transcript allocations to start fits from, and threads to spread large fits across
+public class TranscriptFitter
+{
+    private final Map<String,Double> mPriorAllocations;
+    private final ForkJoinPool mThreadPool;
+    private final boolean mFastConverge;
+    private boolean mValidData;
+
+    public TranscriptFitter(final IsofoxConfig config)
+    {
+        mPriorAllocations = Maps.newHashMap();
+        mThreadPool = config.Threads > 1 ? new ForkJoinPool(config.Threads) : null;
+        mFastConverge = config.FitFastConverge;
+        mValidData = true;
+
+        if(config.FitPriorFile != null)
+            mValidData = loadPriorAllocations(config.FitPriorFile);
+    }
+
+    public boolean isValid() { return mValidData; }
+
+    public void close()
+    {
+        if(mThreadPool != null)
+            mThreadPool.shutdown();
+    }
+
+    public double[] performFit(
+            final double[] categoryCounts, final Matrix transDefinitions, final List<String> transNames,
+            @Nullable final Map<String,Double> previousAllocations)
+    {
+        SparseExpectationMaxFit emFit = new SparseExpectationMaxFit(transDefinitions, mFastConverge);
+
+        // with fast convergence a refit, such as after GC adjustment, starts from the first fit, otherwise any prior allocations are used
+        double[] priorAllocations = mFastConverge ? formPriorAllocations(transNames, previousAllocations) : null;
+
+        if(priorAllocations == null)
+            priorAllocations = formPriorAllocations(transNames, mPriorAllocations);
+
+        double[] allocations = emFit.performFit(categoryCounts, priorAllocations, mThreadPool);
+
+        ISF_LOGGER.trace("transcripts({}) rates({}) fit iterations({}) prior({})",
+                transNames.size(), emFit.rateCount(), emFit.iterations(), priorAllocations != null);
+
+        return allocations;
+    }
+
+    @Nullable
+    private static double[] formPriorAllocations(final List<String> transNames, @Nullable final Map<String,Double> allocationsMap)
+    {
+        if(allocationsMap == null || allocationsMap.isEmpty())
+            return null;
+
+        double[] allocations = new double[transNames.size()];
+        boolean hasPrior = false;
+
+        for(int i = 0; i < transNames.size(); ++i)
+        {
+            Double allocation = allocationsMap.get(transNames.get(i));
+
+            if(allocation != null && allocation > 0)
+            {
+                allocations[i] = allocation;
+                hasPrior = true;
+            }
+        }
+
+        return hasPrior ? allocations : null;
+    }
+
+    private boolean loadPriorAllocations(final String filename)
+    {
+        // an earlier Isofox transcript data file for this sample, or cohort medians in the same form
+        try
+        {
+            List<String> lines = Files.readAllLines(Paths.get(filename));
+
+            String fileDelim = inferFileDelimiter(filename);
+            Map<String,Integer> fieldsIndexMap = createFieldsIndexMap(lines.get(0), fileDelim);
+            lines.remove(0);
+
+            int transNameIndex = fieldsIndexMap.get(FLD_TRANS_NAME);
+            int fittedFragsIndex = fieldsIndexMap.get(FLD_FITTED_FRAGMENTS);
+
+            for(String line : lines)
+            {
+                String[] values = line.split(fileDelim, -1);
+                mPriorAllocations.put(values[transNameIndex], Double.parseDouble(values[fittedFragsIndex]));
+            }
+
+            ISF_LOGGER.info("loaded {} prior transcript allocations from file({})", mPriorAllocations.size(), filename);
+            return true;
+        }
+        catch(IOException | RuntimeException e)
+        {
+            ISF_LOGGER.error("failed to load prior transcript allocations file({}): {}", filename, e.toString());
+            return false;
+        }
+    }
+}
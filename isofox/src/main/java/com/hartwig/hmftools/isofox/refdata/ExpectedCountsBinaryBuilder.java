@@ -0,0 +1,85 @@
+package com.hartwig.hmftools.isofox.refdata;
+
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+import static com.hartwig.hmftools.isofox.IsofoxConstants.APP_NAME;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.isofox.adjusts.FragmentSize;
+import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+import com.hartwig.hmftools.isofox.expression.ExpectedCountsBinaryFile;
+import com.hartwig.hmftools.isofox.expression.ExpectedCountsCache;
+
+import org.jetbrains.annotations.NotNull;
+
+// compiles the expected counts CSV cache into the binary file Isofox memory-maps, named as the CSV but for its extension
+public class ExpectedCountsBinaryBuilder
+{
+    private final String mExpCountsFile;
+    private final String mOutputFile;
+
+    private static final String EXP_COUNTS_FILE = "exp_counts_file";
+
+    public ExpectedCountsBinaryBuilder(final ConfigBuilder configBuilder)
+    {
+        mExpCountsFile = configBuilder.getValue(EXP_COUNTS_FILE);
+
+        String fileName = Paths.get(mExpCountsFile).getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+
+        mOutputFile = parseOutputDir(configBuilder) + (extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName)
+                + ExpectedCountsBinaryFile.BINARY_EXTENSION;
+    }
+
+    public void run()
+    {
+        List<FragmentSize> fragmentSizeData = Lists.newArrayList();
+        Map<String,List<CategoryCountsData>> geneSetCategoryDataMap = new LinkedHashMap<>();
+
+        if(!ExpectedCountsCache.loadExpCountsFile(mExpCountsFile, fragmentSizeData, geneSetCategoryDataMap))
+        {
+            ISF_LOGGER.error("missing or invalid expected counts CSV input, exiting");
+            System.exit(1);
+        }
+
+        ISF_LOGGER.info("compiling expected counts to binary file({})", mOutputFile);
+
+        List<Integer> fragmentLengths = fragmentSizeData.stream().map(x -> x.Length).collect(Collectors.toList());
+
+        try
+        {
+            ExpectedCountsBinaryFile.write(mOutputFile, fragmentLengths, geneSetCategoryDataMap);
+        }
+        catch(IOException e)
+        {
+            ISF_LOGGER.error("failed to write expected counts binary file({}): {}", mOutputFile, e.toString());
+            System.exit(1);
+        }
+
+        ISF_LOGGER.info("expected counts binary file compile complete");
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        configBuilder.addPath(EXP_COUNTS_FILE, true, "Expected counts CSV file to compile");
+        addOutputOptions(configBuilder);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        ExpectedCountsBinaryBuilder expectedCountsBinaryBuilder = new ExpectedCountsBinaryBuilder(configBuilder);
+        expectedCountsBinaryBuilder.run();
+    }
+}
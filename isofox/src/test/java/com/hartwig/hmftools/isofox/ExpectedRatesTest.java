@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.isofox;
 
+import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
 import static com.hartwig.hmftools.isofox.TestUtils.GENE_NAME_1;
 import static com.hartwig.hmftools.isofox.TestUtils.POS_STRAND;
 import static com.hartwig.hmftools.isofox.common.FragmentMatchType.LONG;
@@ -14,8 +15,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.gene.GeneData;
@@ -26,8 +32,10 @@ import com.hartwig.hmftools.isofox.common.FragmentMatchType;
 import com.hartwig.hmftools.isofox.common.GeneCollection;
 import com.hartwig.hmftools.isofox.common.GeneReadData;
 import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+import com.hartwig.hmftools.isofox.expression.ExpectedCountsBinaryFile;
 import com.hartwig.hmftools.common.sigs.ExpectationMaxFit;
 import com.hartwig.hmftools.isofox.expression.ExpectedRatesData;
+import com.hartwig.hmftools.isofox.expression.SparseExpectationMaxFit;
 import com.hartwig.hmftools.common.utils.Matrix;
 import com.hartwig.hmftools.isofox.refdata.ExpectedCountsGenerator;
 import com.hartwig.hmftools.isofox.refdata.RefDataConfig;
@@ -703,4 +711,156 @@ public class ExpectedRatesTest
 
     }
 
+    @Test
+    public void testSparseExpectationMaxFit()
+    {
+        Random random = new Random(1);
+
+        int categoryCount = 400;
+        int transCount = 300;
+
+        Matrix sigs = new Matrix(categoryCount, transCount);
+
+        for(int transId = 0; transId < transCount; ++transId)
+        {
+            // each transcript has rates in a few categories
+            double[] transSig = new double[categoryCount];
+
+            for(int i = 0; i < 5; ++i)
+            {
+                transSig[random.nextInt(categoryCount)] += random.nextDouble();
+            }
+
+            sigs.setCol(transId, transSig);
+        }
+
+        double[] transCounts = new double[categoryCount];
+
+        for(int catId = 0; catId < categoryCount; ++catId)
+        {
+            transCounts[catId] = random.nextInt(100);
+        }
+
+        double[] denseAllocations = ExpectationMaxFit.performFit(transCounts, sigs);
+
+        SparseExpectationMaxFit sparseFit = new SparseExpectationMaxFit(sigs);
+        double[] sparseAllocations = sparseFit.performFit(transCounts);
+
+        double totalCounts = sumVector(transCounts);
+        double totalDiff = 0;
+
+        for(int transId = 0; transId < transCount; ++transId)
+        {
+            totalDiff += Math.abs(denseAllocations[transId] - sparseAllocations[transId]);
+        }
+
+        assertTrue(sparseFit.iterations() <= 20);
+        assertTrue(totalDiff / totalCounts < 1e-6);
+
+        // spreading the fit across threads gives the same result, with the threshold lowered so this fit is spread
+        ForkJoinPool threadPool = new ForkJoinPool(4);
+        SparseExpectationMaxFit parallelFit = new SparseExpectationMaxFit(sigs, false, 1);
+        double[] parallelAllocations = parallelFit.performFit(transCounts, null, threadPool);
+
+        assertEquals(sparseFit.iterations(), parallelFit.iterations());
+
+        for(int transId = 0; transId < transCount; ++transId)
+        {
+            assertEquals(sparseAllocations[transId], parallelAllocations[transId], 1e-9);
+        }
+
+        threadPool.shutdown();
+
+        // with fast convergence the fit may exit earlier once allocations have converged, and starting from the fit's
+        // own allocations needs fewer iterations to reach a similar fit
+        SparseExpectationMaxFit fastFit = new SparseExpectationMaxFit(sigs, true);
+        double[] fastAllocations = fastFit.performFit(transCounts);
+        int coldIterations = fastFit.iterations();
+        assertTrue(coldIterations <= sparseFit.iterations());
+
+        double[] warmAllocations = fastFit.performFit(transCounts, fastAllocations, null);
+        assertTrue(fastFit.iterations() <= coldIterations);
+        assertEquals(sumVector(fastAllocations), sumVector(warmAllocations), 0.01 * totalCounts);
+
+        // and the small fit matches the common implementation's expected values
+        Matrix smallSigs = new Matrix(3, 2);
+        smallSigs.setCol(0, new double[] {0.2, 0.8, 0});
+        smallSigs.setCol(1, new double[] {0.4, 0, 0.6});
+
+        double[] allocations = new SparseExpectationMaxFit(smallSigs).performFit(new double[] {5, 4, 6});
+        assertEquals(5.002, allocations[0], 0.01);
+        assertEquals(9.998, allocations[1], 0.01);
+    }
+
+    @Test
+    public void testExpectedCountsBinaryFile() throws IOException
+    {
+        List<Integer> fragmentLengths = Lists.newArrayList(50, 100, 200);
+
+        Map<String,List<CategoryCountsData>> geneSetCategoryData = new LinkedHashMap<>();
+
+        List<CategoryCountsData> geneSet1 = Lists.newArrayList(
+                createCategoryCounts("0-1", 5, 10, 0),
+                createCategoryCounts("1-ENSG001", 2, 0, 7));
+
+        List<CategoryCountsData> geneSet2 = Lists.newArrayList(
+                createCategoryCounts("2-ENSG002-ENSG003", 1, 1, 1),
+                createCategoryCounts("ENSG003", 0, 4, 3),
+                createCategoryCounts("3", 9, 0, 0));
+
+        geneSetCategoryData.put("1_0", geneSet1);
+        geneSetCategoryData.put("1_1", geneSet2);
+
+        File binaryFile = File.createTempFile("exp_counts", ExpectedCountsBinaryFile.BINARY_EXTENSION);
+        binaryFile.deleteOnExit();
+
+        ExpectedCountsBinaryFile.write(binaryFile.getAbsolutePath(), fragmentLengths, geneSetCategoryData);
+
+        ExpectedCountsBinaryFile countsFile = ExpectedCountsBinaryFile.load(binaryFile.getAbsolutePath());
+
+        assertEquals(fragmentLengths, countsFile.fragmentLengths());
+        assertEquals(2, countsFile.geneSetCount());
+
+        List<CategoryCountsData> loadedCounts = countsFile.getGeneExpectedRatesData("1_1", Lists.newArrayList("ENSG002"));
+        assertCategoryCountsMatch(geneSet2, loadedCounts);
+
+        // a mismatched gene set ID falls back to matching on genes
+        loadedCounts = countsFile.getGeneExpectedRatesData("1_5", Lists.newArrayList("ENSG001"));
+        assertCategoryCountsMatch(geneSet1, loadedCounts);
+
+        assertTrue(countsFile.getGeneExpectedRatesData("1_0", Lists.newArrayList("ENSG004")) == null);
+
+        // each request decodes its own copy, so fragment length adjustments in one task don't affect another
+        assertTrue(countsFile.getGeneExpectedRatesData("1_0", Lists.newArrayList()) != loadedCounts);
+    }
+
+    private static CategoryCountsData createCategoryCounts(final String categoryStr, int... lengthCounts)
+    {
+        CategoryCountsData catCounts = new CategoryCountsData(categoryStr, lengthCounts.length);
+
+        for(int i = 0; i < lengthCounts.length; ++i)
+        {
+            catCounts.addFragLengthCounts(lengthCounts[i], i);
+        }
+
+        return catCounts;
+    }
+
+    private static void assertCategoryCountsMatch(final List<CategoryCountsData> expected, final List<CategoryCountsData> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+
+        for(int i = 0; i < expected.size(); ++i)
+        {
+            assertEquals(expected.get(i).combinedKey(), actual.get(i).combinedKey());
+            assertEquals(expected.get(i).unsplicedGeneIds(), actual.get(i).unsplicedGeneIds());
+            assertEquals(expected.get(i).transcriptIds(), actual.get(i).transcriptIds());
+            assertEquals(expected.get(i).fragmentCount(), actual.get(i).fragmentCount(), 0.001);
+
+            for(int j = 0; j < expected.get(i).fragmentCountsByLength().length; ++j)
+            {
+                assertEquals(expected.get(i).fragmentCountsByLength()[j], actual.get(i).fragmentCountsByLength()[j], 0.001);
+            }
+        }
+    }
 }
@@ -51,6 +51,7 @@ import com.hartwig.hmftools.lilac.coverage.ComplexBuilder;
 import com.hartwig.hmftools.lilac.coverage.ComplexCoverage;
 import com.hartwig.hmftools.lilac.coverage.ComplexCoverageCalculator;
 import com.hartwig.hmftools.lilac.coverage.ComplexCoverageRanking;
+import com.hartwig.hmftools.lilac.coverage.ComplexSearch;
 import com.hartwig.hmftools.lilac.coverage.HlaComplexFile;
 import com.hartwig.hmftools.lilac.evidence.PhasedEvidence;
 import com.hartwig.hmftools.lilac.evidence.PhasedEvidenceFactory;
@@ -391,15 +392,34 @@ public class LilacApplication
 
         logStageMemory("frag-alleles");
 
-        List<HlaComplex> complexes = complexBuilder.buildComplexes(mRefFragAlleles, confirmedRecoveredAlleles);
-        // allValid &= validateComplexes(complexes); // too expensive in current form even for validation, address in unit tests instead
+        ComplexCoverageRanking complexRanker = new ComplexCoverageRanking(mConfig.TopScoreThreshold, mRefData);
+        List<ComplexCoverage> calculatedComplexes;
+        int topCoverage = -1;
 
-        LL_LOGGER.info("calculating coverage for complexes({}) and ref alleles({})", complexes.size(), mRefFragAlleles.size());
-        ComplexCoverageCalculator complexCalculator = new ComplexCoverageCalculator(mConfig);
-        List<ComplexCoverage> calculatedComplexes = complexCalculator.calculateComplexCoverages(mRefFragAlleles, complexes);
+        if(mConfig.BranchBoundSearch && mConfig.TopScoreThreshold > 0)
+        {
+            List<List<HlaComplex>> geneComplexes = complexBuilder.buildGeneComplexes(mRefFragAlleles, confirmedRecoveredAlleles);
 
-        ComplexCoverageRanking complexRanker = new ComplexCoverageRanking(mConfig.TopScoreThreshold, mRefData);
-        mRankedComplexes.addAll(complexRanker.rankCandidates(calculatedComplexes, recoveredAlleles, candidateSequences));
+            LL_LOGGER.info("searching complexes from candidates(A={} B={} C={}) and ref alleles({})",
+                    geneComplexes.get(0).size(), geneComplexes.get(1).size(), geneComplexes.get(2).size(), mRefFragAlleles.size());
+
+            ComplexSearch complexSearch = new ComplexSearch(
+                    mRefFragAlleles, geneComplexes, complexRanker, recoveredAlleles, candidateSequences);
+
+            calculatedComplexes = complexSearch.findTopComplexes();
+            topCoverage = complexSearch.topCoverage();
+        }
+        else
+        {
+            List<HlaComplex> complexes = complexBuilder.buildComplexes(mRefFragAlleles, confirmedRecoveredAlleles);
+            // allValid &= validateComplexes(complexes); // too expensive in current form even for validation, address in unit tests instead
+
+            LL_LOGGER.info("calculating coverage for complexes({}) and ref alleles({})", complexes.size(), mRefFragAlleles.size());
+            ComplexCoverageCalculator complexCalculator = new ComplexCoverageCalculator(mConfig);
+            calculatedComplexes = complexCalculator.calculateComplexCoverages(mRefFragAlleles, complexes);
+        }
+
+        mRankedComplexes.addAll(complexRanker.rankCandidates(calculatedComplexes, recoveredAlleles, candidateSequences, topCoverage));
 
         if(mRankedComplexes.isEmpty())
         {
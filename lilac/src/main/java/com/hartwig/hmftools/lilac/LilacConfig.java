@@ -88,6 +88,7 @@ public class LilacConfig
     public final int FatalLowCoverage;
     public final int MaxEliminationCandidates;
     public final boolean LogPerfCalcs;
+    public final boolean BranchBoundSearch;
 
     // optional: pre-determine sample alleles, forced to be the final solution so coverage can be reported
     public final List<HlaAllele> ActualAlleles;
@@ -120,6 +121,7 @@ public class LilacConfig
     public static final String MAX_ELIM_CANDIDATES = "max_elim_candidates";
     public static final String FATAL_LOW_COVERAGE = "fatal_low_coverage";
     public static final String LOG_PERF_CALCS = "log_perf";
+    public static final String BRANCH_BOUND_SEARCH = "branch_bound_search";
 
     public static final Logger LL_LOGGER = LogManager.getLogger(LilacConfig.class);;
 
@@ -202,6 +204,7 @@ public class LilacConfig
         DebugPhasing = configBuilder.hasFlag(DEBUG_PHASING);
         RunValidation = configBuilder.hasFlag(RUN_VALIDATION);
         LogPerfCalcs = configBuilder.hasFlag(LOG_PERF_CALCS);
+        BranchBoundSearch = configBuilder.hasFlag(BRANCH_BOUND_SEARCH);
 
         if(!checkCreateOutputDir(OutputDir))
         {
@@ -284,6 +287,7 @@ public class LilacConfig
         DebugPhasing = false;
         RunValidation = true;
         LogPerfCalcs = false;
+        BranchBoundSearch = false;
     }
 
     public static void addConfig(final ConfigBuilder configBuilder)
@@ -321,6 +325,7 @@ public class LilacConfig
         configBuilder.addFlag(DEBUG_PHASING, "More detailed logging of phasing");
         configBuilder.addFlag(RUN_VALIDATION, "Run validation checks");
         configBuilder.addFlag(LOG_PERF_CALCS,"Log performance metrics");
+        configBuilder.addFlag(BRANCH_BOUND_SEARCH, "Search complexes gene by gene, pruning those which cannot reach the top scores");
         ResultsWriter.registerConfig(configBuilder);
 
         BamUtils.addValidationStringencyOption(configBuilder);
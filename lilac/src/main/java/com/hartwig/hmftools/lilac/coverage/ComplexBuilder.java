@@ -148,6 +148,13 @@ public class ComplexBuilder
     }
 
     public List<HlaComplex> buildComplexes(final List<FragmentAlleles> refFragAlleles, final List<HlaAllele> recoveredAlleles)
+    {
+        List<List<HlaComplex>> geneComplexes = buildGeneComplexes(refFragAlleles, recoveredAlleles);
+        return combineComplexes(combineComplexes(geneComplexes.get(0), geneComplexes.get(1)), geneComplexes.get(2));
+    }
+
+    // the candidate complexes for each of genes A, B and C, from which all full complexes are formed
+    public List<List<HlaComplex>> buildGeneComplexes(final List<FragmentAlleles> refFragAlleles, final List<HlaAllele> recoveredAlleles)
     {
         // filter out any wildcards
         Set<HlaAllele> wildcardAlleles = findWildcardAlleles(refFragAlleles);
@@ -161,7 +168,7 @@ public class ComplexBuilder
         List<HlaComplex> bOnlyComplexes = buildComplexesByGene(GENE_B, mUniqueGroupAlleles, mUniqueProteinAlleles);
         List<HlaComplex> cOnlyComplexes = buildComplexesByGene(GENE_C, mUniqueGroupAlleles, mUniqueProteinAlleles);
 
-        List<HlaComplex> complexes;
+        List<HlaAllele> candidates;
         long simpleComplexCount = (long)aOnlyComplexes.size() * bOnlyComplexes.size() * cOnlyComplexes.size();
 
         if (simpleComplexCount > COMPLEX_PERMS_THRESHOLD || simpleComplexCount < 0)
@@ -190,14 +197,17 @@ public class ComplexBuilder
 
             LL_LOGGER.info("  discarding {} unlikely candidates: {}", rejected.size(), HlaAllele.toString(rejected));
 
-            complexes = buildAlleleComplexes(mUniqueGroupAlleles, topCandidates);
+            candidates = topCandidates;
         }
         else
         {
-            complexes = buildAlleleComplexes(mUniqueGroupAlleles, mUniqueProteinAlleles);
+            candidates = mUniqueProteinAlleles;
         }
 
-        return complexes;
+        return Lists.newArrayList(
+                buildComplexesByGene(GENE_A, mUniqueGroupAlleles, candidates),
+                buildComplexesByGene(GENE_B, mUniqueGroupAlleles, candidates),
+                buildComplexesByGene(GENE_C, mUniqueGroupAlleles, candidates));
     }
 
     private static ComplexCoverage calcGroupCoverage(final List<FragmentAlleles> fragAlleles, final List<HlaAllele> alleles)
@@ -212,14 +222,6 @@ public class ComplexBuilder
         return ComplexCoverage.create(AlleleCoverage.proteinCoverage(filteredFragments));
     }
 
-    private static List<HlaComplex> buildAlleleComplexes(final List<HlaAllele> confirmedGroups, final List<HlaAllele> candidates)
-    {
-        List<HlaComplex> a = buildComplexesByGene(GENE_A, confirmedGroups, candidates);
-        List<HlaComplex> b = buildComplexesByGene(GENE_B, confirmedGroups, candidates);
-        List<HlaComplex> c = buildComplexesByGene(GENE_C, confirmedGroups, candidates);
-        return combineComplexes(combineComplexes(a, b), c);
-    }
-
     public static List<HlaComplex> buildComplexesByGene(
             final String gene, final List<HlaAllele> unfilteredGroups, final List<HlaAllele> unfilteredCandidates)
     {
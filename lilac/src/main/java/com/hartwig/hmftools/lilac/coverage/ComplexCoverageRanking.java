@@ -5,7 +5,9 @@ import static java.lang.Math.log10;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
+import static com.hartwig.hmftools.lilac.LilacConstants.EXPECTED_ALLELE_COUNT;
 import static com.hartwig.hmftools.lilac.LilacConstants.FREQUENCY_SCORE_PENALTY;
+import static com.hartwig.hmftools.lilac.LilacConstants.GENE_IDS;
 import static com.hartwig.hmftools.lilac.LilacConstants.HOMOZYGOUS_SCORE_PENALTY;
 import static com.hartwig.hmftools.lilac.LilacConstants.RECOVERY_SCORE_PENALTY;
 import static com.hartwig.hmftools.lilac.LilacConstants.WILDCARD_SCORE_PENALTY;
@@ -35,24 +37,34 @@ public class ComplexCoverageRanking
     private final double mMaxScoreDifference;
     private final ReferenceData mRefData;
 
+    // complexes further than this below the top score, per unit of top coverage, are culled before sorting
+    public static final double BASE_SCORE_DIFFERENCE = 0.25;
+
     public ComplexCoverageRanking(double maxScoreDifference, final ReferenceData refData)
     {
         mMaxScoreDifference = maxScoreDifference;
         mRefData = refData;
     }
 
+    public double maxScoreDifference() { return mMaxScoreDifference; }
+
     public List<ComplexCoverage> rankCandidates(
             final List<ComplexCoverage> complexes, final List<HlaAllele> recoveredAlleles, final List<HlaSequenceLoci> sequences)
+    {
+        return rankCandidates(complexes, recoveredAlleles, sequences, -1);
+    }
+
+    // the top coverage across all complexes can be provided if the complexes are only those near the top score
+    public List<ComplexCoverage> rankCandidates(
+            final List<ComplexCoverage> complexes, final List<HlaAllele> recoveredAlleles, final List<HlaSequenceLoci> sequences,
+            int allComplexesTopCoverage)
     {
         if(complexes.isEmpty())
             return complexes;
 
         for(ComplexCoverage complexCoverage : complexes)
         {
-            calcCohortFrequency(complexCoverage);
-            calcRecoveryPenalty(complexCoverage, recoveredAlleles);
-            calcWildcardPenalty(complexCoverage, sequences);
-            calcComplexScore(complexCoverage);
+            scoreComplex(complexCoverage, recoveredAlleles, sequences);
         }
 
         if(mMaxScoreDifference == 0)
@@ -62,11 +74,14 @@ public class ComplexCoverageRanking
         }
 
         double topScore = complexes.stream().mapToDouble(x -> x.getScore()).max().orElse(0);
-        int topCoverage = complexes.stream().mapToInt(x -> x.TotalCoverage).max().orElse(0);
+
+        int topCoverage = allComplexesTopCoverage >= 0
+                ? allComplexesTopCoverage : complexes.stream().mapToInt(x -> x.TotalCoverage).max().orElse(0);
+
         double inclusionThreshold = topScore - mMaxScoreDifference * topCoverage;
 
         // initial cull before sort
-        double baseThreshold = topScore - 0.25 * topCoverage;
+        double baseThreshold = topScore - BASE_SCORE_DIFFERENCE * topCoverage;
         List<ComplexCoverage> candidateResults = complexes.stream().filter(x -> x.getScore() >= baseThreshold).collect(Collectors.toList());
         Collections.sort(candidateResults, new ComplexCoverageSorter());
 
@@ -87,6 +102,51 @@ public class ComplexCoverageRanking
         return results;
     }
 
+    public void scoreComplex(
+            final ComplexCoverage complexCoverage, final List<HlaAllele> recoveredAlleles, final List<HlaSequenceLoci> sequences)
+    {
+        calcCohortFrequency(complexCoverage);
+        calcRecoveryPenalty(complexCoverage, recoveredAlleles);
+        calcWildcardPenalty(complexCoverage, sequences);
+        calcComplexScore(complexCoverage);
+    }
+
+    // a complex's score is its total coverage times one plus the sum of these per-gene adjustments
+    public double geneScoreAdjustment(
+            final List<HlaAllele> geneAlleles, final List<HlaAllele> recoveredAlleles, final List<HlaSequenceLoci> sequences)
+    {
+        final CohortFrequency cohortFrequency = mRefData.getAlleleFrequencies();
+
+        double cohortFrequencyTotal = 0;
+        int recoveredCount = 0;
+        int wildcardCount = 0;
+
+        for(HlaAllele allele : geneAlleles)
+        {
+            double cohortPenalty = log10(max(cohortFrequency.getAlleleFrequency(allele), 0.0001));
+
+            cohortFrequencyTotal += geneAlleles.size() == 1 ? 2 * cohortPenalty : cohortPenalty;
+
+            if(recoveredAlleles.contains(allele))
+                ++recoveredCount;
+
+            if(allele.hasWildcards())
+            {
+                HlaSequenceLoci sequenceLoci = sequences.stream().filter(x -> x.Allele.equals(allele)).findFirst().orElse(null);
+
+                if(sequenceLoci != null)
+                    wildcardCount += sequenceLoci.wildcardCount();
+            }
+        }
+
+        int homozygousCount = EXPECTED_ALLELE_COUNT / GENE_IDS.size() - geneAlleles.size();
+
+        return cohortFrequencyTotal * FREQUENCY_SCORE_PENALTY
+                + homozygousCount * HOMOZYGOUS_SCORE_PENALTY
+                - recoveredCount * RECOVERY_SCORE_PENALTY
+                - wildcardCount * WILDCARD_SCORE_PENALTY;
+    }
+
     private void calcRecoveryPenalty(final ComplexCoverage complexCoverage, final List<HlaAllele> recoveredAlleles)
     {
         int recoveredCount = (int)complexCoverage.getAlleles().stream()
@@ -0,0 +1,221 @@
+package com.hartwig.hmftools.lilac.coverage;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.lilac.LilacConfig.LL_LOGGER;
+import static com.hartwig.hmftools.lilac.coverage.ComplexCoverageRanking.BASE_SCORE_DIFFERENCE;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.lilac.hla.HlaAllele;
+import com.hartwig.hmftools.lilac.seq.HlaSequenceLoci;
+
+/* Finds the complexes which the ranking would keep without scoring every combination of gene complexes:
+    - complexes are built gene by gene, bounding the coverage and score any completion of a partial complex could reach
+    - a first pass finds the top 2 scores and the top coverage, pruning branches which can improve on none of them
+    - a second pass gathers every complex the ranking could keep given these, pruning branches which cannot reach that score
+*/
+public class ComplexSearch
+{
+    private final FragmentAlleleMatrix mFragAlleleMatrix;
+    private final ComplexCoverageRanking mRanker;
+    private final List<HlaAllele> mRecoveredAlleles;
+    private final List<HlaSequenceLoci> mSequences;
+
+    private final List<List<GeneComplex>> mGeneComplexes;
+
+    // best-case coverage and score adjustment over the genes from each index onwards
+    private final int[] mRemainingMaxSupport;
+    private final double[] mRemainingMaxAdjustment;
+
+    private boolean mGathering;
+    private double mTopScore;
+    private double mSecondScore;
+    private int mTopCoverage;
+    private double mScoreThreshold;
+    private long mScoredCount;
+    private final List<ComplexCoverage> mCandidates;
+
+    // allows for rounding differences between the bounds and the ranking's own score calculation
+    private static final double SCORE_MARGIN = 0.001;
+
+    private class GeneComplex
+    {
+        public final HlaComplex Complex;
+        public final long[] Support;
+        public final int SupportCount;
+        public final double ScoreAdjustment;
+
+        public GeneComplex(final HlaComplex complex)
+        {
+            Complex = complex;
+            Support = mFragAlleleMatrix.supportedFragments(complex.Alleles);
+            SupportCount = supportCount(Support);
+            ScoreAdjustment = mRanker.geneScoreAdjustment(complex.Alleles, mRecoveredAlleles, mSequences);
+        }
+    }
+
+    public ComplexSearch(
+            final List<FragmentAlleles> fragmentAlleles, final List<List<HlaComplex>> geneComplexes,
+            final ComplexCoverageRanking ranker, final List<HlaAllele> recoveredAlleles, final List<HlaSequenceLoci> sequences)
+    {
+        mRanker = ranker;
+        mRecoveredAlleles = recoveredAlleles;
+        mSequences = sequences;
+
+        List<HlaAllele> alleles = Lists.newArrayList();
+        geneComplexes.forEach(x -> x.forEach(y -> y.Alleles.stream().filter(z -> !alleles.contains(z)).forEach(z -> alleles.add(z))));
+        mFragAlleleMatrix = new FragmentAlleleMatrix(fragmentAlleles, alleles);
+
+        mGeneComplexes = Lists.newArrayListWithCapacity(geneComplexes.size());
+
+        for(List<HlaComplex> complexes : geneComplexes)
+        {
+            // the best supported first, so high scores are found early and prune more
+            List<GeneComplex> geneComplexList = Lists.newArrayListWithCapacity(complexes.size());
+            complexes.forEach(x -> geneComplexList.add(new GeneComplex(x)));
+            geneComplexList.sort(Comparator.comparingInt((GeneComplex x) -> x.SupportCount).reversed());
+            mGeneComplexes.add(geneComplexList);
+        }
+
+        int geneCount = mGeneComplexes.size();
+        mRemainingMaxSupport = new int[geneCount + 1];
+        mRemainingMaxAdjustment = new double[geneCount + 1];
+
+        for(int g = geneCount - 1; g >= 0; --g)
+        {
+            List<GeneComplex> geneComplexList = mGeneComplexes.get(g);
+            int maxSupport = geneComplexList.stream().mapToInt(x -> x.SupportCount).max().orElse(0);
+            double maxAdjustment = geneComplexList.stream().mapToDouble(x -> x.ScoreAdjustment).max().orElse(0);
+
+            mRemainingMaxSupport[g] = mRemainingMaxSupport[g + 1] + maxSupport;
+            mRemainingMaxAdjustment[g] = mRemainingMaxAdjustment[g + 1] + maxAdjustment;
+        }
+
+        mGathering = false;
+        mTopScore = -Double.MAX_VALUE;
+        mSecondScore = -Double.MAX_VALUE;
+        mTopCoverage = -1;
+        mScoreThreshold = 0;
+        mScoredCount = 0;
+        mCandidates = Lists.newArrayList();
+    }
+
+    public int topCoverage() { return mTopCoverage; }
+
+    public List<ComplexCoverage> findTopComplexes()
+    {
+        if(mGeneComplexes.stream().anyMatch(x -> x.isEmpty()))
+            return mCandidates;
+
+        long totalComplexes = mGeneComplexes.stream().mapToLong(x -> x.size()).reduce(1, (x, y) -> x * y);
+
+        search(0, Collections.emptyList(), null, 0);
+
+        // the ranking keeps those within its inclusion threshold, but at least 2 if within its base threshold
+        double inclusionThreshold = mTopScore - min(mRanker.maxScoreDifference(), BASE_SCORE_DIFFERENCE) * mTopCoverage;
+        double baseThreshold = mTopScore - BASE_SCORE_DIFFERENCE * mTopCoverage;
+
+        mScoreThreshold = max(min(inclusionThreshold, mSecondScore), baseThreshold) - SCORE_MARGIN;
+        mGathering = true;
+
+        search(0, Collections.emptyList(), null, 0);
+
+        LL_LOGGER.info("complex search scored {} of {} complexes, top score({}) coverage({}) candidates({})",
+                mScoredCount, totalComplexes, String.format("%.2f", mTopScore), mTopCoverage, mCandidates.size());
+
+        return mCandidates;
+    }
+
+    private void search(int geneIndex, final List<HlaAllele> alleles, final long[] support, double scoreAdjustment)
+    {
+        if(geneIndex == mGeneComplexes.size())
+        {
+            scoreComplex(new HlaComplex(alleles));
+            return;
+        }
+
+        for(GeneComplex geneComplex : mGeneComplexes.get(geneIndex))
+        {
+            long[] newSupport = geneComplex.Support.clone();
+
+            if(support != null)
+            {
+                for(int i = 0; i < newSupport.length; ++i)
+                {
+                    newSupport[i] |= support[i];
+                }
+            }
+
+            double newScoreAdjustment = scoreAdjustment + geneComplex.ScoreAdjustment;
+
+            // every supported fragment adds at most 1 to total coverage, plus at most 1 from rounding shared and wild coverage
+            int coverageBound = supportCount(newSupport) + mRemainingMaxSupport[geneIndex + 1] + 1;
+            double multiplierBound = 1 + newScoreAdjustment + mRemainingMaxAdjustment[geneIndex + 1];
+            double scoreBound = coverageBound * max(multiplierBound, 0);
+
+            if(canPrune(coverageBound, scoreBound))
+                continue;
+
+            List<HlaAllele> newAlleles = Lists.newArrayListWithCapacity(alleles.size() + geneComplex.Complex.Alleles.size());
+            newAlleles.addAll(alleles);
+            newAlleles.addAll(geneComplex.Complex.Alleles);
+
+            search(geneIndex + 1, newAlleles, newSupport, newScoreAdjustment);
+        }
+    }
+
+    private boolean canPrune(int coverageBound, double scoreBound)
+    {
+        if(mGathering)
+            return scoreBound < mScoreThreshold;
+
+        return scoreBound <= mSecondScore && coverageBound <= mTopCoverage;
+    }
+
+    private void scoreComplex(final HlaComplex complex)
+    {
+        ++mScoredCount;
+
+        ComplexCoverage complexCoverage = ComplexCoverage.create(mFragAlleleMatrix.create(complex));
+        mRanker.scoreComplex(complexCoverage, mRecoveredAlleles, mSequences);
+
+        if(mGathering)
+        {
+            if(complexCoverage.getScore() >= mScoreThreshold)
+                mCandidates.add(complexCoverage);
+        }
+        else
+        {
+            double score = complexCoverage.getScore();
+
+            if(score > mTopScore)
+            {
+                mSecondScore = mTopScore;
+                mTopScore = score;
+            }
+            else if(score > mSecondScore)
+            {
+                mSecondScore = score;
+            }
+
+            mTopCoverage = max(mTopCoverage, complexCoverage.TotalCoverage);
+        }
+    }
+
+    private static int supportCount(final long[] support)
+    {
+        int count = 0;
+
+        for(long word : support)
+        {
+            count += Long.bitCount(word);
+        }
+
+        return count;
+    }
+}
@@ -1,7 +1,5 @@
 package com.hartwig.hmftools.lilac.coverage;
 
-import static com.hartwig.hmftools.lilac.LilacConfig.LL_LOGGER;
-
 import java.util.List;
 import java.util.Map;
 
@@ -18,20 +16,15 @@ public class FragmentAlleleMatrix
 
     private final int mAlleleCount;
     private final int mFragCount;
+    private final int mWordCount;
 
-    private final SupportType[][] mMatrix;
-
-    private static int FULL = 0;
-    private static int WILD = 1;
-    private static int ITEMS = WILD + 1;
+    // per allele, one bit per fragment for full and for wild support, so a complex is scored 64 fragments at a time
+    private final long[][] mFullSupport;
+    private final long[][] mWildSupport;
 
-    private enum SupportType
-    {
-        FULL,
-        WILD,
-        BOTH,
-        NONE;
-    }
+    // a complex's per-fragment support count (full plus wild over its alleles) is held as bit planes, which covers
+    // complexes of up to 7 alleles
+    private static final int COUNT_PLANES = 4;
 
     public FragmentAlleleMatrix(final List<FragmentAlleles> fragmentAlleles, final List<HlaAllele> alleles)
     {
@@ -42,16 +35,10 @@ public class FragmentAlleleMatrix
 
         mAlleleCount = alleles.size();
         mFragCount = fragmentAlleles.size();
+        mWordCount = (mFragCount + Long.SIZE - 1) / Long.SIZE;
 
-        mMatrix = new SupportType[mFragCount][mAlleleCount];
-
-        for(int f = 0; f < mFragCount; ++f)
-        {
-            for(int a = 0; a < mAlleleCount; ++a)
-            {
-                mMatrix[f][a] = SupportType.NONE;
-            }
-        }
+        mFullSupport = new long[mAlleleCount][mWordCount];
+        mWildSupport = new long[mAlleleCount][mWordCount];
 
         buildAlleleFragmentMatrix();
     }
@@ -68,6 +55,9 @@ public class FragmentAlleleMatrix
         {
             FragmentAlleles fragment = mFragmentAlleles.get(fragIndex);
 
+            int word = fragIndex / Long.SIZE;
+            long fragBit = 1L << (fragIndex % Long.SIZE);
+
             for(HlaAllele allele : fragment.getFull())
             {
                 Integer alleleIndex = mAlleleIndexMap.get(allele);
@@ -75,7 +65,7 @@ public class FragmentAlleleMatrix
                 if(alleleIndex == null)
                     continue;
 
-                mMatrix[fragIndex][alleleIndex] = SupportType.FULL;
+                mFullSupport[alleleIndex][word] |= fragBit;
             }
 
             for(HlaAllele allele : fragment.getWild())
@@ -85,36 +75,21 @@ public class FragmentAlleleMatrix
                 if(alleleIndex == null)
                     continue;
 
-                if(mMatrix[fragIndex][alleleIndex] == SupportType.FULL)
-                    mMatrix[fragIndex][alleleIndex] = SupportType.BOTH;
-                else
-                    mMatrix[fragIndex][alleleIndex] = SupportType.WILD;
+                mWildSupport[alleleIndex][word] |= fragBit;
             }
         }
     }
 
-    private class AlleleCounts
-    {
-        public final int AlleleIndex;
-
-        public boolean Full = false;
-        public boolean Wild = false;
-        public int UniqueCoverage = 0;
-        public double CombinedCoverage = 0;
-        public double WildCoverage = 0;
-
-        public AlleleCounts(int alleleIndex)
-        {
-            AlleleIndex = alleleIndex;
-        }
-    }
-
     public List<AlleleCoverage> create(final HlaComplex complex)
     {
         List<HlaAllele> alleles = complex.Alleles;
         int alleleCount = alleles.size();
 
-        AlleleCounts[] alleleCounts = new AlleleCounts[alleleCount];
+        if(alleleCount * 2 >= (1 << COUNT_PLANES))
+            throw new IllegalArgumentException("complex allele count exceeds coverage calculation limit: " + alleleCount);
+
+        long[][] fullSupport = new long[alleleCount][];
+        long[][] wildSupport = new long[alleleCount][];
 
         for(int i = 0; i < alleleCount; ++i)
         {
@@ -122,57 +97,60 @@ public class FragmentAlleleMatrix
             if(alleleIndex == null)
                 return Lists.newArrayList();
 
-            alleleCounts[i] = new AlleleCounts(alleleIndex);
+            fullSupport[i] = mFullSupport[alleleIndex];
+            wildSupport[i] = mWildSupport[alleleIndex];
         }
 
-        for(int fragIndex = 0; fragIndex < mFragCount; ++fragIndex)
+        int[] uniqueCoverage = new int[alleleCount];
+
+        // fragment counts are accumulated per complex support count, and only converted into fractional coverage at the end
+        int maxSupport = alleleCount * 2;
+        int[][] fullCounts = new int[alleleCount][maxSupport + 1];
+        int[][] wildCounts = new int[alleleCount][maxSupport + 1];
+
+        long[] countPlanes = new long[COUNT_PLANES];
+
+        for(int word = 0; word < mWordCount; ++word)
         {
-            int fullCount = 0;
-            int fullAlleleIndex = -1;
-            int wildCount = 0;
+            for(int p = 0; p < COUNT_PLANES; ++p)
+            {
+                countPlanes[p] = 0;
+            }
 
             for(int i = 0; i < alleleCount; ++i)
             {
-                alleleCounts[i].Full = false;
-                alleleCounts[i].Wild = false;
+                addToCount(countPlanes, fullSupport[i][word]);
+                addToCount(countPlanes, wildSupport[i][word]);
+            }
 
-                int alleleIndex = alleleCounts[i].AlleleIndex;
+            long supported = countPlanes[0] | countPlanes[1] | countPlanes[2] | countPlanes[3];
 
-                SupportType supportType = mMatrix[fragIndex][alleleIndex];
+            if(supported == 0)
+                continue;
 
-                if(supportType == SupportType.FULL || supportType == SupportType.BOTH)
-                {
-                    alleleCounts[i].Full = true;
-                    ++fullCount;
-                    fullAlleleIndex = i;
-                }
+            for(int supportCount = 1; supportCount <= maxSupport; ++supportCount)
+            {
+                long countMask = supported;
 
-                if(supportType == SupportType.WILD || supportType == SupportType.BOTH)
+                for(int p = 0; p < COUNT_PLANES; ++p)
                 {
-                    alleleCounts[i].Wild = true;
-                    ++wildCount;
+                    countMask &= ((supportCount >> p) & 1) != 0 ? countPlanes[p] : ~countPlanes[p];
                 }
-            }
 
-            if(fullCount == 1 && wildCount == 0)
-            {
-                ++alleleCounts[fullAlleleIndex].UniqueCoverage;
-            }
-            else if(fullCount > 0 || wildCount > 0)
-            {
-                double contribution = 1.0 / (fullCount + wildCount);
+                if(countMask == 0)
+                    continue;
 
                 for(int i = 0; i < alleleCount; ++i)
                 {
-                    if(alleleCounts[i].Full)
-                    {
-                        alleleCounts[i].CombinedCoverage += contribution;
-                    }
-
-                    if(alleleCounts[i].Wild)
-                    {
-                        alleleCounts[i].WildCoverage += contribution;
-                    }
+                    int fullFrags = Long.bitCount(fullSupport[i][word] & countMask);
+
+                    // a fragment with a single full-support allele in the complex is unique to it
+                    if(supportCount == 1)
+                        uniqueCoverage[i] += fullFrags;
+                    else
+                        fullCounts[i][supportCount] += fullFrags;
+
+                    wildCounts[i][supportCount] += Long.bitCount(wildSupport[i][word] & countMask);
                 }
             }
         }
@@ -181,10 +159,50 @@ public class FragmentAlleleMatrix
 
         for(int i = 0; i < alleleCount; ++i)
         {
-            alleleCoverages.add(new AlleleCoverage(
-                    alleles.get(i), alleleCounts[i].UniqueCoverage, alleleCounts[i].CombinedCoverage, alleleCounts[i].WildCoverage));
+            double combinedCoverage = 0;
+            double wildCoverage = 0;
+
+            for(int supportCount = 1; supportCount <= maxSupport; ++supportCount)
+            {
+                combinedCoverage += fullCounts[i][supportCount] / (double)supportCount;
+                wildCoverage += wildCounts[i][supportCount] / (double)supportCount;
+            }
+
+            alleleCoverages.add(new AlleleCoverage(alleles.get(i), uniqueCoverage[i], combinedCoverage, wildCoverage));
         }
 
         return alleleCoverages;
     }
+
+    // fragments with full or wild support for any of the alleles, one bit per fragment
+    public long[] supportedFragments(final List<HlaAllele> alleles)
+    {
+        long[] supported = new long[mWordCount];
+
+        for(HlaAllele allele : alleles)
+        {
+            Integer alleleIndex = mAlleleIndexMap.get(allele);
+
+            if(alleleIndex == null)
+                continue;
+
+            for(int word = 0; word < mWordCount; ++word)
+            {
+                supported[word] |= mFullSupport[alleleIndex][word] | mWildSupport[alleleIndex][word];
+            }
+        }
+
+        return supported;
+    }
+
+    private static void addToCount(final long[] countPlanes, long bits)
+    {
+        // ripple-carry addition of one bit per fragment into the bit-sliced counts
+        for(int p = 0; p < COUNT_PLANES && bits != 0; ++p)
+        {
+            long carry = countPlanes[p] & bits;
+            countPlanes[p] ^= bits;
+            bits = carry;
+        }
+    }
 }
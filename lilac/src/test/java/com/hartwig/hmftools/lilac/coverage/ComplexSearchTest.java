@@ -0,0 +1,101 @@
+package com.hartwig.hmftools.lilac.coverage;
+
+import static com.hartwig.hmftools.lilac.LilacConstants.GENE_A;
+import static com.hartwig.hmftools.lilac.LilacConstants.GENE_B;
+import static com.hartwig.hmftools.lilac.LilacConstants.GENE_C;
+import static com.hartwig.hmftools.lilac.coverage.ComplexBuilder.buildComplexesByGene;
+import static com.hartwig.hmftools.lilac.coverage.ComplexBuilder.combineComplexes;
+import static com.hartwig.hmftools.lilac.misc.LilacTestUtils.createFragment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.lilac.LilacConfig;
+import com.hartwig.hmftools.lilac.ReferenceData;
+import com.hartwig.hmftools.lilac.hla.HlaAllele;
+
+import org.junit.Test;
+
+public class ComplexSearchTest
+{
+    @Test
+    public void testSearchMatchesExhaustiveRanking()
+    {
+        List<HlaAllele> alleles = Lists.newArrayList();
+
+        for(String gene : Lists.newArrayList("A", "B", "C"))
+        {
+            for(int i = 1; i <= 5; ++i)
+            {
+                alleles.add(HlaAllele.fromString(String.format("%s*%02d:01", gene, i)));
+            }
+        }
+
+        LilacConfig config = new LilacConfig("SAMPLE");
+        ReferenceData refData = new ReferenceData("", config);
+        refData.getAlleleFrequencies().getAlleleFrequencies().put(alleles.get(0), 0.1);
+        refData.getAlleleFrequencies().getAlleleFrequencies().put(alleles.get(6), 0.05);
+        refData.getAlleleFrequencies().getAlleleFrequencies().put(alleles.get(12), 0.2);
+
+        List<HlaAllele> recoveredAlleles = Lists.newArrayList(alleles.get(3));
+
+        List<List<HlaComplex>> geneComplexes = Lists.newArrayList(
+                buildComplexesByGene(GENE_A, Collections.emptyList(), alleles),
+                buildComplexesByGene(GENE_B, Collections.emptyList(), alleles),
+                buildComplexesByGene(GENE_C, Collections.emptyList(), alleles));
+
+        List<HlaComplex> allComplexes = combineComplexes(combineComplexes(geneComplexes.get(0), geneComplexes.get(1)), geneComplexes.get(2));
+
+        Random random = new Random(7);
+
+        for(int trial = 0; trial < 5; ++trial)
+        {
+            // fragments mostly support alleles of a single gene, with some favoured alleles and occasional wildcard support
+            List<FragmentAlleles> fragAlleles = Lists.newArrayList();
+
+            for(int f = 0; f < 300; ++f)
+            {
+                int gene = random.nextInt(3);
+                List<HlaAllele> full = Lists.newArrayList();
+                List<HlaAllele> wild = Lists.newArrayList();
+
+                for(int i = 0; i < 5; ++i)
+                {
+                    HlaAllele allele = alleles.get(gene * 5 + i);
+                    double supportProb = i == trial % 5 || i == (trial + 2) % 5 ? 0.8 : 0.3;
+
+                    if(random.nextDouble() < supportProb)
+                        full.add(allele);
+                    else if(random.nextDouble() < 0.05)
+                        wild.add(allele);
+                }
+
+                fragAlleles.add(new FragmentAlleles(createFragment(String.valueOf(f)), full, wild));
+            }
+
+            ComplexCoverageRanking ranker = new ComplexCoverageRanking(config.TopScoreThreshold, refData);
+
+            List<ComplexCoverage> exhaustive = ranker.rankCandidates(
+                    new ComplexCoverageCalculator(config).calculateComplexCoverages(fragAlleles, allComplexes),
+                    recoveredAlleles, Collections.emptyList());
+
+            ComplexSearch complexSearch = new ComplexSearch(fragAlleles, geneComplexes, ranker, recoveredAlleles, Collections.emptyList());
+            List<ComplexCoverage> searched = ranker.rankCandidates(
+                    complexSearch.findTopComplexes(), recoveredAlleles, Collections.emptyList(), complexSearch.topCoverage());
+
+            assertTrue(exhaustive.size() >= 2);
+            assertEquals(exhaustive.size(), searched.size());
+
+            for(int i = 0; i < exhaustive.size(); ++i)
+            {
+                assertEquals(exhaustive.get(i).getAlleles(), searched.get(i).getAlleles());
+                assertEquals(exhaustive.get(i).getScore(), searched.get(i).getScore(), 1e-6);
+            }
+        }
+    }
+}
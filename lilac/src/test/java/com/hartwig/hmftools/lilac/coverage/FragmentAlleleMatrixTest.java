@@ -0,0 +1,127 @@
+package com.hartwig.hmftools.lilac.coverage;
+
+import static com.hartwig.hmftools.lilac.misc.LilacTestUtils.createFragment;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.lilac.hla.HlaAllele;
+
+import org.junit.Test;
+
+public class FragmentAlleleMatrixTest
+{
+    @Test
+    public void testComplexCoverageMatchesPerFragmentCounts()
+    {
+        List<HlaAllele> alleles = Lists.newArrayList(
+                HlaAllele.fromString("A*01:01"), HlaAllele.fromString("A*02:01"), HlaAllele.fromString("B*01:01"),
+                HlaAllele.fromString("B*02:01"), HlaAllele.fromString("C*01:01"), HlaAllele.fromString("C*02:01"),
+                HlaAllele.fromString("C*03:01"));
+
+        // span several words, with fragments supporting alleles fully, as wildcards, both or not at all
+        Random random = new Random(42);
+        List<FragmentAlleles> fragAlleles = Lists.newArrayList();
+
+        for(int f = 0; f < 200; ++f)
+        {
+            List<HlaAllele> full = Lists.newArrayList();
+            List<HlaAllele> wild = Lists.newArrayList();
+
+            for(HlaAllele allele : alleles)
+            {
+                if(random.nextInt(4) == 0)
+                    full.add(allele);
+
+                if(random.nextInt(6) == 0)
+                    wild.add(allele);
+            }
+
+            fragAlleles.add(new FragmentAlleles(createFragment(String.valueOf(f)), full, wild));
+        }
+
+        FragmentAlleleMatrix matrix = new FragmentAlleleMatrix(fragAlleles, alleles);
+
+        List<HlaComplex> complexes = Lists.newArrayList(
+                new HlaComplex(alleles.subList(0, 6)),
+                new HlaComplex(Lists.newArrayList(alleles.get(0), alleles.get(2), alleles.get(6))),
+                new HlaComplex(Lists.newArrayList(alleles.get(1), alleles.get(1), alleles.get(3))),
+                new HlaComplex(Lists.newArrayList(alleles.get(4))));
+
+        for(HlaComplex complex : complexes)
+        {
+            List<AlleleCoverage> expected = naiveCoverage(fragAlleles, complex);
+            List<AlleleCoverage> actual = matrix.create(complex);
+
+            assertEquals(expected.size(), actual.size());
+
+            for(int i = 0; i < expected.size(); ++i)
+            {
+                assertEquals(expected.get(i).Allele, actual.get(i).Allele);
+                assertEquals(expected.get(i).UniqueCoverage, actual.get(i).UniqueCoverage);
+                assertEquals(expected.get(i).SharedCoverage, actual.get(i).SharedCoverage, 1e-9);
+                assertEquals(expected.get(i).WildCoverage, actual.get(i).WildCoverage, 1e-9);
+            }
+        }
+
+        // alleles outside the matrix give no coverage
+        assertEquals(0, matrix.create(new HlaComplex(Lists.newArrayList(HlaAllele.fromString("A*11:01")))).size());
+    }
+
+    private static List<AlleleCoverage> naiveCoverage(final List<FragmentAlleles> fragAlleles, final HlaComplex complex)
+    {
+        int alleleCount = complex.Alleles.size();
+        int[] unique = new int[alleleCount];
+        double[] shared = new double[alleleCount];
+        double[] wild = new double[alleleCount];
+
+        for(FragmentAlleles fragment : fragAlleles)
+        {
+            int fullCount = 0;
+            int wildCount = 0;
+            int fullIndex = -1;
+
+            for(int i = 0; i < alleleCount; ++i)
+            {
+                if(fragment.getFull().contains(complex.Alleles.get(i)))
+                {
+                    ++fullCount;
+                    fullIndex = i;
+                }
+
+                if(fragment.getWild().contains(complex.Alleles.get(i)))
+                    ++wildCount;
+            }
+
+            if(fullCount == 1 && wildCount == 0)
+            {
+                ++unique[fullIndex];
+            }
+            else if(fullCount + wildCount > 0)
+            {
+                double contribution = 1.0 / (fullCount + wildCount);
+
+                for(int i = 0; i < alleleCount; ++i)
+                {
+                    if(fragment.getFull().contains(complex.Alleles.get(i)))
+                        shared[i] += contribution;
+
+                    if(fragment.getWild().contains(complex.Alleles.get(i)))
+                        wild[i] += contribution;
+                }
+            }
+        }
+
+        List<AlleleCoverage> coverages = Lists.newArrayList();
+
+        for(int i = 0; i < alleleCount; ++i)
+        {
+            coverages.add(new AlleleCoverage(complex.Alleles.get(i), unique[i], shared[i], wild[i]));
+        }
+
+        return coverages;
+    }
+}
@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.linx.analysis;
 
+import static java.lang.Math.min;
+
 import static com.hartwig.hmftools.linx.LinxConfig.LNX_LOGGER;
 import static com.hartwig.hmftools.linx.analysis.AnnotationExtension.UNDER_CLUSTERING;
 import static com.hartwig.hmftools.linx.analysis.ClusterAnnotations.annotateClusterChains;
@@ -13,8 +15,6 @@ import static com.hartwig.hmftools.linx.analysis.ClusteringPrep.associateBreaken
 import static com.hartwig.hmftools.linx.analysis.ClusteringPrep.populateChromosomeBreakendMap;
 import static com.hartwig.hmftools.linx.analysis.ClusteringPrep.setSimpleVariantLengths;
 import static com.hartwig.hmftools.linx.analysis.SimpleClustering.checkClusterDuplicates;
-import static com.hartwig.hmftools.linx.chaining.ChainJcnLimits.DELETED_TOTAL;
-import static com.hartwig.hmftools.linx.chaining.ChainJcnLimits.RANGE_TOTAL;
 import static com.hartwig.hmftools.linx.chaining.LinkFinder.createAssemblyLinkedPairs;
 import static com.hartwig.hmftools.linx.types.ArmCluster.buildArmClusters;
 import static com.hartwig.hmftools.linx.types.ResolvedType.LINE;
@@ -22,12 +22,16 @@ import static com.hartwig.hmftools.linx.types.ResolvedType.NONE;
 import static com.hartwig.hmftools.linx.types.ResolvedType.SIMPLE_GRP;
 import static com.hartwig.hmftools.linx.types.SvCluster.CLUSTER_ANNOT_DM;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.linx.CohortDataWriter;
 import com.hartwig.hmftools.linx.LinxConfig;
 import com.hartwig.hmftools.linx.annotators.LineElementAnnotator;
@@ -57,6 +61,11 @@ public class ClusterAnalyser {
     private final List<SvVarData> mAllVariants;
     private final ChainFinder mChainFinder;
 
+    // a single sample's clusters are chained across threads, each with its own chain finder
+    private final CohortDataWriter mCohortDataWriter;
+    private int mChainingThreads;
+    private final List<ChainFinder> mThreadChainFinders;
+
     private boolean mRunValidationChecks;
 
     PerformanceCounter mPcClustering;
@@ -89,6 +98,11 @@ public class ClusterAnalyser {
         mChainFinder.setUseAllelePloidies(true); // can probably remove and assume always in place
         mChainFinder.setLogVerbose(mConfig.LogVerbose);
 
+        // samples are already spread across threads when there are several
+        mCohortDataWriter = cohortDataWriter;
+        mThreadChainFinders = Lists.newArrayList();
+        setChainingThreads(mConfig.hasMultipleSamples() ? 1 : mConfig.Threads);
+
         mRunValidationChecks = false; // enabled in unit tests and after changes to merging-rule flow
 
         mPcClustering = new PerformanceCounter("Clustering");
@@ -122,6 +136,25 @@ public class ClusterAnalyser {
 
     public void setRunValidationChecks(boolean toggle) { mRunValidationChecks = toggle; }
 
+    public void setChainFinderLogVerbose(boolean toggle) { mThreadChainFinders.forEach(x -> x.setLogVerbose(toggle)); }
+
+    public void setChainingThreads(int threads)
+    {
+        mChainingThreads = threads;
+        mThreadChainFinders.clear();
+        mThreadChainFinders.add(mChainFinder);
+
+        for(int i = 1; i < mChainingThreads; ++i)
+        {
+            ChainFinder chainFinder = new ChainFinder(mCohortDataWriter);
+            chainFinder.setUseAllelePloidies(true);
+            chainFinder.setLogVerbose(mChainFinder.logVerbose());
+            chainFinder.setRunValidation(mChainFinder.runValidation());
+            chainFinder.setSampleId(mSampleId);
+            mThreadChainFinders.add(chainFinder);
+        }
+    }
+
     public void setSampleData(final String sampleId, List<SvVarData> allVariants)
     {
         mSampleId = sampleId;
@@ -131,6 +164,7 @@ public class ClusterAnalyser {
         mArtifactClusters.clear();
         mSimpleClustering.initialise(sampleId);
         mChainFinder.setSampleId(sampleId);
+        mThreadChainFinders.forEach(x -> x.setSampleId(sampleId));
     }
 
     public final List<SvCluster> getClusters() { return mClusters; }
@@ -192,7 +226,10 @@ public class ClusterAnalyser {
         }
 
         mPcChaining.start();
-        findLimitedChains();
+
+        if(!findLimitedChains())
+            return false;
+
         mPcChaining.pause();
 
         mPcClustering.resume();
@@ -211,7 +248,10 @@ public class ClusterAnalyser {
         mPcClustering.stop();
 
         mPcChaining.resume();
-        findLinksAndChains();
+
+        if(!findLinksAndChains())
+            return false;
+
         dissolveSimpleGroups();
         mPcChaining.stop();
 
@@ -282,7 +322,9 @@ public class ClusterAnalyser {
         mClusters.forEach(x -> mLineElementAnnotator.markLineCluster(x));
 
         mPcChaining.start();
-        findLimitedChains();
+
+        if(!findLimitedChains())
+            return false;
 
         // log basic clustering details
         mClusters.stream().filter(x -> x.getSvCount() > 1).forEach(SvCluster::logDetails);
@@ -316,11 +358,15 @@ public class ClusterAnalyser {
         return true;
     }
 
-    private void findLimitedChains()
+    private boolean findLimitedChains()
     {
         // chain small clusters and only assembled links in larger ones
         boolean checkDMs = !mConfig.IsGermline;
 
+        List<SvCluster> chainClusters = Lists.newArrayList();
+        List<Boolean> assembledLinksOnly = Lists.newArrayList();
+        List<SvCluster> simpleClusters = Lists.newArrayList();
+
         for(SvCluster cluster : mClusters)
         {
             if(checkDMs && isSimpleSingleSV(cluster))
@@ -340,22 +386,33 @@ public class ClusterAnalyser {
                 mDmFinder.analyseCluster(cluster);
 
             // then look for fully-linked clusters, ie chains involving all SVs
-            findChains(cluster, !isSimple);
+            chainClusters.add(cluster);
+            assembledLinksOnly.add(!isSimple);
 
             if(isSimple)
-            {
-                setClusterResolvedState(cluster, false);
+                simpleClusters.add(cluster);
+        }
 
-                if(cluster.isFullyChained(true))
-                {
-                    LNX_LOGGER.debug("cluster({}) simple and consistent with {} SVs", cluster.id(), cluster.getSvCount());
-                }
+        if(!chainClusters(chainClusters, assembledLinksOnly))
+            return false;
+
+        for(SvCluster cluster : simpleClusters)
+        {
+            setClusterResolvedState(cluster, false);
+
+            if(cluster.isFullyChained(true))
+            {
+                LNX_LOGGER.debug("cluster({}) simple and consistent with {} SVs", cluster.id(), cluster.getSvCount());
             }
         }
+
+        return true;
     }
 
-    private void findLinksAndChains()
+    private boolean findLinksAndChains()
     {
+        List<SvCluster> chainClusters = Lists.newArrayList();
+
         for(SvCluster cluster : mClusters)
         {
             if(cluster.getResolvedType() == LINE) // only simple assembly links for LINE clusters
@@ -381,11 +438,19 @@ public class ClusterAnalyser {
             // no need to re-find assembled TIs
 
             // then look for fully-linked clusters, ie chains involving all SVs
-            findChains(cluster, false);
+            chainClusters.add(cluster);
+        }
 
+        if(!chainClusters(chainClusters, chainClusters.stream().map(x -> false).collect(Collectors.toList())))
+            return false;
+
+        for(SvCluster cluster : chainClusters)
+        {
             setClusterResolvedState(cluster, true);
             cluster.logDetails();
         }
+
+        return true;
     }
 
     private void dissolveSimpleGroups()
@@ -421,33 +486,66 @@ public class ClusterAnalyser {
                 mState.getDelCutoffLength(), mState.getDupCutoffLength(), mState.getChrBreakendMap());
     }
 
-    private void findChains(SvCluster cluster, boolean assembledLinksOnly)
+    private boolean chainClusters(final List<SvCluster> clusters, final List<Boolean> assembledLinksOnly)
     {
-        if(mConfig.ChainingSvLimit > 0 && cluster.getSvCount() > mConfig.ChainingSvLimit)
+        List<SvCluster> chainClusters = Lists.newArrayList();
+        List<Boolean> chainAssembledLinksOnly = Lists.newArrayList();
+
+        for(int i = 0; i < clusters.size(); ++i)
         {
-            LNX_LOGGER.debug("sample({}) skipping chaining large cluster({}) with SV count({})",
-                    mSampleId, cluster.id(), cluster.getSvCount());
-            return;
+            SvCluster cluster = clusters.get(i);
+
+            if(mConfig.ChainingSvLimit > 0 && cluster.getSvCount() > mConfig.ChainingSvLimit)
+            {
+                LNX_LOGGER.debug("sample({}) skipping chaining large cluster({}) with SV count({})",
+                        mSampleId, cluster.id(), cluster.getSvCount());
+                continue;
+            }
+
+            chainClusters.add(cluster);
+            chainAssembledLinksOnly.add(assembledLinksOnly.get(i));
         }
 
-        cluster.getChains().clear();
-        mChainFinder.initialise(cluster);
-        mChainFinder.formChains(assembledLinksOnly);
-        mChainFinder.addChains(cluster);
+        int threads = min(mChainingThreads, chainClusters.size());
 
-        if(!assembledLinksOnly)
-            mChainFinder.getDiagnostics().diagnoseChains();
+        if(threads <= 1)
+        {
+            for(int i = 0; i < chainClusters.size(); ++i)
+            {
+                ClusterChainingTask.findChains(mChainFinder, chainClusters.get(i), chainAssembledLinksOnly.get(i));
+            }
+
+            return true;
+        }
 
-        final long[] rangeData = mChainFinder.calcRangeData();
+        // the largest clusters are started first, so one doesn't hold up the others by being left until last
+        List<Integer> indices = Lists.newArrayList();
 
-        if(rangeData != null)
+        for(int i = 0; i < chainClusters.size(); ++i)
         {
-            cluster.getMetrics().ValidAlleleJcnSegmentPerc = mChainFinder.getValidAllelePloidySegmentPerc();
-            cluster.getMetrics().TraversedRange = rangeData[RANGE_TOTAL];
-            cluster.getMetrics().TotalDeleted = rangeData[DELETED_TOTAL];
+            indices.add(i);
         }
 
-        mChainFinder.clear(); // release any refs to clusters and SVs
+        indices.sort(Comparator.comparingInt((Integer x) -> chainClusters.get(x).getSvCount()).reversed());
+
+        List<SvCluster> orderedClusters = indices.stream().map(x -> chainClusters.get(x)).collect(Collectors.toList());
+        List<Boolean> orderedAssembledLinksOnly = indices.stream().map(x -> chainAssembledLinksOnly.get(x)).collect(Collectors.toList());
+
+        AtomicInteger nextIndex = new AtomicInteger(0);
+        List<Callable> callableList = Lists.newArrayList();
+
+        for(int i = 0; i < threads; ++i)
+        {
+            callableList.add(new ClusterChainingTask(mThreadChainFinders.get(i), orderedClusters, orderedAssembledLinksOnly, nextIndex));
+        }
+
+        if(!TaskExecutor.executeTasks(callableList, threads))
+        {
+            LNX_LOGGER.error("sample({}) cluster chaining failed", mSampleId);
+            return false;
+        }
+
+        return true;
     }
 
     public void annotateClusters()
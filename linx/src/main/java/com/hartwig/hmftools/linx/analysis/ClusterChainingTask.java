@@ -0,0 +1,66 @@
+package com.hartwig.hmftools.linx.analysis;
+
+import static com.hartwig.hmftools.linx.chaining.ChainJcnLimits.DELETED_TOTAL;
+import static com.hartwig.hmftools.linx.chaining.ChainJcnLimits.RANGE_TOTAL;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hartwig.hmftools.linx.chaining.ChainFinder;
+import com.hartwig.hmftools.linx.types.SvCluster;
+
+// chains clusters with its own chain finder, taking the next cluster from a list shared with other tasks - each cluster's
+// chains depend only on its own SVs, so the results are the same whichever task chains it
+public class ClusterChainingTask implements Callable
+{
+    private final ChainFinder mChainFinder;
+    private final List<SvCluster> mClusters;
+    private final List<Boolean> mAssembledLinksOnly;
+    private final AtomicInteger mNextIndex;
+
+    public ClusterChainingTask(
+            final ChainFinder chainFinder, final List<SvCluster> clusters, final List<Boolean> assembledLinksOnly,
+            final AtomicInteger nextIndex)
+    {
+        mChainFinder = chainFinder;
+        mClusters = clusters;
+        mAssembledLinksOnly = assembledLinksOnly;
+        mNextIndex = nextIndex;
+    }
+
+    @Override
+    public Long call()
+    {
+        int index;
+
+        while((index = mNextIndex.getAndIncrement()) < mClusters.size())
+        {
+            findChains(mChainFinder, mClusters.get(index), mAssembledLinksOnly.get(index));
+        }
+
+        return (long)0;
+    }
+
+    public static void findChains(final ChainFinder chainFinder, final SvCluster cluster, boolean assembledLinksOnly)
+    {
+        cluster.getChains().clear();
+        chainFinder.initialise(cluster);
+        chainFinder.formChains(assembledLinksOnly);
+        chainFinder.addChains(cluster);
+
+        if(!assembledLinksOnly)
+            chainFinder.getDiagnostics().diagnoseChains();
+
+        final long[] rangeData = chainFinder.calcRangeData();
+
+        if(rangeData != null)
+        {
+            cluster.getMetrics().ValidAlleleJcnSegmentPerc = chainFinder.getValidAllelePloidySegmentPerc();
+            cluster.getMetrics().TraversedRange = rangeData[RANGE_TOTAL];
+            cluster.getMetrics().TotalDeleted = rangeData[DELETED_TOTAL];
+        }
+
+        chainFinder.clear(); // release any refs to clusters and SVs
+    }
+}
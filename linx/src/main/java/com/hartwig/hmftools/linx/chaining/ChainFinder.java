@@ -100,7 +100,6 @@ public class ChainFinder
 
     private boolean mIsValid;
     private boolean mLogVerbose;
-    private Level mLogLevel;
     private boolean mRunValidation;
     private boolean mUseAlleleJCNs;
 
@@ -140,7 +139,6 @@ public class ChainFinder
 
         mHasReplication = false;
         mLogVerbose = false;
-        mLogLevel = LNX_LOGGER.getLevel();
         mRunValidation = false;
         mIsValid = true;
         mSampleId= "";
@@ -306,16 +304,21 @@ public class ChainFinder
 
         enableLogVerbose();
 
-        mClusterJcnLimits.initialise(mClusterId, mChrBreakendMap);
-
-        buildChains(assembledLinksOnly);
+        try
+        {
+            mClusterJcnLimits.initialise(mClusterId, mChrBreakendMap);
 
-        checkChains();
-        removeIdenticalChains();
+            buildChains(assembledLinksOnly);
 
-        mDiagnostics.chainingComplete();
+            checkChains();
+            removeIdenticalChains();
 
-        disableLogVerbose();
+            mDiagnostics.chainingComplete();
+        }
+        finally
+        {
+            disableLogVerbose();
+        }
 
         if(!isValid())
         {
@@ -870,13 +873,28 @@ public class ChainFinder
         setRunValidation(toggle);
     }
 
+    public boolean logVerbose() { return mLogVerbose; }
+    public boolean runValidation() { return mRunValidation; }
+
+    // the root log level is global, so chain finders on other threads share the raised level and the first to start chaining
+    // records the level which the last to finish restores
+    private static final Object VERBOSE_LOCK = new Object();
+    private static int VerboseFinderCount = 0;
+    private static Level RestoreLogLevel = null;
+
     private void enableLogVerbose()
     {
         if(!mLogVerbose)
             return;
 
-        mLogLevel = LNX_LOGGER.getLevel();
-        Configurator.setRootLevel(TRACE);
+        synchronized(VERBOSE_LOCK)
+        {
+            if(VerboseFinderCount++ == 0)
+            {
+                RestoreLogLevel = LNX_LOGGER.getLevel();
+                Configurator.setRootLevel(TRACE);
+            }
+        }
     }
 
     private void disableLogVerbose()
@@ -884,8 +902,12 @@ public class ChainFinder
         if(!mLogVerbose)
             return;
 
-        // restore logging
-        Configurator.setRootLevel(mLogLevel);
+        synchronized(VERBOSE_LOCK)
+        {
+            // restore logging
+            if(--VerboseFinderCount == 0)
+                Configurator.setRootLevel(RestoreLogLevel);
+        }
     }
 
 }
@@ -212,6 +212,48 @@ public class ChainingActualTest
          cluster(0) incomplete chains(1 incons=1) chainEnds(arms=0 repeats=0) unlinkedSVs(0 armCount(4 incons=0)) tiCount(short=0 long=0)        */
     }
 
+    @Test
+    public void testParallelClusterChaining()
+    {
+        // chaining clusters across threads gives the same clusters and chains as chaining them in turn
+        List<SvCluster> sequentialClusters = runSampleClustering("COLO829T", 1);
+        List<SvCluster> parallelClusters = runSampleClustering("COLO829T", 4);
+
+        assertEquals(sequentialClusters.size(), parallelClusters.size());
+
+        for(int i = 0; i < sequentialClusters.size(); ++i)
+        {
+            SvCluster cluster = sequentialClusters.get(i);
+            SvCluster parallelCluster = parallelClusters.get(i);
+
+            assertEquals(cluster.id(), parallelCluster.id());
+            assertEquals(cluster.getSvCount(), parallelCluster.getSvCount());
+            assertEquals(cluster.getResolvedType(), parallelCluster.getResolvedType());
+            assertEquals(cluster.getChains().size(), parallelCluster.getChains().size());
+
+            for(int j = 0; j < cluster.getChains().size(); ++j)
+            {
+                assertEquals(cluster.getChains().get(j).getLinkCount(), parallelCluster.getChains().get(j).getLinkCount());
+                assertEquals(cluster.getChains().get(j).getSvCount(), parallelCluster.getChains().get(j).getSvCount());
+            }
+        }
+    }
+
+    private static List<SvCluster> runSampleClustering(final String sampleId, int chainingThreads)
+    {
+        LinxTester tester = new LinxTester();
+
+        // chain validation is carried over to each thread's chain finder
+        tester.Analyser.getChainFinder().setRunValidation(true);
+        tester.Analyser.setChainingThreads(chainingThreads);
+
+        tester.AllVariants.addAll(SampleDataLoader.loadSampleTestData(sampleId));
+        tester.preClusteringInit();
+        tester.Analyser.clusterAndAnalyse();
+
+        return tester.Analyser.getClusters();
+    }
+
     @Test
     public void testActualSimpleChaining1()
     {
@@ -113,7 +113,7 @@ public class LinxTester
         if(toggle)
             Configurator.setRootLevel(Level.TRACE);
 
-        Analyser.getChainFinder().setLogVerbose(toggle);
+        Analyser.setChainFinderLogVerbose(toggle);
     }
 
     public void addAndCluster(SvVarData var1, SvVarData var2)
@@ -4,6 +4,7 @@ import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
 
 import static htsjdk.variant.vcf.VCFHeaderLineCount.UNBOUNDED;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -26,7 +27,10 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
     private boolean mHasValidData;
     private final String mFilename;
 
-    private static final String CLINVAR_VCF = "clinvar_vcf";
+    // memory-mapped up-front and only read thereafter, so needs no locking
+    private ClinvarBinaryFile mBinaryFile;
+
+    public static final String CLINVAR_VCF = "clinvar_vcf";
 
     public static final String CLNSIG = "CLNSIG";
     public static final String CLNSIGCONF = "CLNSIGCONF";
@@ -41,6 +45,10 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
 
         mHasValidData = true;
         mFilename = configBuilder.getValue(CLINVAR_VCF);
+        mBinaryFile = null;
+
+        if(mFilename != null && ClinvarBinaryFile.isBinaryFile(mFilename))
+            loadBinaryFile(mFilename);
     }
 
     @Override
@@ -52,9 +60,23 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
     @Override
     public boolean hasValidData() { return mHasValidData; }
 
-    public synchronized ClinvarChrCache getChromosomeCache(final String chromosome)
+    public ClinvarChrCache getChromosomeCache(final String chromosome)
+    {
+        String chrStripped = RefGenomeFunctions.stripChrPrefix(chromosome);
+
+        if(mBinaryFile != null)
+        {
+            // each caller has its own cursor through the shared mapped entries
+            ClinvarBinaryFile.ChromosomeEntries chrEntries = mBinaryFile.chromosomeEntries(chrStripped);
+            return chrEntries != null ? new ClinvarChrCache(chrStripped, chrEntries) : null;
+        }
+
+        return getLoadedChromosomeCache(chrStripped);
+    }
+
+    private synchronized ClinvarChrCache getLoadedChromosomeCache(final String chromosome)
     {
-        return mChrCacheMap.get(RefGenomeFunctions.stripChrPrefix(chromosome));
+        return mChrCacheMap.get(chromosome);
     }
 
     @Override
@@ -72,7 +94,7 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
     @Override
     public Long call()
     {
-        if(mFilename != null)
+        if(mFilename != null && !ClinvarBinaryFile.isBinaryFile(mFilename))
         {
             loadEntries(mFilename);
         }
@@ -91,6 +113,19 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
         configBuilder.addPath(CLINVAR_VCF, false, "Clinvar annotation VCF");
     }
 
+    private void loadBinaryFile(final String filename)
+    {
+        try
+        {
+            mBinaryFile = ClinvarBinaryFile.load(filename);
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to load Clinvar binary file({}): {}", filename, e.toString());
+            mHasValidData = false;
+        }
+    }
+
     private void loadEntries(final String filename)
     {
         if(filename == null)
@@ -0,0 +1,223 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.SectionedBinaryFile.readString;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.annotation.GnomadBinaryFile.sliceBuffer;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.UNPACKED_ALLELES;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.packAlleles;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.unpackedAlleles;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.unpackedEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.file.SectionedBinaryFile;
+
+// Clinvar entries held per chromosome as sorted positions, packed ref/alt bases and indices into a table of the few distinct
+// significance and conflict values, in the same sectioned layout as the Gnomad binary file, compiled once from the Clinvar VCF
+// and memory-mapped at runtime
+public class ClinvarBinaryFile
+{
+    public static final String BINARY_EXTENSION = ".bin";
+
+    private static final int FILE_MAGIC = 0x5056434C; // PVCL
+    private static final int FILE_VERSION = 1;
+
+    private final Map<String,ChromosomeEntries> mChromosomeEntries;
+
+    public static class ChromosomeEntries
+    {
+        public final String Chromosome;
+
+        private final IntBuffer mPositions;
+        private final IntBuffer mSignificances;
+        private final IntBuffer mConflicts;
+        private final LongBuffer mAlleles;
+        private final String[] mUnpackedAlleles;
+        private final String[] mValues; // distinct significance and conflict values
+
+        private ChromosomeEntries(
+                final String chromosome, final IntBuffer positions, final IntBuffer significances, final IntBuffer conflicts,
+                final LongBuffer alleles, final String[] unpackedAlleles, final String[] values)
+        {
+            Chromosome = chromosome;
+            mPositions = positions;
+            mSignificances = significances;
+            mConflicts = conflicts;
+            mAlleles = alleles;
+            mUnpackedAlleles = unpackedAlleles;
+            mValues = values;
+        }
+
+        public int count() { return mPositions.limit(); }
+
+        public int position(int index) { return mPositions.get(index); }
+
+        public String significance(int index) { return mValues[mSignificances.get(index)]; }
+        public String conflict(int index) { return mValues[mConflicts.get(index)]; }
+
+        // one of a sequence of lookups in position order, searching forward from the last, returning the matching index or -1
+        public int findEntry(final PositionCursor cursor, int position, final String ref, final String alt)
+        {
+            for(int index = cursor.seek(this::position, count(), position); index < count() && mPositions.get(index) == position; ++index)
+            {
+                if(PackedAlleles.matches(mAlleles.get(index), mUnpackedAlleles, ref, alt))
+                    return index;
+            }
+
+            return -1;
+        }
+
+        public String toString() { return format("chromosome(%s) entries(%d)", Chromosome, count()); }
+    }
+
+    private ClinvarBinaryFile(final Map<String,ChromosomeEntries> chromosomeEntries)
+    {
+        mChromosomeEntries = chromosomeEntries;
+    }
+
+    public static boolean isBinaryFile(final String filename) { return filename.endsWith(BINARY_EXTENSION); }
+
+    public ChromosomeEntries chromosomeEntries(final String chromosome) { return mChromosomeEntries.get(chromosome); }
+
+    public int entryCount() { return mChromosomeEntries.values().stream().mapToInt(ChromosomeEntries::count).sum(); }
+
+    // per chromosome a section holding its positions, significance and conflict value indices, packed alleles, unpacked alleles
+    // and the distinct values
+    public static class Writer implements AutoCloseable
+    {
+        private final String mFilename;
+        private final SectionedBinaryFile.Writer mWriter;
+        private int mEntryCount;
+
+        public Writer(final String filename) throws IOException
+        {
+            mFilename = filename;
+            mWriter = new SectionedBinaryFile.Writer(filename, FILE_MAGIC, FILE_VERSION);
+            mEntryCount = 0;
+        }
+
+        public void writeChromosome(final ClinvarChrCache chrCache) throws IOException
+        {
+            int count = chrCache.entryCount();
+
+            if(count == 0)
+                return;
+
+            long offset = mWriter.offset();
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt(chrCache.position(i));
+            }
+
+            Map<String,Integer> valueIndices = new LinkedHashMap<>();
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt(valueIndices.computeIfAbsent(chrCache.significance(i), x -> valueIndices.size()));
+            }
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt(valueIndices.computeIfAbsent(chrCache.conflict(i), x -> valueIndices.size()));
+            }
+
+            List<String> unpackedEntries = Lists.newArrayList();
+
+            for(int i = 0; i < count; ++i)
+            {
+                long packedAlleles = packAlleles(chrCache.ref(i), chrCache.alt(i));
+
+                if(packedAlleles == UNPACKED_ALLELES)
+                {
+                    packedAlleles = unpackedEntry(unpackedEntries.size());
+                    unpackedEntries.add(unpackedAlleles(chrCache.ref(i), chrCache.alt(i)));
+                }
+
+                mWriter.writeLong(packedAlleles);
+            }
+
+            for(String alleles : unpackedEntries)
+            {
+                mWriter.writeString(alleles);
+            }
+
+            for(String value : valueIndices.keySet())
+            {
+                mWriter.writeString(value);
+            }
+
+            // directory values: offset, length, entry count, unpacked alleles count, distinct values count
+            mWriter.addSection(
+                    chrCache.Chromosome, offset, mWriter.offset() - offset, count, unpackedEntries.size(), valueIndices.size());
+
+            mEntryCount += count;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            mWriter.close();
+
+            PV_LOGGER.info("wrote {} Clinvar entries to binary file({})", mEntryCount, mFilename);
+        }
+    }
+
+    public static ClinvarBinaryFile load(final String filename) throws IOException
+    {
+        Map<String,ChromosomeEntries> chromosomeEntries = new LinkedHashMap<>();
+
+        try(SectionedBinaryFile.Reader reader = new SectionedBinaryFile.Reader(filename, FILE_MAGIC, FILE_VERSION, "Clinvar binary"))
+        {
+            for(SectionedBinaryFile.Section section : reader.sections())
+            {
+                String chromosome = section.Name;
+                long offset = section.Values[0];
+                long sectionLength = section.Values[1];
+                int entryCount = (int)section.Values[2];
+                int unpackedCount = (int)section.Values[3];
+                int valueCount = (int)section.Values[4];
+
+                ByteBuffer sectionBuffer = reader.map(offset, sectionLength).order(ByteOrder.BIG_ENDIAN);
+
+                IntBuffer positions = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                IntBuffer significances = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                IntBuffer conflicts = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                LongBuffer alleles = sliceBuffer(sectionBuffer, entryCount * Long.BYTES).asLongBuffer();
+
+                String[] unpackedAlleles = new String[unpackedCount];
+
+                for(int i = 0; i < unpackedCount; ++i)
+                {
+                    unpackedAlleles[i] = readString(sectionBuffer);
+                }
+
+                String[] values = new String[valueCount];
+
+                for(int i = 0; i < valueCount; ++i)
+                {
+                    values[i] = readString(sectionBuffer);
+                }
+
+                chromosomeEntries.put(chromosome, new ChromosomeEntries(
+                        chromosome, positions, significances, conflicts, alleles, unpackedAlleles, values));
+            }
+        }
+
+        ClinvarBinaryFile binaryFile = new ClinvarBinaryFile(chromosomeEntries);
+
+        PV_LOGGER.info("mapped {} Clinvar entries from binary file({})", binaryFile.entryCount(), filename);
+
+        return binaryFile;
+    }
+}
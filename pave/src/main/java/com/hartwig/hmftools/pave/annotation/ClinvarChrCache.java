@@ -17,12 +17,28 @@ public class ClinvarChrCache
     private final List<ClinvarEntry> mEntries;
     private final StringCache mStringCache;
 
+    // entries memory-mapped from a Clinvar binary file, in place of those loaded from the VCF
+    private final ClinvarBinaryFile.ChromosomeEntries mBinaryEntries;
+    private final PositionCursor mCursor;
+
     public ClinvarChrCache(final String chromosome, final StringCache stringCache)
     {
         Chromosome = chromosome;
         mCurrentIndex = 0;
         mEntries = Lists.newArrayList();
         mStringCache = stringCache;
+        mBinaryEntries = null;
+        mCursor = null;
+    }
+
+    public ClinvarChrCache(final String chromosome, final ClinvarBinaryFile.ChromosomeEntries binaryEntries)
+    {
+        Chromosome = chromosome;
+        mCurrentIndex = 0;
+        mEntries = null;
+        mStringCache = null;
+        mBinaryEntries = binaryEntries;
+        mCursor = new PositionCursor();
     }
 
     public void addEntry(final int position, final String ref, final String alt, final String significance, final String conflict)
@@ -31,7 +47,20 @@ public class ClinvarChrCache
                 position, mStringCache.intern(ref), mStringCache.intern(alt), stripBrackets(significance), stripBrackets(conflict)));
     }
 
-    public void clear() { mEntries.clear(); }
+    public void clear()
+    {
+        if(mEntries != null)
+            mEntries.clear();
+    }
+
+    public int entryCount() { return mBinaryEntries != null ? mBinaryEntries.count() : mEntries.size(); }
+
+    // loaded entries, in the VCF's position order, for compiling to a binary file
+    int position(int index) { return mEntries.get(index).Position; }
+    String ref(int index) { return mEntries.get(index).Ref; }
+    String alt(int index) { return mEntries.get(index).Alt; }
+    String significance(int index) { return mEntries.get(index).Significance; }
+    String conflict(int index) { return mEntries.get(index).Conflict; }
 
     private static String stripBrackets(final String clinvarStr)
     {
@@ -41,6 +70,16 @@ public class ClinvarChrCache
 
     public void annotateVariant(final VariantData variant)
     {
+        if(mBinaryEntries != null)
+        {
+            int index = mBinaryEntries.findEntry(mCursor, variant.Position, variant.Ref, variant.Alt);
+
+            if(index >= 0)
+                setClinvarAttributes(variant, mBinaryEntries.significance(index), mBinaryEntries.conflict(index));
+
+            return;
+        }
+
         if(mEntries.isEmpty() || mEntries.get(mEntries.size() - 1).Position < variant.Position)
             return;
 
@@ -62,11 +101,7 @@ public class ClinvarChrCache
 
             if(entry.matches(variant))
             {
-                variant.context().getCommonInfo().putAttribute(CLNSIG, entry.Significance);
-
-                if(!entry.Conflict.isEmpty())
-                    variant.context().getCommonInfo().putAttribute(CLNSIGCONF, entry.Conflict);
-
+                setClinvarAttributes(variant, entry.Significance, entry.Conflict);
                 break;
             }
         }
@@ -78,6 +113,14 @@ public class ClinvarChrCache
             --mCurrentIndex;
     }
 
+    private static void setClinvarAttributes(final VariantData variant, final String significance, final String conflict)
+    {
+        variant.context().getCommonInfo().putAttribute(CLNSIG, significance);
+
+        if(!conflict.isEmpty())
+            variant.context().getCommonInfo().putAttribute(CLNSIGCONF, conflict);
+    }
+
     private class ClinvarEntry
     {
         public final int Position;
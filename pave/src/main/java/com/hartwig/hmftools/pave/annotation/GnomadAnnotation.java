@@ -23,10 +23,11 @@ import java.util.stream.Stream;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
-import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.pave.VariantData;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.variant.vcf.VCFFilterHeaderLine;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLineType;
@@ -40,9 +41,11 @@ public class GnomadAnnotation extends AnnotationData implements Callable
     private boolean mHasValidData;
     private final boolean mEnabled;
     private final String mGnomadFilename;
-    private final StringCache mStringCache;
     private final boolean mNoFilter;
 
+    // memory-mapped up-front and only read thereafter, so needs no locking
+    private GnomadBinaryFile mBinaryFile;
+
     public static final String GNOMAD_FREQUENCY_FILE = "gnomad_freq_file";
     public static final String GNOMAD_FREQUENCY_DIR = "gnomad_freq_dir";
     public static final String GNOMAD_NO_FILTER = "gnomad_no_filter";
@@ -54,14 +57,24 @@ public class GnomadAnnotation extends AnnotationData implements Callable
         mChrCacheMap = Maps.newHashMap();
         mChromosomeFiles = Maps.newHashMap();
         mHasValidData = true;
-        mStringCache = new StringCache();
+        mBinaryFile = null;
 
         mRefGenomeVersion = RefGenomeVersion.from(configBuilder);
 
         if(configBuilder.hasValue(GNOMAD_FREQUENCY_FILE))
         {
             mEnabled = true;
-            mGnomadFilename = configBuilder.getValue(GNOMAD_FREQUENCY_FILE);
+            String gnomadFilename = configBuilder.getValue(GNOMAD_FREQUENCY_FILE);
+
+            if(GnomadBinaryFile.isBinaryFile(gnomadFilename))
+            {
+                mGnomadFilename = null;
+                loadBinaryFile(gnomadFilename);
+            }
+            else
+            {
+                mGnomadFilename = gnomadFilename;
+            }
         }
         else if(configBuilder.hasValue(GNOMAD_FREQUENCY_DIR))
         {
@@ -83,7 +96,7 @@ public class GnomadAnnotation extends AnnotationData implements Callable
     public String type() { return "Gnomad frequency"; }
 
     @Override
-    public boolean enabled() { return mGnomadFilename != null || !mChromosomeFiles.isEmpty(); }
+    public boolean enabled() { return mGnomadFilename != null || !mChromosomeFiles.isEmpty() || mBinaryFile != null; }
 
     public boolean applyFilter() { return !mNoFilter; }
 
@@ -100,11 +113,23 @@ public class GnomadAnnotation extends AnnotationData implements Callable
         }
     }
 
-    public synchronized GnomadChrCache getChromosomeCache(final String chromosome)
+    public GnomadChrCache getChromosomeCache(final String chromosome)
     {
         if(!mEnabled)
             return null;
 
+        if(mBinaryFile != null)
+        {
+            // each caller has its own cursor through the shared mapped entries
+            GnomadBinaryFile.ChromosomeEntries chrEntries = mBinaryFile.chromosomeEntries(chromosome);
+            return chrEntries != null ? new GnomadChrCache(chromosome, chrEntries) : null;
+        }
+
+        return getLoadedChromosomeCache(chromosome);
+    }
+
+    private synchronized GnomadChrCache getLoadedChromosomeCache(final String chromosome)
+    {
         GnomadChrCache chrCache = mChrCacheMap.get(chromosome);
 
         if(chrCache != null)
@@ -125,13 +150,7 @@ public class GnomadAnnotation extends AnnotationData implements Callable
     @Override
     public synchronized void onChromosomeComplete(final String chromosome)
     {
-        GnomadChrCache chrCache = mChrCacheMap.get(chromosome);
-
-        if(chrCache != null)
-        {
-            chrCache.clear();
-            mChrCacheMap.remove(chromosome);
-        }
+        mChrCacheMap.remove(chromosome);
     }
 
     @Override
@@ -165,7 +184,7 @@ public class GnomadAnnotation extends AnnotationData implements Callable
             int itemCount = 0;
             String line = fileReader.readLine(); // skip header
             String currentChr = "";
-            GnomadChrCache currentChrCache = null;
+            GnomadBinaryFile.ChromosomeBuilder currentChrBuilder = null;
 
             Integer chrIndex = fileChromosome != null ? -1 : 0;
             int index = fileChromosome != null ? 0 : 1;
@@ -186,12 +205,12 @@ public class GnomadAnnotation extends AnnotationData implements Callable
 
                 if(!chromosome.equals(currentChr))
                 {
+                    addChromosomeCache(currentChrBuilder);
                     currentChr = chromosome;
-                    currentChrCache = new GnomadChrCache(chromosome, mStringCache);
-                    mChrCacheMap.put(chromosome, currentChrCache);
+                    currentChrBuilder = new GnomadBinaryFile.ChromosomeBuilder(chromosome);
                 }
 
-                currentChrCache.addEntry(position, ref, alt,frequency);
+                currentChrBuilder.addEntry(position, ref, alt, frequency);
 
                 ++itemCount;
             }
@@ -200,11 +219,13 @@ public class GnomadAnnotation extends AnnotationData implements Callable
             {
                 PV_LOGGER.info("loaded {} Gnomad frequency records from file({})", itemCount, filename);
             }
-            else if(currentChrCache != null)
+            else if(currentChrBuilder != null)
             {
                 PV_LOGGER.debug("chr({}) loaded {} Gnomad frequency records",
-                        currentChrCache.Chromosome, currentChrCache.entryCount());
+                        currentChrBuilder.Chromosome, currentChrBuilder.count());
             }
+
+            addChromosomeCache(currentChrBuilder);
         }
         catch(IOException e)
         {
@@ -213,6 +234,25 @@ public class GnomadAnnotation extends AnnotationData implements Callable
         }
     }
 
+    private void addChromosomeCache(@Nullable final GnomadBinaryFile.ChromosomeBuilder chrBuilder)
+    {
+        if(chrBuilder != null)
+            mChrCacheMap.put(chrBuilder.Chromosome, new GnomadChrCache(chrBuilder.Chromosome, chrBuilder.build()));
+    }
+
+    private void loadBinaryFile(final String filename)
+    {
+        try
+        {
+            mBinaryFile = GnomadBinaryFile.load(filename);
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to load Gnomad binary file({}): {}", filename, e.toString());
+            mHasValidData = false;
+        }
+    }
+
     private void loadAllFrequencyFiles(final String gnomadDir)
     {
         try
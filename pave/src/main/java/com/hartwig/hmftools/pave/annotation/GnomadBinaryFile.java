@@ -0,0 +1,293 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.SectionedBinaryFile.readString;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.UNPACKED_ALLELES;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.packAlleles;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.unpackedAlleles;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.unpackedEntry;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.file.SectionedBinaryFile;
+
+// Gnomad frequencies held per chromosome as sorted positions, quantised frequencies and packed ref/alt bases,
+// either built in memory from the CSV cache files or compiled once from them and memory-mapped at runtime
+public class GnomadBinaryFile
+{
+    public static final String BINARY_EXTENSION = ".bin";
+
+    private static final int FILE_MAGIC = 0x50564E46; // PVNF
+    private static final int FILE_VERSION = 1;
+
+    // a position in every block is kept in memory, narrowing each binary search to a single block of the mapped positions
+    private static final int BLOCK_SIZE = 256;
+
+    // frequencies are written to the CSV cache with 5 decimal places, so this quantisation is lossless
+    private static final double FREQUENCY_SCALE = 100000;
+
+    private final Map<String,ChromosomeEntries> mChromosomeEntries;
+
+    public static class ChromosomeEntries
+    {
+        public final String Chromosome;
+
+        private final int[] mBlockPositions;
+        private final IntBuffer mPositions;
+        private final IntBuffer mFrequencies;
+        private final LongBuffer mAlleles; // packed alleles, or the negated index into the unpacked alleles plus 1
+        private final String[] mUnpackedAlleles;
+
+        private ChromosomeEntries(
+                final String chromosome, final int[] blockPositions, final IntBuffer positions, final IntBuffer frequencies,
+                final LongBuffer alleles, final String[] unpackedAlleles)
+        {
+            Chromosome = chromosome;
+            mBlockPositions = blockPositions;
+            mPositions = positions;
+            mFrequencies = frequencies;
+            mAlleles = alleles;
+            mUnpackedAlleles = unpackedAlleles;
+        }
+
+        public int count() { return mPositions.limit(); }
+
+        public int position(int index) { return mPositions.get(index); }
+
+        // a single lookup, searching the block positions then the positions within the block
+        public Double getFrequency(int position, final String ref, final String alt)
+        {
+            int block = PositionCursor.lowerBound(index -> mBlockPositions[index], 0, mBlockPositions.length, position) - 1;
+
+            int blockStart = max(block, 0) * BLOCK_SIZE;
+            int blockEnd = min((block + 1) * BLOCK_SIZE, count());
+
+            return matchFrequency(PositionCursor.lowerBound(this::position, blockStart, blockEnd, position), position, ref, alt);
+        }
+
+        // one of a sequence of lookups in position order, searching forward from the last
+        public Double getFrequency(final PositionCursor cursor, int position, final String ref, final String alt)
+        {
+            return matchFrequency(cursor.seek(this::position, count(), position), position, ref, alt);
+        }
+
+        private Double matchFrequency(int firstIndex, int position, final String ref, final String alt)
+        {
+            for(int index = firstIndex; index < count() && mPositions.get(index) == position; ++index)
+            {
+                if(PackedAlleles.matches(mAlleles.get(index), mUnpackedAlleles, ref, alt))
+                    return mFrequencies.get(index) / FREQUENCY_SCALE;
+            }
+
+            return null;
+        }
+
+        public String toString() { return format("chromosome(%s) entries(%d)", Chromosome, count()); }
+    }
+
+    private GnomadBinaryFile(final Map<String,ChromosomeEntries> chromosomeEntries)
+    {
+        mChromosomeEntries = chromosomeEntries;
+    }
+
+    public static boolean isBinaryFile(final String filename) { return filename.endsWith(BINARY_EXTENSION); }
+
+    public ChromosomeEntries chromosomeEntries(final String chromosome) { return mChromosomeEntries.get(chromosome); }
+
+    public int entryCount() { return mChromosomeEntries.values().stream().mapToInt(ChromosomeEntries::count).sum(); }
+
+    // accumulates a chromosome's entries in any order, then sorts them by position into heap-held entries
+    public static class ChromosomeBuilder
+    {
+        public final String Chromosome;
+
+        private final List<long[]> mEntries; // position, frequency and packed alleles
+        private final List<String> mUnpackedAlleles;
+
+        public ChromosomeBuilder(final String chromosome)
+        {
+            Chromosome = chromosome;
+            mEntries = Lists.newArrayList();
+            mUnpackedAlleles = Lists.newArrayList();
+        }
+
+        public int count() { return mEntries.size(); }
+
+        public void addEntry(int position, final String ref, final String alt, double frequency)
+        {
+            long packedAlleles = packAlleles(ref, alt);
+
+            if(packedAlleles == UNPACKED_ALLELES)
+            {
+                packedAlleles = unpackedEntry(mUnpackedAlleles.size());
+                mUnpackedAlleles.add(unpackedAlleles(ref, alt));
+            }
+
+            mEntries.add(new long[] { position, round(frequency * FREQUENCY_SCALE), packedAlleles });
+        }
+
+        public ChromosomeEntries build()
+        {
+            mEntries.sort((first, second) -> Long.compare(first[0], second[0]));
+
+            int count = mEntries.size();
+            int[] blockPositions = new int[(count + BLOCK_SIZE - 1) / BLOCK_SIZE];
+            IntBuffer positions = IntBuffer.allocate(count);
+            IntBuffer frequencies = IntBuffer.allocate(count);
+            LongBuffer alleles = LongBuffer.allocate(count);
+
+            for(int i = 0; i < count; ++i)
+            {
+                long[] entry = mEntries.get(i);
+
+                if((i % BLOCK_SIZE) == 0)
+                    blockPositions[i / BLOCK_SIZE] = (int)entry[0];
+
+                positions.put((int)entry[0]);
+                frequencies.put((int)entry[1]);
+                alleles.put(entry[2]);
+            }
+
+            positions.flip();
+            frequencies.flip();
+            alleles.flip();
+
+            mEntries.clear();
+
+            return new ChromosomeEntries(
+                    Chromosome, blockPositions, positions, frequencies, alleles, mUnpackedAlleles.toArray(new String[0]));
+        }
+    }
+
+    // per chromosome a section holding its block positions, positions, frequencies, packed alleles and unpacked alleles
+    public static class Writer implements AutoCloseable
+    {
+        private final String mFilename;
+        private final SectionedBinaryFile.Writer mWriter;
+        private int mEntryCount;
+
+        public Writer(final String filename) throws IOException
+        {
+            mFilename = filename;
+            mWriter = new SectionedBinaryFile.Writer(filename, FILE_MAGIC, FILE_VERSION);
+            mEntryCount = 0;
+        }
+
+        public void writeChromosome(final ChromosomeEntries entries) throws IOException
+        {
+            int count = entries.count();
+
+            if(count == 0)
+                return;
+
+            long offset = mWriter.offset();
+
+            for(int blockPosition : entries.mBlockPositions)
+            {
+                mWriter.writeInt(blockPosition);
+            }
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt(entries.mPositions.get(i));
+            }
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt(entries.mFrequencies.get(i));
+            }
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeLong(entries.mAlleles.get(i));
+            }
+
+            for(String alleles : entries.mUnpackedAlleles)
+            {
+                mWriter.writeString(alleles);
+            }
+
+            // directory values: offset, length, entry count, block count, unpacked alleles count
+            mWriter.addSection(
+                    entries.Chromosome, offset, mWriter.offset() - offset, count, entries.mBlockPositions.length,
+                    entries.mUnpackedAlleles.length);
+
+            mEntryCount += count;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            mWriter.close();
+
+            PV_LOGGER.info("wrote {} Gnomad frequency records to binary file({})", mEntryCount, mFilename);
+        }
+    }
+
+    public static GnomadBinaryFile load(final String filename) throws IOException
+    {
+        Map<String,ChromosomeEntries> chromosomeEntries = new LinkedHashMap<>();
+
+        try(SectionedBinaryFile.Reader reader = new SectionedBinaryFile.Reader(filename, FILE_MAGIC, FILE_VERSION, "Gnomad binary"))
+        {
+            for(SectionedBinaryFile.Section section : reader.sections())
+            {
+                String chromosome = section.Name;
+                long offset = section.Values[0];
+                long sectionLength = section.Values[1];
+                int entryCount = (int)section.Values[2];
+                int blockCount = (int)section.Values[3];
+                int unpackedCount = (int)section.Values[4];
+
+                // each chromosome is mapped separately, keeping every mapping well within the 2GB limit of a buffer
+                ByteBuffer sectionBuffer = reader.map(offset, sectionLength).order(ByteOrder.BIG_ENDIAN);
+
+                int[] blockPositions = new int[blockCount];
+                sectionBuffer.asIntBuffer().get(blockPositions);
+                sectionBuffer.position(blockCount * Integer.BYTES);
+
+                IntBuffer positions = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                IntBuffer frequencies = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                LongBuffer alleles = sliceBuffer(sectionBuffer, entryCount * Long.BYTES).asLongBuffer();
+
+                String[] unpackedAlleles = new String[unpackedCount];
+
+                for(int i = 0; i < unpackedCount; ++i)
+                {
+                    unpackedAlleles[i] = readString(sectionBuffer);
+                }
+
+                chromosomeEntries.put(
+                        chromosome, new ChromosomeEntries(chromosome, blockPositions, positions, frequencies, alleles, unpackedAlleles));
+            }
+        }
+
+        GnomadBinaryFile binaryFile = new GnomadBinaryFile(chromosomeEntries);
+
+        PV_LOGGER.info("mapped {} Gnomad frequency records from binary file({})", binaryFile.entryCount(), filename);
+
+        return binaryFile;
+    }
+
+    // takes the next length bytes of a mapped section as their own buffer
+    static ByteBuffer sliceBuffer(final ByteBuffer buffer, int length)
+    {
+        ByteBuffer slice = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+}
@@ -2,61 +2,26 @@ package com.hartwig.hmftools.pave.annotation;
 
 import static java.lang.String.format;
 
-import java.util.List;
-import java.util.Map;
-
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.pave.VariantData;
 
 public class GnomadChrCache
 {
     public final String Chromosome;
 
-    private final Map<Integer,List<GnomadVariant>> mFrequencies;
-    private final StringCache mStringCache;
+    private final GnomadBinaryFile.ChromosomeEntries mEntries;
+    private final PositionCursor mCursor;
 
-    public GnomadChrCache(final String chromosome, final StringCache stringCache)
+    public GnomadChrCache(final String chromosome, final GnomadBinaryFile.ChromosomeEntries entries)
     {
         Chromosome = chromosome;
-        mFrequencies = Maps.newHashMap();
-        mStringCache = stringCache;
+        mEntries = entries;
+        mCursor = new PositionCursor();
     }
 
-    public void addEntry(final int position, final String ref, final String alt, final double frequency)
-    {
-        List<GnomadVariant> posList = mFrequencies.get(position);
+    public GnomadBinaryFile.ChromosomeEntries entries() { return mEntries; }
+    public int entryCount() { return mEntries.count(); }
 
-        if(posList == null)
-        {
-            posList = Lists.newArrayList();
-            mFrequencies.put(position, posList);
-        }
-
-        posList.add(new GnomadVariant(mStringCache.intern(ref), mStringCache.intern(alt), frequency));
-    }
-
-    public void clear() { mFrequencies.clear(); }
-    public int entryCount() { return mFrequencies.size(); }
-
-    public String toString() { return format("chr(%s) entries(%d)", Chromosome, mFrequencies.size()); }
-
-    private class GnomadVariant
-    {
-        public final String Ref;
-        public final String Alt;
-        public final double Frequency;
-
-        public GnomadVariant(final String ref, final String alt, final double frequency)
-        {
-            Ref = ref;
-            Alt = alt;
-            Frequency = frequency;
-        }
-
-        public boolean matches(final String ref, final String alt) { return ref.equals(Ref) && alt.equals(Alt); }
-    }
+    public String toString() { return format("chr(%s) entries(%d)", Chromosome, entryCount()); }
 
     public Double getFrequency(final VariantData variant)
     {
@@ -85,12 +50,6 @@ public class GnomadChrCache
 
     public Double getFrequency(int position, final String ref, final String alt)
     {
-        List<GnomadVariant> posList = mFrequencies.get(position);
-
-        if(posList == null)
-            return null;
-
-        GnomadVariant match = posList.stream().filter(x -> x.matches(ref, alt)).findFirst().orElse(null);
-        return match != null ? match.Frequency : null;
+        return mEntries.getFrequency(mCursor, position, ref, alt);
     }
 }
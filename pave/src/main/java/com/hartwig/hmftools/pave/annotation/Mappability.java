@@ -25,6 +25,9 @@ public class Mappability extends AnnotationData implements Callable
     private final Map<String,MappabilityChrCache> mChrCacheMap;
     private boolean mHasValidData;
 
+    // memory-mapped up-front and only read thereafter, so needs no locking
+    private MappabilityBinaryFile mBinaryFile;
+
     public static final String MAPPABILITY_BED = "mappability_bed";
 
     public static final String MAPPABILITY = "MAPPABILITY";
@@ -35,6 +38,7 @@ public class Mappability extends AnnotationData implements Callable
         mFileReader = null;
         mHasValidData = true;
         mChrCacheMap = Maps.newHashMap();
+        mBinaryFile = null;
 
         if(configBuilder.hasValue(MAPPABILITY_BED))
         {
@@ -46,12 +50,24 @@ public class Mappability extends AnnotationData implements Callable
     public String type() { return "Mappability"; }
 
     @Override
-    public boolean enabled() { return mFileReader != null; }
+    public boolean enabled() { return mFileReader != null || mBinaryFile != null; }
 
     @Override
     public boolean hasValidData() { return mHasValidData; }
 
-    public synchronized MappabilityChrCache getChromosomeCache(final String chromosome)
+    public MappabilityChrCache getChromosomeCache(final String chromosome)
+    {
+        if(mBinaryFile != null)
+        {
+            // each caller has its own cursor through the shared mapped regions
+            MappabilityBinaryFile.ChromosomeEntries chrEntries = mBinaryFile.chromosomeEntries(chromosome);
+            return chrEntries != null ? new MappabilityChrCache(chromosome, chrEntries) : null;
+        }
+
+        return getLoadedChromosomeCache(chromosome);
+    }
+
+    private synchronized MappabilityChrCache getLoadedChromosomeCache(final String chromosome)
     {
         MappabilityChrCache chrCache = mChrCacheMap.get(chromosome);
 
@@ -106,6 +122,12 @@ public class Mappability extends AnnotationData implements Callable
             return;
         }
 
+        if(MappabilityBinaryFile.isBinaryFile(filename))
+        {
+            loadBinaryFile(filename);
+            return;
+        }
+
         try
         {
             mFileReader = createBufferedReader(filename);
@@ -120,6 +142,19 @@ public class Mappability extends AnnotationData implements Callable
         }
     }
 
+    private void loadBinaryFile(final String filename)
+    {
+        try
+        {
+            mBinaryFile = MappabilityBinaryFile.load(filename);
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to load mappability binary file({}): {}", filename, e.toString());
+            mHasValidData = false;
+        }
+    }
+
     private void loadEntries(final String requestedChromosome)
     {
         if(mFileReader == null)
@@ -0,0 +1,166 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static java.lang.Math.round;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.annotation.GnomadBinaryFile.sliceBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.hartwig.hmftools.common.utils.file.SectionedBinaryFile;
+
+// mappability regions held per chromosome as sorted region starts and ends and quantised mappability, in the same sectioned
+// layout as the Gnomad binary file, compiled once from the mappability BED and memory-mapped at runtime
+public class MappabilityBinaryFile
+{
+    public static final String BINARY_EXTENSION = ".bin";
+
+    private static final int FILE_MAGIC = 0x50564D50; // PVMP
+    private static final int FILE_VERSION = 1;
+
+    // mappability is written to the BED with at most 6 decimal places, so this quantisation is lossless
+    private static final double MAPPABILITY_SCALE = 1000000;
+
+    private final Map<String,ChromosomeEntries> mChromosomeEntries;
+
+    public static class ChromosomeEntries
+    {
+        public final String Chromosome;
+
+        private final IntBuffer mRegionStarts;
+        private final IntBuffer mRegionEnds;
+        private final IntBuffer mMappability;
+
+        private ChromosomeEntries(
+                final String chromosome, final IntBuffer regionStarts, final IntBuffer regionEnds, final IntBuffer mappability)
+        {
+            Chromosome = chromosome;
+            mRegionStarts = regionStarts;
+            mRegionEnds = regionEnds;
+            mMappability = mappability;
+        }
+
+        public int count() { return mRegionStarts.limit(); }
+
+        public int regionStart(int index) { return mRegionStarts.get(index); }
+        public int regionEnd(int index) { return mRegionEnds.get(index); }
+        public double mappability(int index) { return mMappability.get(index) / MAPPABILITY_SCALE; }
+
+        // one of a sequence of lookups in position order, returning the index of the region containing the position, or else of
+        // the region preceding it, or -1 if the position is past the last region
+        public int findRegion(final PositionCursor cursor, int position)
+        {
+            int index = cursor.seek(this::regionEnd, count(), position);
+
+            if(index >= count())
+                return -1;
+
+            if(regionStart(index) <= position)
+                return index;
+
+            return index > 0 ? index - 1 : -1;
+        }
+
+        public String toString() { return format("chromosome(%s) regions(%d)", Chromosome, count()); }
+    }
+
+    private MappabilityBinaryFile(final Map<String,ChromosomeEntries> chromosomeEntries)
+    {
+        mChromosomeEntries = chromosomeEntries;
+    }
+
+    public static boolean isBinaryFile(final String filename) { return filename.endsWith(BINARY_EXTENSION); }
+
+    public ChromosomeEntries chromosomeEntries(final String chromosome) { return mChromosomeEntries.get(chromosome); }
+
+    public int entryCount() { return mChromosomeEntries.values().stream().mapToInt(ChromosomeEntries::count).sum(); }
+
+    // per chromosome a section holding its region starts, region ends and mappability
+    public static class Writer implements AutoCloseable
+    {
+        private final String mFilename;
+        private final SectionedBinaryFile.Writer mWriter;
+        private int mEntryCount;
+
+        public Writer(final String filename) throws IOException
+        {
+            mFilename = filename;
+            mWriter = new SectionedBinaryFile.Writer(filename, FILE_MAGIC, FILE_VERSION);
+            mEntryCount = 0;
+        }
+
+        public void writeChromosome(final MappabilityChrCache chrCache) throws IOException
+        {
+            int count = chrCache.entryCount();
+
+            if(count == 0)
+                return;
+
+            long offset = mWriter.offset();
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt(chrCache.regionStart(i));
+            }
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt(chrCache.regionEnd(i));
+            }
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt((int)round(chrCache.mappability(i) * MAPPABILITY_SCALE));
+            }
+
+            // directory values: offset, length, region count
+            mWriter.addSection(chrCache.Chromosome, offset, mWriter.offset() - offset, count);
+
+            mEntryCount += count;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            mWriter.close();
+
+            PV_LOGGER.info("wrote {} mappability regions to binary file({})", mEntryCount, mFilename);
+        }
+    }
+
+    public static MappabilityBinaryFile load(final String filename) throws IOException
+    {
+        Map<String,ChromosomeEntries> chromosomeEntries = new LinkedHashMap<>();
+
+        try(SectionedBinaryFile.Reader reader = new SectionedBinaryFile.Reader(filename, FILE_MAGIC, FILE_VERSION, "mappability binary"))
+        {
+            for(SectionedBinaryFile.Section section : reader.sections())
+            {
+                String chromosome = section.Name;
+                long offset = section.Values[0];
+                long sectionLength = section.Values[1];
+                int regionCount = (int)section.Values[2];
+
+                ByteBuffer sectionBuffer = reader.map(offset, sectionLength).order(ByteOrder.BIG_ENDIAN);
+
+                IntBuffer regionStarts = sliceBuffer(sectionBuffer, regionCount * Integer.BYTES).asIntBuffer();
+                IntBuffer regionEnds = sliceBuffer(sectionBuffer, regionCount * Integer.BYTES).asIntBuffer();
+                IntBuffer mappability = sliceBuffer(sectionBuffer, regionCount * Integer.BYTES).asIntBuffer();
+
+                chromosomeEntries.put(chromosome, new ChromosomeEntries(chromosome, regionStarts, regionEnds, mappability));
+            }
+        }
+
+        MappabilityBinaryFile binaryFile = new MappabilityBinaryFile(chromosomeEntries);
+
+        PV_LOGGER.info("mapped {} mappability regions from binary file({})", binaryFile.entryCount(), filename);
+
+        return binaryFile;
+    }
+}
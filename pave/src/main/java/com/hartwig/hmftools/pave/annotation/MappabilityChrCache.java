@@ -16,12 +16,28 @@ public class MappabilityChrCache
     private final List<MapEntry> mEntries;
     private boolean mComplete;
 
+    // regions memory-mapped from a mappability binary file, in place of those loaded from the BED
+    private final MappabilityBinaryFile.ChromosomeEntries mBinaryEntries;
+    private final PositionCursor mCursor;
+
     public MappabilityChrCache(final String chromosome)
     {
         Chromosome = chromosome;
         mCurrentIndex = 0;
         mEntries = Lists.newArrayList();
         mComplete = false;
+        mBinaryEntries = null;
+        mCursor = null;
+    }
+
+    public MappabilityChrCache(final String chromosome, final MappabilityBinaryFile.ChromosomeEntries binaryEntries)
+    {
+        Chromosome = chromosome;
+        mCurrentIndex = 0;
+        mEntries = null;
+        mComplete = true;
+        mBinaryEntries = binaryEntries;
+        mCursor = new PositionCursor();
     }
 
     public void addEntry(final int posStart, final int posEnd, final double mappability)
@@ -31,11 +47,32 @@ public class MappabilityChrCache
 
     public boolean isComplete() { return mComplete; }
     public void setComplete() { mComplete = true; }
-    public void clear() { mEntries.clear(); }
-    public int entryCount() { return mEntries.size(); }
+
+    public void clear()
+    {
+        if(mEntries != null)
+            mEntries.clear();
+    }
+
+    public int entryCount() { return mBinaryEntries != null ? mBinaryEntries.count() : mEntries.size(); }
+
+    // loaded regions, in the BED's position order, for compiling to a binary file
+    int regionStart(int index) { return mEntries.get(index).Region.start(); }
+    int regionEnd(int index) { return mEntries.get(index).Region.end(); }
+    double mappability(int index) { return mEntries.get(index).Mappability; }
 
     public void annotateVariant(final VariantData variant)
     {
+        if(mBinaryEntries != null)
+        {
+            int index = mBinaryEntries.findRegion(mCursor, variant.Position);
+
+            if(index >= 0)
+                setMappability(variant, mBinaryEntries.mappability(index));
+
+            return;
+        }
+
         if(mEntries.isEmpty() || mEntries.get(mEntries.size() - 1).Region.end() < variant.Position)
             return;
 
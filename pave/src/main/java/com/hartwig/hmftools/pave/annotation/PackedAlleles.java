@@ -0,0 +1,54 @@
+package com.hartwig.hmftools.pave.annotation;
+
+// ref and alt lengths in bits 0-3 and 4-7, then each base in 2 bits, keeping packed alleles non-negative - alleles too long or
+// with other bases are instead held in a string table, referenced by a negative value
+public final class PackedAlleles
+{
+    public static final long UNPACKED_ALLELES = -1;
+
+    private static final String BASES = "ACGT";
+    private static final int MAX_ALLELE_LENGTH = 15;
+    private static final int MAX_PACKED_BASES = 27;
+
+    private PackedAlleles() {}
+
+    public static long packAlleles(final String ref, final String alt)
+    {
+        if(ref.length() > MAX_ALLELE_LENGTH || alt.length() > MAX_ALLELE_LENGTH || ref.length() + alt.length() > MAX_PACKED_BASES)
+            return UNPACKED_ALLELES;
+
+        long packed = ref.length() | (alt.length() << 4);
+        int shift = 8;
+
+        for(String bases : new String[] { ref, alt })
+        {
+            for(int i = 0; i < bases.length(); ++i)
+            {
+                int baseIndex = BASES.indexOf(bases.charAt(i));
+
+                if(baseIndex < 0)
+                    return UNPACKED_ALLELES;
+
+                packed |= (long)baseIndex << shift;
+                shift += 2;
+            }
+        }
+
+        return packed;
+    }
+
+    public static String unpackedAlleles(final String ref, final String alt) { return ref + ":" + alt; }
+
+    // the string table index of an unpacked entry's alleles
+    public static int unpackedIndex(long entryAlleles) { return (int)(-entryAlleles - 1); }
+
+    public static long unpackedEntry(int unpackedIndex) { return -(unpackedIndex + 1); }
+
+    public static boolean matches(long entryAlleles, final String[] unpackedAlleles, final String ref, final String alt)
+    {
+        if(entryAlleles >= 0)
+            return entryAlleles == packAlleles(ref, alt);
+
+        return unpackedAlleles[unpackedIndex(entryAlleles)].equals(unpackedAlleles(ref, alt));
+    }
+}
@@ -44,6 +44,9 @@ public class PonAnnotation extends AnnotationData implements Callable
     private final Map<String,PonChrCache> mChrCacheMap;
     private final StringCache mStringCache;
 
+    // memory-mapped up-front and only read thereafter, so needs no locking
+    private PonBinaryFile mBinaryFile;
+
     public static final String PON_COUNT = "PON_COUNT";
     public static final String PON_MAX = "PON_MAX";
     public static final String PON_FILTER = "PON";
@@ -57,6 +60,7 @@ public class PonAnnotation extends AnnotationData implements Callable
         mHasValidData = true;
         mChrCacheMap = Maps.newHashMap();
         mStringCache = new StringCache();
+        mBinaryFile = null;
 
         if(filename != null && !filename.isEmpty())
         {
@@ -113,7 +117,19 @@ public class PonAnnotation extends AnnotationData implements Callable
         return true;
     }
 
-    public synchronized PonChrCache getChromosomeCache(final String chromosome)
+    public PonChrCache getChromosomeCache(final String chromosome)
+    {
+        if(mBinaryFile != null)
+        {
+            // each caller has its own cursor through the shared mapped entries
+            PonBinaryFile.ChromosomeEntries chrEntries = mBinaryFile.chromosomeEntries(chromosome);
+            return chrEntries != null ? new PonChrCache(chromosome, chrEntries) : null;
+        }
+
+        return getLoadedChromosomeCache(chromosome);
+    }
+
+    private synchronized PonChrCache getLoadedChromosomeCache(final String chromosome)
     {
         PonChrCache chrCache = mChrCacheMap.get(chromosome);
 
@@ -168,6 +184,12 @@ public class PonAnnotation extends AnnotationData implements Callable
 
     public boolean hasEntry(final String chromosome, final int position, final String ref, final String alt)
     {
+        if(mBinaryFile != null)
+        {
+            PonBinaryFile.ChromosomeEntries chrEntries = mBinaryFile.chromosomeEntries(chromosome);
+            return chrEntries != null && chrEntries.getPonData(position, ref, alt) != null;
+        }
+
         PonChrCache chrCache = mChrCacheMap.get(chromosome);
         return chrCache != null ? chrCache.hasEntry(position, ref, alt) : false;
     }
@@ -183,6 +205,12 @@ public class PonAnnotation extends AnnotationData implements Callable
             return;
         }
 
+        if(PonBinaryFile.isBinaryFile(filename))
+        {
+            loadBinaryFile(filename);
+            return;
+        }
+
         try
         {
             mFileReader = createBufferedReader(filename);
@@ -210,6 +238,19 @@ public class PonAnnotation extends AnnotationData implements Callable
         }
     }
 
+    private void loadBinaryFile(final String filename)
+    {
+        try
+        {
+            mBinaryFile = PonBinaryFile.load(filename);
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to load PON binary file({}): {}", filename, e.toString());
+            mHasValidData = false;
+        }
+    }
+
     private void loadPonEntries(@Nullable final String requestedChromosome)
     {
         if(mFileReader == null)
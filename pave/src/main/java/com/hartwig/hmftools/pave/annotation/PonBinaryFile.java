@@ -0,0 +1,224 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.SectionedBinaryFile.readString;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.annotation.GnomadBinaryFile.sliceBuffer;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.UNPACKED_ALLELES;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.packAlleles;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.unpackedAlleles;
+import static com.hartwig.hmftools.pave.annotation.PackedAlleles.unpackedEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.file.SectionedBinaryFile;
+
+// PON entries held per chromosome as sorted positions, sample and read counts and packed ref/alt bases, in the same sectioned
+// layout as the Gnomad binary file, compiled once from the PON TSV and memory-mapped at runtime
+public class PonBinaryFile
+{
+    public static final String BINARY_EXTENSION = ".bin";
+
+    private static final int FILE_MAGIC = 0x5056504E; // PVPN
+    private static final int FILE_VERSION = 1;
+
+    private final Map<String,ChromosomeEntries> mChromosomeEntries;
+
+    public static class ChromosomeEntries
+    {
+        public final String Chromosome;
+
+        private final IntBuffer mPositions;
+        private final IntBuffer mSamples;
+        private final IntBuffer mMaxSampleReads;
+        private final IntBuffer mTotalSampleReads;
+        private final LongBuffer mAlleles;
+        private final String[] mUnpackedAlleles;
+
+        private ChromosomeEntries(
+                final String chromosome, final IntBuffer positions, final IntBuffer samples, final IntBuffer maxSampleReads,
+                final IntBuffer totalSampleReads, final LongBuffer alleles, final String[] unpackedAlleles)
+        {
+            Chromosome = chromosome;
+            mPositions = positions;
+            mSamples = samples;
+            mMaxSampleReads = maxSampleReads;
+            mTotalSampleReads = totalSampleReads;
+            mAlleles = alleles;
+            mUnpackedAlleles = unpackedAlleles;
+        }
+
+        public int count() { return mPositions.limit(); }
+
+        public int position(int index) { return mPositions.get(index); }
+
+        // a single lookup, searching all positions
+        public PonVariantData getPonData(int position, final String ref, final String alt)
+        {
+            return matchEntry(PositionCursor.lowerBound(this::position, 0, count(), position), position, ref, alt);
+        }
+
+        // one of a sequence of lookups in position order, searching forward from the last
+        public PonVariantData getPonData(final PositionCursor cursor, int position, final String ref, final String alt)
+        {
+            return matchEntry(cursor.seek(this::position, count(), position), position, ref, alt);
+        }
+
+        private PonVariantData matchEntry(int firstIndex, int position, final String ref, final String alt)
+        {
+            for(int index = firstIndex; index < count() && mPositions.get(index) == position; ++index)
+            {
+                if(PackedAlleles.matches(mAlleles.get(index), mUnpackedAlleles, ref, alt))
+                {
+                    return new PonVariantData(
+                            ref, alt, mSamples.get(index), mMaxSampleReads.get(index), mTotalSampleReads.get(index));
+                }
+            }
+
+            return null;
+        }
+
+        public String toString() { return format("chromosome(%s) entries(%d)", Chromosome, count()); }
+    }
+
+    private PonBinaryFile(final Map<String,ChromosomeEntries> chromosomeEntries)
+    {
+        mChromosomeEntries = chromosomeEntries;
+    }
+
+    public static boolean isBinaryFile(final String filename) { return filename.endsWith(BINARY_EXTENSION); }
+
+    public ChromosomeEntries chromosomeEntries(final String chromosome) { return mChromosomeEntries.get(chromosome); }
+
+    public int entryCount() { return mChromosomeEntries.values().stream().mapToInt(ChromosomeEntries::count).sum(); }
+
+    // per chromosome a section holding its positions, sample counts, max and total sample reads, packed alleles and unpacked alleles
+    public static class Writer implements AutoCloseable
+    {
+        private final String mFilename;
+        private final SectionedBinaryFile.Writer mWriter;
+        private int mEntryCount;
+
+        public Writer(final String filename) throws IOException
+        {
+            mFilename = filename;
+            mWriter = new SectionedBinaryFile.Writer(filename, FILE_MAGIC, FILE_VERSION);
+            mEntryCount = 0;
+        }
+
+        public void writeChromosome(final PonChrCache chrCache) throws IOException
+        {
+            int count = chrCache.entryCount();
+
+            if(count == 0)
+                return;
+
+            long offset = mWriter.offset();
+
+            List<PonVariantData> entries = chrCache.sortedEntries();
+
+            for(int i = 0; i < count; ++i)
+            {
+                mWriter.writeInt(chrCache.position(i));
+            }
+
+            for(PonVariantData entry : entries)
+            {
+                mWriter.writeInt(entry.Samples);
+            }
+
+            for(PonVariantData entry : entries)
+            {
+                mWriter.writeInt(entry.MaxSampleReads);
+            }
+
+            for(PonVariantData entry : entries)
+            {
+                mWriter.writeInt(entry.TotalSampleReads);
+            }
+
+            List<String> unpackedEntries = Lists.newArrayList();
+
+            for(PonVariantData entry : entries)
+            {
+                long packedAlleles = packAlleles(entry.Ref, entry.Alt);
+
+                if(packedAlleles == UNPACKED_ALLELES)
+                {
+                    packedAlleles = unpackedEntry(unpackedEntries.size());
+                    unpackedEntries.add(unpackedAlleles(entry.Ref, entry.Alt));
+                }
+
+                mWriter.writeLong(packedAlleles);
+            }
+
+            for(String alleles : unpackedEntries)
+            {
+                mWriter.writeString(alleles);
+            }
+
+            // directory values: offset, length, entry count, unpacked alleles count
+            mWriter.addSection(chrCache.Chromosome, offset, mWriter.offset() - offset, count, unpackedEntries.size());
+
+            mEntryCount += count;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            mWriter.close();
+
+            PV_LOGGER.info("wrote {} PON entries to binary file({})", mEntryCount, mFilename);
+        }
+    }
+
+    public static PonBinaryFile load(final String filename) throws IOException
+    {
+        Map<String,ChromosomeEntries> chromosomeEntries = new LinkedHashMap<>();
+
+        try(SectionedBinaryFile.Reader reader = new SectionedBinaryFile.Reader(filename, FILE_MAGIC, FILE_VERSION, "PON binary"))
+        {
+            for(SectionedBinaryFile.Section section : reader.sections())
+            {
+                String chromosome = section.Name;
+                long offset = section.Values[0];
+                long sectionLength = section.Values[1];
+                int entryCount = (int)section.Values[2];
+                int unpackedCount = (int)section.Values[3];
+
+                ByteBuffer sectionBuffer = reader.map(offset, sectionLength).order(ByteOrder.BIG_ENDIAN);
+
+                IntBuffer positions = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                IntBuffer samples = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                IntBuffer maxSampleReads = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                IntBuffer totalSampleReads = sliceBuffer(sectionBuffer, entryCount * Integer.BYTES).asIntBuffer();
+                LongBuffer alleles = sliceBuffer(sectionBuffer, entryCount * Long.BYTES).asLongBuffer();
+
+                String[] unpackedAlleles = new String[unpackedCount];
+
+                for(int i = 0; i < unpackedCount; ++i)
+                {
+                    unpackedAlleles[i] = readString(sectionBuffer);
+                }
+
+                chromosomeEntries.put(chromosome, new ChromosomeEntries(
+                        chromosome, positions, samples, maxSampleReads, totalSampleReads, alleles, unpackedAlleles));
+            }
+        }
+
+        PonBinaryFile binaryFile = new PonBinaryFile(chromosomeEntries);
+
+        PV_LOGGER.info("mapped {} PON entries from binary file({})", binaryFile.entryCount(), filename);
+
+        return binaryFile;
+    }
+}
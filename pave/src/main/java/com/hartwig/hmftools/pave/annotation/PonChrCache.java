@@ -2,11 +2,11 @@ package com.hartwig.hmftools.pave.annotation;
 
 import static java.lang.String.format;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.pave.VariantData;
 
@@ -14,36 +14,84 @@ public class PonChrCache
 {
     public final String Chromosome;
 
-    private final Map<Integer,List<PonVariantData>> mPositionMap;
+    // entries in position order, read in step with the chromosome's variants
+    private int[] mPositions;
+    private final List<PonVariantData> mEntries;
+    private final PositionCursor mCursor;
+    private boolean mSorted;
+
     private final StringCache mStringCache;
     private boolean mComplete;
 
+    // entries memory-mapped from a PON binary file, in place of those loaded from the PON TSV
+    private final PonBinaryFile.ChromosomeEntries mBinaryEntries;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
     public PonChrCache(final String chromosome, final StringCache stringCache)
     {
         Chromosome = chromosome;
-        mPositionMap = Maps.newHashMap();
+        mPositions = new int[INITIAL_CAPACITY];
+        mEntries = Lists.newArrayList();
+        mCursor = new PositionCursor();
+        mSorted = true;
         mStringCache = stringCache;
         mComplete = false;
+        mBinaryEntries = null;
+    }
+
+    public PonChrCache(final String chromosome, final PonBinaryFile.ChromosomeEntries binaryEntries)
+    {
+        Chromosome = chromosome;
+        mPositions = null;
+        mEntries = null;
+        mCursor = new PositionCursor();
+        mSorted = true;
+        mStringCache = null;
+        mComplete = true;
+        mBinaryEntries = binaryEntries;
     }
 
     public void addEntry(
             final int position, final String ref, final String alt, final int samples, final int maxSampleReads, final int totalSampleReads)
     {
-        List<PonVariantData> posList = mPositionMap.get(position);
+        int count = mEntries.size();
 
-        if(posList == null)
-        {
-            posList = Lists.newArrayList();
-            mPositionMap.put(position, posList);
-        }
+        if(count == mPositions.length)
+            mPositions = Arrays.copyOf(mPositions, count * 2);
+
+        if(count > 0 && position < mPositions[count - 1])
+            mSorted = false;
 
-        posList.add(new PonVariantData(mStringCache.intern(ref), mStringCache.intern(alt), samples, maxSampleReads, totalSampleReads));
+        mPositions[count] = position;
+        mEntries.add(new PonVariantData(mStringCache.intern(ref), mStringCache.intern(alt), samples, maxSampleReads, totalSampleReads));
     }
 
     public boolean isComplete() { return mComplete; }
     public void setComplete() { mComplete = true; }
-    public void clear() { mPositionMap.clear(); }
-    public int entryCount() { return mPositionMap.values().stream().mapToInt(x -> x.size()).sum(); }
+
+    public void clear()
+    {
+        if(mBinaryEntries != null)
+            return;
+
+        mEntries.clear();
+        mPositions = new int[INITIAL_CAPACITY];
+        mSorted = true;
+    }
+
+    public int entryCount() { return mBinaryEntries != null ? mBinaryEntries.count() : mEntries.size(); }
+
+    // loaded entries in position order, for compiling to a binary file
+    List<PonVariantData> sortedEntries()
+    {
+        if(!mSorted)
+            sortEntries();
+
+        return mEntries;
+    }
+
+    int position(int index) { return mPositions[index]; }
 
     public PonVariantData getPonData(final VariantData variant)
     {
@@ -57,14 +105,55 @@ public class PonChrCache
 
     private PonVariantData getPonData(final int position, final String ref, final String alt)
     {
-        List<PonVariantData> posList = mPositionMap.get(position);
+        if(mBinaryEntries != null)
+            return mBinaryEntries.getPonData(mCursor, position, ref, alt);
 
-        if(posList == null)
-            return null;
+        if(!mSorted)
+            sortEntries();
 
-        return posList.stream().filter(x -> x.matches(ref, alt)).findFirst().orElse(null);
+        int count = mEntries.size();
+
+        for(int index = mCursor.seek(x -> mPositions[x], count, position); index < count && mPositions[index] == position; ++index)
+        {
+            PonVariantData ponData = mEntries.get(index);
+
+            if(ponData.matches(ref, alt))
+                return ponData;
+        }
+
+        return null;
     }
 
-    public String cacheDetailsStr() { return format("chr(%s) entries(%d) strCache(%d)", Chromosome, entryCount(), mStringCache.size()); }
+    private void sortEntries()
+    {
+        // the PON file is written in position order, so this is only needed for entries added otherwise
+        List<Integer> indices = Lists.newArrayListWithCapacity(mEntries.size());
+
+        for(int i = 0; i < mEntries.size(); ++i)
+        {
+            indices.add(i);
+        }
+
+        indices.sort(Comparator.comparingInt(x -> mPositions[x]));
+
+        int[] positions = new int[mPositions.length];
+        List<PonVariantData> entries = Lists.newArrayListWithCapacity(mEntries.size());
+
+        for(int i = 0; i < indices.size(); ++i)
+        {
+            positions[i] = mPositions[indices.get(i)];
+            entries.add(mEntries.get(indices.get(i)));
+        }
+
+        mPositions = positions;
+        mEntries.clear();
+        mEntries.addAll(entries);
+        mSorted = true;
+    }
+
+    public String cacheDetailsStr()
+    {
+        return format("chr(%s) entries(%d) strCache(%d)", Chromosome, entryCount(), mStringCache != null ? mStringCache.size() : 0);
+    }
 
 }
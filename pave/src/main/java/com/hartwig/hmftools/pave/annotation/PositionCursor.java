@@ -0,0 +1,62 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static java.lang.Math.min;
+
+import java.util.function.IntUnaryOperator;
+
+// the index reached in a chromosome's position-sorted entries while annotating its position-sorted variants, so each
+// lookup searches forward from the last rather than across the chromosome - phased and MNV lookups can step back a little
+public class PositionCursor
+{
+    private int mIndex;
+
+    public PositionCursor()
+    {
+        mIndex = 0;
+    }
+
+    public int index() { return mIndex; }
+
+    // moves to the first entry at or after the position
+    public int seek(final IntUnaryOperator positions, int count, int position)
+    {
+        mIndex = min(mIndex, count);
+
+        if(mIndex > 0 && positions.applyAsInt(mIndex - 1) >= position)
+        {
+            mIndex = lowerBound(positions, 0, mIndex, position);
+            return mIndex;
+        }
+
+        // gallop forward, doubling the step until an entry at or after the position is passed
+        int low = mIndex;
+        int high = mIndex;
+        int step = 1;
+
+        while(high < count && positions.applyAsInt(high) < position)
+        {
+            low = high + 1;
+            high = mIndex + step;
+            step <<= 1;
+        }
+
+        mIndex = lowerBound(positions, low, min(high, count), position);
+        return mIndex;
+    }
+
+    // the first index in the range whose position is not less than the required position
+    public static int lowerBound(final IntUnaryOperator positions, int low, int high, int position)
+    {
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(positions.applyAsInt(mid) < position)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+}
@@ -3,7 +3,7 @@ package com.hartwig.hmftools.pave.annotation;
 import static com.hartwig.hmftools.common.drivercatalog.panel.DriverGenePanelConfig.DRIVER_GENE_PANEL_OPTION;
 import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache.ENSEMBL_DATA_DIR;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
-import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.loadRefGenome;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.loadSharedRefGenome;
 import static com.hartwig.hmftools.pave.PaveConfig.PON_ARTEFACTS_FILE;
 import static com.hartwig.hmftools.pave.PaveConfig.PON_FILE;
 import static com.hartwig.hmftools.pave.PaveConfig.PON_FILTERS;
@@ -69,7 +69,7 @@ public class ReferenceData
         BlacklistedVariants = new Blacklistings(configBuilder);
         Annotators.add(BlacklistedVariants);
 
-        RefGenome = loadRefGenome(configBuilder.getValue(REF_GENOME));
+        RefGenome = loadSharedRefGenome(configBuilder.getValue(REF_GENOME));
     }
 
     public boolean isValid()
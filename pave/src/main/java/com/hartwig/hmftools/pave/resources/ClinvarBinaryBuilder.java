@@ -0,0 +1,85 @@
+package com.hartwig.hmftools.pave.resources;
+
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.PaveConstants.APP_NAME;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLINVAR_VCF;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.pave.annotation.ClinvarAnnotation;
+import com.hartwig.hmftools.pave.annotation.ClinvarBinaryFile;
+import com.hartwig.hmftools.pave.annotation.ClinvarChrCache;
+
+import org.jetbrains.annotations.NotNull;
+
+// compiles a Clinvar VCF into the binary file PAVE memory-maps, named after the VCF
+public class ClinvarBinaryBuilder
+{
+    private final ClinvarAnnotation mClinvarAnnotation;
+    private final String mOutputFile;
+
+    public ClinvarBinaryBuilder(final ConfigBuilder configBuilder)
+    {
+        mClinvarAnnotation = new ClinvarAnnotation(configBuilder);
+
+        String fileId = new File(configBuilder.getValue(CLINVAR_VCF)).getName().replaceAll("\\.vcf(\\.gz)?$", "");
+        mOutputFile = parseOutputDir(configBuilder) + fileId + ClinvarBinaryFile.BINARY_EXTENSION;
+    }
+
+    public void run()
+    {
+        PV_LOGGER.info("compiling Clinvar to binary file({})", mOutputFile);
+
+        mClinvarAnnotation.call();
+
+        if(!mClinvarAnnotation.hasValidData())
+        {
+            PV_LOGGER.error("missing or invalid Clinvar VCF input, exiting");
+            System.exit(1);
+        }
+
+        try(ClinvarBinaryFile.Writer writer = new ClinvarBinaryFile.Writer(mOutputFile))
+        {
+            // Clinvar entries are keyed by chromosome without any prefix, whatever the ref genome version
+            for(HumanChromosome humanChr : HumanChromosome.values())
+            {
+                String chromosome = humanChr.toString();
+                ClinvarChrCache chrCache = mClinvarAnnotation.getChromosomeCache(chromosome);
+
+                if(chrCache == null)
+                    continue;
+
+                writer.writeChromosome(chrCache);
+
+                mClinvarAnnotation.onChromosomeComplete(chromosome);
+            }
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to write Clinvar binary file({}): {}", mOutputFile, e.toString());
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("Clinvar binary file compile complete");
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        configBuilder.addPath(CLINVAR_VCF, true, "Clinvar annotation VCF");
+        addOutputOptions(configBuilder);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        ClinvarBinaryBuilder clinvarBinaryBuilder = new ClinvarBinaryBuilder(configBuilder);
+        clinvarBinaryBuilder.run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.hartwig.hmftools.pave.resources;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeVersion;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.OUTPUT_ID;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.PaveConstants.APP_NAME;
+import static com.hartwig.hmftools.pave.resources.GnomadCacheBuilder.GNOMAD_FILE_ID;
+
+import java.io.IOException;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.pave.annotation.GnomadAnnotation;
+import com.hartwig.hmftools.pave.annotation.GnomadBinaryFile;
+import com.hartwig.hmftools.pave.annotation.GnomadChrCache;
+
+import org.jetbrains.annotations.NotNull;
+
+// compiles the Gnomad CSV cache, either a single file or a file per chromosome, into the binary file PAVE memory-maps
+public class GnomadBinaryBuilder
+{
+    private final GnomadAnnotation mGnomadAnnotation;
+    private final RefGenomeVersion mRefGenomeVersion;
+    private final String mOutputFile;
+
+    public GnomadBinaryBuilder(final ConfigBuilder configBuilder)
+    {
+        mGnomadAnnotation = new GnomadAnnotation(configBuilder);
+        mRefGenomeVersion = RefGenomeVersion.from(configBuilder);
+
+        String outputId = configBuilder.getValue(OUTPUT_ID);
+        mOutputFile = parseOutputDir(configBuilder) + GNOMAD_FILE_ID + (outputId != null ? "_" + outputId : "")
+                + GnomadBinaryFile.BINARY_EXTENSION;
+    }
+
+    public void run()
+    {
+        if(!mGnomadAnnotation.enabled() || !mGnomadAnnotation.hasValidData())
+        {
+            PV_LOGGER.error("missing or invalid Gnomad frequency CSV input, exiting");
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("compiling Gnomad frequencies to binary file({})", mOutputFile);
+
+        // a single input file is loaded in full, whereas per-chromosome files are loaded one at a time
+        mGnomadAnnotation.call();
+
+        try(GnomadBinaryFile.Writer writer = new GnomadBinaryFile.Writer(mOutputFile))
+        {
+            for(HumanChromosome humanChr : HumanChromosome.values())
+            {
+                String chromosome = mRefGenomeVersion.versionedChromosome(humanChr.toString());
+                GnomadChrCache chrCache = mGnomadAnnotation.getChromosomeCache(chromosome);
+
+                if(chrCache == null)
+                    continue;
+
+                writer.writeChromosome(chrCache.entries());
+
+                mGnomadAnnotation.onChromosomeComplete(chromosome);
+            }
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to write Gnomad binary file({}): {}", mOutputFile, e.toString());
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("Gnomad binary file compile complete");
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        GnomadAnnotation.addConfig(configBuilder);
+        addRefGenomeVersion(configBuilder);
+        addOutputOptions(configBuilder);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        GnomadBinaryBuilder gnomadBinaryBuilder = new GnomadBinaryBuilder(configBuilder);
+        gnomadBinaryBuilder.run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.hartwig.hmftools.pave.resources;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeVersion;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.PaveConstants.APP_NAME;
+import static com.hartwig.hmftools.pave.annotation.Mappability.MAPPABILITY_BED;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.pave.annotation.Mappability;
+import com.hartwig.hmftools.pave.annotation.MappabilityBinaryFile;
+import com.hartwig.hmftools.pave.annotation.MappabilityChrCache;
+
+import org.jetbrains.annotations.NotNull;
+
+// compiles a mappability BED into the binary file PAVE memory-maps, named after the BED
+public class MappabilityBinaryBuilder
+{
+    private final Mappability mMappability;
+    private final RefGenomeVersion mRefGenomeVersion;
+    private final String mOutputFile;
+
+    public MappabilityBinaryBuilder(final ConfigBuilder configBuilder)
+    {
+        mMappability = new Mappability(configBuilder);
+        mRefGenomeVersion = RefGenomeVersion.from(configBuilder);
+
+        String fileId = new File(configBuilder.getValue(MAPPABILITY_BED)).getName().replaceAll("\\.bed(\\.gz)?$", "");
+        mOutputFile = parseOutputDir(configBuilder) + fileId + MappabilityBinaryFile.BINARY_EXTENSION;
+    }
+
+    public void run()
+    {
+        if(!mMappability.enabled() || !mMappability.hasValidData())
+        {
+            PV_LOGGER.error("missing or invalid mappability BED input, exiting");
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("compiling mappability to binary file({})", mOutputFile);
+
+        try(MappabilityBinaryFile.Writer writer = new MappabilityBinaryFile.Writer(mOutputFile))
+        {
+            for(HumanChromosome humanChr : HumanChromosome.values())
+            {
+                String chromosome = mRefGenomeVersion.versionedChromosome(humanChr.toString());
+                MappabilityChrCache chrCache = mMappability.getChromosomeCache(chromosome);
+
+                if(chrCache == null)
+                    continue;
+
+                writer.writeChromosome(chrCache);
+
+                mMappability.onChromosomeComplete(chromosome);
+            }
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to write mappability binary file({}): {}", mOutputFile, e.toString());
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("mappability binary file compile complete");
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        configBuilder.addPath(MAPPABILITY_BED, true, "Mappability BED file");
+        addRefGenomeVersion(configBuilder);
+        addOutputOptions(configBuilder);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        MappabilityBinaryBuilder mappabilityBinaryBuilder = new MappabilityBinaryBuilder(configBuilder);
+        mappabilityBinaryBuilder.run();
+    }
+}
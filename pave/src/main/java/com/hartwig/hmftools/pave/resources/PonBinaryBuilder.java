@@ -0,0 +1,88 @@
+package com.hartwig.hmftools.pave.resources;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeVersion;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.pave.PaveConfig.PON_FILE;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.PaveConstants.APP_NAME;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.pave.annotation.PonAnnotation;
+import com.hartwig.hmftools.pave.annotation.PonBinaryFile;
+import com.hartwig.hmftools.pave.annotation.PonChrCache;
+
+import org.jetbrains.annotations.NotNull;
+
+// compiles a PON or PON artefacts TSV into the binary file PAVE memory-maps, named after the TSV
+public class PonBinaryBuilder
+{
+    private final PonAnnotation mPonAnnotation;
+    private final RefGenomeVersion mRefGenomeVersion;
+    private final String mOutputFile;
+
+    public PonBinaryBuilder(final ConfigBuilder configBuilder)
+    {
+        String ponFile = configBuilder.getValue(PON_FILE);
+        mPonAnnotation = new PonAnnotation(ponFile, false);
+        mRefGenomeVersion = RefGenomeVersion.from(configBuilder);
+
+        String fileId = new File(ponFile).getName().replaceAll("\\.tsv(\\.gz)?$", "");
+        mOutputFile = parseOutputDir(configBuilder) + fileId + PonBinaryFile.BINARY_EXTENSION;
+    }
+
+    public void run()
+    {
+        if(!mPonAnnotation.hasValidData())
+        {
+            PV_LOGGER.error("missing or invalid PON input, exiting");
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("compiling PON to binary file({})", mOutputFile);
+
+        try(PonBinaryFile.Writer writer = new PonBinaryFile.Writer(mOutputFile))
+        {
+            for(HumanChromosome humanChr : HumanChromosome.values())
+            {
+                String chromosome = mRefGenomeVersion.versionedChromosome(humanChr.toString());
+                PonChrCache chrCache = mPonAnnotation.getChromosomeCache(chromosome);
+
+                if(chrCache == null)
+                    continue;
+
+                writer.writeChromosome(chrCache);
+
+                mPonAnnotation.onChromosomeComplete(chromosome);
+            }
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to write PON binary file({}): {}", mOutputFile, e.toString());
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("PON binary file compile complete");
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        configBuilder.addPath(PON_FILE, true, "PON or PON artefacts TSV");
+        addRefGenomeVersion(configBuilder);
+        addOutputOptions(configBuilder);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        PonBinaryBuilder ponBinaryBuilder = new PonBinaryBuilder(configBuilder);
+        ponBinaryBuilder.run();
+    }
+}
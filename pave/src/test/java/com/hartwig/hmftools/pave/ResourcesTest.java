@@ -1,17 +1,33 @@
 package com.hartwig.hmftools.pave;
 
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
 import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIG;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIGCONF;
+import static com.hartwig.hmftools.pave.annotation.Mappability.MAPPABILITY;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.pave.annotation.ClinvarBinaryFile;
 import com.hartwig.hmftools.pave.annotation.ClinvarChrCache;
+import com.hartwig.hmftools.pave.annotation.GnomadBinaryFile;
+import com.hartwig.hmftools.pave.annotation.GnomadChrCache;
+import com.hartwig.hmftools.pave.annotation.MappabilityBinaryFile;
+import com.hartwig.hmftools.pave.annotation.MappabilityChrCache;
+import com.hartwig.hmftools.pave.annotation.PonAnnotation;
+import com.hartwig.hmftools.pave.annotation.PonBinaryFile;
+import com.hartwig.hmftools.pave.annotation.PonChrCache;
+import com.hartwig.hmftools.pave.annotation.PonVariantData;
 import com.hartwig.hmftools.common.utils.StringCache;
 
 import org.junit.Test;
@@ -49,6 +65,259 @@ public class ResourcesTest
         assertFalse(var3.context().hasAttribute(CLNSIG));
     }
 
+    @Test
+    public void testClinvarBinaryFile() throws IOException
+    {
+        ClinvarChrCache chr1Clinvar = new ClinvarChrCache(CHR_1, new StringCache());
+        chr1Clinvar.addEntry(99, "A", "T", "[Benign]", "");
+        chr1Clinvar.addEntry(100, "A", "AT", "Pathogenic", "");
+        chr1Clinvar.addEntry(100, "A", "C", "Conflicting_classifications", "Pathogenic(1)|Uncertain_significance(2)");
+        chr1Clinvar.addEntry(100, "A", "G", "Pathogenic", "");
+        chr1Clinvar.addEntry(101, "A", "ACGTACGTACGTACGT", "Likely_pathogenic", ""); // too long to pack
+
+        ClinvarChrCache chr2Clinvar = new ClinvarChrCache(CHR_2, new StringCache());
+        chr2Clinvar.addEntry(200, "G", "T", "Benign", "");
+
+        File binaryFile = File.createTempFile("clinvar", ClinvarBinaryFile.BINARY_EXTENSION);
+        binaryFile.deleteOnExit();
+
+        try(ClinvarBinaryFile.Writer writer = new ClinvarBinaryFile.Writer(binaryFile.getAbsolutePath()))
+        {
+            writer.writeChromosome(chr1Clinvar);
+            writer.writeChromosome(chr2Clinvar);
+        }
+
+        ClinvarBinaryFile clinvarBinaryFile = ClinvarBinaryFile.load(binaryFile.getAbsolutePath());
+        assertEquals(6, clinvarBinaryFile.entryCount());
+        assertNull(clinvarBinaryFile.chromosomeEntries("3"));
+
+        ClinvarChrCache chr1Cache = new ClinvarChrCache(CHR_1, clinvarBinaryFile.chromosomeEntries(CHR_1));
+
+        VariantData var1 = createVariant(CHR_1, 99, "A", "T");
+        VariantData var2 = createVariant(CHR_1, 100, "A", "G");
+        VariantData var3 = createVariant(CHR_1, 100, "A", "C");
+        VariantData var4 = createVariant(CHR_1, 100, "A", "T");
+        VariantData var5 = createVariant(CHR_1, 101, "A", "ACGTACGTACGTACGT");
+        VariantData var6 = createVariant(CHR_1, 102, "A", "T");
+
+        List.of(var1, var2, var3, var4, var5, var6).forEach(x -> chr1Cache.annotateVariant(x));
+
+        assertEquals("Benign", var1.context().getAttribute(CLNSIG));
+        assertEquals("Pathogenic", var2.context().getAttribute(CLNSIG));
+        assertFalse(var2.context().hasAttribute(CLNSIGCONF));
+        assertEquals("Conflicting_classifications", var3.context().getAttribute(CLNSIG));
+        assertEquals("Pathogenic(1)|Uncertain_significance(2)", var3.context().getAttribute(CLNSIGCONF));
+        assertFalse(var4.context().hasAttribute(CLNSIG));
+        assertEquals("Likely_pathogenic", var5.context().getAttribute(CLNSIG));
+        assertFalse(var6.context().hasAttribute(CLNSIG));
+
+        // stepping back, as for phased variants
+        VariantData var7 = createVariant(CHR_1, 100, "A", "AT");
+        chr1Cache.annotateVariant(var7);
+        assertEquals("Pathogenic", var7.context().getAttribute(CLNSIG));
+
+        ClinvarChrCache chr2Cache = new ClinvarChrCache(CHR_2, clinvarBinaryFile.chromosomeEntries(CHR_2));
+        VariantData var8 = createVariant(CHR_2, 200, "G", "T");
+        chr2Cache.annotateVariant(var8);
+        assertEquals("Benign", var8.context().getAttribute(CLNSIG));
+    }
+
+    @Test
+    public void testMappabilityBinaryFile() throws IOException
+    {
+        MappabilityChrCache chr1Mappability = new MappabilityChrCache(CHR_1);
+        chr1Mappability.addEntry(101, 200, 0.333333);
+        chr1Mappability.addEntry(201, 300, 1.0);
+        chr1Mappability.addEntry(401, 500, 0.5);
+
+        File binaryFile = File.createTempFile("mappability", MappabilityBinaryFile.BINARY_EXTENSION);
+        binaryFile.deleteOnExit();
+
+        try(MappabilityBinaryFile.Writer writer = new MappabilityBinaryFile.Writer(binaryFile.getAbsolutePath()))
+        {
+            writer.writeChromosome(chr1Mappability);
+        }
+
+        MappabilityBinaryFile mappabilityBinaryFile = MappabilityBinaryFile.load(binaryFile.getAbsolutePath());
+        assertEquals(3, mappabilityBinaryFile.entryCount());
+        assertNull(mappabilityBinaryFile.chromosomeEntries(CHR_2));
+
+        MappabilityChrCache chr1Cache = new MappabilityChrCache(CHR_1, mappabilityBinaryFile.chromosomeEntries(CHR_1));
+
+        // mapped regions annotate as the loaded regions do, including a gap taking the prior region's value
+        int[] positions = { 50, 101, 150, 200, 250, 350, 450, 600 };
+
+        for(int position : positions)
+        {
+            VariantData loadedVariant = createVariant(CHR_1, position, "A", "C");
+            chr1Mappability.annotateVariant(loadedVariant);
+
+            VariantData mappedVariant = createVariant(CHR_1, position, "A", "C");
+            chr1Cache.annotateVariant(mappedVariant);
+
+            assertEquals(loadedVariant.context().getAttribute(MAPPABILITY), mappedVariant.context().getAttribute(MAPPABILITY));
+        }
+
+        VariantData variant = createVariant(CHR_1, 150, "A", "C");
+        chr1Cache.annotateVariant(variant);
+        assertEquals(0.333333, (double)variant.context().getAttribute(MAPPABILITY), 1e-9);
+
+        variant = createVariant(CHR_1, 350, "A", "C");
+        chr1Cache.annotateVariant(variant);
+        assertEquals(1.0, (double)variant.context().getAttribute(MAPPABILITY), 1e-9);
+
+        variant = createVariant(CHR_1, 50, "A", "C");
+        chr1Cache.annotateVariant(variant);
+        assertFalse(variant.context().hasAttribute(MAPPABILITY));
+    }
+
+    @Test
+    public void testGnomadBinaryFile() throws IOException
+    {
+        GnomadBinaryFile.ChromosomeBuilder chr1Builder = new GnomadBinaryFile.ChromosomeBuilder(CHR_1);
+
+        // enough entries to span several blocks, with repeated positions across block boundaries
+        for(int i = 0; i < 1000; ++i)
+        {
+            chr1Builder.addEntry(1000 + i / 3 * 10, "A", i % 3 == 0 ? "C" : (i % 3 == 1 ? "G" : "T"), i / 100000.0);
+        }
+
+        chr1Builder.addEntry(500, "ACGTACGTACGTACGT", "A", 0.5); // too long to pack
+        chr1Builder.addEntry(600, "A", "N", 0.25); // not packable
+        chr1Builder.addEntry(700, "AC", "A", 0.12345);
+
+        GnomadBinaryFile.ChromosomeBuilder chr2Builder = new GnomadBinaryFile.ChromosomeBuilder(CHR_2);
+        chr2Builder.addEntry(101, "C", "A", 0.02);
+        chr2Builder.addEntry(100, "G", "T", 0.01);
+
+        File binaryFile = File.createTempFile("gnomad", GnomadBinaryFile.BINARY_EXTENSION);
+        binaryFile.deleteOnExit();
+
+        try(GnomadBinaryFile.Writer writer = new GnomadBinaryFile.Writer(binaryFile.getAbsolutePath()))
+        {
+            writer.writeChromosome(chr1Builder.build());
+            writer.writeChromosome(chr2Builder.build());
+        }
+
+        GnomadBinaryFile gnomadBinaryFile = GnomadBinaryFile.load(binaryFile.getAbsolutePath());
+        assertEquals(1005, gnomadBinaryFile.entryCount());
+        assertNull(gnomadBinaryFile.chromosomeEntries("3"));
+
+        GnomadChrCache chr1Cache = new GnomadChrCache(CHR_1, gnomadBinaryFile.chromosomeEntries(CHR_1));
+
+        for(int i = 0; i < 1000; ++i)
+        {
+            Double frequency = chr1Cache.getFrequency(1000 + i / 3 * 10, "A", i % 3 == 0 ? "C" : (i % 3 == 1 ? "G" : "T"));
+            assertEquals(i / 100000.0, frequency, 1e-9);
+        }
+
+        // lookups in position order use the cursor, and random lookups agree with it
+        GnomadBinaryFile.ChromosomeEntries chr1Entries = gnomadBinaryFile.chromosomeEntries(CHR_1);
+        assertEquals(0.00998, chr1Entries.getFrequency(4320, "A", "T"), 1e-9);
+        assertEquals(0.00001, chr1Entries.getFrequency(1000, "A", "G"), 1e-9);
+        assertNull(chr1Entries.getFrequency(1000, "A", "A"));
+
+        assertNull(chr1Cache.getFrequency(1005, "A", "C"));
+        assertNull(chr1Cache.getFrequency(1000, "C", "A"));
+        assertNull(chr1Cache.getFrequency(999, "A", "C"));
+        assertNull(chr1Cache.getFrequency(100000, "A", "C"));
+
+        assertEquals(0.5, chr1Cache.getFrequency(500, "ACGTACGTACGTACGT", "A"), 1e-9);
+        assertEquals(0.25, chr1Cache.getFrequency(600, "A", "N"), 1e-9);
+        assertEquals(0.12345, chr1Cache.getFrequency(700, "AC", "A"), 1e-9);
+        assertNull(chr1Cache.getFrequency(700, "A", "AC"));
+
+        GnomadChrCache chr2Cache = new GnomadChrCache(CHR_2, gnomadBinaryFile.chromosomeEntries(CHR_2));
+        assertEquals(0.01, chr2Cache.getFrequency(100, "G", "T"), 1e-9);
+
+        // MNVs take the minimum frequency of their bases
+        assertEquals(0.01, chr2Cache.getFrequency(new VariantData(CHR_2, 100, "GC", "TA")), 1e-9);
+    }
+
+    @Test
+    public void testPonBinaryFile() throws IOException
+    {
+        PonChrCache chr1Pon = new PonChrCache(CHR_1, new StringCache());
+
+        for(int i = 0; i < 100; ++i)
+        {
+            chr1Pon.addEntry(100 + i * 10, "A", "C", i, i + 1, i * 3);
+        }
+
+        chr1Pon.addEntry(105, "A", "G", 1, 2, 3); // out of order
+        chr1Pon.addEntry(500, "ACGTACGTACGTACGT", "A", 4, 5, 6); // too long to pack
+        chr1Pon.addEntry(500, "A", "N", 7, 8, 9); // not packable
+
+        PonChrCache chr2Pon = new PonChrCache(CHR_2, new StringCache());
+        chr2Pon.addEntry(100, "G", "T", 10, 20, 30);
+
+        File binaryFile = File.createTempFile("pon", PonBinaryFile.BINARY_EXTENSION);
+        binaryFile.deleteOnExit();
+
+        try(PonBinaryFile.Writer writer = new PonBinaryFile.Writer(binaryFile.getAbsolutePath()))
+        {
+            writer.writeChromosome(chr1Pon);
+            writer.writeChromosome(chr2Pon);
+        }
+
+        PonAnnotation ponAnnotation = new PonAnnotation(binaryFile.getAbsolutePath(), true);
+        assertTrue(ponAnnotation.hasValidData());
+        assertNull(ponAnnotation.getChromosomeCache("3"));
+
+        PonChrCache chr1Cache = ponAnnotation.getChromosomeCache(CHR_1);
+        assertEquals(103, chr1Cache.entryCount());
+
+        PonVariantData ponData = chr1Cache.getPonData(new VariantData(CHR_1, 105, "A", "G"));
+        assertEquals(1, ponData.Samples);
+        assertEquals(2, ponData.MaxSampleReads);
+        assertEquals(3, ponData.TotalSampleReads);
+
+        for(int i = 0; i < 100; ++i)
+        {
+            ponData = chr1Cache.getPonData(new VariantData(CHR_1, 100 + i * 10, "A", "C"));
+            assertEquals(i, ponData.Samples);
+            assertEquals(i + 1, ponData.MaxSampleReads);
+        }
+
+        // stepping back, as for phased variants or MNV bases
+        assertEquals(4, chr1Cache.getPonData(new VariantData(CHR_1, 500, "ACGTACGTACGTACGT", "A")).Samples);
+        assertEquals(7, chr1Cache.getPonData(new VariantData(CHR_1, 500, "A", "N")).Samples);
+        assertTrue(chr1Cache.hasEntry(500, "A", "C"));
+        assertFalse(chr1Cache.hasEntry(500, "A", "G"));
+        assertFalse(chr1Cache.hasEntry(2000, "A", "C"));
+
+        // random lookups as used when building a new PON
+        assertTrue(ponAnnotation.hasEntry(CHR_2, 100, "G", "T"));
+        assertTrue(ponAnnotation.hasEntry(CHR_1, 110, "A", "C"));
+        assertFalse(ponAnnotation.hasEntry(CHR_1, 110, "A", "G"));
+        assertFalse(ponAnnotation.hasEntry("3", 110, "A", "C"));
+    }
+
+    @Test
+    public void testPonCursor()
+    {
+        PonChrCache ponCache = new PonChrCache(CHR_1, new StringCache());
+
+        for(int i = 0; i < 100; ++i)
+        {
+            ponCache.addEntry(100 + i * 10, "A", "C", i, i, i);
+        }
+
+        ponCache.addEntry(105, "A", "G", 1, 2, 3); // out of order
+
+        assertTrue(ponCache.hasEntry(100, "A", "C"));
+        assertTrue(ponCache.hasEntry(500, "A", "C"));
+        assertFalse(ponCache.hasEntry(505, "A", "C"));
+
+        // stepping back as for phased variants or MNV bases
+        assertTrue(ponCache.hasEntry(105, "A", "G"));
+        assertEquals(50, ponCache.getPonData(createVariant(CHR_1, 600, "A", "C")).Samples);
+        assertFalse(ponCache.hasEntry(100, "A", "G"));
+        assertTrue(ponCache.hasEntry(1090, "A", "C"));
+        assertFalse(ponCache.hasEntry(2000, "A", "C"));
+        assertTrue(ponCache.hasEntry(110, "A", "C"));
+    }
+
     public static VariantData createVariant( final String chromosome, int position, final String ref, final String alt)
     {
         VariantContext context = buildContext(chromosome, position, ref, alt);
@@ -54,6 +54,8 @@ public class FittingConfig
     public final double DeviationPenaltyGcMinAdjust;
     public final double GcRatioExponent;
 
+    public final double GridSearchPruneMargin;
+
     public static final String MIN_PURITY = "min_purity";
     public static final String MAX_PURITY = "max_purity";
     public static final String PURITY_INCREMENT = "purity_increment";
@@ -64,6 +66,7 @@ public class FittingConfig
 
     private static final String DEVIATION_PENALTY_GC_MIN_ADJUST = "deviation_penalty_gc_min_adjust";
     private static final String GC_RATIO_EXPONENT = "gc_ratio_exponent";
+    private static final String GRID_SEARCH_PRUNE_MARGIN = "grid_search_prune_margin";
 
     // fitting scores
     private static final String PLOIDY_PENALTY_FACTOR = "ploidy_penalty_factor";
@@ -117,6 +120,8 @@ public class FittingConfig
                 configBuilder, DEVIATION_PENALTY_GC_MIN_ADJUST, targetedMode ? TARGETED_DEVIATION_PENALTY_GC_MIN_ADJUST_DEFAULT : 0);
 
         GcRatioExponent = getConfigDecimal(configBuilder, GC_RATIO_EXPONENT, targetedMode ? TARGETED_GC_RATIO_EXPONENT_DEFAULT : 0);
+
+        GridSearchPruneMargin = configBuilder.getDecimal(GRID_SEARCH_PRUNE_MARGIN);
     }
 
     public static void addConfig(final ConfigBuilder configBuilder)
@@ -175,6 +180,11 @@ public class FittingConfig
         addTargetedDecimal(
                 configBuilder, GC_RATIO_EXPONENT, "Adjust GC Ratio by exponent in penalty calc",
                 0, TARGETED_GC_RATIO_EXPONENT_DEFAULT);
+
+        configBuilder.addDecimal(
+                GRID_SEARCH_PRUNE_MARGIN,
+                "Coarse-to-fine purity/ploidy search, fully fitting only purities within this relative margin of the best coarse score, 0 = exhaustive",
+                0);
     }
 
     private static void addTargetedDecimal(
@@ -1,8 +1,15 @@
 package com.hartwig.hmftools.purple.fitting;
 
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 import static com.hartwig.hmftools.common.utils.Doubles.lessOrEqual;
 import static com.hartwig.hmftools.common.utils.Doubles.positiveOrZero;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -27,6 +34,7 @@ import com.hartwig.hmftools.purple.fittingsnv.SomaticDeviation;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
 import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.utils.collection.Downsample;
+import com.hartwig.hmftools.common.variant.AllelicDepth;
 import com.hartwig.hmftools.purple.somatic.SomaticVariant;
 
 public class FittedPurityFactory
@@ -45,9 +53,20 @@ public class FittedPurityFactory
     private final List<ObservedRegionData> mFilteredObservedRegions;
     private final List<Double> mPloidyRange;
 
+    // per-region values which are invariant across the purity/ploidy grid, indexed as per the filtered regions
+    private ObservedRegion[] mRegions;
+    private int[] mRegionBafCounts;
+    private double[] mRegionDeviationDenoms;
+    private double[] mRegionNormalCopyNumbers;
+    private int[] mRegionVariantOffsets; // variants for region i are from offset[i] to offset[i+1]
+    private AllelicDepth[] mVariantDepths;
+
     private static final int MAX_SOMATICS_TO_FIT = 1000;
     private static final double MAX_TUMOR_RATIO_TO_FIT = 3;
 
+    // in a coarse-to-fine search, the first pass tests every Nth ploidy
+    private static final int COARSE_PLOIDY_STEP = 5;
+
     public FittedPurityFactory(
             final PurpleConfig config, final ExecutorService executorService, final CobaltChromosomes cobaltChromosomes,
             final RegionFitCalculator regionFitCalculator, final Collection<ObservedRegion> observedRegions, final List<SomaticVariant> variants)
@@ -99,6 +118,43 @@ public class FittedPurityFactory
         {
             filteredVariantSelector.select(regionData.Region, regionData::addVariant);
         }
+
+        buildRegionArrays();
+    }
+
+    private void buildRegionArrays()
+    {
+        int regionCount = mFilteredObservedRegions.size();
+        int variantCount = mFilteredObservedRegions.stream().mapToInt(x -> x.Variants.size()).sum();
+
+        mRegions = new ObservedRegion[regionCount];
+        mRegionBafCounts = new int[regionCount];
+        mRegionDeviationDenoms = new double[regionCount];
+        mRegionNormalCopyNumbers = new double[regionCount];
+        mRegionVariantOffsets = new int[regionCount + 1];
+        mVariantDepths = new AllelicDepth[variantCount];
+
+        PurityAdjuster germlineAdjuster = new PurityAdjuster(mObservedRatioMap);
+        int variantIndex = 0;
+
+        for(int i = 0; i < regionCount; ++i)
+        {
+            ObservedRegionData regionData = mFilteredObservedRegions.get(i);
+            ObservedRegion region = regionData.Region;
+
+            mRegions[i] = region;
+            mRegionBafCounts[i] = region.bafCount();
+            mRegionDeviationDenoms[i] = mRegionFitCalculator.deviationPenaltyDenominator(region.observedTumorRatio());
+            mRegionNormalCopyNumbers[i] = germlineAdjuster.germlineCopyNumber(region.chromosome());
+            mRegionVariantOffsets[i] = variantIndex;
+
+            for(SomaticVariant variant : regionData.Variants)
+            {
+                mVariantDepths[variantIndex++] = variant.tumorAlleleDepth();
+            }
+        }
+
+        mRegionVariantOffsets[regionCount] = variantIndex;
     }
 
     public List<FittedPurity> getFittedPurities() { return mFittedPurities; }
@@ -107,45 +163,120 @@ public class FittedPurityFactory
     {
         FittingConfig config = mConfig.Fitting;
 
+        List<Double> purities = Lists.newArrayList();
+
+        for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
+        {
+            purities.add(purity);
+        }
+
+        List<Integer> allPloidyIndices = Lists.newArrayList();
+
+        for(int i = 0; i < mPloidyRange.size(); ++i)
+        {
+            allPloidyIndices.add(i);
+        }
+
+        if(config.GridSearchPruneMargin <= 0)
+        {
+            fitGrid(purities, purities.stream().map(x -> allPloidyIndices).collect(Collectors.toList())).forEach(mFittedPurities::addAll);
+        }
+        else
+        {
+            fitCoarseToFine(purities, allPloidyIndices, config.GridSearchPruneMargin);
+        }
+
+        Collections.sort(mFittedPurities);
+    }
+
+    private void fitCoarseToFine(final List<Double> purities, final List<Integer> allPloidyIndices, double pruneMargin)
+            throws ExecutionException, InterruptedException
+    {
+        // first test a coarse set of ploidies at every purity
+        List<Integer> coarsePloidyIndices = allPloidyIndices.stream()
+                .filter(x -> (x % COARSE_PLOIDY_STEP) == 0 || x == allPloidyIndices.size() - 1)
+                .collect(Collectors.toList());
+
+        List<List<FittedPurity>> coarseFits = fitGrid(purities, purities.stream().map(x -> coarsePloidyIndices).collect(Collectors.toList()));
+
+        double[] purityBestScores = coarseFits.stream()
+                .mapToDouble(x -> x.stream().mapToDouble(FittedPurity::score).min().orElse(Double.MAX_VALUE)).toArray();
+
+        double bestScore = Arrays.stream(purityBestScores).min().orElse(Double.MAX_VALUE);
+        double scoreThreshold = bestScore + abs(bestScore) * pruneMargin;
+
+        // then fill in the remaining ploidies at purities close to the best score, and their neighbours
+        List<Integer> finePloidyIndices = allPloidyIndices.stream().filter(x -> !coarsePloidyIndices.contains(x)).collect(Collectors.toList());
+        List<List<Integer>> purityPloidyIndices = Lists.newArrayList();
+        int refinedCount = 0;
+
+        for(int i = 0; i < purities.size(); ++i)
+        {
+            boolean refine = false;
+
+            for(int j = max(i - 1, 0); j <= min(i + 1, purities.size() - 1); ++j)
+            {
+                if(lessOrEqual(purityBestScores[j], scoreThreshold))
+                    refine = true;
+            }
+
+            purityPloidyIndices.add(refine ? finePloidyIndices : Collections.emptyList());
+
+            if(refine)
+                ++refinedCount;
+        }
+
+        PPL_LOGGER.debug("coarse purity fit best score({}) refining {} of {} purities",
+                format("%.4f", bestScore), refinedCount, purities.size());
+
+        List<List<FittedPurity>> fineFits = fitGrid(purities, purityPloidyIndices);
+
+        coarseFits.forEach(mFittedPurities::addAll);
+        fineFits.forEach(mFittedPurities::addAll);
+    }
+
+    private List<List<FittedPurity>> fitGrid(final List<Double> purities, final List<List<Integer>> purityPloidyIndices)
+            throws ExecutionException, InterruptedException
+    {
+        List<List<FittedPurity>> results = Lists.newArrayListWithCapacity(purities.size());
+
         if(mConfig.Threads <= 1)
         {
-            for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
+            for(int i = 0; i < purities.size(); ++i)
             {
-                mFittedPurities.addAll(fitPurity(purity));
+                results.add(fitPurity(purities.get(i), purityPloidyIndices.get(i)));
             }
         }
         else
         {
             List<Future<List<FittedPurity>>> futures = Lists.newArrayList();
-            for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
+
+            for(int i = 0; i < purities.size(); ++i)
             {
-                futures.add(mExecutorService.submit(callableFitPurity(purity)));
+                futures.add(mExecutorService.submit(callableFitPurity(purities.get(i), purityPloidyIndices.get(i))));
             }
 
             for(Future<List<FittedPurity>> future : futures)
             {
-                List<FittedPurity> fittedPurities = future.get();
-
-                if(!fittedPurities.isEmpty())
-                {
-                    mFittedPurities.addAll(fittedPurities);
-                }
+                results.add(future.get());
             }
         }
 
-        Collections.sort(mFittedPurities);
+        return results;
     }
 
-    private Callable<List<FittedPurity>> callableFitPurity(final double purity)
+    private Callable<List<FittedPurity>> callableFitPurity(final double purity, final List<Integer> ploidyIndices)
     {
-        return () -> fitPurity(purity);
+        return () -> fitPurity(purity, ploidyIndices);
     }
 
-    private List<FittedPurity> fitPurity(final double purity)
+    private List<FittedPurity> fitPurity(final double purity, final List<Integer> ploidyIndices)
     {
-        final List<FittedPurity> fittedPurities = Lists.newArrayList();
-        for(Double ploidy : mPloidyRange)
+        final List<FittedPurity> fittedPurities = Lists.newArrayListWithCapacity(ploidyIndices.size());
+
+        for(int ploidyIndex : ploidyIndices)
         {
+            double ploidy = mPloidyRange.get(ploidyIndex);
             double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
             fittedPurities.add(fitPurity(purity, impliedNormFactor));
         }
@@ -166,12 +297,11 @@ public class FittedPurityFactory
         final SomaticDeviation somaticDeviation = SomaticDeviation.INSTANCE;
         PurityAdjuster purityAdjuster = new PurityAdjuster(mObservedRatioMap, purity, normFactor);
 
-        for(ObservedRegionData regionData : mFilteredObservedRegions)
+        for(int i = 0; i < mRegions.length; ++i)
         {
-            ObservedRegion region = regionData.Region;
-            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(purity, normFactor, region);
+            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(purityAdjuster, mRegions[i], mRegionDeviationDenoms[i]);
 
-            int bafCount = region.bafCount();
+            int bafCount = mRegionBafCounts[i];
             eventPenalty += weightWithBaf(regionFitCalcs.EventPenalty, bafCount);
             deviationPenalty += weightWithBaf(regionFitCalcs.DeviationPenalty, bafCount);
             averagePloidy += weightWithBaf(regionFitCalcs.TumorCopyNumber, bafCount);
@@ -181,21 +311,24 @@ public class FittedPurityFactory
                 diploidProportion += weightWithBaf(1, bafCount);
             }
 
-            for(SomaticVariant variant : regionData.Variants)
+            int variantEnd = mRegionVariantOffsets[i + 1];
+
+            if(mRegionVariantOffsets[i] == variantEnd)
+                continue;
+
+            double normalCopyNumber = mRegionNormalCopyNumbers[i];
+            double constrainedMajorAllelePloidy = max(0, regionFitCalcs.majorAlleleCopyNumber());
+            double constrainedTumorCopyNumber = max(0, regionFitCalcs.TumorCopyNumber);
+
+            for(int v = mRegionVariantOffsets[i]; v < variantEnd; ++v)
             {
                 ++somaticVariantCount;
 
                 double variantPenalty = somaticDeviation.deviationFromMax(
-                        purityAdjuster, region.chromosome(), regionFitCalcs.majorAlleleCopyNumber(), regionFitCalcs.TumorCopyNumber, variant);
+                        purityAdjuster, normalCopyNumber, mVariantDepths[v], constrainedTumorCopyNumber, constrainedMajorAllelePloidy);
 
                 somaticPenaltyTotal += mSomaticPenaltyWeight * variantPenalty;
             }
-
-            /*
-            PPL_LOGGER.trace(format("region(%s:%d-%d) fit(purity=%.2f norm=%.4f) somaticPenTotal(%.4f) devPen(%.4f) eventPen(%.4f) avgPloidy(%.4f)",
-                    region.chromosome(), region.start(), region.end(),
-                    purity, normFactor, somaticPenaltyTotal, deviationPenalty, eventPenalty, averagePloidy));
-            */
         }
 
         double somaticPenalty = mSomaticPenaltyWeight > 0 && somaticVariantCount > 0 ? somaticPenaltyTotal / somaticVariantCount : 0;
@@ -12,6 +12,7 @@ import static com.hartwig.hmftools.purple.PurpleConstants.BAF_PNT_5;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -31,12 +32,16 @@ public class RegionFitCalculator
     private final FittingConfig mFitScoreConfig;
     private final PloidyDeviation mPloidyDeviation;
     private final CobaltChromosomes mCobaltChromosomes;
+    private final Map<String,Double> mObservedRatioMap;
 
     public RegionFitCalculator(final CobaltChromosomes cobaltChromosomes, final FittingConfig fitScoreConfig, int averageReadDepth)
     {
         mCobaltChromosomes = cobaltChromosomes;
         mFitScoreConfig = fitScoreConfig;
 
+        mObservedRatioMap = cobaltChromosomes.chromosomes().stream()
+                .collect(Collectors.toMap(CobaltChromosome::contig, CobaltChromosome::actualRatio));
+
         mPloidyDeviation = new PloidyDeviation(
                 fitScoreConfig.PloidyPenaltyStandardDeviation,
                 fitScoreConfig.PloidyPenaltyMinStandardDeviationPerPloidy,
@@ -78,7 +83,18 @@ public class RegionFitCalculator
 
     public RegionFitCalcs calculateRegionFit(final double purity, final double normFactor, final ObservedRegion observedRegion)
     {
-        final PurityAdjuster purityAdjuster = new PurityAdjuster(purity, normFactor, mCobaltChromosomes);
+        final PurityAdjuster purityAdjuster = new PurityAdjuster(mObservedRatioMap, purity, normFactor);
+
+        return calculateRegionFit(purityAdjuster, observedRegion, deviationPenaltyDenominator(observedRegion.observedTumorRatio()));
+    }
+
+    // the purity adjuster can be shared across regions for a given purity and norm factor, and the deviation
+    // penalty denominator depends only on the region so can be computed once for all fits
+    public RegionFitCalcs calculateRegionFit(
+            final PurityAdjuster purityAdjuster, final ObservedRegion observedRegion, double deviationPenaltyDenom)
+    {
+        double purity = purityAdjuster.purity();
+        double normFactor = purityAdjuster.normFactor();
 
         double observedTumorRatio = observedRegion.observedTumorRatio();
 
@@ -98,6 +114,16 @@ public class RegionFitCalculator
 
         double deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF;
 
+        if(deviationPenaltyDenom != 1)
+            deviationPenalty /= deviationPenaltyDenom;
+
+        return new RegionFitCalcs(
+                impliedCopyNumber, impliedBAF, Doubles.replaceNaNWithZero(refNormalisedCopyNumber),
+                minorAllelePloidyDeviation, majorAllelePloidyDeviation, eventPenalty, deviationPenalty);
+    }
+
+    public double deviationPenaltyDenominator(double observedTumorRatio)
+    {
         if(mFitScoreConfig.GcRatioExponent > 0 || mFitScoreConfig.DeviationPenaltyGcMinAdjust > 0)
         {
             // NEW FORMULA:
@@ -106,14 +132,10 @@ public class RegionFitCalculator
 
             double adjTumorRatio = mFitScoreConfig.GcRatioExponent > 0 ? pow(observedTumorRatio, mFitScoreConfig.GcRatioExponent) : 1;
 
-            double deviationPenaltyDenom = max(mFitScoreConfig.DeviationPenaltyGcMinAdjust, adjTumorRatio);
-
-            deviationPenalty /= deviationPenaltyDenom;
+            return max(mFitScoreConfig.DeviationPenaltyGcMinAdjust, adjTumorRatio);
         }
 
-        return new RegionFitCalcs(
-                impliedCopyNumber, impliedBAF, Doubles.replaceNaNWithZero(refNormalisedCopyNumber),
-                minorAllelePloidyDeviation, majorAllelePloidyDeviation, eventPenalty, deviationPenalty);
+        return 1;
     }
 
     public static double calculateEventPenalty(double eventPenaltyFactor, double majorAllele, double minorAllele)
@@ -1,10 +1,26 @@
 package com.hartwig.hmftools.purple.fitting;
 
+import static com.hartwig.hmftools.purple.PurpleTestUtils.buildCobaltChromosomes;
+import static com.hartwig.hmftools.purple.PurpleTestUtils.buildDefaultConfigBuilder;
+import static com.hartwig.hmftools.purple.PurpleTestUtils.createObservedRegion;
+import static com.hartwig.hmftools.purple.FittingConfig.MAX_PLOIDY;
+import static com.hartwig.hmftools.purple.FittingConfig.PURITY_INCREMENT;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
 import java.util.List;
 
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.purple.PurpleConfig;
+import com.hartwig.hmftools.purple.PurpleTestUtils;
 import com.hartwig.hmftools.purple.fitting.FittedPurityFactory;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
 
 import org.junit.Test;
 
@@ -46,4 +62,47 @@ public class FittedPurityFactoryTest
         assertEquals(1, fixed.size());
         assertEquals(fixedPloidy, fixed.get(0), EPSILON);
     }
+
+    @Test
+    public void testCoarseToFineFit() throws Exception
+    {
+        // a tumor of 60% purity with mostly diploid regions plus a gain and a loss
+        List<ObservedRegion> observedRegions = Lists.newArrayList();
+        observedRegions.add(createObservedRegion("1", 1, 1000, 0.5, 1.0, GermlineStatus.DIPLOID, 2));
+        observedRegions.add(createObservedRegion("1", 1001, 2000, 0.65, 1.3, GermlineStatus.DIPLOID, 3));
+        observedRegions.add(createObservedRegion("2", 1, 1000, 1.0, 0.7, GermlineStatus.DIPLOID, 1));
+        observedRegions.add(createObservedRegion("3", 1, 1000, 0.5, 1.0, GermlineStatus.DIPLOID, 2));
+
+        List<FittedPurity> exhaustiveFits = fitPurities(observedRegions, 0);
+        List<FittedPurity> prunedFits = fitPurities(observedRegions, 0.1);
+
+        // every purity from 0.08 to 1.0 and ploidy is tested in the exhaustive search
+        assertEquals(19 * FittedPurityFactory.ploidyRange(1, 4).size(), exhaustiveFits.size());
+        assertTrue(prunedFits.size() < exhaustiveFits.size());
+
+        FittedPurity bestFit = exhaustiveFits.get(0);
+        FittedPurity bestPrunedFit = prunedFits.get(0);
+        assertEquals(bestFit.purity(), bestPrunedFit.purity(), EPSILON);
+        assertEquals(bestFit.normFactor(), bestPrunedFit.normFactor(), EPSILON);
+        assertEquals(bestFit.score(), bestPrunedFit.score(), EPSILON);
+    }
+
+    private static List<FittedPurity> fitPurities(final List<ObservedRegion> observedRegions, double pruneMargin) throws Exception
+    {
+        ConfigBuilder configBuilder = buildDefaultConfigBuilder();
+        configBuilder.setValue(PURITY_INCREMENT, 0.05);
+        configBuilder.setValue(MAX_PLOIDY, 4);
+        configBuilder.setValue("grid_search_prune_margin", pruneMargin);
+
+        PurpleConfig config = PurpleTestUtils.buildPurpleConfig(configBuilder);
+        CobaltChromosomes cobaltChromosomes = buildCobaltChromosomes();
+
+        RegionFitCalculator regionFitCalculator = new RegionFitCalculator(cobaltChromosomes, config.Fitting, 100);
+
+        FittedPurityFactory fittedPurityFactory = new FittedPurityFactory(
+                config, null, cobaltChromosomes, regionFitCalculator, observedRegions, Collections.emptyList());
+
+        fittedPurityFactory.fitPurity();
+        return fittedPurityFactory.getFittedPurities();
+    }
 }
@@ -11,9 +11,9 @@ import static com.hartwig.hmftools.redux.common.PartitionData.PARTITION_CACHE_RE
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-import com.google.common.collect.Maps;
 import com.hartwig.hmftools.redux.common.PartitionData;
 
 public class PartitionDataStore
@@ -24,27 +24,31 @@ public class PartitionDataStore
     public PartitionDataStore(final ReduxConfig config)
     {
         mConfig = config;
-        mPartitionDataMap = Maps.newHashMap();
+        // concurrent so that lookups from partitions' mate and supplementary reads don't contend on a single monitor
+        mPartitionDataMap = new ConcurrentHashMap<>();
     }
 
-    public synchronized PartitionData getOrCreatePartitionData(final String chrPartition)
+    public PartitionData getOrCreatePartitionData(final String chrPartition)
     {
         PartitionData partitionCache = mPartitionDataMap.get(chrPartition);
 
-        if(partitionCache == null)
-        {
-            partitionCache = new PartitionData(chrPartition, mConfig);
+        if(partitionCache != null)
+            return partitionCache;
 
-            if(mConfig.PerfDebug && mConfig.Threads > 1)
-                partitionCache.togglePerfChecks();
+        return mPartitionDataMap.computeIfAbsent(chrPartition, x -> createPartitionData(x));
+    }
 
-            mPartitionDataMap.put(chrPartition, partitionCache);
-        }
+    private PartitionData createPartitionData(final String chrPartition)
+    {
+        PartitionData partitionCache = new PartitionData(chrPartition, mConfig);
+
+        if(mConfig.PerfDebug && mConfig.Threads > 1)
+            partitionCache.togglePerfChecks();
 
         return partitionCache;
     }
 
-    public synchronized void logTotalCacheSize()
+    public void logTotalCacheSize()
     {
         int[] totalCachedCounts = new int[PARTITION_CACHE_DUP_GROUP_READS+1];
 
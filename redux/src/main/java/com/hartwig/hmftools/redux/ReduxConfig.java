@@ -8,8 +8,10 @@ import static com.hartwig.hmftools.common.basequal.jitter.JitterAnalyserConfig.J
 import static com.hartwig.hmftools.common.basequal.jitter.JitterAnalyserConfig.JITTER_MSI_SITES_FILE_DESC;
 import static com.hartwig.hmftools.common.basequal.jitter.JitterAnalyserConstants.DEFAULT_MAX_SINGLE_SITE_ALT_CONTRIBUTION;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME_IMAGE;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeConfig;
-import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.loadRefGenome;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeImage;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.loadSharedRefGenome;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.V37;
 import static com.hartwig.hmftools.common.region.SpecificRegions.addSpecificChromosomesRegionsConfig;
 import static com.hartwig.hmftools.common.region.UnmappedRegions.UNMAP_REGIONS_FILE;
@@ -96,6 +98,8 @@ public class ReduxConfig
     public final boolean UseSupplementaryBam;
 
     public final String BamToolPath;
+    public final boolean NativeBamMerge;
+    public final boolean OffHeapFragmentState;
 
     // debug
     public final boolean KeepInterimBams;
@@ -128,6 +132,8 @@ public class ReduxConfig
     private static final String NO_MATE_CIGAR = "no_mate_cigar";
     private static final String FORM_CONSENSUS = "form_consensus";
     private static final String READ_LENGTH = "read_length";
+    private static final String NATIVE_BAM_MERGE = "native_bam_merge";
+    private static final String OFF_HEAP_FRAGMENT_STATE = "off_heap_fragment_state";
 
     private static final String WRITE_STATS = "write_stats";
     private static final String DROP_DUPLICATES = "drop_duplicates";
@@ -159,7 +165,15 @@ public class ReduxConfig
         }
 
         RefGenomeFile = configBuilder.getValue(REF_GENOME);
-        RefGenome = loadRefGenome(RefGenomeFile);
+
+        // BAM readers and writers keep using the fasta, while consensus ref bases can come from a shared image
+        RefGenome = loadSharedRefGenome(RefGenomeFile, configBuilder.getValue(REF_GENOME_IMAGE));
+
+        if(RefGenomeFile != null && RefGenome == null)
+        {
+            RD_LOGGER.error("failed to load ref genome({})", RefGenomeFile);
+            mIsValid = false;
+        }
 
         OutputBam = configBuilder.getValue(OUTPUT_BAM);
 
@@ -203,6 +217,8 @@ public class ReduxConfig
         mReadLength = configBuilder.getInteger(READ_LENGTH);
 
         BamToolPath = configBuilder.getValue(BAMTOOL_PATH);
+        NativeBamMerge = configBuilder.hasFlag(NATIVE_BAM_MERGE);
+        OffHeapFragmentState = configBuilder.hasFlag(OFF_HEAP_FRAGMENT_STATE);
 
         NoMateCigar = configBuilder.hasFlag(NO_MATE_CIGAR);
         UMIs = UmiConfig.from(configBuilder);
@@ -293,6 +309,7 @@ public class ReduxConfig
         configBuilder.addPaths(INPUT_BAM, false, "BAM file path, separated by ',' if multiple");
         configBuilder.addConfigItem(OUTPUT_BAM, false, "Output BAM filename");
         addRefGenomeConfig(configBuilder, true);
+        addRefGenomeImage(configBuilder);
         configBuilder.addInteger(PARTITION_SIZE, "Partition size", DEFAULT_PARTITION_SIZE);
         configBuilder.addInteger(BUFFER_SIZE, "Read buffer size", DEFAULT_POS_BUFFER_SIZE);
         configBuilder.addInteger(READ_LENGTH, "Read length, otherwise will sample from BAM", 0);
@@ -306,6 +323,8 @@ public class ReduxConfig
         configBuilder.addFlag(KEEP_INTERIM_BAMS, "Do no delete per-thread BAMs");
 
         BamToolName.addConfig(configBuilder);
+        configBuilder.addFlag(NATIVE_BAM_MERGE, "Sort, merge and index BAMs in-process, instead of with the BAM tool");
+        configBuilder.addFlag(OFF_HEAP_FRAGMENT_STATE, "Hold resolved fragment states in off-heap memory");
 
         configBuilder.addFlag(FORM_CONSENSUS, "Form consensus reads from duplicate groups without UMIs");
         configBuilder.addFlag(NO_MATE_CIGAR, "Mate CIGAR not set by aligner, make no attempt to use it");
@@ -364,6 +383,8 @@ public class ReduxConfig
         SpecificRegionsFilterType = FilterReadsType.MATE_AND_SUPP;
 
         BamToolPath = null;
+        NativeBamMerge = false;
+        OffHeapFragmentState = false;
 
         UnmapRegions = new ReadUnmapper(Maps.newHashMap());
 
@@ -34,8 +34,8 @@ public class PartitionData
 {
     private final String mChrPartition;
 
-    // fragment status from resolved fragments, keyed by readId
-    private final Map<String,ResolvedFragmentState> mFragmentStatus;
+    // fragment status from resolved fragments, keyed by a hash of the readId
+    private final ResolvedFragmentStateStore mFragmentStatus;
 
     private final Map<String,DuplicateGroup> mDuplicateGroupMap; // keyed by readId
 
@@ -65,7 +65,7 @@ public class PartitionData
     public PartitionData(final String chrPartition, final ReduxConfig config)
     {
         mChrPartition = chrPartition;
-        mFragmentStatus = Maps.newHashMap();
+        mFragmentStatus = new ResolvedFragmentStateStore(config.OffHeapFragmentState);
         mIncompleteFragments = Maps.newHashMap();
         mCandidateDuplicatesMap = Maps.newHashMap();
         mDuplicateGroupMap = Maps.newHashMap();
@@ -292,15 +292,10 @@ public class PartitionData
         // a supplementary or higher mate read - returns any resolved fragments resulting from add this new read
 
         // first look for a resolved status
-        ResolvedFragmentState resolvedState = mFragmentStatus.get(read.getReadName());
+        ResolvedFragmentState resolvedState = mFragmentStatus.update(read);
 
         if(resolvedState != null)
         {
-            resolvedState.update(read);
-
-            if(resolvedState.allReceived())
-                mFragmentStatus.remove(read.getReadName());
-
             return new ReadMatch(true, resolvedState.Status);
         }
 
@@ -511,10 +506,8 @@ public class PartitionData
 
         if(logCachedReads && !mFragmentStatus.isEmpty())
         {
-            for(Map.Entry<String,ResolvedFragmentState> entry : mFragmentStatus.entrySet())
-            {
-                RD_LOGGER.debug("cached resolved status: {} : {}", entry.getKey(), entry.getValue());
-            }
+            mFragmentStatus.forEach((readIdHash, resolvedState) ->
+                    RD_LOGGER.debug("cached resolved status: {} : {}", readIdHash, resolvedState));
         }
 
         mFragmentStatus.clear();
@@ -541,8 +534,20 @@ public class PartitionData
     {
         long incompleteSupp = mIncompleteFragments.values().stream().filter(x -> x.status() == SUPPLEMENTARY).count();
         int maxCandidateGroup = mCandidateDuplicatesMap.values().stream().mapToInt(x -> x.fragmentCount()).max().orElse(0);
-        long resolvedNoSupp = mFragmentStatus.values().stream().filter(x -> x.MateReceived).count();
-        long resolvedNoMate = mFragmentStatus.values().stream().filter(x -> x.ProcessedSupplementaries < x.ExpectedSupplementaries).count();
+
+        long[] resolvedCounts = new long[2];
+
+        mFragmentStatus.forEach((readIdHash, resolvedState) ->
+        {
+            if(resolvedState.MateReceived)
+                ++resolvedCounts[0];
+
+            if(resolvedState.ProcessedSupplementaries < resolvedState.ExpectedSupplementaries)
+                ++resolvedCounts[1];
+        });
+
+        long resolvedNoSupp = resolvedCounts[0];
+        long resolvedNoMate = resolvedCounts[1];
 
         long umiReads = 0;
         Set<DuplicateGroup> uniqueGroups = Sets.newHashSet();
@@ -599,15 +604,22 @@ public class PartitionData
 
     private void acquireLock()
     {
+        if(mLock.tryLock())
+            return;
+
         if(!mPerfChecks)
         {
             mLock.lock();
-            return;
+        }
+        else
+        {
+            long startTime = System.nanoTime();
+            mLock.lock();
+            mLockAcquireTime += System.nanoTime() - startTime;
         }
 
-        long startTime = System.nanoTime();
-        mLock.lock();
-        mLockAcquireTime += System.nanoTime() - startTime;
+        // recorded once the lock is held, since these statistics are only updated under it
+        ++statistics().LockContention;
     }
 
     public String toString()
@@ -617,7 +629,7 @@ public class PartitionData
     }
 
     @VisibleForTesting
-    public Map<String,ResolvedFragmentState> fragmentStatusMap() { return mFragmentStatus; }
+    public ResolvedFragmentStateStore fragmentStatusMap() { return mFragmentStatus; }
 
     @VisibleForTesting
     public Map<String,Fragment> incompleteFragmentMap() { return mIncompleteFragments; }
@@ -626,7 +638,7 @@ public class PartitionData
     public Map<String,CandidateDuplicates> candidateDuplicatesMap() { return mCandidateDuplicatesMap; }
 
     @VisibleForTesting
-    public Map<String,ResolvedFragmentState> resolvedFragmentStateMap() { return mFragmentStatus; }
+    public ResolvedFragmentStateStore resolvedFragmentStateMap() { return mFragmentStatus; }
 
     @VisibleForTesting
     public Map<String, DuplicateGroup> duplicateGroupMap() { return mDuplicateGroupMap; }
@@ -0,0 +1,266 @@
+package com.hartwig.hmftools.redux.common;
+
+import static java.lang.String.format;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import htsjdk.samtools.SAMRecord;
+
+public class ResolvedFragmentStateStore
+{
+    // resolved fragment states keyed by a 128-bit hash of the read ID, held in an open-addressing table of primitive
+    // slots (2 longs for the key, 1 for the packed state) rather than as String-keyed objects, optionally off-heap
+    private final boolean mOffHeap;
+
+    private LongBuffer mSlots;
+    private int mCapacity;
+    private int mSize;
+
+    private static final int SLOT_LONGS = 3;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    private static final HashFunction READ_ID_HASH = Hashing.murmur3_128();
+
+    // packed state layout: status ordinal, mate-received flag, expected and processed supplementary counts
+    private static final int STATUS_BITS = 8;
+    private static final int COUNT_BITS = 16;
+    private static final long STATUS_MASK = (1L << STATUS_BITS) - 1;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int MATE_SHIFT = STATUS_BITS;
+    private static final int EXPECTED_SHIFT = MATE_SHIFT + 1;
+    private static final int PROCESSED_SHIFT = EXPECTED_SHIFT + COUNT_BITS;
+
+    private static final FragmentStatus[] STATUSES = FragmentStatus.values();
+
+    public ResolvedFragmentStateStore(boolean offHeap)
+    {
+        mOffHeap = offHeap;
+        mSize = 0;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() { return mSize; }
+    public boolean isEmpty() { return mSize == 0; }
+
+    public void put(final String readId, final ResolvedFragmentState state)
+    {
+        byte[] hash = hashReadId(readId);
+        put(keyHigh(hash), keyLow(hash), packState(state));
+    }
+
+    public ResolvedFragmentState get(final String readId)
+    {
+        byte[] hash = hashReadId(readId);
+        int slot = findSlot(keyHigh(hash), keyLow(hash));
+        return slot >= 0 ? unpackState(mSlots.get(slot * SLOT_LONGS + 2)) : null;
+    }
+
+    public boolean containsKey(final String readId)
+    {
+        byte[] hash = hashReadId(readId);
+        return findSlot(keyHigh(hash), keyLow(hash)) >= 0;
+    }
+
+    public boolean remove(final String readId)
+    {
+        byte[] hash = hashReadId(readId);
+        int slot = findSlot(keyHigh(hash), keyLow(hash));
+
+        if(slot < 0)
+            return false;
+
+        removeSlot(slot);
+        return true;
+    }
+
+    public ResolvedFragmentState update(final SAMRecord read)
+    {
+        // applies a mate or supplementary read to the stored state, removing it once all reads are received
+        byte[] hash = hashReadId(read.getReadName());
+        int slot = findSlot(keyHigh(hash), keyLow(hash));
+
+        if(slot < 0)
+            return null;
+
+        ResolvedFragmentState state = unpackState(mSlots.get(slot * SLOT_LONGS + 2));
+        state.update(read);
+
+        if(state.allReceived())
+            removeSlot(slot);
+        else
+            mSlots.put(slot * SLOT_LONGS + 2, packState(state));
+
+        return state;
+    }
+
+    public void forEach(final BiConsumer<String,ResolvedFragmentState> consumer)
+    {
+        // read IDs are not retained, so entries are identified by their hash
+        for(int slot = 0; slot < mCapacity; ++slot)
+        {
+            if(isEmptySlot(slot))
+                continue;
+
+            int index = slot * SLOT_LONGS;
+            String hashStr = format("%016x%016x", mSlots.get(index), mSlots.get(index + 1));
+            consumer.accept(hashStr, unpackState(mSlots.get(index + 2)));
+        }
+    }
+
+    public void clear()
+    {
+        mSize = 0;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private static byte[] hashReadId(final String readId)
+    {
+        return READ_ID_HASH.hashString(readId, StandardCharsets.UTF_8).asBytes();
+    }
+
+    private static long keyHigh(final byte[] hash) { return ByteBuffer.wrap(hash).getLong(0); }
+
+    private static long keyLow(final byte[] hash)
+    {
+        // a zero key marks an empty slot, so is remapped - the loss of one hash value is immaterial
+        long low = ByteBuffer.wrap(hash).getLong(Long.BYTES);
+        return low == 0 ? 1 : low;
+    }
+
+    private void allocate(int capacity)
+    {
+        mCapacity = capacity;
+        int longCount = capacity * SLOT_LONGS;
+
+        if(mOffHeap)
+            mSlots = ByteBuffer.allocateDirect(longCount * Long.BYTES).asLongBuffer();
+        else
+            mSlots = LongBuffer.allocate(longCount);
+    }
+
+    private boolean isEmptySlot(int slot) { return mSlots.get(slot * SLOT_LONGS + 1) == 0; }
+
+    private int startSlot(long keyHigh, long keyLow)
+    {
+        long mixed = keyHigh ^ keyLow;
+        return (int)(mixed ^ (mixed >>> 32)) & (mCapacity - 1);
+    }
+
+    private int findSlot(long keyHigh, long keyLow)
+    {
+        int slot = startSlot(keyHigh, keyLow);
+
+        while(!isEmptySlot(slot))
+        {
+            int index = slot * SLOT_LONGS;
+
+            if(mSlots.get(index) == keyHigh && mSlots.get(index + 1) == keyLow)
+                return slot;
+
+            slot = (slot + 1) & (mCapacity - 1);
+        }
+
+        return -1;
+    }
+
+    private void put(long keyHigh, long keyLow, long state)
+    {
+        if(mSize + 1 > mCapacity * MAX_LOAD_FACTOR)
+            resize();
+
+        int slot = startSlot(keyHigh, keyLow);
+
+        while(!isEmptySlot(slot))
+        {
+            int index = slot * SLOT_LONGS;
+
+            if(mSlots.get(index) == keyHigh && mSlots.get(index + 1) == keyLow)
+            {
+                mSlots.put(index + 2, state);
+                return;
+            }
+
+            slot = (slot + 1) & (mCapacity - 1);
+        }
+
+        int index = slot * SLOT_LONGS;
+        mSlots.put(index, keyHigh);
+        mSlots.put(index + 1, keyLow);
+        mSlots.put(index + 2, state);
+        ++mSize;
+    }
+
+    private void removeSlot(int slot)
+    {
+        // backward-shift deletion keeps probe sequences intact without tombstones
+        int mask = mCapacity - 1;
+        int emptySlot = slot;
+        int nextSlot = (slot + 1) & mask;
+
+        while(!isEmptySlot(nextSlot))
+        {
+            int nextIndex = nextSlot * SLOT_LONGS;
+            int idealSlot = startSlot(mSlots.get(nextIndex), mSlots.get(nextIndex + 1));
+
+            // move the entry back if its ideal slot does not lie cyclically within (emptySlot, nextSlot]
+            if(((nextSlot - idealSlot) & mask) >= ((nextSlot - emptySlot) & mask))
+            {
+                int emptyIndex = emptySlot * SLOT_LONGS;
+                mSlots.put(emptyIndex, mSlots.get(nextIndex));
+                mSlots.put(emptyIndex + 1, mSlots.get(nextIndex + 1));
+                mSlots.put(emptyIndex + 2, mSlots.get(nextIndex + 2));
+                emptySlot = nextSlot;
+            }
+
+            nextSlot = (nextSlot + 1) & mask;
+        }
+
+        int emptyIndex = emptySlot * SLOT_LONGS;
+        mSlots.put(emptyIndex, 0);
+        mSlots.put(emptyIndex + 1, 0);
+        mSlots.put(emptyIndex + 2, 0);
+        --mSize;
+    }
+
+    private void resize()
+    {
+        LongBuffer oldSlots = mSlots;
+        int oldCapacity = mCapacity;
+
+        allocate(oldCapacity * 2);
+        mSize = 0;
+
+        for(int slot = 0; slot < oldCapacity; ++slot)
+        {
+            int index = slot * SLOT_LONGS;
+            long keyLow = oldSlots.get(index + 1);
+
+            if(keyLow != 0)
+                put(oldSlots.get(index), keyLow, oldSlots.get(index + 2));
+        }
+    }
+
+    private static long packState(final ResolvedFragmentState state)
+    {
+        return state.Status.ordinal()
+                | (state.MateReceived ? 1L << MATE_SHIFT : 0)
+                | ((state.ExpectedSupplementaries & COUNT_MASK) << EXPECTED_SHIFT)
+                | ((state.ProcessedSupplementaries & COUNT_MASK) << PROCESSED_SHIFT);
+    }
+
+    private static ResolvedFragmentState unpackState(long packed)
+    {
+        return new ResolvedFragmentState(
+                STATUSES[(int)(packed & STATUS_MASK)], null,
+                (int)((packed >>> EXPECTED_SHIFT) & COUNT_MASK),
+                (int)((packed >>> PROCESSED_SHIFT) & COUNT_MASK),
+                ((packed >>> MATE_SHIFT) & 1) != 0);
+    }
+}
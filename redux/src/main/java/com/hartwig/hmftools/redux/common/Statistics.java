@@ -31,6 +31,7 @@ public class Statistics
     public long MissingMateCigar;
     public long Unmapped; // fully, ie primary and mate
     public long PairedAltChromosome; // paired with a non-human chromosome
+    public long LockContention; // partition cache lock acquisitions which had to wait for another thread
 
     public final Map<Integer,DuplicateFrequency> DuplicateFrequencies;
 
@@ -49,6 +50,7 @@ public class Statistics
         MissingMateCigar = 0;
         Unmapped = 0;
         PairedAltChromosome = 0;
+        LockContention = 0;
         DuplicateFrequencies = Maps.newHashMap();
         UmiStats = new UmiStatistics();
         ConsensusStats = new ConsensusStatistics();
@@ -65,6 +67,7 @@ public class Statistics
         MissingMateCigar += other.MissingMateCigar;
         Unmapped += other.Unmapped;
         PairedAltChromosome += other.PairedAltChromosome;
+        LockContention += other.LockContention;
 
         for(DuplicateFrequency dupFreq : other.DuplicateFrequencies.values())
         {
@@ -122,8 +125,8 @@ public class Statistics
 
         if(RD_LOGGER.isDebugEnabled())
         {
-            RD_LOGGER.debug("stats: fragments(complete={} incomplete={} interPartition={} unmapped={} pairedAltChr={}))",
-                    LocalComplete, Incomplete, InterPartition, Unmapped, PairedAltChromosome);
+            RD_LOGGER.debug("stats: fragments(complete={} incomplete={} interPartition={} unmapped={} pairedAltChr={}) lockContention({})",
+                    LocalComplete, Incomplete, InterPartition, Unmapped, PairedAltChromosome, LockContention);
 
             List<Integer> frequencies = DuplicateFrequencies.keySet().stream().collect(Collectors.toList());
             Collections.sort(frequencies);
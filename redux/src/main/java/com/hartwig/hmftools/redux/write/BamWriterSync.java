@@ -3,6 +3,13 @@ package com.hartwig.hmftools.redux.write;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.filenamePart;
 import static com.hartwig.hmftools.redux.ReduxConfig.RD_LOGGER;
 
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.basequal.jitter.JitterAnalyser;
 import com.hartwig.hmftools.redux.ReduxConfig;
 
@@ -14,6 +21,14 @@ import htsjdk.samtools.SAMRecord;
 public class BamWriterSync extends BamWriter
 {
     private long mWriteCount;
+    private long mContendedWrites;
+
+    // each thread buffers its records and hands them to the shared writer in batches, so the lock is taken once per batch
+    private final Lock mWriteLock;
+    private final ThreadLocal<List<SAMRecord>> mThreadBuffers;
+    private final Queue<List<SAMRecord>> mAllBuffers; // retained to flush any partial batches on close
+
+    private static final int WRITE_BATCH_SIZE = 1000;
 
     public BamWriterSync(
             final String filename, final ReduxConfig config, final ReadDataWriter readDataWriter, final SAMFileWriter samFileWriter,
@@ -21,6 +36,17 @@ public class BamWriterSync extends BamWriter
     {
         super(filename, config, readDataWriter, samFileWriter, jitterAnalyser, suppBamReadWriter);
         mWriteCount = 0;
+        mContendedWrites = 0;
+
+        mWriteLock = new ReentrantLock();
+        mAllBuffers = new ConcurrentLinkedQueue<>();
+
+        mThreadBuffers = ThreadLocal.withInitial(() ->
+        {
+            List<SAMRecord> buffer = Lists.newArrayListWithCapacity(WRITE_BATCH_SIZE);
+            mAllBuffers.add(buffer);
+            return buffer;
+        });
     }
 
     public boolean isSorted() { return false; }
@@ -30,20 +56,46 @@ public class BamWriterSync extends BamWriter
     public void onRegionComplete() {}
 
     @Override
-    protected void writeRecord(final SAMRecord read) { writeRecordSync(read); }
+    protected void writeRecord(final SAMRecord read)
+    {
+        List<SAMRecord> buffer = mThreadBuffers.get();
+        buffer.add(read);
+
+        if(buffer.size() >= WRITE_BATCH_SIZE)
+            flushBuffer(buffer);
+    }
 
-    public synchronized void writeRecordSync(final SAMRecord read)
+    private void flushBuffer(final List<SAMRecord> buffer)
     {
-        mSamFileWriter.addAlignment(read);
-        ++mWriteCount;
+        if(!mWriteLock.tryLock())
+        {
+            mWriteLock.lock();
+            ++mContendedWrites;
+        }
+
+        try
+        {
+            buffer.forEach(x -> mSamFileWriter.addAlignment(x));
+            mWriteCount += buffer.size();
+        }
+        finally
+        {
+            mWriteLock.unlock();
+        }
+
+        buffer.clear();
     }
 
     @Override
     public void close()
     {
+        // called once all writing threads have completed
+        mAllBuffers.stream().filter(x -> !x.isEmpty()).forEach(x -> flushBuffer(x));
+
         if(mSamFileWriter != null)
         {
-            RD_LOGGER.debug("unsorted-writer records written({}) to BAM({})", mWriteCount, filenamePart(mFilename));
+            RD_LOGGER.debug("unsorted-writer records written({}) contendedBatches({}) to BAM({})",
+                    mWriteCount, mContendedWrites, filenamePart(mFilename));
             mSamFileWriter.close();
         }
     }
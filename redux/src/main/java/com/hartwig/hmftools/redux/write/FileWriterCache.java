@@ -18,6 +18,7 @@ import java.util.stream.Collectors;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.bamops.BamOperations;
 import com.hartwig.hmftools.common.bamops.BamToolName;
+import com.hartwig.hmftools.common.bamops.NativeBamOperations;
 import com.hartwig.hmftools.common.basequal.jitter.JitterAnalyser;
 import com.hartwig.hmftools.redux.ReduxConfig;
 import com.hartwig.hmftools.common.bamops.BamMerger;
@@ -170,7 +171,11 @@ public class FileWriterCache
             fileHeader.setSortOrder(SAMFileHeader.SortOrder.unsorted);
 
         boolean presorted = isSorted;
-        return new SAMFileWriterFactory().makeBAMWriter(fileHeader, presorted, new File(filename));
+
+        // the native merge requires indexed inputs, which can be built while the sorted BAMs are written
+        boolean createIndex = isSorted && mConfig.NativeBamMerge;
+
+        return new SAMFileWriterFactory().setCreateIndex(createIndex).makeBAMWriter(fileHeader, presorted, new File(filename));
     }
 
     public List<SuppBamWriter> getSupplementaryBamReadWriters()
@@ -178,7 +183,7 @@ public class FileWriterCache
         return mBamWriters.stream().filter(x -> x.suppBamReadWriter() != null).map(x -> x.suppBamReadWriter()).collect(Collectors.toList());
     }
 
-    public boolean runSortMergeIndex() { return mConfig.BamToolPath != null; }
+    public boolean runSortMergeIndex() { return mConfig.BamToolPath != null || mConfig.NativeBamMerge; }
 
     private BamToolName bamToolName() { return BamToolName.fromPath(mConfig.BamToolPath); }
     private String bamToolPath() { return mConfig.BamToolPath; }
@@ -257,6 +262,14 @@ public class FileWriterCache
 
     private boolean mergeBams(final String finalBamFilename, final List<String> sortedThreadBams)
     {
+        if(mConfig.NativeBamMerge)
+        {
+            // without a BAM tool path the merge routine concatenates and indexes in-process
+            BamMerger bamMerger = new BamMerger(
+                    finalBamFilename, sortedThreadBams, mConfig.RefGenomeFile, null, mConfig.Threads, false);
+            return bamMerger.merge();
+        }
+
         if(bamToolName() == BamToolName.SAMBAMBA)
             return BamOperations.mergeBams(bamToolName(), bamToolPath(), finalBamFilename, sortedThreadBams, mConfig.Threads);
 
@@ -274,6 +287,9 @@ public class FileWriterCache
             {
                 Files.deleteIfExists(Paths.get(filename));
                 Files.deleteIfExists(Paths.get(filename + BAM_INDEX_EXTENSION));
+
+                if(mConfig.NativeBamMerge)
+                    Files.deleteIfExists(Paths.get(NativeBamOperations.libraryIndexFilename(filename)));
             }
         }
         catch(IOException e)
@@ -284,6 +300,10 @@ public class FileWriterCache
 
     private boolean indexFinalBam(String finalBamFilename)
     {
+        // the native sort writes the index as it goes
+        if(mConfig.NativeBamMerge)
+            return true;
+
         // no need to index if Sambamba merge was used
         if(bamToolName() == BamToolName.SAMBAMBA && mBamWriters.size() > 1)
             return true;
@@ -320,7 +340,10 @@ public class FileWriterCache
 
             // MD_LOGGER.debug("sorting unsorted bam({}) to sorted bam({})", mBamfile, mSortedBamfile);
 
-            mSuccess = BamOperations.sortBam(bamToolName(), bamToolPath(), mBamfile, mSortedBamfile, mThreadCount);
+            if(mConfig.NativeBamMerge)
+                mSuccess = NativeBamOperations.sortBam(mBamfile, mSortedBamfile, mConfig.RefGenomeFile, true);
+            else
+                mSuccess = BamOperations.sortBam(bamToolName(), bamToolPath(), mBamfile, mSortedBamfile, mThreadCount);
             return (long)0;
         }
     }
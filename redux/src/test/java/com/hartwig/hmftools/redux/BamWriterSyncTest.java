@@ -0,0 +1,171 @@
+package com.hartwig.hmftools.redux;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.redux.TestUtils.TEST_READ_CIGAR;
+import static com.hartwig.hmftools.redux.TestUtils.createTestConfig;
+import static com.hartwig.hmftools.redux.common.FragmentStatus.NONE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.test.SamRecordTestUtils;
+import com.hartwig.hmftools.redux.common.PartitionData;
+import com.hartwig.hmftools.redux.write.BamWriterSync;
+import com.hartwig.hmftools.redux.write.ReadDataWriter;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.ProgressLoggerInterface;
+
+public class BamWriterSyncTest
+{
+    private static final int THREAD_COUNT = 4;
+
+    @Test
+    public void testConcurrentWrites() throws Exception
+    {
+        ReduxConfig config = createTestConfig();
+        RecordingSamWriter samWriter = new RecordingSamWriter();
+        BamWriterSync bamWriter = new BamWriterSync("", config, new ReadDataWriter(config), samWriter, null, null);
+
+        // counts which leave each thread with a partial batch, down to a thread which never fills one
+        int[] threadReadCounts = { 2500, 1999, 1001, 10 };
+
+        List<List<SAMRecord>> threadReads = Lists.newArrayList();
+        int totalReads = 0;
+
+        for(int t = 0; t < THREAD_COUNT; ++t)
+        {
+            List<SAMRecord> reads = Lists.newArrayListWithCapacity(threadReadCounts[t]);
+
+            for(int i = 0; i < threadReadCounts[t]; ++i)
+            {
+                reads.add(createRead(String.format("READ_%d_%d", t, i), 100 + i));
+            }
+
+            threadReads.add(reads);
+            totalReads += reads.size();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = Lists.newArrayList();
+
+        for(List<SAMRecord> reads : threadReads)
+        {
+            futures.add(executor.submit(() ->
+            {
+                startLatch.await();
+                reads.forEach(x -> bamWriter.writeRead(x, NONE));
+                return null;
+            }));
+        }
+
+        startLatch.countDown();
+
+        for(Future<?> future : futures)
+        {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        // full batches only until close flushes the remainders
+        assertTrue(samWriter.Records.size() < totalReads);
+        assertFalse(samWriter.Closed);
+
+        bamWriter.close();
+
+        assertTrue(samWriter.Closed);
+        assertEquals(totalReads, bamWriter.totalWriteCount());
+        assertEquals(totalReads, samWriter.Records.size());
+
+        Set<SAMRecord> writtenRecords = Sets.newIdentityHashSet();
+        writtenRecords.addAll(samWriter.Records);
+        assertEquals(totalReads, writtenRecords.size());
+
+        for(List<SAMRecord> reads : threadReads)
+        {
+            reads.forEach(x -> assertTrue(writtenRecords.contains(x)));
+        }
+    }
+
+    @Test
+    public void testConcurrentPartitionDataCreation() throws Exception
+    {
+        PartitionDataStore partitionDataStore = new PartitionDataStore(createTestConfig());
+
+        String chrPartition = CHR_1 + "_0";
+        int callCount = THREAD_COUNT * 4;
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<PartitionData>> futures = Lists.newArrayList();
+
+        for(int i = 0; i < callCount; ++i)
+        {
+            Callable<PartitionData> task = () ->
+            {
+                startLatch.await();
+                return partitionDataStore.getOrCreatePartitionData(chrPartition);
+            };
+
+            futures.add(executor.submit(task));
+        }
+
+        startLatch.countDown();
+
+        PartitionData partitionData = futures.get(0).get();
+
+        for(Future<PartitionData> future : futures)
+        {
+            assertSame(partitionData, future.get());
+        }
+
+        executor.shutdown();
+
+        assertEquals(1, partitionDataStore.partitions().size());
+        assertSame(partitionData, partitionDataStore.getOrCreatePartitionData(chrPartition));
+    }
+
+    private static SAMRecord createRead(final String readId, int position)
+    {
+        return SamRecordTestUtils.createSamRecord(
+                readId, CHR_1, position, "", TEST_READ_CIGAR, CHR_1, position + 200, false,
+                false, null, true, TEST_READ_CIGAR);
+    }
+
+    // deliberately unsynchronised, since the sync writer only hands it records under its lock
+    private static class RecordingSamWriter implements SAMFileWriter
+    {
+        public final List<SAMRecord> Records = Lists.newArrayList();
+        public boolean Closed = false;
+
+        @Override
+        public void addAlignment(final SAMRecord record) { Records.add(record); }
+
+        @Override
+        public SAMFileHeader getFileHeader() { return null; }
+
+        @Override
+        public void setProgressLogger(final ProgressLoggerInterface progressLogger) {}
+
+        @Override
+        public void close() { Closed = true; }
+    }
+}
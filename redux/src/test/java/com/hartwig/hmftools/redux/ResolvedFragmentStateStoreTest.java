@@ -0,0 +1,97 @@
+package com.hartwig.hmftools.redux;
+
+import static com.hartwig.hmftools.redux.common.FragmentStatus.DUPLICATE;
+import static com.hartwig.hmftools.redux.common.FragmentStatus.NONE;
+import static com.hartwig.hmftools.redux.common.FragmentStatus.PRIMARY;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.hartwig.hmftools.redux.common.ResolvedFragmentState;
+import com.hartwig.hmftools.redux.common.ResolvedFragmentStateStore;
+
+import org.junit.Test;
+
+public class ResolvedFragmentStateStoreTest
+{
+    @Test
+    public void testStoreAndRetrieve()
+    {
+        ResolvedFragmentStateStore store = new ResolvedFragmentStateStore(false);
+
+        store.put("READ_001", new ResolvedFragmentState(DUPLICATE, null, 2, 1, false));
+        store.put("READ_002", new ResolvedFragmentState(PRIMARY, null, 0, 0, true));
+
+        assertEquals(2, store.size());
+
+        ResolvedFragmentState state = store.get("READ_001");
+        assertNotNull(state);
+        assertEquals(DUPLICATE, state.Status);
+        assertEquals(2, state.ExpectedSupplementaries);
+        assertEquals(1, state.ProcessedSupplementaries);
+        assertFalse(state.MateReceived);
+
+        state = store.get("READ_002");
+        assertEquals(PRIMARY, state.Status);
+        assertTrue(state.MateReceived);
+
+        assertNull(store.get("READ_003"));
+
+        // replacing an existing entry does not add to the count
+        store.put("READ_002", new ResolvedFragmentState(NONE, null, 1, 0, true));
+        assertEquals(2, store.size());
+        assertEquals(NONE, store.get("READ_002").Status);
+
+        assertTrue(store.remove("READ_001"));
+        assertFalse(store.containsKey("READ_001"));
+        assertFalse(store.remove("READ_001"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testResizeAndRemoval()
+    {
+        // enough entries to force several resizes, then removal of every other entry to exercise the backward shift
+        for(boolean offHeap : new boolean[] { false, true })
+        {
+            ResolvedFragmentStateStore store = new ResolvedFragmentStateStore(offHeap);
+
+            int entryCount = 10000;
+
+            for(int i = 0; i < entryCount; ++i)
+            {
+                store.put("READ_" + i, new ResolvedFragmentState(PRIMARY, null, i % 3, 0, false));
+            }
+
+            assertEquals(entryCount, store.size());
+
+            for(int i = 0; i < entryCount; i += 2)
+            {
+                assertTrue(store.remove("READ_" + i));
+            }
+
+            assertEquals(entryCount / 2, store.size());
+
+            for(int i = 0; i < entryCount; ++i)
+            {
+                ResolvedFragmentState state = store.get("READ_" + i);
+
+                if((i % 2) == 0)
+                {
+                    assertNull(state);
+                }
+                else
+                {
+                    assertNotNull(state);
+                    assertEquals(i % 3, state.ExpectedSupplementaries);
+                }
+            }
+
+            store.clear();
+            assertTrue(store.isEmpty());
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.hartwig.hmftools.sage.coverage.Coverage;
 import com.hartwig.hmftools.sage.evidence.FragmentLengthWriter;
 import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
 import com.hartwig.hmftools.sage.pipeline.ChromosomePipeline;
+import com.hartwig.hmftools.sage.pipeline.GenomePipeline;
 import com.hartwig.hmftools.sage.bqr.BaseQualityRecalibration;
 import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.quality.MsiJitterCalcs;
@@ -96,6 +97,9 @@ public class SageApplication implements AutoCloseable
                 mConfig.Common.Quality.HighDepthMode);
 
         final SAMSequenceDictionary dictionary = dictionary();
+
+        GenomePipeline genomePipeline = mConfig.GenomeTaskQueue ? new GenomePipeline(mConfig, mVcfWriter) : null;
+
         for(final SAMSequenceRecord samSequenceRecord : dictionary.getSequences())
         {
             final String chromosome = samSequenceRecord.getSequenceName();
@@ -106,9 +110,15 @@ public class SageApplication implements AutoCloseable
             final ChromosomePipeline pipeline = new ChromosomePipeline(
                     chromosome, mConfig, mRefData, recalibrationMap, msiJitterCalcs, coverage, mPhaseSetCounter, mVcfWriter, mFragmentLengths);
 
-            pipeline.process();
+            if(genomePipeline != null)
+                genomePipeline.addChromosome(pipeline);
+            else
+                pipeline.process();
         }
 
+        if(genomePipeline != null)
+            genomePipeline.process();
+
         coverage.writeFiles(mConfig.Common.OutputFile);
         mFragmentLengths.close();
 
@@ -30,6 +30,7 @@ public class SageCallConfig
     public final String PanelBed;
     public final String Hotspots;
     public final boolean PanelOnly;
+    public final boolean GenomeTaskQueue;
 
     private final String mResourceDir;
 
@@ -39,6 +40,7 @@ public class SageCallConfig
     private static final String PANEL_BED = "panel_bed";
     private static final String HOTSPOTS = "hotspots";
     private static final String PANEL_ONLY = "panel_only";
+    private static final String GENOME_TASK_QUEUE = "genome_task_queue";
 
     public SageCallConfig(final String version, final ConfigBuilder configBuilder)
     {
@@ -65,6 +67,7 @@ public class SageCallConfig
         Hotspots = getReferenceFile(configBuilder, HOTSPOTS);
 
         PanelOnly = configBuilder.hasFlag(PANEL_ONLY);
+        GenomeTaskQueue = configBuilder.hasFlag(GENOME_TASK_QUEUE);
     }
 
     public boolean isValid()
@@ -118,6 +121,7 @@ public class SageCallConfig
         configBuilder.addPrefixedPath(HOTSPOTS, false, "Hotspots", RESOURCE_DIR);
         configBuilder.addPrefixedPath(COVERAGE_BED, false, "Coverage is calculated for optionally supplied bed", RESOURCE_DIR);
         configBuilder.addFlag(PANEL_ONLY, "Only examine panel for variants");
+        configBuilder.addFlag(GENOME_TASK_QUEUE, "Process all chromosome regions from a single genome-wide task queue");
 
         registerCommonConfig(configBuilder);
         addEnsemblDir(configBuilder);
@@ -133,6 +137,7 @@ public class SageCallConfig
         PanelBed = "panel";
         Hotspots = "hotspots";
         PanelOnly = false;
+        GenomeTaskQueue = false;
         mResourceDir = "";
     }
 }
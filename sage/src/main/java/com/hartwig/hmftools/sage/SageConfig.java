@@ -1,6 +1,9 @@
 package com.hartwig.hmftools.sage;
 
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME_IMAGE;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeImage;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.loadSharedRefGenome;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeConfig;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.V37;
 import static com.hartwig.hmftools.common.region.SpecificRegions.addSpecificChromosomesRegionsConfig;
@@ -64,6 +67,7 @@ public class SageConfig
     public final String SampleDataDir;
 
     public final String RefGenomeFile;
+    public final String RefGenomeImageFile; // optional, shared by region threads for ref bases in place of their own fasta handles
     public final RefGenomeVersion RefGenVersion;
     public final String OutputFile;
     public final FilterConfig Filter;
@@ -151,6 +155,7 @@ public class SageConfig
         OutputFile = SampleDataDir + configBuilder.getValue(OUTPUT_VCF);
 
         RefGenomeFile = configBuilder.getValue(REF_GENOME);
+        RefGenomeImageFile = configBuilder.getValue(REF_GENOME_IMAGE);
 
         BamStringency = BamUtils.validationStringency(configBuilder);
         RegionSliceSize = configBuilder.getInteger(SLICE_SIZE);
@@ -295,6 +300,13 @@ public class SageConfig
             return false;
         }
 
+        // region threads take ref bases from the image, so check up front that it was compiled from the fasta
+        if(RefGenomeImageFile != null && loadSharedRefGenome(RefGenomeFile, RefGenomeImageFile) == null)
+        {
+            SG_LOGGER.error("invalid reference genome image({})", RefGenomeImageFile);
+            return false;
+        }
+
         if(OutputFile.isEmpty())
         {
             SG_LOGGER.error("No output VCF file specified");
@@ -349,6 +361,7 @@ public class SageConfig
         configBuilder.addConfigItem(OUTPUT_VCF, true, "Output VCF filename");
 
         addRefGenomeConfig(configBuilder, true);
+        addRefGenomeImage(configBuilder);
 
         // is this common?
         configBuilder.addInteger(
@@ -414,6 +427,7 @@ public class SageConfig
         mReadLength = DEFAULT_READ_LENGTH;
         MaxPartitionSlices = 1;
         RefGenomeFile = "refGenome";
+        RefGenomeImageFile = null;
         OutputFile = "out.vcf";
         Version = "1.0";
         Threads = 1;
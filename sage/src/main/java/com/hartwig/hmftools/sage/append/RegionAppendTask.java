@@ -3,6 +3,7 @@ package com.hartwig.hmftools.sage.append;
 import static java.lang.Math.max;
 import static java.lang.String.format;
 
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.loadSharedRefGenome;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 import static com.hartwig.hmftools.sage.vcf.CandidateSerialisation.PRE_v3_5_FLANK_EXTENSION_LENGTH;
 import static com.hartwig.hmftools.sage.vcf.VariantContextFactory.createGenotype;
@@ -14,6 +15,7 @@ import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.candidate.Candidate;
@@ -42,7 +44,7 @@ public class RegionAppendTask implements Callable
     private final SageAppendConfig mConfig;
     private final EvidenceStage mEvidenceStage;
     private final IndexedFastaSequenceFile mRefGenomeFile;
-    private final RefGenomeSource mRefGenome;
+    private final RefGenomeInterface mRefGenome;
     private final FragmentLengthWriter mFragmentLengths;
 
     private final List<VariantContext> mOriginalVariants;
@@ -62,7 +64,8 @@ public class RegionAppendTask implements Callable
 
         mConfig = config;
         mRefGenomeFile = refGenome;
-        mRefGenome = new RefGenomeSource(mRefGenomeFile);
+        mRefGenome = config.Common.RefGenomeImageFile != null ?
+                loadSharedRefGenome(config.Common.RefGenomeImageFile) : new RefGenomeSource(mRefGenomeFile);
 
         SamSlicerFactory samSlicerFactory = new SamSlicerFactory();
         samSlicerFactory.buildBamReaders(Collections.emptyList(), Collections.emptyList(), mConfig.Common, mRefGenomeFile);
@@ -40,7 +40,7 @@ public class AltContext extends SimpleVariant
 
     public AltContext(final RefContext refContext, final String ref, final String alt)
     {
-        super(refContext.Chromosome, refContext.Position, ref, alt);
+        super(refContext.Chromosome, refContext.position(), ref, alt);
         RefContext = refContext;
 
         mReadContextCandidates = Lists.newArrayList();
@@ -52,7 +52,7 @@ public class AltContext extends SimpleVariant
 
     private AltContext(final RefContext refContext, final String ref, final String alt, final ReadContextCandidate candidate)
     {
-        super(refContext.Chromosome, refContext.Position, ref, alt);
+        super(refContext.Chromosome, refContext.position(), ref, alt);
         RefContext = refContext;
 
         mCandidate = candidate;
@@ -48,5 +48,5 @@ public class AltRead
         mRefContext.processAltRead(Ref, Alt, NumberOfEvents, mRead, mVariantReadIndex, readContextBuilder, refSequence);
     }
 
-    public String toString() { return String.format("%d: %s>%s", mRefContext.Position, Ref, Alt); }
+    public String toString() { return String.format("%d: %s>%s", mRefContext.position(), Ref, Alt); }
 }
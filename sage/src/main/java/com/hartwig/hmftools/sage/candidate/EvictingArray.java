@@ -7,10 +7,13 @@ import static java.lang.String.format;
 
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 import java.util.function.Consumer;
-import java.util.function.Function;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 
 public class EvictingArray
 {
@@ -24,6 +27,14 @@ public class EvictingArray
     private final int mReadLengthBuffer;
     private final int mCapacity;
 
+    // evicted elements which were not retained by the eviction handler, held until the current read's alts have been applied
+    private final List<RefContext> mPendingRecycle;
+
+    // evicted elements available for reuse
+    private final Deque<RefContext> mRecycled;
+    private long mCreatedCount;
+    private long mRecycledCount;
+
     public static final int MAX_EXPECTED_DEL = 80;
 
     public EvictingArray(int maxReadLength, final Consumer<RefContext> evictionHandler)
@@ -34,9 +45,13 @@ public class EvictingArray
         mElements = new RefContext[mCapacity];
         mMinPosition = 0;
         mMinPositionIndex = 0;
+        mPendingRecycle = Lists.newArrayList();
+        mRecycled = new ArrayDeque<>();
+        mCreatedCount = 0;
+        mRecycledCount = 0;
     }
 
-    public RefContext getOrCreateRefContext(int position, final Function<Integer,RefContext> supplier)
+    public RefContext getOrCreateRefContext(final String chromosome, int position)
     {
         if(!isValidPosition(position))
             return null;
@@ -57,18 +72,48 @@ public class EvictingArray
         RefContext element = mElements[index];
         if(element == null)
         {
-            element = supplier.apply(position);
+            element = createRefContext(chromosome, position);
             mElements[index] = element;
         }
 
         return element;
     }
 
+    private RefContext createRefContext(final String chromosome, int position)
+    {
+        RefContext refContext = mRecycled.pollFirst();
+
+        if(refContext != null && refContext.Chromosome.equals(chromosome))
+        {
+            refContext.reset(position);
+            ++mRecycledCount;
+            return refContext;
+        }
+
+        ++mCreatedCount;
+        return new RefContext(chromosome, position);
+    }
+
     public void evictAll()
     {
         checkFlush(-1);
     }
 
+    public void releaseEvicted()
+    {
+        // a read spanning more than the buffer can evict its own earlier contexts before its pending alts are applied to them,
+        // so evicted contexts only become available for reuse once the caller has finished with the read
+        for(RefContext refContext : mPendingRecycle)
+        {
+            if(refContext.isRetained() || mRecycled.size() >= mCapacity)
+                continue;
+
+            mRecycled.addFirst(refContext);
+        }
+
+        mPendingRecycle.clear();
+    }
+
     private int calcIndex(int distanceFromMinPosition)
     {
         // capacity = 10, min position = 1, min index = 0, position of 10 is index 9
@@ -127,6 +172,9 @@ public class EvictingArray
             {
                 mEvictionHandler.accept(element);
                 mElements[mMinPositionIndex] = null;
+
+                if(!element.isRetained())
+                    mPendingRecycle.add(element);
             }
 
             mMinPosition++;
@@ -147,6 +195,9 @@ public class EvictingArray
         mMinPosition = max(1, position - mReadLengthBuffer);
     }
 
+    public long createdCount() { return mCreatedCount; }
+    public long recycledCount() { return mRecycledCount; }
+
     @VisibleForTesting
     public int minPosition() { return mMinPosition; }
 
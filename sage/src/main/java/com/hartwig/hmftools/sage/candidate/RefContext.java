@@ -1,29 +1,39 @@
 package com.hartwig.hmftools.sage.candidate;
 
 import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
-import com.hartwig.hmftools.common.region.BasePosition;
 import com.hartwig.hmftools.sage.common.RefSequence;
 import com.hartwig.hmftools.sage.common.VariantReadContextBuilder;
 
 import htsjdk.samtools.SAMRecord;
 
-public class RefContext extends BasePosition
+public class RefContext
 {
-    private Map<String,AltContext> mAlts;
+    public final String Chromosome;
+
+    // position is reassigned when the context is recycled by the evicting array
+    private int mPosition;
+
+    // alts are few per position so are searched directly rather than keyed by a ref-alt string
+    private List<AltContext> mAlts;
+
+    // set once any alt has been kept as a candidate, since it then cannot be recycled
+    private boolean mRetained;
 
     public RefContext(final String chromosome, int position)
     {
-        super(chromosome, position);
+        Chromosome = chromosome;
+        mPosition = position;
         mAlts = null;
+        mRetained = false;
     }
 
     public Collection<AltContext> altContexts()
     {
-        return mAlts != null ? mAlts.values() : null;
+        return mAlts;
     }
 
     public void processAltRead(
@@ -40,9 +50,23 @@ public class RefContext extends BasePosition
     }
     public int position()
     {
-        return Position;
+        return mPosition;
     }
 
+    public void markRetained() { mRetained = true; }
+    public boolean isRetained() { return mRetained; }
+
+    public void reset(int position)
+    {
+        // the alt list is kept to avoid reallocating it
+        mPosition = position;
+
+        if(mAlts != null)
+            mAlts.clear();
+    }
+
+    public boolean matches(final String chromosome, int position) { return mPosition == position && Chromosome.equals(chromosome); }
+
     @Override
     public boolean equals(final Object another)
     {
@@ -52,7 +76,7 @@ public class RefContext extends BasePosition
         return another instanceof RefContext && equalTo((RefContext) another);
     }
 
-    private boolean equalTo(final RefContext another) { return matches(another); }
+    private boolean equalTo(final RefContext another) { return matches(another.Chromosome, another.position()); }
 
     @Override
     public int hashCode()
@@ -63,20 +87,21 @@ public class RefContext extends BasePosition
         return h;
     }
 
+    public String toString() { return String.format("%s:%d", Chromosome, mPosition); }
+
     private AltContext getOrCreateAltContext(final String ref, final String alt)
     {
         if(mAlts == null)
-            mAlts = Maps.newHashMap();
-
-        final String refAltKey = ref + "|" + alt;
-        AltContext altContext = mAlts.get(refAltKey);
+            mAlts = Lists.newArrayListWithCapacity(2);
 
-        if(altContext == null)
+        for(AltContext altContext : mAlts)
         {
-            altContext = new AltContext(this, ref, alt);
-            mAlts.put(refAltKey, altContext);
+            if(altContext.Ref.equals(ref) && altContext.Alt.equals(alt))
+                return altContext;
         }
 
+        AltContext altContext = new AltContext(this, ref, alt);
+        mAlts.add(altContext);
         return altContext;
     }
 }
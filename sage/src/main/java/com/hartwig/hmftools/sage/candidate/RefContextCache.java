@@ -43,9 +43,14 @@ public class RefContextCache
 
     public RefContext getOrCreateRefContext(final String chromosome, int position)
     {
-        return mEvictingArray.getOrCreateRefContext(position, aLong -> new RefContext(chromosome, position));
+        return mEvictingArray.getOrCreateRefContext(chromosome, position);
     }
 
+    public void releaseEvicted() { mEvictingArray.releaseEvicted(); }
+
+    public long refContextsCreated() { return mEvictingArray.createdCount(); }
+    public long refContextsRecycled() { return mEvictingArray.recycledCount(); }
+
     public List<AltContext> altContexts()
     {
         mEvictingArray.evictAll();
@@ -71,10 +76,16 @@ public class RefContextCache
             altContext.selectCandidates();
 
             if(altContext.hasValidCandidate())
+            {
                 mSavedCandidates.add(altContext);
+                refContext.markRetained();
+            }
 
             if(altContext.hasSecondCandidate())
+            {
                 mSavedCandidates.add(altContext.secondCandidate());
+                refContext.markRetained();
+            }
         }
     }
 
@@ -95,6 +95,9 @@ public class RefContextConsumer
 
     public void processRead(final SAMRecord record)
     {
+        // contexts evicted while handling the previous read are only reused once its alts have all been applied
+        mRefContextCache.releaseEvicted();
+
         int readStart = record.getAlignmentStart();
         int readEnd = record.getAlignmentEnd();
 
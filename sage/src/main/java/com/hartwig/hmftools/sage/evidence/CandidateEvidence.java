@@ -28,6 +28,8 @@ public class CandidateEvidence
     private final Coverage mCoverage;
 
     private int mTotalReadsProcessed;
+    private long mRefContextsCreated;
+    private long mRefContextsRecycled;
 
     public CandidateEvidence(
             final SageConfig config, final List<SimpleVariant> hotspots, final List<BaseRegion> panel, final Coverage coverage)
@@ -38,9 +40,13 @@ public class CandidateEvidence
         mCoverage = coverage;
 
         mTotalReadsProcessed = 0;
+        mRefContextsCreated = 0;
+        mRefContextsRecycled = 0;
     }
 
     public int totalReadsProcessed() { return mTotalReadsProcessed; }
+    public long refContextsCreated() { return mRefContextsCreated; }
+    public long refContextsRecycled() { return mRefContextsRecycled; }
 
     public List<AltContext> readBam(
             final String sample, final SamSlicerInterface samSlicer, final RefSequence refSequence, final ChrBaseRegion bounds)
@@ -71,6 +77,8 @@ public class CandidateEvidence
         List<AltContext> altContexts = readBam(samSlicer, consumer, refContextCache);
 
         mTotalReadsProcessed += refContextConsumer.getReadCount();
+        mRefContextsCreated += refContextCache.refContextsCreated();
+        mRefContextsRecycled += refContextCache.refContextsRecycled();
 
         return altContexts;
     }
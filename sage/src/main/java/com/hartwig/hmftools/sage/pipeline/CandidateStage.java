@@ -43,6 +43,8 @@ public class CandidateStage
     }
 
     public int totalReadsProcessed() { return mCandidateEvidence.totalReadsProcessed(); }
+    public long refContextsCreated() { return mCandidateEvidence.refContextsCreated(); }
+    public long refContextsRecycled() { return mCandidateEvidence.refContextsRecycled(); }
 
     public List<Candidate> findCandidates(final ChrBaseRegion region, final RefSequence refSequence)
     {
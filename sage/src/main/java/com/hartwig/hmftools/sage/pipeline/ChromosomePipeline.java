@@ -5,15 +5,14 @@ import static java.lang.String.format;
 
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.common.utils.TaskExecutor.runThreadTasks;
-import static com.hartwig.hmftools.sage.ReferenceData.loadRefGenome;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
@@ -21,11 +20,13 @@ import com.hartwig.hmftools.common.gene.TranscriptData;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.ReferenceData;
 import com.hartwig.hmftools.sage.SageCallConfig;
 import com.hartwig.hmftools.sage.common.PartitionTask;
+import com.hartwig.hmftools.sage.common.SamSlicerFactory;
 import com.hartwig.hmftools.sage.common.SimpleVariant;
 import com.hartwig.hmftools.sage.coverage.Coverage;
 import com.hartwig.hmftools.sage.evidence.FragmentLengthWriter;
@@ -34,13 +35,10 @@ import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.quality.MsiJitterCalcs;
 import com.hartwig.hmftools.sage.vcf.VcfWriter;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
-
-public class ChromosomePipeline implements AutoCloseable
+public class ChromosomePipeline
 {
     private final String mChromosome;
     private final SageCallConfig mConfig;
-    private final IndexedFastaSequenceFile mRefGenome;
 
     private final Map<String, BqrRecordMap> mQualityRecalibrationMap;
     private final MsiJitterCalcs mMsiJitterCalcs;
@@ -51,6 +49,8 @@ public class ChromosomePipeline implements AutoCloseable
     private final FragmentLengthWriter mFragmentLengths;
     private final Queue<PartitionTask> mPartitions;
     private final RegionResults mRegionResults;
+    private final int mRegionCount;
+    private final AtomicInteger mCompletedRegions; // only tracked when using genome-wide scheduling
 
     // cache of chromosome-specific ref data
     private final List<BaseRegion> mPanelRegions;
@@ -65,7 +65,6 @@ public class ChromosomePipeline implements AutoCloseable
     {
         mChromosome = chromosome;
         mConfig = config;
-        mRefGenome = loadRefGenome(config.Common.RefGenomeFile);
         mQualityRecalibrationMap = qualityRecalibrationMap;
         mMsiJitterCalcs = msiJitterCalcs;
         mCoverage = coverage;
@@ -83,10 +82,12 @@ public class ChromosomePipeline implements AutoCloseable
         mHighConfidenceRegions = refData.HighConfidence.get(chr);
 
         mPartitions = new ConcurrentLinkedQueue<>();
-        mRegionResults = new RegionResults(vcfWriter);
+        mRegionResults = new RegionResults(vcfWriter, config.GenomeTaskQueue ? chromosome : null);
+        mCompletedRegions = new AtomicInteger();
 
-        // split chromosome into partitions, filtering for the panel if in use
-        ChromosomePartition chrPartition = new ChromosomePartition(config.Common, mRefGenome);
+        // split chromosome into partitions, filtering for the panel if in use - the shared ref genome is only read here, so all
+        // chromosome pipelines can be built up front for genome-wide scheduling without each holding a FASTA handle
+        ChromosomePartition chrPartition = new ChromosomePartition(config.Common, refData.RefGenome);
         List<ChrBaseRegion> partitionedRegions = chrPartition.partition(mChromosome);
 
         int taskId = 0;
@@ -103,6 +104,8 @@ public class ChromosomePipeline implements AutoCloseable
 
             mPartitions.add(new PartitionTask(region, taskId++));
         }
+
+        mRegionCount = mPartitions.size();
     }
 
     public String chromosome()
@@ -110,28 +113,73 @@ public class ChromosomePipeline implements AutoCloseable
         return mChromosome;
     }
 
+    public Queue<PartitionTask> partitions() { return mPartitions; }
+    public int regionCount() { return mRegionCount; }
+
     public void process()
     {
-        int regionCount = mPartitions.size();
-        SG_LOGGER.info("chromosome({}) executing {} regions", mChromosome, regionCount);
+        SG_LOGGER.info("chromosome({}) executing {} regions", mChromosome, mRegionCount);
 
         List<Thread> workers = new ArrayList<>();
 
         for(int i = 0; i < min(mPartitions.size(), mConfig.Common.Threads); ++i)
         {
-            workers.add(new RegionThread(
-                    mChromosome, mConfig, mQualityRecalibrationMap, mMsiJitterCalcs, mCoverage, mPhaseSetCounter,
-                    mPanelRegions, mHotspots, mTranscripts, mHighConfidenceRegions, mPartitions, mRegionResults, mFragmentLengths));
+            workers.add(new RegionThread(mConfig, Map.of(mChromosome, this), mPartitions));
         }
 
         if(!runThreadTasks(workers))
             System.exit(1);
 
-        SG_LOGGER.debug("chromosome({}) {} regions complete, initial candidates({}) final variants({}) reads({})",
-                mChromosome, regionCount, mRegionResults.totalCandidates(), mRegionResults.totalVariants(), mRegionResults.totalReads());
-
         mVcfWriter.flushChromosome();
 
+        logResults();
+    }
+
+    public void onRegionComplete()
+    {
+        if(!mConfig.GenomeTaskQueue)
+            return;
+
+        if(mCompletedRegions.incrementAndGet() < mRegionCount)
+            return;
+
+        // the last region for this chromosome has completed, so its variants can be written once all prior chromosomes are
+        mVcfWriter.completeChromosome(mChromosome);
+
+        logResults();
+    }
+
+    public RegionTask createRegionTask(
+            final PartitionTask partitionTask, final RefGenomeInterface refGenome, final SamSlicerFactory samSlicerFactory)
+    {
+        ChrBaseRegion region = partitionTask.Partition;
+
+        List<BaseRegion> regionPanel = mPanelRegions != null ? mPanelRegions.stream()
+                .filter(x -> positionsOverlap(region.start(), region.end(), x.start(), x.end())).collect(Collectors.toList())
+                : Lists.newArrayList();
+
+        List<SimpleVariant> regionHotspots = mHotspots != null ? mHotspots.stream()
+                .filter(x -> region.containsPosition(x.position())).collect(Collectors.toList()) : Lists.newArrayList();
+
+        List<TranscriptData> regionsTranscripts = mTranscripts != null ? mTranscripts.stream()
+                .filter(x -> positionsOverlap(region.start(), region.end(), x.TransStart, x.TransEnd)).collect(Collectors.toList())
+                : Lists.newArrayList();
+
+        List<BaseRegion> regionHighConfidence = mHighConfidenceRegions != null ? mHighConfidenceRegions.stream()
+                .filter(x -> positionsOverlap(region.start(), region.end(), x.start(), x.end())).collect(Collectors.toList())
+                : Lists.newArrayList();
+
+        return new RegionTask(
+                partitionTask.TaskId, region, mRegionResults, mConfig, refGenome, regionHotspots, regionPanel, regionsTranscripts,
+                regionHighConfidence, mQualityRecalibrationMap, mMsiJitterCalcs, mPhaseSetCounter, mCoverage, samSlicerFactory,
+                mFragmentLengths);
+    }
+
+    private void logResults()
+    {
+        SG_LOGGER.debug("chromosome({}) {} regions complete, initial candidates({}) final variants({}) reads({})",
+                mChromosome, mRegionCount, mRegionResults.totalCandidates(), mRegionResults.totalVariants(), mRegionResults.totalReads());
+
         if(mConfig.Common.logPerfStats())
         {
             mRegionResults.logPerfCounters();
@@ -143,11 +191,4 @@ public class ChromosomePipeline implements AutoCloseable
 
         SG_LOGGER.info("chromosome({}) analysis complete", mChromosome);
     }
-
-    @Override
-    public void close() throws IOException
-    {
-        mRefGenome.close();
-    }
-
 }
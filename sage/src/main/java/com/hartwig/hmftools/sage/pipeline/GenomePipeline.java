@@ -0,0 +1,62 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.common.utils.TaskExecutor.runThreadTasks;
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.hartwig.hmftools.sage.SageCallConfig;
+import com.hartwig.hmftools.sage.common.PartitionTask;
+import com.hartwig.hmftools.sage.vcf.VcfWriter;
+
+public class GenomePipeline
+{
+    private final SageCallConfig mConfig;
+    private final VcfWriter mVcfWriter;
+
+    // chromosomes are processed and written in the order they are added
+    private final Map<String,ChromosomePipeline> mChromosomePipelines;
+
+    public GenomePipeline(final SageCallConfig config, final VcfWriter vcfWriter)
+    {
+        mConfig = config;
+        mVcfWriter = vcfWriter;
+        mChromosomePipelines = new LinkedHashMap<>();
+    }
+
+    public void addChromosome(final ChromosomePipeline chromosomePipeline)
+    {
+        if(chromosomePipeline.regionCount() == 0)
+            return;
+
+        mChromosomePipelines.put(chromosomePipeline.chromosome(), chromosomePipeline);
+        mVcfWriter.registerChromosome(chromosomePipeline.chromosome());
+    }
+
+    public void process()
+    {
+        // all regions across the genome go onto a single queue so threads are not left idle at the end of each chromosome,
+        // while the VCF writer still writes each chromosome's variants in order
+        Queue<PartitionTask> partitions = new ConcurrentLinkedQueue<>();
+        mChromosomePipelines.values().forEach(x -> partitions.addAll(x.partitions()));
+
+        SG_LOGGER.info("executing {} regions across {} chromosomes", partitions.size(), mChromosomePipelines.size());
+
+        List<Thread> workers = new ArrayList<>();
+
+        for(int i = 0; i < min(partitions.size(), mConfig.Common.Threads); ++i)
+        {
+            workers.add(new RegionThread(mConfig, mChromosomePipelines, partitions));
+        }
+
+        if(!runThreadTasks(workers))
+            System.exit(1);
+    }
+}
@@ -2,7 +2,9 @@ package com.hartwig.hmftools.sage.pipeline;
 
 import static java.lang.String.format;
 
+import static com.hartwig.hmftools.common.utils.MemoryCalcs.bytesToMb;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+import static com.hartwig.hmftools.sage.pipeline.RegionTask.PC_CANDIDATES;
 
 import java.util.Arrays;
 import java.util.List;
@@ -18,6 +20,7 @@ import com.hartwig.hmftools.sage.vcf.VcfWriter;
 public class RegionResults
 {
     private final VcfWriter mVcfWriter;
+    private final String mChromosome; // set when regions from multiple chromosomes are written concurrently
     private int mTotalReads;
     private int mCandidates;
     private int mTotaVariants;
@@ -25,15 +28,29 @@ public class RegionResults
     private final int[] mSyncCounts;
     private final EvidenceStats mEvidenceStats;
 
+    // allocations during candidate discovery, only tracked when logging perf stats
+    private long mCandidateAllocatedBytes;
+    private long mRefContextsCreated;
+    private long mRefContextsRecycled;
+
     public RegionResults(final VcfWriter vcfWriter)
+    {
+        this(vcfWriter, null);
+    }
+
+    public RegionResults(final VcfWriter vcfWriter, final String chromosome)
     {
         mVcfWriter = vcfWriter;
+        mChromosome = chromosome;
         mCandidates = 0;
         mTotalReads = 0;
         mTotaVariants = 0;
         mPerfCounters = Lists.newArrayList();
         mSyncCounts = new int[FragmentSyncType.values().length];
         mEvidenceStats = new EvidenceStats();
+        mCandidateAllocatedBytes = 0;
+        mRefContextsCreated = 0;
+        mRefContextsRecycled = 0;
     }
 
     public synchronized void addCandidates(int candidateCount)
@@ -45,7 +62,12 @@ public class RegionResults
     {
         mTotaVariants += variants.size();
 
-        if(mVcfWriter != null)
+        if(mVcfWriter == null)
+            return;
+
+        if(mChromosome != null)
+            mVcfWriter.writeVariants(mChromosome, taskId, variants);
+        else
             mVcfWriter.writeVariants(taskId, variants);
     }
 
@@ -69,6 +91,13 @@ public class RegionResults
         }
     }
 
+    public synchronized void addCandidateAllocations(long allocatedBytes, long refContextsCreated, long refContextsRecycled)
+    {
+        mCandidateAllocatedBytes += allocatedBytes;
+        mRefContextsCreated += refContextsCreated;
+        mRefContextsRecycled += refContextsRecycled;
+    }
+
     public synchronized void addSynCounts(final int[] counts)
     {
         Arrays.stream(FragmentSyncType.values()).forEach(x -> mSyncCounts[x.ordinal()] += counts[x.ordinal()]);
@@ -86,6 +115,15 @@ public class RegionResults
     public void logPerfCounters()
     {
         mPerfCounters.forEach(x -> x.logStats());
+
+        if(mCandidateAllocatedBytes > 0 && mPerfCounters.size() > PC_CANDIDATES)
+        {
+            double candidateTime = mPerfCounters.get(PC_CANDIDATES).getTotalTime();
+            double allocatedMb = bytesToMb(mCandidateAllocatedBytes);
+
+            SG_LOGGER.debug(format("candidate allocations(%.1fMB) rate(%.1fMB/s) refContexts(created=%d recycled=%d)",
+                    allocatedMb, candidateTime > 0 ? allocatedMb / candidateTime : 0, mRefContextsCreated, mRefContextsRecycled));
+        }
     }
     public EvidenceStats evidenceStats() { return mEvidenceStats; }
 
@@ -2,6 +2,7 @@ package com.hartwig.hmftools.sage.pipeline;
 
 import static java.lang.String.format;
 
+import static com.hartwig.hmftools.common.utils.MemoryCalcs.threadAllocatedBytes;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
 import java.util.List;
@@ -100,10 +101,19 @@ public class RegionTask
 
         final RefSequence refSequence = new RefSequence(mRegion, mRefGenome);
 
+        long allocatedBytesStart = mConfig.Common.logPerfStats() ? threadAllocatedBytes() : -1;
+
         mPerfCounters.get(PC_CANDIDATES).start();
         List<Candidate> initialCandidates = mCandidateState.findCandidates(mRegion, refSequence);
         mPerfCounters.get(PC_CANDIDATES).stop();
 
+        if(allocatedBytesStart >= 0)
+        {
+            mResults.addCandidateAllocations(
+                    threadAllocatedBytes() - allocatedBytesStart, mCandidateState.refContextsCreated(),
+                    mCandidateState.refContextsRecycled());
+        }
+
         if(mConfig.Common.PerfWarnTime > 0 && mPerfCounters.get(PC_CANDIDATES).getLastTime() > mConfig.Common.PerfWarnTime)
         {
             SG_LOGGER.warn("region({}) candidate({}) reads({}) processing time({})",
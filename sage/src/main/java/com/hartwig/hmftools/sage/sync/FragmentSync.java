@@ -1,19 +1,23 @@
 package com.hartwig.hmftools.sage.sync;
 
+import static java.lang.Integer.MAX_VALUE;
+
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 import static com.hartwig.hmftools.sage.sync.FragmentSyncType.CIGAR_MISMATCH;
 import static com.hartwig.hmftools.sage.sync.FragmentSyncType.NO_OVERLAP;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource;
+import com.hartwig.hmftools.common.genome.refgenome.TwoBitRefGenome;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
@@ -145,19 +149,37 @@ public class FragmentSync
 
     private SAMFileHeader buildRefSamHeader(final RefGenomeInterface refGenomeInterface)
     {
-        if(!(refGenomeInterface instanceof RefGenomeSource))
-            return null;
+        SAMSequenceDictionary dictionary = new SAMSequenceDictionary();
 
-        RefGenomeSource refGenomeSource = (RefGenomeSource)refGenomeInterface;
-        List<SAMSequenceRecord> sequenceRecords = Lists.newArrayList();
+        if(refGenomeInterface instanceof RefGenomeSource)
+        {
+            RefGenomeSource refGenomeSource = (RefGenomeSource)refGenomeInterface;
+            SAMSequenceDictionary refGenomeDict = refGenomeSource.refGenomeFile().getSequenceDictionary();
 
-        SAMSequenceDictionary refGenomeDict = refGenomeSource.refGenomeFile().getSequenceDictionary();
-        SAMSequenceDictionary dictionary = new SAMSequenceDictionary();
+            for(SAMSequenceRecord sequence : refGenomeDict.getSequences())
+            {
+                if(HumanChromosome.contains(sequence.getSequenceName()) || MitochondrialChromosome.contains(sequence.getSequenceName()))
+                    dictionary.addSequence(sequence);
+            }
+        }
+        else if(refGenomeInterface instanceof TwoBitRefGenome)
+        {
+            // a shared ref genome image has no sequence dictionary, so form one in standard chromosome order
+            Map<String,Integer> chromosomeLengths = refGenomeInterface.chromosomeLengths();
+
+            Comparator<String> chromosomeOrder = Comparator.comparingInt(
+                    x -> HumanChromosome.contains(x) ? HumanChromosome.fromString(x).ordinal() : MAX_VALUE);
 
-        for(SAMSequenceRecord sequence : refGenomeDict.getSequences())
+            List<String> chromosomes = chromosomeLengths.keySet().stream()
+                    .filter(x -> HumanChromosome.contains(x) || MitochondrialChromosome.contains(x))
+                    .sorted(chromosomeOrder)
+                    .collect(Collectors.toList());
+
+            chromosomes.forEach(x -> dictionary.addSequence(new SAMSequenceRecord(x, chromosomeLengths.get(x))));
+        }
+        else
         {
-            if(HumanChromosome.contains(sequence.getSequenceName()) || MitochondrialChromosome.contains(sequence.getSequenceName()))
-                dictionary.addSequence(sequence);
+            return null;
         }
 
         return new SAMFileHeader(dictionary);
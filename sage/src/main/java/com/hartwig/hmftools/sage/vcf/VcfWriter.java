@@ -1,8 +1,13 @@
 package com.hartwig.hmftools.sage.vcf;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.sage.SageConfig;
 import com.hartwig.hmftools.sage.common.SageVariant;
 
@@ -13,53 +18,78 @@ public class VcfWriter
     private final List<String> mTumorIds;
     private final List<String> mReferenceIds;
     private final VariantVCF mVcfFile;
+    private final Consumer<SageVariant> mVariantWriter;
 
     // state to write variants in order
     private int mLastWrittenIndex;
     private final List<CompleteVariants> mCompletedVariants;
 
+    // state for genome-wide scheduling, where regions from any chromosome can complete in any order
+    private final List<String> mPendingChromosomes;
+    private final Map<String,ChromosomeVariants> mChromosomeVariants;
+
     public VcfWriter(
             final SageConfig config, final List<String> tumorIds, final List<String> referenceIds, final IndexedFastaSequenceFile refGenome)
     {
         mTumorIds = tumorIds;
         mReferenceIds = referenceIds;
         mVcfFile = new VariantVCF(refGenome, config, tumorIds, referenceIds);
+        mVariantWriter = x -> mVcfFile.write(VariantContextFactory.create(x, mReferenceIds, mTumorIds));
+        mCompletedVariants = Lists.newArrayList();
+        mLastWrittenIndex = -1;
+        mPendingChromosomes = Lists.newArrayList();
+        mChromosomeVariants = Maps.newHashMap();
+    }
+
+    @VisibleForTesting
+    public VcfWriter(final Consumer<SageVariant> variantWriter)
+    {
+        mTumorIds = Collections.emptyList();
+        mReferenceIds = Collections.emptyList();
+        mVcfFile = null;
+        mVariantWriter = variantWriter;
         mCompletedVariants = Lists.newArrayList();
         mLastWrittenIndex = -1;
+        mPendingChromosomes = Lists.newArrayList();
+        mChromosomeVariants = Maps.newHashMap();
     }
 
     public void writeVariants(int taskIndex, final List<SageVariant> variants)
+    {
+        addCompletedVariants(mCompletedVariants, taskIndex, variants);
+        mLastWrittenIndex = checkQueue(mCompletedVariants, mLastWrittenIndex);
+    }
+
+    private static void addCompletedVariants(final List<CompleteVariants> completedVariants, int taskIndex, final List<SageVariant> variants)
     {
         // queue the newly completed variants then check which completed regions can be written
         int index = 0;
-        while(index < mCompletedVariants.size())
+        while(index < completedVariants.size())
         {
-            if(taskIndex < mCompletedVariants.get(index).TaskIndex)
+            if(taskIndex < completedVariants.get(index).TaskIndex)
                 break;
 
             ++index;
         }
 
-        mCompletedVariants.add(index, new CompleteVariants(taskIndex, variants));
-
-        checkQueue();
+        completedVariants.add(index, new CompleteVariants(taskIndex, variants));
     }
 
-    private void checkQueue()
+    private int checkQueue(final List<CompleteVariants> completedVariants, int lastWrittenIndex)
     {
         // write up until the set of second last successive completed region
         // eg if regions 0, 1, 3 are queued then only 0 will be written, and then 1 will be written when 2 arrives
         // this is so variants in a next region with earlier spanning positions can be included in the one being written
         int index = 0;
-        while(index < mCompletedVariants.size() - 1)
+        while(index < completedVariants.size() - 1)
         {
-            CompleteVariants completeVariants = mCompletedVariants.get(index);
+            CompleteVariants completeVariants = completedVariants.get(index);
 
-            if(completeVariants.TaskIndex > mLastWrittenIndex + 1) // break if there is a gap
-                return;
+            if(completeVariants.TaskIndex > lastWrittenIndex + 1) // break if there is a gap
+                break;
 
             // break if the next set of variants hasn't completed yet
-            CompleteVariants nextCompleteVariants = mCompletedVariants.get(index + 1);
+            CompleteVariants nextCompleteVariants = completedVariants.get(index + 1);
 
             if(nextCompleteVariants.TaskIndex > completeVariants.TaskIndex + 1)
                 break;
@@ -67,12 +97,14 @@ public class VcfWriter
             checkLaterVariants(completeVariants, nextCompleteVariants);
 
             writeVariants(completeVariants.Variants);
-            mLastWrittenIndex = completeVariants.TaskIndex;
-            mCompletedVariants.remove(index);
+            lastWrittenIndex = completeVariants.TaskIndex;
+            completedVariants.remove(index);
         }
+
+        return lastWrittenIndex;
     }
 
-    private void checkLaterVariants(final CompleteVariants completeVariants, final CompleteVariants nextCompleteVariants)
+    private static void checkLaterVariants(final CompleteVariants completeVariants, final CompleteVariants nextCompleteVariants)
     {
         if(completeVariants.Variants.isEmpty() || nextCompleteVariants.Variants.isEmpty())
             return;
@@ -106,27 +138,91 @@ public class VcfWriter
 
     public void flushChromosome()
     {
-        for(int i = 0; i < mCompletedVariants.size() - 1; ++i)
+        flushCompletedVariants(mCompletedVariants);
+        mLastWrittenIndex = -1;
+    }
+
+    private void flushCompletedVariants(final List<CompleteVariants> completedVariants)
+    {
+        for(int i = 0; i < completedVariants.size() - 1; ++i)
         {
-            checkLaterVariants(mCompletedVariants.get(i), mCompletedVariants.get(i + 1));
+            checkLaterVariants(completedVariants.get(i), completedVariants.get(i + 1));
         }
 
-        mCompletedVariants.forEach(x -> writeVariants(x.Variants));
-        mCompletedVariants.clear();
-        mLastWrittenIndex = -1;
+        completedVariants.forEach(x -> writeVariants(x.Variants));
+        completedVariants.clear();
+    }
+
+    // methods for genome-wide scheduling - chromosomes are written in the order they are registered, with each chromosome's
+    // completed regions buffered until all prior chromosomes have been written
+    public synchronized void registerChromosome(final String chromosome)
+    {
+        mPendingChromosomes.add(chromosome);
+        mChromosomeVariants.put(chromosome, new ChromosomeVariants());
+    }
+
+    public synchronized void writeVariants(final String chromosome, int taskIndex, final List<SageVariant> variants)
+    {
+        ChromosomeVariants chrVariants = mChromosomeVariants.get(chromosome);
+        addCompletedVariants(chrVariants.CompletedVariants, taskIndex, variants);
+
+        if(isCurrentChromosome(chromosome))
+            chrVariants.LastWrittenIndex = checkQueue(chrVariants.CompletedVariants, chrVariants.LastWrittenIndex);
+    }
+
+    public synchronized void completeChromosome(final String chromosome)
+    {
+        mChromosomeVariants.get(chromosome).Complete = true;
+
+        // write out all leading completed chromosomes, then any regions ready to write in the next in-progress chromosome
+        while(!mPendingChromosomes.isEmpty())
+        {
+            String currentChromosome = mPendingChromosomes.get(0);
+            ChromosomeVariants chrVariants = mChromosomeVariants.get(currentChromosome);
+
+            if(!chrVariants.Complete)
+            {
+                chrVariants.LastWrittenIndex = checkQueue(chrVariants.CompletedVariants, chrVariants.LastWrittenIndex);
+                break;
+            }
+
+            flushCompletedVariants(chrVariants.CompletedVariants);
+            mPendingChromosomes.remove(0);
+            mChromosomeVariants.remove(currentChromosome);
+        }
+    }
+
+    private boolean isCurrentChromosome(final String chromosome)
+    {
+        return !mPendingChromosomes.isEmpty() && mPendingChromosomes.get(0).equals(chromosome);
     }
 
     private void writeVariants(final List<SageVariant> variants)
     {
-        variants.forEach(x -> mVcfFile.write(VariantContextFactory.create(x, mReferenceIds, mTumorIds)));
+        variants.forEach(mVariantWriter);
     }
 
     public void close()
     {
-        mVcfFile.close();
+        if(mVcfFile != null)
+            mVcfFile.close();
+    }
+
+    private static class ChromosomeVariants
+    {
+        public final List<CompleteVariants> CompletedVariants;
+        public int LastWrittenIndex;
+        public boolean Complete;
+
+        public ChromosomeVariants()
+        {
+            CompletedVariants = Lists.newArrayList();
+            LastWrittenIndex = -1;
+            Complete = false;
+        }
     }
 
-    private class CompleteVariants
+    private static class CompleteVariants
     {
         public final int TaskIndex;
         public final List<SageVariant> Variants;
@@ -10,6 +10,7 @@ import static com.hartwig.hmftools.sage.common.VariantUtils.TEST_LEFT_FLANK;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertTrue;
 
 import java.util.Collections;
 import java.util.List;
@@ -17,6 +18,7 @@ import java.util.List;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.common.RefSequence;
 import com.hartwig.hmftools.sage.common.SimpleVariant;
+import com.hartwig.hmftools.sage.filter.FilterConfig;
 
 import org.junit.Test;
 
@@ -116,4 +118,61 @@ public class CandidateCreationTest
         AltContext snvInsert = altContexts.stream().filter(x -> x.Ref.equals(variant.ref()) && x.Alt.equals("GT")).findFirst().orElse(null);
         assertNotNull(snvInsert);
     }
+
+    @Test
+    public void testReadSpanningEvictionBuffer()
+    {
+        // a read whose alignment spans more than the evicting array's buffer evicts its own earlier ref context before its
+        // alts are applied, which must not then be reused for a later position within the same read
+        String refBases = REF_BASES_200.repeat(7);
+        RefSequence refSequence = new RefSequence(0, refBases.getBytes());
+
+        ChrBaseRegion region = new ChrBaseRegion(CHR_1, 1, 1299);
+
+        RefContextCache refContextCache = new RefContextCache(TEST_CONFIG, Collections.emptyList(), Collections.emptyList());
+        RefContextConsumer refContextConsumer = new RefContextConsumer(TEST_CONFIG, region, refSequence, refContextCache, Collections.emptyList());
+
+        // SNVs at 120, before the skipped region, and at 1160 after it
+        int firstPosition = 120;
+        int secondPosition = 1160;
+        String firstAlt = switchBase(refBases.charAt(firstPosition));
+        String secondAlt = switchBase(refBases.charAt(secondPosition));
+
+        String readBases = refBases.substring(100, firstPosition) + firstAlt + refBases.substring(firstPosition + 1, 140)
+                + refBases.substring(1140, secondPosition) + secondAlt + refBases.substring(secondPosition + 1, 1180);
+
+        SAMRecord read = buildSamRecord(100, "40M1000N40M", readBases);
+        read.setMappingQuality(60);
+
+        int minAltSupport = FilterConfig.HardMinTumorRawAltSupport;
+        FilterConfig.HardMinTumorRawAltSupport = 1;
+
+        try
+        {
+            refContextConsumer.processRead(read);
+
+            List<AltContext> altContexts = refContextCache.altContexts();
+
+            // the first SNV's context was evicted before its alt was applied so it is dropped, but must not land on a reused context
+            String firstRef = String.valueOf(refBases.charAt(firstPosition));
+            assertTrue(altContexts.stream().noneMatch(x -> x.Ref.equals(firstRef) && x.Alt.equals(firstAlt) && x.position() != firstPosition));
+
+            assertEquals(1, altContexts.size());
+
+            AltContext secondSnv = altContexts.get(0);
+            assertEquals(secondPosition, secondSnv.position());
+            assertEquals(String.valueOf(refBases.charAt(secondPosition)), secondSnv.Ref);
+            assertEquals(secondAlt, secondSnv.Alt);
+            assertEquals(1, secondSnv.RefContext.altContexts().size());
+        }
+        finally
+        {
+            FilterConfig.HardMinTumorRawAltSupport = minAltSupport;
+        }
+    }
+
+    private static String switchBase(char base)
+    {
+        return base == 'A' ? "C" : "A";
+    }
 }
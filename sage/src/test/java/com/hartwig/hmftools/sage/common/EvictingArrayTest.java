@@ -18,7 +18,6 @@ import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.gene.GeneData;
 import com.hartwig.hmftools.common.genome.region.Strand;
 import com.hartwig.hmftools.common.hla.HlaCommon;
-import com.hartwig.hmftools.common.region.BasePosition;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.candidate.EvictingArray;
@@ -89,13 +88,13 @@ public class EvictingArrayTest
 
         int startPosition = 1000;
         int minPosition = startPosition - evictingArray.readLengthBuffer();
-        evictingArray.getOrCreateRefContext(startPosition, EvictingArrayTest::create);
+        evictingArray.getOrCreateRefContext(CHR_1, startPosition);
         assertEquals(minPosition, evictingArray.minPosition());
 
         int position = startPosition;
         for(; position < minPosition + capacity; position++)
         {
-            evictingArray.getOrCreateRefContext(position, EvictingArrayTest::create);
+            evictingArray.getOrCreateRefContext(CHR_1, position);
         }
 
         assertEquals(120, evictingArray.itemCount());
@@ -105,7 +104,7 @@ public class EvictingArrayTest
 
         for(; position < 1400; position++)
         {
-            evictingArray.getOrCreateRefContext(position, EvictingArrayTest::create);
+            evictingArray.getOrCreateRefContext(CHR_1, position);
         }
 
         assertEquals(1080, evictingArray.minPosition());
@@ -114,7 +113,7 @@ public class EvictingArrayTest
 
         for(; position < 1600; position++)
         {
-            evictingArray.getOrCreateRefContext(position, EvictingArrayTest::create);
+            evictingArray.getOrCreateRefContext(CHR_1, position);
         }
 
         assertEquals(1200, evictingArray.minPosition());
@@ -123,7 +122,7 @@ public class EvictingArrayTest
 
         // evict all but the last
 
-        evictingArray.getOrCreateRefContext(2000, EvictingArrayTest::create);
+        evictingArray.getOrCreateRefContext(CHR_1, 2000);
         assertEquals(1, evictingArray.itemCount());
         assertEquals(600, handler.items().size());
 
@@ -131,23 +130,30 @@ public class EvictingArrayTest
         evictingArray.evictAll();
         assertEquals(0, evictingArray.itemCount());
         assertEquals(601, handler.items().size());
+
+        // evicted contexts which were not retained are only reused once released
+        assertEquals(601, evictingArray.createdCount());
+        assertEquals(0, evictingArray.recycledCount());
+
+        evictingArray.releaseEvicted();
+
+        RefContext refContext = evictingArray.getOrCreateRefContext(CHR_1, 3000);
+        assertEquals(601, evictingArray.createdCount());
+        assertEquals(1, evictingArray.recycledCount());
+        assertEquals(3000, refContext.position());
+        assertTrue(refContext.altContexts() == null || refContext.altContexts().isEmpty());
     }
 
     static class EvictionHandler implements Consumer<RefContext>
     {
-        private final List<BasePosition> mItems = Lists.newArrayList();
+        private final List<Integer> mItems = Lists.newArrayList();
 
-        public List<BasePosition> items() { return mItems; }
+        public List<Integer> items() { return mItems; }
 
         @Override
         public void accept(final RefContext position)
         {
-            mItems.add(position);
+            mItems.add(position.position());
         }
     }
-
-    private static RefContext create(int pos)
-    {
-        return new RefContext(CHR_1, pos);
-    }
 }
@@ -0,0 +1,84 @@
+package com.hartwig.hmftools.sage.vcf;
+
+import static com.hartwig.hmftools.sage.common.VariantUtils.createSageVariant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.common.SageVariant;
+
+import org.junit.Test;
+
+public class VcfWriterTest
+{
+    // positions encode chromosome, region and variant so the written order can be checked against dictionary order
+    private static int variantPosition(int chromosome, int region, int index) { return chromosome * 100000 + region * 1000 + index * 10 + 1; }
+
+    private static List<SageVariant> regionVariants(int chromosome, int region)
+    {
+        List<SageVariant> variants = Lists.newArrayList();
+
+        for(int i = 0; i < 3; ++i)
+        {
+            variants.add(createSageVariant(variantPosition(chromosome, region, i), "A", "C"));
+        }
+
+        return variants;
+    }
+
+    @Test
+    public void testOutOfOrderChromosomesAndRegions()
+    {
+        List<Integer> writtenPositions = Lists.newArrayList();
+        VcfWriter writer = new VcfWriter(x -> writtenPositions.add(x.position()));
+
+        writer.registerChromosome("1");
+        writer.registerChromosome("2");
+        writer.registerChromosome("3");
+
+        // the last chromosome completes first, with its regions out of order
+        writer.writeVariants("3", 1, regionVariants(3, 1));
+        writer.writeVariants("2", 0, regionVariants(2, 0));
+        writer.writeVariants("3", 0, regionVariants(3, 0));
+        writer.writeVariants("3", 2, regionVariants(3, 2));
+        writer.completeChromosome("3");
+        assertTrue(writtenPositions.isEmpty());
+
+        // regions of the first chromosome are written once they and the following region have completed
+        writer.writeVariants("1", 2, regionVariants(1, 2));
+        writer.writeVariants("1", 0, regionVariants(1, 0));
+        assertTrue(writtenPositions.isEmpty());
+
+        writer.writeVariants("1", 1, regionVariants(1, 1));
+        assertEquals(6, writtenPositions.size());
+        assertEquals(variantPosition(1, 1, 2), (int)writtenPositions.get(5));
+
+        writer.writeVariants("2", 2, regionVariants(2, 2));
+        writer.writeVariants("2", 1, regionVariants(2, 1));
+
+        // completing the first chromosome flushes it and writes what is ready from the second
+        writer.completeChromosome("1");
+        assertEquals(9 + 6, writtenPositions.size());
+        assertEquals(variantPosition(2, 1, 2), (int)writtenPositions.get(writtenPositions.size() - 1));
+
+        writer.completeChromosome("2");
+
+        List<Integer> expectedPositions = Lists.newArrayList();
+
+        for(int chromosome = 1; chromosome <= 3; ++chromosome)
+        {
+            for(int region = 0; region < 3; ++region)
+            {
+                for(int i = 0; i < 3; ++i)
+                {
+                    expectedPositions.add(variantPosition(chromosome, region, i));
+                }
+            }
+        }
+
+        assertEquals(expectedPositions, writtenPositions);
+    }
+}